@@ -0,0 +1,35 @@
+package org.deeplearning4j.api.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Aggregated values of a time series metric (see {@link TimeSeriesPersistable}) for a contiguous range of updates, as
+ * returned by {@link TimeSeriesStatsStorage#getTimeSeries(String, String, String, String, RangeType, long, long, int)}
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeSeriesBucket implements Serializable {
+
+    /**
+     * Whether a time series range is specified in terms of update timestamps, or iteration numbers
+     */
+    public enum RangeType {
+        Timestamp, Iteration
+    }
+
+    private long startTimestamp;
+    private long endTimestamp;
+    private int startIteration;
+    private int endIteration;
+    /** Number of (finite) values aggregated in this bucket */
+    private int count;
+    private double min;
+    private double max;
+    private double mean;
+
+}
@@ -0,0 +1,25 @@
+package org.deeplearning4j.api.storage;
+
+import java.util.Map;
+
+/**
+ * A {@link Persistable} update that provides numerical values (such as the score) that can be plotted over time.<br>
+ * {@link TimeSeriesStatsStorage} implementations aggregate these values as the updates are stored, so that they can
+ * be queried via
+ * {@link TimeSeriesStatsStorage#getTimeSeries(String, String, String, String, TimeSeriesBucket.RangeType, long, long, int)}
+ * without retrieving and decoding every stored update.
+ */
+public interface TimeSeriesPersistable extends Persistable {
+
+    /**
+     * @return Iteration number for this update
+     */
+    int getIterationCount();
+
+    /**
+     * @return Values for this update, keyed by metric name. Values that are not available for this update should
+     *         be omitted
+     */
+    Map<String, Double> getTimeSeriesValues();
+
+}
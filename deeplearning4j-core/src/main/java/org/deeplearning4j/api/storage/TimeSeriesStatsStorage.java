@@ -0,0 +1,46 @@
+package org.deeplearning4j.api.storage;
+
+import java.util.List;
+
+/**
+ * A {@link StatsStorage} that maintains aggregates of the {@link TimeSeriesPersistable} updates it stores, so that
+ * time series (such as the score vs. iteration) can be queried without retrieving and decoding every stored update.<br>
+ * For storage implementations that do not implement this interface, see
+ * {@link org.deeplearning4j.api.storage.impl.TimeSeriesAggregator#getTimeSeries(StatsStorage, String, String, String,
+ * String, TimeSeriesBucket.RangeType, long, long, int)}, which falls back to a scan over all stored updates.
+ *
+*/
+public interface TimeSeriesStatsStorage extends StatsStorage {
+
+    /**
+     * List the names of the time series metrics available for the given session, type and worker IDs. See
+     * {@link TimeSeriesPersistable}
+     *
+     * @param sessionID Session ID
+     * @param typeID    Type ID
+     * @param workerID  Worker ID
+     * @return Names of the available metrics
+     */
+    List<String> listTimeSeriesMetrics(String sessionID, String typeID, String workerID);
+
+    /**
+     * Get aggregated (min/max/mean) values for the specified time series metric, for all updates in the specified
+     * range. The values are aggregated incrementally as updates are stored, hence this is much cheaper than
+     * retrieving and decoding all updates in the range.<br>
+     * Note that the resolution of the stored aggregates is limited: buckets partially overlapping the start or end
+     * of the range are included in full.
+     *
+     * @param sessionID  Session ID
+     * @param typeID     Type ID
+     * @param workerID   Worker ID
+     * @param metric     Name of the metric, as per {@link TimeSeriesPersistable#getTimeSeriesValues()}
+     * @param rangeType  Whether the range is specified in terms of timestamps or iterations
+     * @param rangeStart Start of the range (inclusive)
+     * @param rangeEnd   End of the range (inclusive)
+     * @param maxBuckets Maximum number of buckets to return
+     * @return Buckets, in order of time. Empty list if no data is available
+     */
+    List<TimeSeriesBucket> getTimeSeries(String sessionID, String typeID, String workerID, String metric,
+                    TimeSeriesBucket.RangeType rangeType, long rangeStart, long rangeEnd, int maxBuckets);
+
+}
@@ -0,0 +1,180 @@
+package org.deeplearning4j.api.storage.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.api.storage.Persistable;
+import org.deeplearning4j.api.storage.StatsStorageRouter;
+import org.deeplearning4j.api.storage.StorageMetaData;
+import org.deeplearning4j.api.storage.StorageType;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary format for posting many {@link StorageMetaData}/{@link Persistable} objects to a remote UI in a single
+ * request, as used by {@link RemoteUIStatsStorageRouter} and the UI's remote receiver bulk endpoint.<br>
+ * <br>
+ * Format: int magic ({@link #MAGIC}), byte version, byte flags ({@link #FLAG_COMPRESSED}), then the body - optionally
+ * deflate compressed - consisting of int number of entries, then for each entry: byte storage type (ordinal of
+ * {@link StorageType}), UTF class name, int length, and the encoded object ({@link Persistable#encode()}).
+ */
+@Slf4j
+public class RemoteUIBatchFormat {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+    public static final int MAGIC = 0x444C3442; //"DL4B"
+    public static final byte VERSION = 1;
+    public static final byte FLAG_COMPRESSED = 1;
+    /**
+     * Maximum size of a batch, in bytes. For compressed batches, this applies to the decompressed entries
+     */
+    public static final int MAX_BATCH_BYTES = 64 * 1024 * 1024;
+
+    private RemoteUIBatchFormat() {}
+
+    /**
+     * A single object in a batch
+     */
+    @AllArgsConstructor
+    @Data
+    public static class Entry {
+        private final StorageType type;
+        private final Persistable persistable;
+    }
+
+    /**
+     * Encode the entries as a batch
+     *
+     * @param entries  Entries to encode
+     * @param compress If true: deflate compress the body
+     * @return Encoded batch
+     */
+    public static byte[] encode(List<Entry> entries, boolean compress) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(baos);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(compress ? FLAG_COMPRESSED : 0);
+        header.flush();
+
+        Deflater deflater = null;
+        OutputStream bodyStream = baos;
+        if (compress) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            bodyStream = new DeflaterOutputStream(baos, deflater, 8192);
+        }
+        try {
+            DataOutputStream dos = new DataOutputStream(bodyStream);
+            dos.writeInt(entries.size());
+            for (Entry e : entries) {
+                byte[] bytes = e.getPersistable().encode();
+                dos.writeByte(e.getType().ordinal());
+                dos.writeUTF(e.getPersistable().getClass().getName());
+                dos.writeInt(bytes.length);
+                dos.write(bytes);
+            }
+            dos.flush();
+            if (compress) {
+                ((DeflaterOutputStream) bodyStream).finish();
+            }
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Decode a batch. Entries that cannot be decoded (for example, due to an unknown class) are skipped.
+     *
+     * @param bytes Encoded batch, as per {@link #encode(List, boolean)}
+     * @return Decoded entries
+     * @throws IOException If the batch is invalid, or larger than {@link #MAX_BATCH_BYTES}
+     */
+    public static List<Entry> decode(byte[] bytes) throws IOException {
+        ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+        DataInputStream header = new DataInputStream(bais);
+        int magic = header.readInt();
+        if (magic != MAGIC)
+            throw new IOException("Invalid remote UI batch: unexpected header");
+        byte version = header.readByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported remote UI batch version: " + version);
+        boolean compressed = (header.readByte() & FLAG_COMPRESSED) != 0;
+
+        InputStream bodyStream = header;
+        if (compressed) {
+            bodyStream = new InflaterInputStream(header);
+        }
+        DataInputStream dis = new DataInputStream(bodyStream);
+        int n = dis.readInt();
+        if (n < 0)
+            throw new IOException("Invalid remote UI batch: negative number of entries");
+        StorageType[] types = StorageType.values();
+        List<Entry> out = new ArrayList<>(Math.min(n, 1024));
+        long totalLength = 0;
+        for (int i = 0; i < n; i++) {
+            int typeIdx = dis.readByte();
+            String className = dis.readUTF();
+            int length = dis.readInt();
+            if (length < 0)
+                throw new IOException("Invalid remote UI batch: negative entry length");
+            //Check the length before allocating: an uncompressed entry can't be longer than the remaining input, and
+            // the total (decompressed) size of all entries is limited
+            totalLength += length;
+            if ((!compressed && length > bais.available()) || totalLength > MAX_BATCH_BYTES)
+                throw new IOException("Invalid remote UI batch: entry length " + length
+                                + " exceeds remaining input or maximum batch size");
+            byte[] data = new byte[length];
+            dis.readFully(data);
+
+            if (typeIdx < 0 || typeIdx >= types.length) {
+                log.warn("Skipping invalid remote data: unknown storage type {}", typeIdx);
+                continue;
+            }
+            StorageType type = types[typeIdx];
+            Class<?> expectedClass = (type == StorageType.MetaData ? StorageMetaData.class : Persistable.class);
+            Persistable p;
+            try {
+                Class<?> c = Class.forName(className);
+                if (!expectedClass.isAssignableFrom(c)) {
+                    log.warn("Skipping invalid remote data: class {} in not an instance of {}", className,
+                                    expectedClass.getName());
+                    continue;
+                }
+                p = (Persistable) c.newInstance();
+                p.decode(data);
+            } catch (Exception e) {
+                log.warn("Skipping invalid remote data: exception encountered for class {}", className, e);
+                continue;
+            }
+            out.add(new Entry(type, p));
+        }
+        return out;
+    }
+
+    /**
+     * Route the decoded entries to the specified router, in order
+     */
+    public static void route(List<Entry> entries, StatsStorageRouter router) {
+        for (Entry e : entries) {
+            switch (e.getType()) {
+                case MetaData:
+                    router.putStorageMetaData((StorageMetaData) e.getPersistable());
+                    break;
+                case StaticInfo:
+                    router.putStaticInfo(e.getPersistable());
+                    break;
+                case Update:
+                    router.putUpdate(e.getPersistable());
+                    break;
+            }
+        }
+    }
+}
@@ -10,21 +10,28 @@ import org.deeplearning4j.api.storage.StorageType;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
 
 import javax.xml.bind.DatatypeConverter;
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.*;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Asynchronously post all updates to a remote UI that has remote listening enabled.<br>
  * Typically used with UIServer (don't forget to enable remote listener support - UIServer.getInstance().enableRemoteListener()
+ * <br>
+ * Objects are queued and posted by a background thread. By default, all objects queued at the time of posting (up to the
+ * maximum batch size) are posted together in a single request to the remote UI's bulk endpoint, in the binary format
+ * defined by {@link RemoteUIBatchFormat} (optionally compressed). If the remote UI does not support the bulk endpoint,
+ * objects are posted individually instead.<br>
+ * The number of queued updates is bounded: if the remote UI can't keep up, updates are dropped as per the
+ * {@link DropPolicy}. Storage metadata and static info are never dropped.
  *
  * @author Alex Black
  */
@@ -47,17 +54,49 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
      * Default backoff multiplicative factor for retrying
      */
     public static final double DEFAULT_RETRY_BACKOFF_FACTOR = 2.0;
+    /**
+     * Suffix added to the path for posting batches - i.e., http://localhost:9000/remoteReceive/batch or similar
+     */
+    public static final String BATCH_PATH_SUFFIX = "/batch";
+    /**
+     * Default maximum number of objects to post in a single request
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    /**
+     * Default maximum number of updates to queue before dropping updates
+     */
+    public static final int DEFAULT_MAX_QUEUED_UPDATES = 10000;
+
+    /**
+     * What to do when an update is posted, but the maximum number of updates are already queued:<br>
+     * DropOldest: remove the oldest queued update (not yet being posted) to make room for the new one<br>
+     * DropNewest: drop the new update
+     */
+    public enum DropPolicy {
+        DropOldest, DropNewest
+    }
 
     private static final long MAX_SHUTDOWN_WARN_COUNT = 5;
+    private static final long MAX_DROP_WARN_COUNT = 5;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
 
     private final String USER_AGENT = "Mozilla/5.0";
 
     private URL url;
+    private URL batchUrl;
     private int maxRetryCount;
     private long retryDelayMS;
     private double retryBackoffFactor;
+    private int maxBatchSize;
+    private boolean compress;
+    private int maxQueuedUpdates;
+    private DropPolicy dropPolicy;
+    private volatile boolean useBatchEndpoint;
 
     private LinkedBlockingDeque<ToPost> queue = new LinkedBlockingDeque<>();
+    //Number of updates queued or currently being posted
+    private AtomicInteger numQueuedUpdates = new AtomicInteger(0);
+    private AtomicLong numDroppedUpdates = new AtomicLong(0);
 
     private Thread postThread;
 
@@ -97,9 +136,37 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
      */
     public RemoteUIStatsStorageRouter(String address, String path, int maxRetryCount, long retryDelayMS,
                     double retryBackoffFactor) {
+        this(address, path, maxRetryCount, retryDelayMS, retryBackoffFactor, DEFAULT_MAX_BATCH_SIZE, true,
+                        DEFAULT_MAX_QUEUED_UPDATES, DropPolicy.DropOldest);
+    }
+
+    /**
+     * @param address            Address of the remote UI: for example, "http://localhost:9000"
+     * @param path               Path/endpoint to post to: for example "remoteReceive" -> added to path to become like
+     *                           "http://localhost:9000/remoteReceive". Batches are posted to this path plus
+     *                           {@link #BATCH_PATH_SUFFIX}
+     * @param maxRetryCount      Maximum number of retries before failing. Set to -1 to always retry
+     * @param retryDelayMS       Base delay before retrying, in milliseconds
+     * @param retryBackoffFactor Backoff factor for retrying
+     * @param maxBatchSize       Maximum number of objects to post in a single request. If 1: the batch endpoint is not
+     *                           used, and each object is posted individually
+     * @param compress           Whether to compress batches
+     * @param maxQueuedUpdates   Maximum number of updates to queue (or be posting) at any time. Set to -1 for no limit
+     * @param dropPolicy         What to do with updates when the maximum number of updates are queued
+     */
+    public RemoteUIStatsStorageRouter(String address, String path, int maxRetryCount, long retryDelayMS,
+                    double retryBackoffFactor, int maxBatchSize, boolean compress, int maxQueuedUpdates,
+                    DropPolicy dropPolicy) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Max batch size must be positive: got " + maxBatchSize);
         this.maxRetryCount = maxRetryCount;
         this.retryDelayMS = retryDelayMS;
         this.retryBackoffFactor = retryBackoffFactor;
+        this.maxBatchSize = maxBatchSize;
+        this.compress = compress;
+        this.maxQueuedUpdates = maxQueuedUpdates;
+        this.dropPolicy = (dropPolicy == null ? DropPolicy.DropOldest : dropPolicy);
+        this.useBatchEndpoint = maxBatchSize > 1;
 
         String url = address;
         if (path != null) {
@@ -112,6 +179,7 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
 
         try {
             this.url = new URL(url);
+            this.batchUrl = new URL(url + BATCH_PATH_SUFFIX);
         } catch (MalformedURLException e) {
             throw new RuntimeException(e);
         }
@@ -182,11 +250,48 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
             }
         } else {
             for (Persistable p : updates) {
+                if (maxQueuedUpdates >= 0 && numQueuedUpdates.get() >= maxQueuedUpdates) {
+                    if (dropPolicy == DropPolicy.DropNewest || !dropOldestUpdate()) {
+                        onDroppedUpdate();
+                        continue;
+                    }
+                    onDroppedUpdate();
+                }
+                numQueuedUpdates.incrementAndGet();
                 queue.add(new ToPost(null, null, p));
             }
         }
     }
 
+    //Remove the oldest queued update. Returns false if there is no update to remove (i.e., all are being posted)
+    private boolean dropOldestUpdate() {
+        for (ToPost t : queue) {
+            if (t.getUpdate() != null && queue.removeFirstOccurrence(t)) {
+                numQueuedUpdates.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void onDroppedUpdate() {
+        long count = numDroppedUpdates.getAndIncrement();
+        if (count < MAX_DROP_WARN_COUNT) {
+            log.warn("RemoteUIStatsStorageRouter: maximum number of queued updates ({}) reached; dropping update. "
+                            + "Remote UI at {} is not keeping up?", maxQueuedUpdates, url);
+        }
+        if (count == MAX_DROP_WARN_COUNT - 1) {
+            log.warn("RemoteUIStatsStorageRouter: Reached max drop warnings. No further warnings will be produced.");
+        }
+    }
+
+    /**
+     * @return Number of updates that have been dropped, due to the maximum number of queued updates being reached
+     */
+    public long getNumDroppedUpdates() {
+        return numDroppedUpdates.get();
+    }
+
     @AllArgsConstructor
     @Data
     private static class ToPost {
@@ -224,32 +329,62 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
                     continue;
                 }
                 list.add(t);
-                queue.drainTo(list); //Non-blocking
-
-                int successCount = 0;
-                for (ToPost toPost : list) {
-                    boolean success;
-                    try {
-                        success = tryPost(toPost);
-                    } catch (IOException e) {
-                        failureCount++;
-                        log.warn("Error posting to remote UI at {}, consecutive failure count = {}. Waiting {} ms before retrying",
-                                        url, failureCount, nextDelayMs, e);
-                        success = false;
+                queue.drainTo(list, useBatchEndpoint ? maxBatchSize - 1 : Integer.MAX_VALUE); //Non-blocking
+
+                if (useBatchEndpoint) {
+                    int responseCode = tryPostBatch(list);
+                    if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                        //Older UI versions don't have the batch endpoint: fall back to posting objects individually
+                        log.warn("Remote UI at {} does not support batch posting (Response code: 404). Falling back"
+                                        + " to posting objects individually", batchUrl);
+                        useBatchEndpoint = false;
+                        requeue(list, 0);
+                    } else if (responseCode != HttpURLConnection.HTTP_OK) {
+                        onFailure(list, 0);
+                    } else {
+                        onSuccess(list, 0, list.size());
                     }
-                    if (!success) {
-                        for (int i = list.size() - 1; i > successCount; i--) {
-                            queue.addFirst(list.get(i)); //Add remaining back to be processed in original order
+                } else {
+                    int successCount = 0;
+                    for (ToPost toPost : list) {
+                        if (!tryPost(toPost)) {
+                            onSuccess(list, 0, successCount);
+                            onFailure(list, successCount);
+                            break;
                         }
-                        waitForRetry();
-                        break;
-                    } else {
                         successCount++;
-                        failureCount = 0;
-                        nextDelayMs = retryDelayMS;
                     }
+                    if (successCount == list.size()) {
+                        onSuccess(list, 0, successCount);
+                    }
+                }
+            }
+        }
+
+        private void onSuccess(List<ToPost> list, int from, int to) {
+            if (to <= from)
+                return;
+            for (int i = from; i < to; i++) {
+                if (list.get(i).getUpdate() != null) {
+                    numQueuedUpdates.decrementAndGet();
                 }
             }
+            failureCount = 0;
+            nextDelayMs = retryDelayMS;
+        }
+
+        private void onFailure(List<ToPost> list, int firstFailed) {
+            failureCount++;
+            log.warn("Error posting to remote UI at {}, consecutive failure count = {}. Waiting {} ms before retrying",
+                            url, failureCount, nextDelayMs);
+            requeue(list, firstFailed);
+            waitForRetry();
+        }
+
+        private void requeue(List<ToPost> list, int from) {
+            for (int i = list.size() - 1; i >= from; i--) {
+                queue.addFirst(list.get(i)); //Add remaining back to be processed in original order
+            }
         }
 
         private void waitForRetry() {
@@ -267,44 +402,72 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
     }
 
 
-    private HttpURLConnection getConnection() throws IOException {
+    private HttpURLConnection getConnection(URL url, String contentType) throws IOException {
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod("POST");
         connection.setRequestProperty("User-Agent", USER_AGENT);
-        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Content-Type", contentType);
         connection.setDoOutput(true);
         return connection;
     }
 
-    private boolean tryPost(ToPost toPost) throws IOException {
+    //Post the content, returning the response code (or -1 if the request could not be made)
+    private int post(URL url, String contentType, byte[] content) {
+        try {
+            HttpURLConnection connection = getConnection(url, contentType);
+            connection.setFixedLengthStreamingMode(content.length);
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(content);
+            }
 
-        HttpURLConnection connection = getConnection();
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_FORBIDDEN) {
+                log.warn("Error posting to remote UI at {} (Response code: 403)."
+                                + " Remote listener support is not enabled? use UIServer.getInstance().enableRemoteListener()",
+                                url);
+            } else if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_NOT_FOUND) {
+                log.warn("Error posting to remote UI at {} - received response code {}", url, responseCode);
+            }
+            connection.disconnect();
+            return responseCode;
+        } catch (IOException e) {
+            log.warn("Error posting to remote UI at {}", url, e);
+            return -1;
+        }
+    }
 
-        String className;
-        byte[] asBytes;
-        StorageType type;
+    private static RemoteUIBatchFormat.Entry toEntry(ToPost toPost) {
         if (toPost.getMeta() != null) {
-            StorageMetaData smd = toPost.getMeta();
-            className = smd.getClass().getName();
-            asBytes = smd.encode();
-            type = StorageType.MetaData;
+            return new RemoteUIBatchFormat.Entry(StorageType.MetaData, toPost.getMeta());
         } else if (toPost.getStaticInfo() != null) {
-            Persistable p = toPost.getStaticInfo();
-            className = p.getClass().getName();
-            asBytes = p.encode();
-            type = StorageType.StaticInfo;
+            return new RemoteUIBatchFormat.Entry(StorageType.StaticInfo, toPost.getStaticInfo());
         } else {
-            Persistable p = toPost.getUpdate();
-            className = p.getClass().getName();
-            asBytes = p.encode();
-            type = StorageType.Update;
+            return new RemoteUIBatchFormat.Entry(StorageType.Update, toPost.getUpdate());
         }
+    }
 
-        String base64 = DatatypeConverter.printBase64Binary(asBytes);
+    private int tryPostBatch(List<ToPost> list) {
+        List<RemoteUIBatchFormat.Entry> entries = new ArrayList<>(list.size());
+        for (ToPost t : list) {
+            entries.add(toEntry(t));
+        }
+
+        byte[] bytes;
+        try {
+            bytes = RemoteUIBatchFormat.encode(entries, compress);
+        } catch (IOException e) {
+            throw new RuntimeException(e); //Should never happen when writing to a byte array
+        }
+        return post(batchUrl, RemoteUIBatchFormat.CONTENT_TYPE, bytes);
+    }
+
+    private boolean tryPost(ToPost toPost) {
+        RemoteUIBatchFormat.Entry entry = toEntry(toPost);
+        String base64 = DatatypeConverter.printBase64Binary(entry.getPersistable().encode());
 
         Map<String, String> jsonObj = new LinkedHashMap<>();
-        jsonObj.put("type", type.name());
-        jsonObj.put("class", className);
+        jsonObj.put("type", entry.getType().name());
+        jsonObj.put("class", entry.getPersistable().getClass().getName());
         jsonObj.put("data", base64);
 
         String str;
@@ -314,42 +477,6 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
             throw new RuntimeException(e); //Should never get an exception from simple Map<String,String>
         }
 
-        DataOutputStream dos = new DataOutputStream(connection.getOutputStream());
-        dos.writeBytes(str);
-        dos.flush();
-        dos.close();
-
-        try {
-            int responseCode = connection.getResponseCode();
-
-            if (responseCode != 200) {
-                BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                String inputLine;
-                StringBuilder response = new StringBuilder();
-
-                while ((inputLine = in.readLine()) != null) {
-                    response.append(inputLine);
-                }
-                in.close();
-
-                log.warn("Error posting to remote UI - received response code {}\tContent: {}", response,
-                                response.toString());
-
-                return false;
-            }
-        } catch (IOException e) {
-            String msg = e.getMessage();
-            if (msg.contains("403 for URL")) {
-                log.warn("Error posting to remote UI at {} (Response code: 403)."
-                                + " Remote listener support is not enabled? use UIServer.getInstance().enableRemoteListener()",
-                                url, e);
-            } else {
-                log.warn("Error posting to remote UI at {}", url, e);
-            }
-
-            return false;
-        }
-
-        return true;
+        return post(url, "application/json", str.getBytes(UTF8)) == HttpURLConnection.HTTP_OK;
     }
 }
@@ -0,0 +1,405 @@
+package org.deeplearning4j.api.storage.impl;
+
+import org.deeplearning4j.api.storage.Persistable;
+import org.deeplearning4j.api.storage.StatsStorage;
+import org.deeplearning4j.api.storage.TimeSeriesBucket;
+import org.deeplearning4j.api.storage.TimeSeriesPersistable;
+import org.deeplearning4j.api.storage.TimeSeriesStatsStorage;
+
+import java.util.*;
+
+/**
+ * Incrementally maintained min/max/mean aggregates for the values of {@link TimeSeriesPersistable} updates, for use in
+ * implementing {@link TimeSeriesStatsStorage#getTimeSeries(String, String, String, String,
+ * TimeSeriesBucket.RangeType, long, long, int)}.<br>
+ * <br>
+ * For each session/type/worker, updates are aggregated into a bounded number of buckets, each covering a contiguous
+ * range of updates. Initially each bucket holds a single update; once the maximum number of buckets is reached, adjacent
+ * pairs of buckets are merged (halving the number of buckets) and the number of updates per bucket is doubled. Thus
+ * memory use is bounded, and the resolution degrades gracefully as training proceeds.<br>
+ * Updates are expected to arrive (mostly) in order of timestamp; updates that are out of order are added to the
+ * bucket covering their timestamp.<br>
+ * <br>
+ * A series is only aggregated once it has been initialized via {@link #markInitialized(String, String, String)}.
+ * This allows storage implementations to build the aggregates lazily (i.e., only for series that are actually queried)
+ * from the updates already stored, and maintain them incrementally after that. Callers must ensure that no updates
+ * are added between the initialization of a series and the population of the aggregates from the stored updates
+ * (for example, by synchronizing on this object).
+ */
+public class TimeSeriesAggregator {
+
+    public static final int DEFAULT_MAX_BUCKETS = 1024;
+
+    private final int maxBuckets;
+    private final Map<List<String>, Series> series = new HashMap<>();
+
+    public TimeSeriesAggregator() {
+        this(DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * @param maxBuckets Maximum number of buckets to store for each series. Must be an even number, 2 or more
+     */
+    public TimeSeriesAggregator(int maxBuckets) {
+        if (maxBuckets < 2 || maxBuckets % 2 != 0)
+            throw new IllegalArgumentException("Max buckets must be an even number >= 2: got " + maxBuckets);
+        this.maxBuckets = maxBuckets;
+    }
+
+    private static List<String> key(String sessionID, String typeID, String workerID) {
+        return Arrays.asList(sessionID, typeID, workerID);
+    }
+
+    /**
+     * @return True if the specified series has been initialized via {@link #markInitialized(String, String, String)}
+     */
+    public synchronized boolean isInitialized(String sessionID, String typeID, String workerID) {
+        return series.containsKey(key(sessionID, typeID, workerID));
+    }
+
+    /**
+     * Start aggregating updates for the specified series. Updates for the series that are added (via
+     * {@link #add(Persistable)}) before this method is called are ignored.
+     */
+    public synchronized void markInitialized(String sessionID, String typeID, String workerID) {
+        List<String> key = key(sessionID, typeID, workerID);
+        if (!series.containsKey(key)) {
+            series.put(key, new Series(maxBuckets));
+        }
+    }
+
+    /**
+     * Add the specified update to the aggregates. Ignored if the update is not a {@link TimeSeriesPersistable}, or if
+     * the series for the update has not been initialized.<br>
+     * Note that if the update replaces a previously stored update (same session/type/worker and timestamp),
+     * {@link #add(Persistable, Persistable)} should be used instead, otherwise the replaced update is counted twice.
+     */
+    public synchronized void add(Persistable update) {
+        add(update, null);
+    }
+
+    /**
+     * Add the specified update to the aggregates, replacing a previously added update with the same timestamp.
+     * The count and mean of the replaced update's bucket are corrected; note however that the min and max of the
+     * bucket still include the replaced values.
+     *
+     * @param update   Update to add
+     * @param replaced Update previously added for the same session, type, worker and timestamp. May be null
+     */
+    public synchronized void add(Persistable update, Persistable replaced) {
+        if (!(update instanceof TimeSeriesPersistable))
+            return;
+        Series s = series.get(key(update.getSessionID(), update.getTypeID(), update.getWorkerID()));
+        if (s == null)
+            return;
+        if (replaced instanceof TimeSeriesPersistable) {
+            s.remove(replaced.getTimeStamp(), ((TimeSeriesPersistable) replaced).getTimeSeriesValues());
+        }
+        TimeSeriesPersistable p = (TimeSeriesPersistable) update;
+        Map<String, Double> values = p.getTimeSeriesValues();
+        s.add(p.getTimeStamp(), p.getIterationCount(), values);
+    }
+
+    /**
+     * Whether an update with the specified timestamp may have already been added for the series. If this returns
+     * false, an update with this timestamp cannot be a replacement of an aggregated update; this allows storage
+     * implementations to only look up the previously stored update (see {@link #add(Persistable, Persistable)}) in
+     * the (rare) case of an update that is not newer than all others.
+     *
+     * @return True if the series has been initialized and the timestamp is not after all previously added updates
+     */
+    public synchronized boolean mayContain(String sessionID, String typeID, String workerID, long timestamp) {
+        Series s = series.get(key(sessionID, typeID, workerID));
+        return s != null && s.n > 0 && timestamp <= s.endTs[s.n - 1];
+    }
+
+    /**
+     * @return Names of the metrics for the specified series, in sorted order. Empty if the series has not been
+     *         initialized
+     */
+    public synchronized List<String> listMetrics(String sessionID, String typeID, String workerID) {
+        Series s = series.get(key(sessionID, typeID, workerID));
+        if (s == null)
+            return Collections.emptyList();
+        return new ArrayList<>(new TreeSet<>(s.metrics.keySet()));
+    }
+
+    /**
+     * Query the aggregated values for the specified metric. Buckets overlapping the range are merged as required, such
+     * that at most maxBuckets buckets are returned. Buckets with no values for the metric are omitted.
+     */
+    public synchronized List<TimeSeriesBucket> query(String sessionID, String typeID, String workerID, String metric,
+                    TimeSeriesBucket.RangeType rangeType, long rangeStart, long rangeEnd, int maxBuckets) {
+        if (maxBuckets <= 0)
+            throw new IllegalArgumentException("Max buckets must be positive: got " + maxBuckets);
+        Series s = series.get(key(sessionID, typeID, workerID));
+        if (s == null)
+            return Collections.emptyList();
+        MetricColumns m = s.metrics.get(metric);
+        if (m == null)
+            return Collections.emptyList();
+
+        //Find the buckets that overlap the range
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < s.n; i++) {
+            long start = (rangeType == TimeSeriesBucket.RangeType.Timestamp ? s.startTs[i] : s.startIter[i]);
+            long end = (rangeType == TimeSeriesBucket.RangeType.Timestamp ? s.endTs[i] : s.endIter[i]);
+            if (end < rangeStart || start > rangeEnd)
+                continue;
+            if (first < 0)
+                first = i;
+            last = i;
+        }
+        if (first < 0)
+            return Collections.emptyList();
+
+        int nInRange = last - first + 1;
+        int perOut = (nInRange + maxBuckets - 1) / maxBuckets;
+        List<TimeSeriesBucket> out = new ArrayList<>(Math.min(nInRange, maxBuckets));
+        for (int i = first; i <= last; i += perOut) {
+            int end = Math.min(last, i + perOut - 1);
+            int count = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0.0;
+            long startTs = Long.MAX_VALUE;
+            long endTs = Long.MIN_VALUE;
+            int startIter = Integer.MAX_VALUE;
+            int endIter = Integer.MIN_VALUE;
+            for (int j = i; j <= end; j++) {
+                if (m.count[j] == 0)
+                    continue;
+                count += m.count[j];
+                min = Math.min(min, m.min[j]);
+                max = Math.max(max, m.max[j]);
+                sum += m.sum[j];
+                startTs = Math.min(startTs, s.startTs[j]);
+                endTs = Math.max(endTs, s.endTs[j]);
+                startIter = Math.min(startIter, s.startIter[j]);
+                endIter = Math.max(endIter, s.endIter[j]);
+            }
+            if (count > 0) {
+                out.add(new TimeSeriesBucket(startTs, endTs, startIter, endIter, count, min, max, sum / count));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * List the names of the time series metrics for the specified storage. If the storage is a
+     * {@link TimeSeriesStatsStorage}, this is delegated to the storage; otherwise, all stored updates are scanned.
+     */
+    public static List<String> listTimeSeriesMetrics(StatsStorage storage, String sessionID, String typeID,
+                    String workerID) {
+        if (storage instanceof TimeSeriesStatsStorage) {
+            return ((TimeSeriesStatsStorage) storage).listTimeSeriesMetrics(sessionID, typeID, workerID);
+        }
+        return scan(storage, sessionID, typeID, workerID).listMetrics(sessionID, typeID, workerID);
+    }
+
+    /**
+     * Get the aggregated values for the specified time series metric, for the specified storage. If the storage is a
+     * {@link TimeSeriesStatsStorage}, this is delegated to the storage; otherwise, all stored updates are scanned
+     * and aggregated (which may be slow for a large number of updates)
+     */
+    public static List<TimeSeriesBucket> getTimeSeries(StatsStorage storage, String sessionID, String typeID,
+                    String workerID, String metric, TimeSeriesBucket.RangeType rangeType, long rangeStart,
+                    long rangeEnd, int maxBuckets) {
+        if (storage instanceof TimeSeriesStatsStorage) {
+            return ((TimeSeriesStatsStorage) storage).getTimeSeries(sessionID, typeID, workerID, metric, rangeType,
+                            rangeStart, rangeEnd, maxBuckets);
+        }
+        return scan(storage, sessionID, typeID, workerID).query(sessionID, typeID, workerID, metric, rangeType,
+                        rangeStart, rangeEnd, maxBuckets);
+    }
+
+    private static TimeSeriesAggregator scan(StatsStorage storage, String sessionID, String typeID,
+                    String workerID) {
+        TimeSeriesAggregator a = new TimeSeriesAggregator();
+        a.markInitialized(sessionID, typeID, workerID);
+        List<Persistable> updates = storage.getAllUpdatesAfter(sessionID, typeID, workerID, Long.MIN_VALUE);
+        if (updates == null)
+            return a;
+        updates = new ArrayList<>(updates);
+        Collections.sort(updates, new Comparator<Persistable>() {
+            @Override
+            public int compare(Persistable p1, Persistable p2) {
+                return Long.compare(p1.getTimeStamp(), p2.getTimeStamp());
+            }
+        });
+        for (Persistable p : updates) {
+            a.add(p);
+        }
+        return a;
+    }
+
+    /**
+     * Remove all aggregates
+     */
+    public synchronized void clear() {
+        series.clear();
+    }
+
+    private static class MetricColumns {
+        private final double[] min;
+        private final double[] max;
+        private final double[] sum;
+        private final int[] count;
+
+        private MetricColumns(int maxBuckets) {
+            min = new double[maxBuckets];
+            max = new double[maxBuckets];
+            sum = new double[maxBuckets];
+            count = new int[maxBuckets];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        private void reset(int idx) {
+            min[idx] = Double.POSITIVE_INFINITY;
+            max[idx] = Double.NEGATIVE_INFINITY;
+            sum[idx] = 0.0;
+            count[idx] = 0;
+        }
+
+        private void add(int idx, double value) {
+            min[idx] = Math.min(min[idx], value);
+            max[idx] = Math.max(max[idx], value);
+            sum[idx] += value;
+            count[idx]++;
+        }
+
+        private void remove(int idx, double value) {
+            sum[idx] -= value;
+            count[idx]--;
+            if (count[idx] <= 0) {
+                reset(idx);
+            }
+        }
+
+        private void merge(int to, int from1, int from2) {
+            double min1 = min[from1];
+            double max1 = max[from1];
+            double sum1 = sum[from1];
+            int count1 = count[from1];
+            reset(to);
+            min[to] = Math.min(min1, min[from2]);
+            max[to] = Math.max(max1, max[from2]);
+            sum[to] = sum1 + sum[from2];
+            count[to] = count1 + count[from2];
+        }
+    }
+
+    private static class Series {
+        private final int maxBuckets;
+        private final long[] startTs;
+        private final long[] endTs;
+        private final int[] startIter;
+        private final int[] endIter;
+        private final int[] updateCount;
+        private final Map<String, MetricColumns> metrics = new HashMap<>();
+        private int n;
+        private int updatesPerBucket = 1;
+
+        private Series(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+            startTs = new long[maxBuckets];
+            endTs = new long[maxBuckets];
+            startIter = new int[maxBuckets];
+            endIter = new int[maxBuckets];
+            updateCount = new int[maxBuckets];
+        }
+
+        private void add(long timestamp, int iteration, Map<String, Double> values) {
+            int idx;
+            if (n == 0 || timestamp >= endTs[n - 1]) {
+                //In order: append to the last bucket if it isn't full, otherwise start a new one
+                if (n > 0 && updateCount[n - 1] < updatesPerBucket) {
+                    idx = n - 1;
+                } else {
+                    if (n == maxBuckets) {
+                        compact();
+                    }
+                    idx = n++;
+                    startTs[idx] = timestamp;
+                    endTs[idx] = timestamp;
+                    startIter[idx] = iteration;
+                    endIter[idx] = iteration;
+                    updateCount[idx] = 0;
+                    for (MetricColumns m : metrics.values()) {
+                        m.reset(idx);
+                    }
+                }
+            } else {
+                //Out of order: add to the last bucket starting at or before the timestamp
+                idx = bucketFor(timestamp);
+            }
+
+            startTs[idx] = Math.min(startTs[idx], timestamp);
+            endTs[idx] = Math.max(endTs[idx], timestamp);
+            startIter[idx] = Math.min(startIter[idx], iteration);
+            endIter[idx] = Math.max(endIter[idx], iteration);
+            updateCount[idx]++;
+
+            if (values == null)
+                return;
+            for (Map.Entry<String, Double> e : values.entrySet()) {
+                Double v = e.getValue();
+                if (v == null || Double.isNaN(v) || Double.isInfinite(v))
+                    continue;
+                MetricColumns m = metrics.get(e.getKey());
+                if (m == null) {
+                    m = new MetricColumns(maxBuckets);
+                    metrics.put(e.getKey(), m);
+                }
+                m.add(idx, v);
+            }
+        }
+
+        private void remove(long timestamp, Map<String, Double> values) {
+            if (n == 0)
+                return;
+            int idx = bucketFor(timestamp);
+            updateCount[idx] = Math.max(0, updateCount[idx] - 1);
+            if (values == null)
+                return;
+            for (Map.Entry<String, Double> e : values.entrySet()) {
+                Double v = e.getValue();
+                if (v == null || Double.isNaN(v) || Double.isInfinite(v))
+                    continue;
+                MetricColumns m = metrics.get(e.getKey());
+                if (m != null && m.count[idx] > 0) {
+                    m.remove(idx, v);
+                }
+            }
+        }
+
+        //Last bucket starting at or before the timestamp
+        private int bucketFor(long timestamp) {
+            int pos = Arrays.binarySearch(startTs, 0, n, timestamp);
+            if (pos < 0) {
+                pos = -(pos + 1) - 1;
+            }
+            return Math.max(0, pos);
+        }
+
+        private void compact() {
+            int newN = n / 2;
+            for (int i = 0; i < newN; i++) {
+                int a = 2 * i;
+                int b = 2 * i + 1;
+                startTs[i] = Math.min(startTs[a], startTs[b]);
+                endTs[i] = Math.max(endTs[a], endTs[b]);
+                startIter[i] = Math.min(startIter[a], startIter[b]);
+                endIter[i] = Math.max(endIter[a], endIter[b]);
+                updateCount[i] = updateCount[a] + updateCount[b];
+                for (MetricColumns m : metrics.values()) {
+                    m.merge(i, a, b);
+                }
+            }
+            n = newN;
+            updatesPerBucket *= 2;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.deeplearning4j.nn.conf.preprocessor.*;
 import org.deeplearning4j.nn.conf.weightnoise.DropConnect;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.util.ActivationLiveness;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.transferlearning.TransferLearning;
 import org.deeplearning4j.nn.weights.WeightInit;
@@ -1187,4 +1188,45 @@ public class TestComputationGraphNetwork {
         System.out.println(modelMow.summary());
         System.out.println(modelExpectedArch.summary(InputType.recurrent(V_HEIGHT* V_WIDTH* 3)));
     }
+
+    @Test
+    public void testOutputActivationLiveness() {
+        //Deep graph with skip connections: output should be identical to feedForward, but with activations released
+        // as soon as they are no longer required
+        int nLayers = 10;
+        for (WorkspaceMode wsm : new WorkspaceMode[] {WorkspaceMode.NONE, WorkspaceMode.SINGLE, WorkspaceMode.SEPARATE}) {
+            ComputationGraphConfiguration.GraphBuilder b = new NeuralNetConfiguration.Builder().seed(12345)
+                            .activation(Activation.TANH).weightInit(WeightInit.XAVIER).trainingWorkspaceMode(wsm)
+                            .inferenceWorkspaceMode(wsm).graphBuilder().addInputs("in")
+                            .addLayer("d0", new DenseLayer.Builder().nIn(10).nOut(32).build(), "in");
+            String last = "d0";
+            for (int i = 1; i < nLayers; i++) {
+                b.addLayer("d" + i, new DenseLayer.Builder().nIn(32).nOut(32).build(), last);
+                b.addVertex("add" + i, new ElementWiseVertex(ElementWiseVertex.Op.Add), last, "d" + i);
+                last = "add" + i;
+            }
+            b.addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).activation(Activation.SOFTMAX)
+                            .nIn(32).nOut(5).build(), last).setOutputs("out");
+
+            ComputationGraph cg = new ComputationGraph(b.build());
+            cg.init();
+
+            INDArray in = Nd4j.rand(16, 10);
+            INDArray exp = cg.feedForward(in, false).get("out");
+            for (int i = 0; i < 3; i++) {
+                INDArray out = cg.outputSingle(in);
+                assertEquals(wsm.toString(), exp, out);
+            }
+
+            if (wsm != WorkspaceMode.SINGLE) {
+                long peak = cg.getLastOutputPeakActivationBytes();
+                long total = cg.getLastOutputTotalActivationBytes();
+                assertTrue(peak > 0);
+                assertTrue(wsm + " - peak: " + peak + ", total: " + total, peak * 2 < total);
+            }
+
+            ActivationLiveness liveness = new ActivationLiveness(cg.getVertices(), cg.topologicalSortOrder());
+            assertTrue(String.valueOf(liveness.getNumSlots()), liveness.getNumSlots() <= 3);
+        }
+    }
 }
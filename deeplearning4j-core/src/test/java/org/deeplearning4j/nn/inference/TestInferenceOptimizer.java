@@ -0,0 +1,118 @@
+package org.deeplearning4j.nn.inference;
+
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.graph.ElementWiseVertex;
+import org.deeplearning4j.nn.conf.graph.MergeVertex;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.activations.impl.ActivationIdentity;
+import org.nd4j.linalg.activations.impl.ActivationReLU;
+import org.nd4j.linalg.activations.impl.ActivationTanH;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+public class TestInferenceOptimizer {
+
+    @Test
+    public void testOptimizeMultiLayerNetwork() {
+        for (boolean convBias : new boolean[] {true, false}) {
+            MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                            .activation(Activation.IDENTITY).list()
+                            .layer(new ConvolutionLayer.Builder().kernelSize(3, 3).nOut(4).hasBias(convBias).build())
+                            .layer(new BatchNormalization.Builder().build())
+                            .layer(new ActivationLayer.Builder().activation(Activation.RELU).build())
+                            .layer(new DropoutLayer.Builder(0.5).build())
+                            .layer(new DenseLayer.Builder().nOut(6).build())
+                            .layer(new BatchNormalization.Builder().lockGammaBeta(true).gamma(1.5).beta(0.2).build())
+                            .layer(new ActivationLayer.Builder().activation(Activation.TANH).build())
+                            .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                            .activation(Activation.SOFTMAX).nOut(3).build())
+                            .setInputType(InputType.convolutional(8, 8, 2)).build();
+            MultiLayerNetwork net = new MultiLayerNetwork(conf);
+            net.init();
+
+            //Train a little, so batch norm mean/variance estimates and gamma/beta aren't the initial values
+            Nd4j.getRandom().setSeed(12345);
+            for (int i = 0; i < 10; i++) {
+                INDArray labels = Nd4j.zeros(10, 3);
+                for (int j = 0; j < 10; j++) {
+                    labels.putScalar(j, j % 3, 1.0);
+                }
+                net.fit(new DataSet(Nd4j.rand(new int[] {10, 2, 8, 8}).muli(3), labels));
+            }
+
+            INDArray params = net.params().dup();
+            INDArray in = Nd4j.rand(new int[] {5, 2, 8, 8}).muli(3);
+            INDArray expected = net.output(in, false);
+
+            MultiLayerNetwork opt = InferenceOptimizer.optimize(net, in, 1e-5);
+            assertEquals(3, opt.getnLayers());
+            ConvolutionLayer convConf = (ConvolutionLayer) opt.getLayer(0).conf().getLayer();
+            assertTrue(convConf.getActivationFn() instanceof ActivationReLU);
+            assertTrue(convConf.hasBias());
+            DenseLayer denseConf = (DenseLayer) opt.getLayer(1).conf().getLayer();
+            assertTrue(denseConf.getActivationFn() instanceof ActivationTanH);
+            assertTrue(opt.numParams() < net.numParams());
+
+            assertTrue(expected.equalsWithEps(opt.output(in, false), 1e-5));
+            //Original network should not be modified
+            assertEquals(params, net.params());
+            assertEquals(8, net.getnLayers());
+        }
+    }
+
+    @Test
+    public void testOptimizeComputationGraph() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                        .activation(Activation.IDENTITY).graphBuilder().addInputs("in")
+                        .addLayer("dense0", new DenseLayer.Builder().nIn(5).nOut(6).build(), "in")
+                        .addLayer("bn0", new BatchNormalization.Builder().nOut(6).build(), "dense0")
+                        .addLayer("act0", new ActivationLayer.Builder().activation(Activation.RELU).build(), "bn0")
+                        .addVertex("merge", new MergeVertex(), "act0")
+                        .addLayer("drop", new DropoutLayer.Builder(0.5).build(), "merge")
+                        //dense1 is used by both bn1 and the residual add: can't be folded
+                        .addLayer("dense1", new DenseLayer.Builder().nIn(6).nOut(6).build(), "drop")
+                        .addLayer("bn1", new BatchNormalization.Builder().nOut(6).build(), "dense1")
+                        .addVertex("add", new ElementWiseVertex(ElementWiseVertex.Op.Add), "bn1", "dense1")
+                        .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MSE).nIn(6).nOut(2)
+                                        .build(), "add")
+                        .setOutputs("out").build();
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+
+        Nd4j.getRandom().setSeed(12345);
+        for (int i = 0; i < 10; i++) {
+            graph.fit(new MultiDataSet(new INDArray[] {Nd4j.rand(10, 5).muli(2)},
+                            new INDArray[] {Nd4j.rand(10, 2)}));
+        }
+
+        INDArray in = Nd4j.rand(7, 5).muli(2);
+        INDArray expected = graph.outputSingle(false, in);
+
+        ComputationGraph opt = InferenceOptimizer.optimize(graph, new INDArray[] {in}, 1e-5);
+        assertNull(opt.getVertex("bn0"));
+        assertNull(opt.getVertex("act0"));
+        assertNull(opt.getVertex("merge"));
+        assertNull(opt.getVertex("drop"));
+        assertNotNull(opt.getVertex("bn1"));
+        DenseLayer dense0 = (DenseLayer) opt.getLayer("dense0").conf().getLayer();
+        DenseLayer dense1 = (DenseLayer) opt.getLayer("dense1").conf().getLayer();
+        assertTrue(dense0.getActivationFn() instanceof ActivationReLU);
+        assertTrue(dense1.getActivationFn() instanceof ActivationIdentity);
+
+        assertTrue(expected.equalsWithEps(opt.outputSingle(false, in), 1e-5));
+        assertNotNull(graph.getVertex("bn0"));
+    }
+}
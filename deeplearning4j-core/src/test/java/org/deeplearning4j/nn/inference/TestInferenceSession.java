@@ -0,0 +1,190 @@
+package org.deeplearning4j.nn.inference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class TestInferenceSession {
+
+    private static MultiLayerNetwork getMLN(int nIn, int nOut) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).activation(Activation.TANH)
+                        .list().layer(0, new DenseLayer.Builder().nIn(nIn).nOut(32).build())
+                        .layer(1, new DenseLayer.Builder().nIn(32).nOut(32).build())
+                        .layer(2, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(32).nOut(nOut).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    private static ComputationGraph getGraph(int nIn, int nOut) {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .activation(Activation.TANH).graphBuilder().addInputs("in1", "in2")
+                        .addLayer("d1", new DenseLayer.Builder().nIn(nIn).nOut(16).build(), "in1")
+                        .addLayer("d2", new DenseLayer.Builder().nIn(nIn).nOut(16).build(), "in2")
+                        .addLayer("out1", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(32).nOut(nOut).build(), "d1", "d2")
+                        .addLayer("out2", new OutputLayer.Builder(LossFunctions.LossFunction.MSE)
+                                        .activation(Activation.IDENTITY).nIn(16).nOut(nOut).build(), "d2")
+                        .setOutputs("out1", "out2").build();
+        ComputationGraph cg = new ComputationGraph(conf);
+        cg.init();
+        return cg;
+    }
+
+    @Test
+    public void testSessionSharesParams() {
+        MultiLayerNetwork net = getMLN(10, 5);
+        InferenceSession s = new InferenceSession(net);
+        INDArray in = Nd4j.rand(8, 10);
+        assertEquals(net.output(in), s.outputSingle(in));
+
+        //Parameter changes on the original network should be visible to the session
+        net.params().muli(2.0);
+        assertEquals(net.output(in), s.outputSingle(in));
+        assertTrue(s.isValid());
+
+        ComputationGraph cg = getGraph(10, 5);
+        InferenceSession s2 = new InferenceSession(cg);
+        INDArray in1 = Nd4j.rand(8, 10);
+        INDArray in2 = Nd4j.rand(8, 10);
+        INDArray[] exp = cg.output(in1, in2);
+        INDArray[] act = s2.output(in1, in2);
+        assertEquals(2, act.length);
+        assertEquals(exp[0], act[0]);
+        assertEquals(exp[1], act[1]);
+    }
+
+    @Test
+    public void testSessionMasking() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).activation(Activation.TANH)
+                        .list().layer(0, new GravesLSTM.Builder().nIn(3).nOut(8).build())
+                        .layer(1, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(8).nOut(4).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        INDArray in = Nd4j.rand(new int[] {2, 3, 6});
+        INDArray mask = Nd4j.ones(2, 6);
+        mask.putScalar(1, 5, 0.0);
+
+        InferenceSession s = new InferenceSession(net);
+        assertEquals(net.output(in, false, mask, null), s.outputSingle(in, mask));
+        //Mask should not be retained between calls
+        assertEquals(net.output(in), s.outputSingle(in));
+    }
+
+    @Test
+    public void testConcurrentInference() throws Exception {
+        for (Model m : new Model[] {getMLN(10, 5), getGraph(10, 5)}) {
+            final boolean isGraph = m instanceof ComputationGraph;
+            final InferenceSessionPool pool = new InferenceSessionPool(m);
+
+            int nThreads = 8;
+            int nPerThread = 20;
+            final List<INDArray[]> inputs = new ArrayList<>();
+            final List<INDArray[]> expected = new ArrayList<>();
+            for (int i = 0; i < nThreads * nPerThread; i++) {
+                INDArray[] in = isGraph ? new INDArray[] {Nd4j.rand(1 + i % 5, 10), Nd4j.rand(1 + i % 5, 10)}
+                                : new INDArray[] {Nd4j.rand(1 + i % 5, 10)};
+                inputs.add(in);
+                expected.add(isGraph ? ((ComputationGraph) m).output(in)
+                                : new INDArray[] {((MultiLayerNetwork) m).output(in[0])});
+            }
+
+            ExecutorService exec = Executors.newFixedThreadPool(nThreads);
+            List<Future<INDArray[]>> futures = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                final INDArray[] in = inputs.get(i);
+                futures.add(exec.submit(new Callable<INDArray[]>() {
+                    @Override
+                    public INDArray[] call() {
+                        return pool.output(in);
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                INDArray[] act = futures.get(i).get();
+                INDArray[] exp = expected.get(i);
+                assertEquals(exp.length, act.length);
+                for (int j = 0; j < exp.length; j++) {
+                    assertEquals(exp[j], act[j]);
+                }
+            }
+            exec.shutdown();
+
+            assertTrue(pool.getNumSessionsCreated() <= nThreads + 1);
+        }
+    }
+
+    @Test
+    @Ignore
+    public void benchmarkSessionPoolVsClonePerThread() throws Exception {
+        //Throughput comparison: one model shared by all threads via InferenceSessionPool, vs. one clone per thread
+        final int nIn = 784;
+        final int nThreads = 8;
+        final int nWarmup = 200;
+        final int nIter = 2000;
+        final int minibatch = 32;
+        final MultiLayerNetwork net = getMLN(nIn, 10);
+        final INDArray in = Nd4j.rand(minibatch, nIn);
+
+        for (final boolean usePool : new boolean[] {true, false}) {
+            final InferenceSessionPool pool = new InferenceSessionPool(net);
+            final AtomicLong totalTime = new AtomicLong();
+            final CountDownLatch latch = new CountDownLatch(nThreads);
+            long start = System.currentTimeMillis();
+            for (int t = 0; t < nThreads; t++) {
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        MultiLayerNetwork clone = (usePool ? null : net.clone());
+                        for (int i = 0; i < nWarmup + nIter; i++) {
+                            long s = System.nanoTime();
+                            if (usePool) {
+                                pool.outputSingle(in);
+                            } else {
+                                clone.output(in);
+                            }
+                            if (i >= nWarmup) {
+                                totalTime.addAndGet(System.nanoTime() - s);
+                            }
+                        }
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            latch.await();
+            long end = System.currentTimeMillis();
+
+            double avgMs = totalTime.get() / 1e6 / (nThreads * nIter);
+            log.info("{}: total time {} ms (inc. setup), average {} ms per call, {} examples/sec",
+                            (usePool ? "InferenceSessionPool" : "Clone per thread"), (end - start), avgMs,
+                            nThreads * nIter * minibatch * 1000.0 / (end - start));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.deeplearning4j.nn.inference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class TestQuantizedNetwork {
+
+    @Test
+    public void testQuantizeDenseIris() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                        .activation(Activation.TANH).list()
+                        .layer(new DenseLayer.Builder().nIn(4).nOut(32).build())
+                        .layer(new DenseLayer.Builder().nIn(32).nOut(32).build())
+                        .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(32).nOut(3).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        DataSetIterator iter = new IrisDataSetIterator(30, 150);
+        for (int i = 0; i < 20; i++) {
+            iter.reset();
+            net.fit(iter);
+        }
+        INDArray params = net.params().dup();
+
+        for (boolean calibrate : new boolean[] {false, true}) {
+            QuantizedNetwork q = (calibrate ? QuantizedNetwork.quantize(net, new IrisDataSetIterator(30, 150))
+                            : QuantizedNetwork.quantize(net));
+            assertEquals(2, q.getNumQuantizedLayers());
+            //Dense weights: 4x smaller. Output layer is not quantized
+            assertTrue(q.sizeBytes() < 0.4 * q.originalSizeBytes());
+
+            DataSet ds = new IrisDataSetIterator(150, 150).next();
+            INDArray expected = net.output(ds.getFeatures(), false);
+            INDArray out = q.output(ds.getFeatures());
+            assertTrue(expected.equalsWithEps(out, 0.05));
+
+            double delta = QuantizedNetwork.accuracyDelta(net, q, iter);
+            assertTrue(String.valueOf(delta), Math.abs(delta) <= 0.02);
+        }
+
+        //Original network should not be modified
+        assertEquals(params, net.params());
+    }
+
+    @Test
+    public void testQuantizeConvLstmEmbedding() {
+        Nd4j.getRandom().setSeed(12345);
+
+        MultiLayerConfiguration cnn = new NeuralNetConfiguration.Builder().seed(12345)
+                        .activation(Activation.RELU).list()
+                        .layer(new ConvolutionLayer.Builder().kernelSize(3, 3).nOut(6).build())
+                        .layer(new SubsamplingLayer.Builder().kernelSize(2, 2).stride(2, 2).build())
+                        .layer(new DenseLayer.Builder().nOut(10).build())
+                        .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nOut(4).build())
+                        .setInputType(InputType.convolutional(10, 10, 3)).build();
+
+        MultiLayerConfiguration rnn = new NeuralNetConfiguration.Builder().seed(12345)
+                        .activation(Activation.TANH).list()
+                        .layer(new LSTM.Builder().nIn(5).nOut(8).build())
+                        .layer(new GravesLSTM.Builder().nIn(8).nOut(8).build())
+                        .layer(new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(8).nOut(4).build())
+                        .build();
+
+        MultiLayerConfiguration embedding = new NeuralNetConfiguration.Builder().seed(12345)
+                        .activation(Activation.TANH).list()
+                        .layer(new EmbeddingLayer.Builder().nIn(20).nOut(8).build())
+                        .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(8).nOut(4).build())
+                        .build();
+
+        INDArray embeddingIn = Nd4j.zeros(6, 1);
+        for (int i = 0; i < 6; i++) {
+            embeddingIn.putScalar(i, (3 * i) % 20);
+        }
+
+        MultiLayerConfiguration[] confs = {cnn, rnn, embedding};
+        INDArray[] inputs = {Nd4j.rand(new int[] {4, 3, 10, 10}), Nd4j.rand(new int[] {3, 5, 7}), embeddingIn};
+        int[] expQuantizedLayers = {2, 2, 1};
+
+        for (int i = 0; i < confs.length; i++) {
+            MultiLayerNetwork net = new MultiLayerNetwork(confs[i]);
+            net.init();
+
+            QuantizedNetwork q = QuantizedNetwork.quantize(net);
+            assertEquals(expQuantizedLayers[i], q.getNumQuantizedLayers());
+            assertTrue(q.sizeBytes() < q.originalSizeBytes());
+
+            INDArray expected = net.output(inputs[i], false);
+            INDArray out = q.output(inputs[i]);
+            assertTrue(String.valueOf(i), expected.equalsWithEps(out, 0.02));
+            //Second call: parameters are re-loaded into the working memory for each layer
+            assertEquals(out, q.output(inputs[i]));
+        }
+    }
+
+    @Test
+    public void testInferenceTimeVsFloat() {
+        //Dequantization cost is per forward pass (proportional to the number of weights), whereas the layer cost is
+        // proportional to the number of weights times the minibatch size: the overhead should be amortized for large
+        // minibatches
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .activation(Activation.TANH).list()
+                        .layer(new DenseLayer.Builder().nIn(256).nOut(512).build())
+                        .layer(new DenseLayer.Builder().nIn(512).nOut(512).build())
+                        .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(512).nOut(10).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        QuantizedNetwork q = QuantizedNetwork.quantize(net);
+
+        int nIter = 20;
+        double ratioLargeMinibatch = 0.0;
+        for (int miniBatch : new int[] {1, 256}) {
+            INDArray in = Nd4j.rand(miniBatch, 256);
+            //Warmup
+            for (int i = 0; i < 5; i++) {
+                net.output(in, false);
+                q.output(in);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < nIter; i++) {
+                net.output(in, false);
+            }
+            long floatTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < nIter; i++) {
+                q.output(in);
+            }
+            long quantizedTime = System.nanoTime() - start;
+
+            double ratio = quantizedTime / (double) floatTime;
+            log.info("Minibatch size {}: float network {} ms/iter, quantized network {} ms/iter, ratio {}", miniBatch,
+                            floatTime / 1e6 / nIter, quantizedTime / 1e6 / nIter, ratio);
+            ratioLargeMinibatch = ratio;
+        }
+
+        //Loose bound, to avoid spurious failures on shared machines
+        assertTrue(String.valueOf(ratioLargeMinibatch), ratioLargeMinibatch < 3.0);
+    }
+}
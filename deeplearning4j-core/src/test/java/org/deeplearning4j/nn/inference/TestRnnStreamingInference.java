@@ -0,0 +1,229 @@
+package org.deeplearning4j.nn.inference;
+
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
+import org.deeplearning4j.nn.conf.layers.LSTM;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class TestRnnStreamingInference {
+
+    private static final int N_IN = 4;
+    private static final int N_OUT = 3;
+
+    private static MultiLayerNetwork getMLN() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).activation(Activation.TANH)
+                        .list().layer(0, new GravesLSTM.Builder().nIn(N_IN).nOut(8).build())
+                        .layer(1, new LSTM.Builder().nIn(8).nOut(8).build())
+                        .layer(2, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(8).nOut(N_OUT).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    private static ComputationGraph getGraph() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .activation(Activation.TANH).graphBuilder().addInputs("in")
+                        .addLayer("lstm", new GravesLSTM.Builder().nIn(N_IN).nOut(8).build(), "in")
+                        .addLayer("out", new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(8).nOut(N_OUT).build(), "lstm")
+                        .setOutputs("out").build();
+        ComputationGraph cg = new ComputationGraph(conf);
+        cg.init();
+        return cg;
+    }
+
+    private static INDArray output(Model m, INDArray in) {
+        if (m instanceof MultiLayerNetwork) {
+            return ((MultiLayerNetwork) m).output(in);
+        }
+        return ((ComputationGraph) m).outputSingle(in);
+    }
+
+    private static INDArray timeStep(INDArray arr, int t) {
+        return arr.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(t));
+    }
+
+    @Test
+    public void testBatchedSessionsMatchSingleStream() {
+        int nSessions = 5;
+        int tsLength = 6;
+        for (Model m : new Model[] {getMLN(), getGraph()}) {
+            Nd4j.getRandom().setSeed(12345);
+            RnnStreamingInference inf = new RnnStreamingInference(m);
+
+            List<INDArray> sequences = new ArrayList<>();
+            List<INDArray> expected = new ArrayList<>();
+            for (int i = 0; i < nSessions; i++) {
+                INDArray seq = Nd4j.rand(new int[] {1, N_IN, tsLength});
+                sequences.add(seq);
+                expected.add(output(m, seq));
+            }
+
+            //Session i starts at time i: so each batch mixes new sessions (no state) with existing ones
+            RnnSessionState[] states = new RnnSessionState[nSessions];
+            for (int time = 0; time < tsLength + nSessions - 1; time++) {
+                List<Integer> active = new ArrayList<>();
+                List<INDArray[]> inputs = new ArrayList<>();
+                List<RnnSessionState> inStates = new ArrayList<>();
+                for (int i = 0; i < nSessions; i++) {
+                    int t = time - i;
+                    if (t >= 0 && t < tsLength) {
+                        active.add(i);
+                        inputs.add(new INDArray[] {timeStep(sequences.get(i), t)});
+                        inStates.add(states[i]);
+                    }
+                }
+
+                List<RnnStepResult> results = inf.step(inputs, inStates);
+                assertEquals(active.size(), results.size());
+                for (int j = 0; j < active.size(); j++) {
+                    int i = active.get(j);
+                    int t = time - i;
+                    INDArray out = results.get(j).getOutputs()[0];
+                    assertArrayEquals(new int[] {1, N_OUT}, out.shape());
+                    assertEquals(timeStep(expected.get(i), t), out);
+                    states[i] = results.get(j).getState();
+                    assertTrue(states[i].sizeBytes() > 0);
+                }
+            }
+
+            //Original model should not be modified
+            assertEquals(expected.get(0), output(m, sequences.get(0)));
+        }
+    }
+
+    @Test
+    public void testSchedulerConcurrentSessions() throws Exception {
+        final int nSessions = 16;
+        final int tsLength = 8;
+        MultiLayerNetwork net = getMLN();
+        final RnnSessionScheduler scheduler = new RnnSessionScheduler(net, 8, 5, 60000);
+
+        final List<INDArray> sequences = new ArrayList<>();
+        List<INDArray> expected = new ArrayList<>();
+        for (int i = 0; i < nSessions; i++) {
+            INDArray seq = Nd4j.rand(new int[] {1, N_IN, tsLength});
+            sequences.add(seq);
+            expected.add(net.output(seq));
+        }
+
+        ExecutorService exec = Executors.newFixedThreadPool(nSessions);
+        List<Future<List<INDArray>>> futures = new ArrayList<>();
+        for (int i = 0; i < nSessions; i++) {
+            final int session = i;
+            futures.add(exec.submit(new Callable<List<INDArray>>() {
+                @Override
+                public List<INDArray> call() {
+                    List<INDArray> out = new ArrayList<>();
+                    for (int t = 0; t < tsLength; t++) {
+                        out.add(scheduler.step("session" + session, timeStep(sequences.get(session), t))[0]);
+                    }
+                    return out;
+                }
+            }));
+        }
+
+        for (int i = 0; i < nSessions; i++) {
+            List<INDArray> out = futures.get(i).get();
+            for (int t = 0; t < tsLength; t++) {
+                assertEquals(timeStep(expected.get(i), t), out.get(t));
+            }
+        }
+        exec.shutdown();
+
+        assertEquals(nSessions * tsLength, scheduler.getNumSteps());
+        assertTrue(scheduler.getNumBatches() <= scheduler.getNumSteps());
+        assertEquals(nSessions, scheduler.getNumSessions());
+
+        //Removing a session: next step should start from the initial state
+        scheduler.removeSession("session0");
+        assertEquals(timeStep(expected.get(0), 0), scheduler.step("session0", timeStep(sequences.get(0), 0))[0]);
+
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testSchedulerSessionEviction() throws Exception {
+        MultiLayerNetwork net = getMLN();
+        RnnSessionScheduler scheduler = new RnnSessionScheduler(net, 4, 0, 50);
+
+        INDArray seq = Nd4j.rand(new int[] {1, N_IN, 2});
+        INDArray expected = net.output(seq);
+        scheduler.step("a", timeStep(seq, 0));
+        assertEquals(1, scheduler.getNumSessions());
+        RnnSessionState stateA = scheduler.getSessionState("a");
+        assertNotNull(stateA);
+
+        Thread.sleep(200);
+        scheduler.evictIdleSessions();
+        assertEquals(0, scheduler.getNumSessions());
+        assertTrue(scheduler.getNumEvictedSessions() >= 1);
+
+        //Restore the state (for example, from external storage) and continue the session
+        scheduler.setSessionState("a", stateA);
+        assertEquals(timeStep(expected, 1), scheduler.step("a", timeStep(seq, 1))[0]);
+
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testSchedulerShutdownWithConcurrentSubmit() throws Exception {
+        MultiLayerNetwork net = getMLN();
+        final RnnSessionScheduler scheduler = new RnnSessionScheduler(net, 4, 0, 60000);
+        final INDArray in = Nd4j.rand(new int[] {1, N_IN, 1});
+
+        int nThreads = 4;
+        final List<Future<INDArray[]>> submitted = new CopyOnWriteArrayList<>();
+        final CountDownLatch started = new CountDownLatch(nThreads);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < nThreads; i++) {
+            final String session = "session" + i;
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        while (true) {
+                            submitted.add(scheduler.submit(session, in));
+                        }
+                    } catch (IllegalStateException e) {
+                        //Expected after shutdown
+                    }
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+
+        started.await();
+        Thread.sleep(20);
+        scheduler.shutdown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        //Every step must either have been executed, or failed - none may be left pending forever
+        for (Future<INDArray[]> f : submitted) {
+            assertTrue(f.isDone());
+        }
+    }
+}
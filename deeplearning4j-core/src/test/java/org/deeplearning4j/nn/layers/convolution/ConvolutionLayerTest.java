@@ -5,13 +5,19 @@ import org.deeplearning4j.eval.Evaluation;
 import org.deeplearning4j.exception.DL4JException;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.ConvolutionMode;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
 import org.deeplearning4j.nn.conf.inputs.InputType;
 import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
 import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.conf.layers.SubsamplingLayer;
+import org.deeplearning4j.nn.conf.memory.MemoryType;
+import org.deeplearning4j.nn.conf.memory.MemoryUseMode;
+import org.deeplearning4j.nn.conf.memory.NetworkMemoryReport;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.junit.Before;
@@ -30,6 +36,7 @@ import org.nd4j.linalg.indexing.INDArrayIndex;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.config.Nesterovs;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.nd4j.linalg.util.ArrayUtil;
 
 import static org.junit.Assert.*;
 
@@ -680,4 +687,151 @@ public class ConvolutionLayerTest {
 
         return model;
     }
+
+    @Test
+    public void testPointwiseConvolutionHelper() {
+        //1x1 convolutions use PointwiseConvolutionHelper (when no cuDNN): should give identical results to the
+        // standard im2col implementation, for output, gradients and epsilons
+        int nIn = 3;
+        int nOut = 4;
+        int h = 7;
+        int w = 6;
+        int minibatch = 2;
+        for (ConvolutionMode cm : new ConvolutionMode[] {ConvolutionMode.Truncate, ConvolutionMode.Same}) {
+            for (int stride : new int[] {1, 2}) {
+                for (boolean hasBias : new boolean[] {true, false}) {
+                    MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                                    .convolutionMode(cm).weightInit(WeightInit.XAVIER).list()
+                                    .layer(0, new ConvolutionLayer.Builder().kernelSize(2, 2).nIn(nIn).nOut(3)
+                                                    .activation(Activation.TANH).build())
+                                    .layer(1, new ConvolutionLayer.Builder().kernelSize(1, 1).stride(stride, stride)
+                                                    .nOut(nOut).hasBias(hasBias).activation(Activation.TANH).build())
+                                    .layer(2, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                                    .activation(Activation.SOFTMAX).nOut(3).build())
+                                    .setInputType(InputType.convolutional(h, w, nIn)).build();
+                    MultiLayerNetwork net = new MultiLayerNetwork(conf);
+                    net.init();
+
+                    org.deeplearning4j.nn.layers.convolution.ConvolutionLayer l1 =
+                                    (org.deeplearning4j.nn.layers.convolution.ConvolutionLayer) net.getLayer(1);
+                    if (!(l1.helper instanceof PointwiseConvolutionHelper)) {
+                        //cuDNN helper is used instead
+                        continue;
+                    }
+
+                    MultiLayerNetwork net2 = net.clone();
+                    ((org.deeplearning4j.nn.layers.convolution.ConvolutionLayer) net2.getLayer(1)).helper = null;
+
+                    String msg = cm + ", stride=" + stride + ", hasBias=" + hasBias;
+                    INDArray in = Nd4j.rand(new int[] {minibatch, nIn, h, w});
+                    INDArray labels = Nd4j.create(minibatch, 3);
+                    for (int i = 0; i < minibatch; i++) {
+                        labels.putScalar(i, i % 3, 1.0);
+                    }
+                    assertEquals(msg, net2.output(in), net.output(in));
+
+                    net.setInput(in);
+                    net.setLabels(labels);
+                    net.computeGradientAndScore();
+                    net2.setInput(in);
+                    net2.setLabels(labels);
+                    net2.computeGradientAndScore();
+
+                    assertEquals(msg, net2.score(), net.score(), 1e-6);
+                    //Layer 0 gradients depend on the epsilons calculated by layer 1
+                    assertEquals(msg, net2.gradient().gradient(), net.gradient().gradient());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIm2ColScratchBufferReuse() throws Exception {
+        int nIn = 2;
+        int h = 8;
+        int w = 8;
+        int minibatch = 3;
+        MultiLayerConfiguration conf = getIm2ColTestConf(nIn, h, w, WorkspaceMode.NONE);
+        final MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        org.deeplearning4j.nn.layers.convolution.ConvolutionLayer l0 =
+                        (org.deeplearning4j.nn.layers.convolution.ConvolutionLayer) net.getLayer(0);
+        if (l0.helper != null) {
+            //cuDNN: im2col is not used
+            return;
+        }
+
+        final INDArray in = Nd4j.rand(new int[] {minibatch, nIn, h, w});
+        INDArray labels = Nd4j.create(minibatch, 3);
+        for (int i = 0; i < minibatch; i++) {
+            labels.putScalar(i, i % 3, 1.0);
+        }
+        ScratchBufferPool pool = org.deeplearning4j.nn.layers.convolution.ConvolutionLayer.scratchBuffers();
+        pool.clear();
+        String key = org.deeplearning4j.nn.layers.convolution.ConvolutionLayer.IM2COL_BUFFER;
+        net.output(in);
+
+        //im2col array: [miniBatch, outH, outW, inDepth, kH, kW]. Layer 0 (8x8x2 input) needs a larger im2col array
+        // than layer 1 (6x6x4 input): the buffer is shared by both layers, so only the largest is held
+        int[] im2colShape = new int[] {minibatch, 6, 6, nIn, 3, 3};
+        long expBytes = ArrayUtil.prod(im2colShape) * Nd4j.sizeOfDataType();
+        assertEquals(expBytes, pool.currentThreadBytes());
+        DataBuffer buffer = pool.get(key, im2colShape, 'c').data();
+
+        //Same input shape: buffer should be reused
+        net.output(in);
+        assertSame(buffer, pool.get(key, im2colShape, 'c').data());
+        assertEquals(expBytes, pool.currentThreadBytes());
+
+        //Scratch buffer is shared by all layers - for both inference and training
+        NetworkMemoryReport report = conf.getMemoryReport(InputType.convolutional(h, w, nIn));
+        for (MemoryUseMode mode : MemoryUseMode.values()) {
+            assertEquals(expBytes, report.getMemoryBytes(MemoryType.SCRATCH_MEMORY, minibatch, mode, CacheMode.NONE,
+                            Nd4j.dataType()));
+        }
+
+        //Buffer is not released at the end of fit (when the layers are cleared): it is reused by the next fit call
+        net.fit(in, labels);
+        net.fit(in, labels);
+        assertEquals(expBytes, pool.totalBytes());
+        assertSame(buffer, pool.get(key, im2colShape, 'c').data());
+
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                net.output(in);
+            }
+        });
+        t.start();
+        t.join();
+        assertTrue(pool.totalBytes() == 2 * expBytes || pool.totalBytes() == expBytes); //Other thread may be collected
+        pool.clear();
+        assertEquals(0, pool.totalBytes());
+        assertEquals(0, pool.currentThreadBytes());
+
+        //With workspaces: im2col is allocated in the workspace, not in the scratch buffer. Results should be identical
+        MultiLayerNetwork netWs = new MultiLayerNetwork(getIm2ColTestConf(nIn, h, w, WorkspaceMode.SEPARATE));
+        netWs.init();
+        netWs.setParams(net.params().dup());
+        assertEquals(net.output(in), netWs.output(in));
+        pool.clear();
+        netWs.output(in);
+        netWs.fit(in, labels);
+        assertEquals(0, pool.currentThreadBytes());
+        net.fit(in, labels);
+        assertEquals(net.params(), netWs.params());
+    }
+
+    private static MultiLayerConfiguration getIm2ColTestConf(int nIn, int h, int w, WorkspaceMode workspaceMode) {
+        return new NeuralNetConfiguration.Builder().seed(12345).weightInit(WeightInit.XAVIER)
+                        .trainingWorkspaceMode(workspaceMode).inferenceWorkspaceMode(workspaceMode).list()
+                        .layer(0, new ConvolutionLayer.Builder().kernelSize(3, 3).nIn(nIn).nOut(4)
+                                        .activation(Activation.TANH).build())
+                        .layer(1, new ConvolutionLayer.Builder().kernelSize(3, 3).nOut(4)
+                                        .activation(Activation.TANH).build())
+                        .layer(2, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nOut(3).build())
+                        .setInputType(InputType.convolutional(h, w, nIn)).build();
+    }
 }
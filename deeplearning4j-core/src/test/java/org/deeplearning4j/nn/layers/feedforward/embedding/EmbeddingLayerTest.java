@@ -1,5 +1,8 @@
 package org.deeplearning4j.nn.layers.feedforward.embedding;
 
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
@@ -15,6 +18,10 @@ import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.GradientUpdater;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.learning.config.IUpdater;
 import org.nd4j.linalg.learning.config.Sgd;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
@@ -22,8 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
-import static org.junit.Assert.assertArrayEquals;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class EmbeddingLayerTest {
 
@@ -322,4 +328,171 @@ public class EmbeddingLayerTest {
         }
     }
 
+    @Test
+    public void testEmbeddingSparseGradients() {
+        //When every row is used in every minibatch, lazy (sparse) updates should be identical to standard updates
+        //Otherwise: the unused rows should not be modified at all
+
+        int nClassesIn = 10;
+        int batchSize = 16;
+
+        MultiLayerNetwork[] nets = new MultiLayerNetwork[2];
+        for (int i = 0; i < 2; i++) {
+            MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().activation(Activation.TANH)
+                            .updater(new Adam(0.1)).l2(0.01).seed(12345).list()
+                            .layer(0, new EmbeddingLayer.Builder().hasBias(true).sparseGradients(i == 1)
+                                            .nIn(nClassesIn).nOut(5).build())
+                            .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(4)
+                                            .activation(Activation.SOFTMAX).build())
+                            .pretrain(false).backprop(true).build();
+            nets[i] = new MultiLayerNetwork(conf);
+            nets[i].init();
+        }
+        MultiLayerNetwork dense = nets[0];
+        MultiLayerNetwork sparse = nets[1];
+        sparse.setParams(dense.params().dup());
+
+        Random r = new Random(12345);
+        for (int iter = 0; iter < 5; iter++) {
+            INDArray in = Nd4j.create(batchSize, 1);
+            INDArray labels = Nd4j.create(batchSize, 4);
+            for (int i = 0; i < batchSize; i++) {
+                in.putScalar(i, i < nClassesIn ? i : r.nextInt(nClassesIn));
+                labels.putScalar(new int[] {i, r.nextInt(4)}, 1.0);
+            }
+            dense.fit(in, labels);
+            sparse.fit(in, labels);
+            assertEquals(dense.params(), sparse.params());
+        }
+
+        //Only use rows 0 to 2
+        INDArray weightsBefore = sparse.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY).dup();
+        for (int iter = 0; iter < 5; iter++) {
+            INDArray in = Nd4j.create(batchSize, 1);
+            INDArray labels = Nd4j.create(batchSize, 4);
+            for (int i = 0; i < batchSize; i++) {
+                in.putScalar(i, r.nextInt(3));
+                labels.putScalar(new int[] {i, r.nextInt(4)}, 1.0);
+            }
+            sparse.fit(in, labels);
+        }
+        INDArray weightsAfter = sparse.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+        for (int i = 0; i < nClassesIn; i++) {
+            if (i < 3) {
+                assertNotEquals(weightsBefore.getRow(i), weightsAfter.getRow(i));
+            } else {
+                assertEquals(weightsBefore.getRow(i), weightsAfter.getRow(i));
+            }
+        }
+
+        int[] rows = ((org.deeplearning4j.nn.layers.feedforward.embedding.EmbeddingLayer) sparse.getLayer(0))
+                        .getSparseGradientRows(DefaultParamInitializer.WEIGHT_KEY);
+        assertArrayEquals(new int[] {0, 1, 2}, rows);
+    }
+
+    @Test
+    public void testEmbeddingSparseGradientsDenseFallback() {
+        //The updater state for this updater can't be split by rows, so the updater is applied to the full gradient
+        // (writing to every row). Results should be identical to training without sparse gradients: i.e., the next
+        // backprop must zero the full gradient view, not just the rows from the previous minibatch
+
+        int nClassesIn = 10;
+        int batchSize = 4;
+
+        MultiLayerNetwork[] nets = new MultiLayerNetwork[2];
+        for (int i = 0; i < 2; i++) {
+            MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().activation(Activation.TANH)
+                            .updater(new CountingMomentumUpdater(0.1, 0.9)).seed(12345).list()
+                            .layer(0, new EmbeddingLayer.Builder().hasBias(true).sparseGradients(i == 1)
+                                            .nIn(nClassesIn).nOut(5).build())
+                            .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(4)
+                                            .activation(Activation.SOFTMAX).build())
+                            .pretrain(false).backprop(true).build();
+            nets[i] = new MultiLayerNetwork(conf);
+            nets[i].init();
+        }
+        MultiLayerNetwork dense = nets[0];
+        MultiLayerNetwork sparse = nets[1];
+        sparse.setParams(dense.params().dup());
+
+        org.deeplearning4j.nn.layers.feedforward.embedding.EmbeddingLayer l0 =
+                        (org.deeplearning4j.nn.layers.feedforward.embedding.EmbeddingLayer) sparse.getLayer(0);
+        Random r = new Random(12345);
+        for (int iter = 0; iter < 5; iter++) {
+            //Use a different subset of rows in each minibatch
+            INDArray in = Nd4j.create(batchSize, 1);
+            INDArray labels = Nd4j.create(batchSize, 4);
+            for (int i = 0; i < batchSize; i++) {
+                in.putScalar(i, r.nextInt(nClassesIn));
+                labels.putScalar(new int[] {i, r.nextInt(4)}, 1.0);
+            }
+            dense.fit(in, labels);
+            sparse.fit(in, labels);
+            assertEquals(dense.params(), sparse.params());
+            assertNull(l0.getSparseGradientRows(DefaultParamInitializer.WEIGHT_KEY));
+        }
+    }
+
+    /**
+     * Momentum SGD that also keeps an iteration count in its state: the state size isn't a multiple of the number of
+     * parameters, hence the updater can't be applied lazily to a subset of the rows
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CountingMomentumUpdater implements IUpdater {
+        private double learningRate;
+        private double momentum;
+
+        @Override
+        public long stateSize(long numParams) {
+            return numParams + 1;
+        }
+
+        @Override
+        public GradientUpdater instantiate(INDArray viewArray, boolean initializeViewArray) {
+            if (initializeViewArray) {
+                viewArray.assign(0);
+            }
+            return new CountingMomentumGradientUpdater(this, viewArray);
+        }
+
+        @Override
+        public CountingMomentumUpdater clone() {
+            return new CountingMomentumUpdater(learningRate, momentum);
+        }
+
+        @Override
+        public double getLearningRate(int iteration, int epoch) {
+            return learningRate;
+        }
+    }
+
+    @AllArgsConstructor
+    public static class CountingMomentumGradientUpdater implements GradientUpdater<CountingMomentumUpdater> {
+        private CountingMomentumUpdater config;
+        private INDArray state;
+
+        @Override
+        public CountingMomentumUpdater getConfig() {
+            return config;
+        }
+
+        @Override
+        public void setStateViewArray(INDArray viewArray, int[] gradientShape, char gradientOrder, boolean initialize) {
+            if (initialize) {
+                viewArray.assign(0);
+            }
+            this.state = viewArray;
+        }
+
+        @Override
+        public void applyUpdater(INDArray gradient, int iteration, int epoch) {
+            int length = gradient.length();
+            INDArray v = state.get(NDArrayIndex.point(0), NDArrayIndex.interval(0, length));
+            v.muli(config.getMomentum()).addi(gradient);
+            gradient.assign(v).muli(config.getLearningRate());
+            state.putScalar(length, state.getDouble(length) + 1);
+        }
+    }
 }
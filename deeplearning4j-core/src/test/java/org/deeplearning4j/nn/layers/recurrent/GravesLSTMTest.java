@@ -1,5 +1,6 @@
 package org.deeplearning4j.nn.layers.recurrent;
 
+import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
@@ -8,6 +9,8 @@ import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.params.GravesLSTMParamInitializer;
 import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.nn.conf.layers.BaseRecurrentLayer;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -26,6 +29,7 @@ import java.util.List;
 import static org.junit.Assert.*;
 
 
+@Slf4j
 public class GravesLSTMTest {
 
     @Test
@@ -255,4 +259,84 @@ public class GravesLSTMTest {
             net.fit(in, labels);
         }
     }
+
+    private static MultiLayerNetwork getRnnNet(boolean graves, int nIn, int layerSize, int nOut) {
+        BaseRecurrentLayer l = (graves ? new org.deeplearning4j.nn.conf.layers.GravesLSTM.Builder().nIn(nIn)
+                        .nOut(layerSize).activation(Activation.TANH).build()
+                        : new org.deeplearning4j.nn.conf.layers.LSTM.Builder().nIn(nIn).nOut(layerSize)
+                                        .activation(Activation.TANH).build());
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).list().layer(0, l)
+                        .layer(1, new org.deeplearning4j.nn.conf.layers.RnnOutputLayer.Builder()
+                                        .lossFunction(LossFunctions.LossFunction.MSE).nIn(layerSize).nOut(nOut)
+                                        .activation(Activation.IDENTITY).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    @Test
+    public void testSequenceVsTimeStepOutput() {
+        //Input projection is calculated for the whole sequence at once in the forward pass: output should be identical
+        // to calculating one time step at a time (i.e., 2d input, T=1)
+        int nIn = 5;
+        int layerSize = 7;
+        int miniBatchSize = 3;
+        int timeSeriesLength = 6;
+
+        for (boolean graves : new boolean[] {true, false}) {
+            Nd4j.getRandom().setSeed(12345);
+            MultiLayerNetwork net = getRnnNet(graves, nIn, layerSize, 4);
+            INDArray input = Nd4j.rand(new int[] {miniBatchSize, nIn, timeSeriesLength});
+
+            INDArray outSeq = net.output(input);
+            for (int t = 0; t < timeSeriesLength; t++) {
+                INDArray inStep = input.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(t));
+                INDArray outStep = net.rnnTimeStep(inStep);
+                INDArray exp = outSeq.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(t));
+                assertEquals(exp, outStep);
+            }
+
+            //Also check 'c' order input
+            assertEquals(outSeq, net.output(input.dup('c')));
+        }
+    }
+
+    @Test
+    @Ignore
+    public void benchmarkLSTMForwardPass() {
+        int nIn = 128;
+        int layerSize = 256;
+        int miniBatchSize = 32;
+        int timeSeriesLength = 100;
+        int nWarmup = 10;
+        int nIter = 50;
+
+        for (boolean graves : new boolean[] {true, false}) {
+            MultiLayerNetwork net = getRnnNet(graves, nIn, layerSize, 10);
+            INDArray input = Nd4j.rand(new int[] {miniBatchSize, nIn, timeSeriesLength}, 'f');
+            INDArray labels = Nd4j.rand(new int[] {miniBatchSize, 10, timeSeriesLength}, 'f');
+
+            for (boolean fit : new boolean[] {false, true}) {
+                for (int i = 0; i < nWarmup; i++) {
+                    if (fit) {
+                        net.fit(input, labels);
+                    } else {
+                        net.output(input);
+                    }
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < nIter; i++) {
+                    if (fit) {
+                        net.fit(input, labels);
+                    } else {
+                        net.output(input);
+                    }
+                }
+                double sec = (System.nanoTime() - start) / 1e9;
+                log.info("{} {}: {} tokens/sec", (graves ? "GravesLSTM" : "LSTM"), (fit ? "fit" : "output"),
+                                nIter * miniBatchSize * timeSeriesLength / sec);
+            }
+        }
+    }
 }
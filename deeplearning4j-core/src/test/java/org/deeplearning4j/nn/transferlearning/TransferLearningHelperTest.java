@@ -1,6 +1,8 @@
 package org.deeplearning4j.nn.transferlearning;
 
 import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.datasets.iterator.IteratorMultiDataSetIterator;
+import org.deeplearning4j.datasets.iterator.impl.ListDataSetIterator;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
@@ -10,18 +12,26 @@ import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.HalfPrecisionUtil;
+import org.deeplearning4j.util.MappedDataBuffers;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.MultiDataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Sgd;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * Created by susaneraly on 2/24/17.
@@ -230,4 +240,193 @@ public class TransferLearningHelperTest {
         INDArray act = modelNow.params();
         assertEquals(expected, act);
     }
+
+    @Test
+    public void testFeaturizeAndCacheMLN() throws Exception {
+        NeuralNetConfiguration.Builder overallConf = new NeuralNetConfiguration.Builder().updater(new Sgd(0.1))
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                        .activation(Activation.TANH);
+
+        MultiLayerNetwork net = new MultiLayerNetwork(overallConf.clone().list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(6).build())
+                        .layer(1, new DenseLayer.Builder().nIn(6).nOut(5).build())
+                        .layer(2, new org.deeplearning4j.nn.conf.layers.OutputLayer.Builder(
+                                        LossFunctions.LossFunction.MCXENT).activation(Activation.SOFTMAX).nIn(5).nOut(3)
+                                                        .build())
+                        .build());
+        net.init();
+
+        List<DataSet> data = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            data.add(new DataSet(Nd4j.rand(8, 4), Nd4j.rand(8, 3)));
+        }
+        DataSetIterator source = new ListDataSetIterator<>(data, 1);
+
+        TransferLearningHelper helper = new TransferLearningHelper(net, 1);
+        File dir = Files.createTempDirectory("featurizedCache").toFile();
+        dir.deleteOnExit();
+
+        for (boolean half : new boolean[] {false, true}) {
+            source.reset();
+            DataSetIterator cached = helper.featurizeAndCache(source, dir, 3, half);
+            assertEquals(56, cached.totalExamples());
+            assertEquals(8, cached.batch());
+
+            int count = 0;
+            while (cached.hasNext()) {
+                DataSet expected = helper.featurize(data.get(count++));
+                DataSet actual = cached.next();
+                assertEquals(expected.getLabels(), actual.getLabels());
+                if (half) {
+                    assertTrue(expected.getFeatures().equalsWithEps(actual.getFeatures(), 1e-3));
+                } else {
+                    assertEquals(expected.getFeatures(), actual.getFeatures());
+                }
+            }
+            assertEquals(data.size(), count);
+
+            //Full precision arrays are backed directly by the cache files; half precision features are converted
+            org.nd4j.linalg.dataset.api.MultiDataSet batch = FeaturizedDataCache.open(dir).getBatch(0);
+            assertEquals(!half, MappedDataBuffers.isMapped(batch.getFeatures(0).data()));
+            assertTrue(MappedDataBuffers.isMapped(batch.getLabels(0).data()));
+            assertEquals(data.get(0).getLabels(), batch.getLabels(0));
+            //Copy on write: modifying the array must not modify the cache
+            batch.getLabels(0).addi(1.0);
+            assertEquals(data.get(0).getLabels(), FeaturizedDataCache.open(dir).getBatch(0).getLabels(0));
+        }
+
+        //Cache is still valid: should be reused without using the source iterator
+        source.reset();
+        DataSetIterator cached = helper.featurizeAndCache(source, dir, 1, true);
+        assertEquals(0, source.cursor());
+        helper.fitFeaturized(cached);
+
+        //Modifying the frozen parameters invalidates the cache
+        net.getLayer(0).setParams(net.getLayer(0).params().add(0.5));
+        try {
+            cached.reset();
+            fail("Expected exception for stale cache");
+        } catch (IllegalStateException e) {
+            //Expected
+        }
+        cached = helper.featurizeAndCache(source, dir, 1, true);
+        assertFalse(source.hasNext());
+        assertTrue(helper.featurize(data.get(0)).getFeatures().equalsWithEps(cached.next().getFeatures(), 1e-3));
+
+        //Caches written in the previous file format (without a format version in the manifest) must be rebuilt
+        FeaturizedDataCache current = FeaturizedDataCache.open(dir);
+        assertTrue(current.isValid(current.getFrozenParamsHash(), true));
+        File manifest = new File(dir, FeaturizedDataCache.MANIFEST_FILE);
+        Properties p = new Properties();
+        try (InputStream is = new FileInputStream(manifest)) {
+            p.load(is);
+        }
+        p.remove("formatVersion");
+        try (OutputStream os = new FileOutputStream(manifest)) {
+            p.store(os, null);
+        }
+        assertFalse(FeaturizedDataCache.open(dir).isValid(current.getFrozenParamsHash(), true));
+
+        FeaturizedDataCache.clear(dir);
+        dir.delete();
+    }
+
+    @Test
+    public void testFeaturizeAndCacheGraph() throws Exception {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .activation(Activation.TANH).updater(new Sgd(0.1)).graphBuilder().addInputs("in1", "in2")
+                        .addLayer("frozen", new DenseLayer.Builder().nIn(5).nOut(4).build(), "in1")
+                        .addVertex("merge", new MergeVertex(), "frozen", "in2")
+                        .addLayer("dense", new DenseLayer.Builder().nIn(7).nOut(4).build(), "merge")
+                        .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MSE).nIn(4).nOut(2)
+                                        .build(), "dense")
+                        .setOutputs("out").build();
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+
+        List<MultiDataSet> data = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            data.add(new MultiDataSet(new INDArray[] {Nd4j.rand(6, 5), Nd4j.rand(6, 3)},
+                            new INDArray[] {Nd4j.rand(6, 2)}));
+        }
+
+        TransferLearningHelper helper = new TransferLearningHelper(graph, "frozen");
+        File dir = Files.createTempDirectory("featurizedCache").toFile();
+        dir.deleteOnExit();
+
+        MultiDataSetIterator cached = helper.featurizeAndCache(new IteratorMultiDataSetIterator(
+                        new ArrayList<org.nd4j.linalg.dataset.api.MultiDataSet>(data).iterator(), 6), dir, 2, false);
+        int count = 0;
+        while (cached.hasNext()) {
+            MultiDataSet expected = helper.featurize(data.get(count++));
+            org.nd4j.linalg.dataset.api.MultiDataSet actual = cached.next();
+            assertArrayEquals(expected.getFeatures(), actual.getFeatures());
+            assertArrayEquals(expected.getLabels(), actual.getLabels());
+        }
+        assertEquals(data.size(), count);
+
+        cached.reset();
+        helper.fitFeaturized(cached);
+
+        FeaturizedDataCache.clear(dir);
+        dir.delete();
+    }
+
+    @Test
+    public void testReadUncompressedCachedBatch() throws Exception {
+        File dir = Files.createTempDirectory("featurizedCacheRead").toFile();
+        dir.deleteOnExit();
+
+        INDArray features = Nd4j.rand(new int[] {4, 3, 5});
+        INDArray labels = Nd4j.rand(new int[] {4, 2, 5});
+        INDArray featuresMask = Nd4j.ones(4, 5);
+        featuresMask.putScalar(0, 4, 0.0);
+        MultiDataSet mds = new MultiDataSet(new INDArray[] {features}, new INDArray[] {labels},
+                        new INDArray[] {featuresMask}, null);
+        FeaturizedDataCache.writeBatch(dir, 0, mds, false);
+        FeaturizedDataCache.writeBatch(dir, 1, mds, true);
+        FeaturizedDataCache.writeManifest(dir, "hash", 2, 8, false);
+
+        FeaturizedDataCache cache = FeaturizedDataCache.open(dir);
+        for (int i = 0; i < 2; i++) {
+            boolean half = (i == 1);
+            org.nd4j.linalg.dataset.api.MultiDataSet read = cache.getBatch(i);
+            if (half) {
+                assertTrue(features.equalsWithEps(read.getFeatures(0), 1e-3));
+            } else {
+                assertEquals(features, read.getFeatures(0));
+            }
+            assertEquals(labels, read.getLabels(0));
+            assertEquals(featuresMask, read.getFeaturesMaskArray(0));
+            assertNull(read.getLabelsMaskArrays());
+
+            //Full precision arrays are backed by the (copy on write) file mapping, not copied
+            assertEquals(!half, MappedDataBuffers.isMapped(read.getFeatures(0).data()));
+            assertTrue(MappedDataBuffers.isMapped(read.getLabels(0).data()));
+            assertTrue(MappedDataBuffers.isMapped(read.getFeaturesMaskArray(0).data()));
+
+            read.getFeatures(0).muli(2.0);
+            read.getLabels(0).addi(1.0);
+            org.nd4j.linalg.dataset.api.MultiDataSet reread = cache.getBatch(i);
+            assertEquals(labels, reread.getLabels(0));
+            assertTrue(features.equalsWithEps(reread.getFeatures(0), 1e-3));
+        }
+
+        FeaturizedDataCache.clear(dir);
+        dir.delete();
+    }
+
+    @Test
+    public void testHalfPrecisionConversion() {
+        float[] values = {0.0f, -0.0f, 1.0f, -2.5f, 65504.0f, 1e-5f, 5.96e-8f, 0.1f, 1e6f, Float.POSITIVE_INFINITY};
+        for (float f : values) {
+            float roundTrip = HalfPrecisionUtil.toFloat(HalfPrecisionUtil.toHalf(f));
+            if (Math.abs(f) > 65504.0f) {
+                assertTrue(Float.isInfinite(roundTrip));
+            } else {
+                assertEquals(f, roundTrip, Math.max(Math.abs(f) * 1e-3, 6e-8));
+            }
+        }
+        assertTrue(Float.isNaN(HalfPrecisionUtil.toFloat(HalfPrecisionUtil.toHalf(Float.NaN))));
+    }
 }
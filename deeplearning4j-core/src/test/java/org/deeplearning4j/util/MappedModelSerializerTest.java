@@ -0,0 +1,158 @@
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.bytedeco.javacpp.Pointer;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerStandardize;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class MappedModelSerializerTest {
+
+    @Test
+    public void testWriteRestoreMLN() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                        .activation(Activation.TANH).list()
+                        .layer(new DenseLayer.Builder().nIn(4).nOut(20).build())
+                        .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(20).nOut(3).build())
+                        .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        DataSetIterator iter = new IrisDataSetIterator(50, 150);
+        net.fit(iter);
+
+        NormalizerStandardize normalizer = new NormalizerStandardize();
+        iter.reset();
+        normalizer.fit(iter);
+
+        File f = File.createTempFile("mappedModel", ".bin");
+        f.deleteOnExit();
+        MappedModelSerializer.writeModel(net, f, true, normalizer);
+        assertTrue(MappedModelSerializer.isMappedModel(f));
+        //Parameters section is page aligned
+        assertTrue(f.length() >= 2 * MappedModelSerializer.ALIGNMENT);
+
+        MultiLayerNetwork restored = MappedModelSerializer.restoreMultiLayerNetwork(f);
+        assertEquals(net.getLayerWiseConfigurations().toJson(), restored.getLayerWiseConfigurations().toJson());
+        assertEquals(net.params(), restored.params());
+        assertEquals(net.getUpdater().getStateViewArray(), restored.getUpdater().getStateViewArray());
+
+        //Parameters must be backed directly by the mapped file, not copied
+        DataBuffer paramsData = restored.params().data();
+        assertTrue(MappedDataBuffers.isMapped(paramsData));
+        MappedByteBuffer mapping = MappedDataBuffers.getMapping(paramsData);
+        assertTrue(mapping.isDirect());
+        assertEquals(new Pointer(mapping).address(), paramsData.address());
+        assertTrue(MappedDataBuffers.isMapped(restored.getUpdater().getStateViewArray().data()));
+        //Identity, not value equality: a copy with the same values is not mapped
+        assertFalse(MappedDataBuffers.isMapped(restored.params().dup().data()));
+
+        NormalizerStandardize restoredNormalizer = MappedModelSerializer.restoreNormalizer(f);
+        assertEquals(normalizer.getMean(), restoredNormalizer.getMean());
+        assertEquals(normalizer.getStd(), restoredNormalizer.getStd());
+
+        //Training the restored network must not modify the file (copy on write)
+        INDArray paramsBefore = restored.params().dup();
+        iter.reset();
+        restored.fit(iter);
+        assertNotEquals(paramsBefore, restored.params());
+        assertEquals(paramsBefore, MappedModelSerializer.restoreMultiLayerNetwork(f, false).params());
+
+        //Overwriting the file replaces it: a network restored from the previous file must be unaffected
+        MultiLayerNetwork before = MappedModelSerializer.restoreMultiLayerNetwork(f, false);
+        INDArray beforeParams = before.params().dup();
+        MappedModelSerializer.writeModel(restored, f, true, normalizer);
+        assertEquals(beforeParams, before.params());
+        assertEquals(restored.params(), MappedModelSerializer.restoreMultiLayerNetwork(f, false).params());
+        File[] tempFiles = f.getAbsoluteFile().getParentFile().listFiles();
+        for (File t : tempFiles) {
+            assertFalse(t.getName(), t.getName().startsWith("." + f.getName()) && t.getName().endsWith(".tmp"));
+        }
+        MappedModelSerializer.writeModel(net, f, true, normalizer);
+
+        //Convert to zip and back
+        File zip = File.createTempFile("zipModel", ".zip");
+        zip.deleteOnExit();
+        MappedModelSerializer.convertToZip(f, zip);
+        assertFalse(MappedModelSerializer.isMappedModel(zip));
+        MultiLayerNetwork fromZip = ModelSerializer.restoreMultiLayerNetwork(zip);
+        assertEquals(net.params(), fromZip.params());
+        assertEquals(net.getUpdater().getStateViewArray(), fromZip.getUpdater().getStateViewArray());
+        NormalizerStandardize zipNormalizer = ModelSerializer.restoreNormalizerFromFile(zip);
+        assertEquals(normalizer.getMean(), zipNormalizer.getMean());
+
+        File f2 = File.createTempFile("mappedModel2", ".bin");
+        f2.deleteOnExit();
+        MappedModelSerializer.convertFromZip(zip, f2);
+        MultiLayerNetwork fromConverted = MappedModelSerializer.restoreMultiLayerNetwork(f2);
+        assertEquals(net.params(), fromConverted.params());
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+        assertEquals(net.output(ds.getFeatures()), fromConverted.output(ds.getFeatures()));
+    }
+
+    @Test
+    public void testWriteRestoreComputationGraph() throws Exception {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .updater(new Adam(0.01)).activation(Activation.TANH).graphBuilder().addInputs("in")
+                        .addLayer("0", new DenseLayer.Builder().nIn(4).nOut(20).build(), "in")
+                        .addLayer("1", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(20).nOut(3).build(), "0")
+                        .setOutputs("1").build();
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+        graph.fit(new IrisDataSetIterator(50, 150));
+
+        File f = File.createTempFile("mappedGraph", ".bin");
+        f.deleteOnExit();
+        MappedModelSerializer.writeModel(graph, f, false);
+
+        ComputationGraph restored = MappedModelSerializer.restoreComputationGraph(f);
+        assertEquals(graph.getConfiguration().toJson(), restored.getConfiguration().toJson());
+        assertEquals(graph.params(), restored.params());
+        assertTrue(MappedDataBuffers.isMapped(restored.params().data()));
+
+        //Short file names: temporary file names must still be valid
+        File dir = java.nio.file.Files.createTempDirectory("mappedGraphDir").toFile();
+        File shortName = new File(dir, "g");
+        MappedModelSerializer.writeModel(graph, shortName, false);
+        assertEquals(graph.params(), MappedModelSerializer.restoreComputationGraph(shortName).params());
+        assertTrue(shortName.delete());
+        assertTrue(dir.delete());
+        assertNull(MappedModelSerializer.<NormalizerStandardize>restoreNormalizer(f));
+
+        try {
+            MappedModelSerializer.restoreMultiLayerNetwork(f);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //Expected
+        }
+
+        File zip = File.createTempFile("zipGraph", ".zip");
+        zip.deleteOnExit();
+        ModelSerializer.writeModel(graph, zip, true);
+        File f2 = File.createTempFile("mappedGraph2", ".bin");
+        f2.deleteOnExit();
+        MappedModelSerializer.convertFromZip(zip, f2);
+        ComputationGraph fromConverted = MappedModelSerializer.restoreComputationGraph(f2);
+        assertEquals(graph.params(), fromConverted.params());
+        assertEquals(graph.getUpdater().getStateViewArray(), fromConverted.getUpdater().getStateViewArray());
+    }
+}
@@ -12,6 +12,7 @@ import org.deeplearning4j.text.documentiterator.interoperability.DocumentIterato
 import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
 import org.deeplearning4j.text.sentenceiterator.interoperability.SentenceIteratorConverter;
 import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.SpanTokenizerFactory;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
@@ -67,6 +68,18 @@ public class BagOfWordsVectorizer extends BaseTextVectorizer {
 
     @Override
     public INDArray transform(String text) {
+        if (tokenizerFactory instanceof SpanTokenizerFactory) {
+            // tokens are resolved straight to vocabulary indexes, without String per token
+            int[] indexes = ((SpanTokenizerFactory) tokenizerFactory).create((CharSequence) text)
+                            .getTokenIndexes(getVocabIndex());
+            INDArray input = Nd4j.create(1, vocabCache.numWords());
+            for (int idx : indexes) {
+                if (idx >= 0)
+                    input.putScalar(idx, (int) vocabCache.elementAtIndex(idx).getElementFrequency());
+            }
+            return input;
+        }
+
         Tokenizer tokenizer = tokenizerFactory.create(text);
         List<String> tokens = tokenizer.getTokens();
         return transform(tokens);
@@ -5,6 +5,7 @@ import lombok.Setter;
 import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
 import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
 import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.CharSequenceVocabIndex;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
@@ -31,6 +32,7 @@ public abstract class BaseTextVectorizer implements TextVectorizer {
     @Getter
     protected transient InvertedIndex<VocabWord> index;
     protected boolean isParallel = true;
+    protected transient volatile CharSequenceVocabIndex vocabIndex;
 
     protected LabelsSource getLabelsSource() {
         return labelsSource;
@@ -51,6 +53,22 @@ public abstract class BaseTextVectorizer implements TextVectorizer {
                         .allowParallelTokenization(isParallel).build();
 
         constructor.buildJointVocabulary(false, true);
+        vocabIndex = null;
+    }
+
+    /**
+     * Returns char-sequence lookup index over current vocabulary, used with SpanTokenizerFactory
+     *
+     * @return
+     */
+    protected CharSequenceVocabIndex getVocabIndex() {
+        if (vocabIndex == null) {
+            synchronized (this) {
+                if (vocabIndex == null)
+                    vocabIndex = new CharSequenceVocabIndex(vocabCache);
+            }
+        }
+        return vocabIndex;
     }
 
     @Override
@@ -13,6 +13,7 @@ import org.deeplearning4j.text.documentiterator.interoperability.DocumentIterato
 import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
 import org.deeplearning4j.text.sentenceiterator.interoperability.SentenceIteratorConverter;
 import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.SpanTokenizerFactory;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.deeplearning4j.util.MathUtils;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -93,6 +94,13 @@ public class TfidfVectorizer extends BaseTextVectorizer {
      */
     @Override
     public INDArray transform(String text) {
+        if (tokenizerFactory instanceof SpanTokenizerFactory) {
+            // tokens are resolved straight to vocabulary indexes, without String per token
+            int[] indexes = ((SpanTokenizerFactory) tokenizerFactory).create((CharSequence) text)
+                            .getTokenIndexes(getVocabIndex());
+            return transform(indexes);
+        }
+
         Tokenizer tokenizer = tokenizerFactory.create(text);
         List<String> tokens = tokenizer.getTokens();
 
@@ -124,6 +132,34 @@ public class TfidfVectorizer extends BaseTextVectorizer {
         return ret;
     }
 
+    /**
+     * Builds TF-IDF vector out of vocabulary indexes of document tokens, -1 stands for out-of-vocabulary token
+     *
+     * @param indexes
+     * @return
+     */
+    protected INDArray transform(int[] indexes) {
+        INDArray ret = Nd4j.create(1, vocabCache.numWords());
+
+        int[] sorted = Arrays.copyOf(indexes, indexes.length);
+        Arrays.sort(sorted);
+
+        int i = 0;
+        while (i < sorted.length) {
+            int idx = sorted[i];
+            int j = i;
+            while (j < sorted.length && sorted[j] == idx)
+                j++;
+
+            if (idx >= 0) {
+                double tf_idf = tfidfWord(vocabCache.wordAtIndex(idx), j - i, indexes.length);
+                ret.putScalar(idx, tf_idf);
+            }
+            i = j;
+        }
+        return ret;
+    }
+
     public double tfidfWord(String word, long wordCount, long documentLength) {
         //log.info("word: {}; TF: {}; IDF: {}", word, tfForWord(wordCount, documentLength), idfForWord(word));
         return MathUtils.tfidf(tfForWord(wordCount, documentLength), idfForWord(word));
@@ -40,6 +40,10 @@ import java.util.*;
  * <p>
  * <b>Note</b>: With regard to labels to class index assignment, they are sorted alphabetically. To get the assigment/mapping,
  * use {@link #getLabels()} or {@link #getLabelClassMap()}
+ * <p>
+ * <b>Note</b>: When word vectors matrix is available via {@link WordVectors#lookupTable()}, features for a minibatch
+ * are gathered out of it with a single pull-rows operation. As this iterator supports async prefetch, wrapping it
+ * in AsyncDataSetIterator moves featurization off the training thread.
  *
  * @author Alex Black
  */
@@ -66,6 +70,12 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
     private Map<String, Integer> labelClassMap;
     private INDArray unknown;
 
+    private boolean cacheTokens;
+    private Map<String, List<String>> tokensCache;
+    //Word vectors matrix used for gathering all vectors of a minibatch at once; null if not available
+    private INDArray weights;
+    private int unknownIndex = -1;
+
     private int cursor = 0;
 
     private Pair<List<String>, String> preLoadedTokens;
@@ -80,6 +90,10 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
         this.maxSentenceLength = builder.maxSentenceLength;
         this.sentencesAlongHeight = builder.sentencesAlongHeight;
         this.dataSetPreProcessor = builder.dataSetPreProcessor;
+        this.cacheTokens = builder.cacheTokens;
+        if (cacheTokens) {
+            this.tokensCache = new HashMap<>();
+        }
 
 
         this.numClasses = this.sentenceProvider.numLabelClasses();
@@ -94,13 +108,43 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
         }
         if (unknownWordHandling == UnknownWordHandling.UseUnknownVector) {
             if (useNormalizedWordVectors) {
-                wordVectors.getWordVectorMatrixNormalized(wordVectors.getUNK());
+                unknown = wordVectors.getWordVectorMatrixNormalized(wordVectors.getUNK());
             } else {
-                wordVectors.getWordVectorMatrix(wordVectors.getUNK());
+                unknown = wordVectors.getWordVectorMatrix(wordVectors.getUNK());
             }
         }
 
         this.wordVectorSize = wordVectors.getWordVector(wordVectors.vocab().wordAtIndex(0)).length;
+        this.weights = gatherWeights();
+    }
+
+    /**
+     * Returns word vectors matrix, if features can be gathered directly out of it by vocabulary indexes. Otherwise
+     * (i.e. lookup table isn't available, or unknown word vector isn't a part of it) returns null, and features are
+     * built one word at a time
+     */
+    private INDArray gatherWeights() {
+        INDArray syn0;
+        try {
+            syn0 = wordVectors.lookupTable() == null ? null : wordVectors.lookupTable().getWeights();
+        } catch (UnsupportedOperationException e) {
+            //i.e. StaticWord2Vec doesn't expose lookup table
+            return null;
+        }
+
+        if (syn0 == null || syn0.rank() != 2 || syn0.columns() != wordVectorSize
+                        || syn0.rows() < wordVectors.vocab().numWords()) {
+            return null;
+        }
+
+        if (unknownWordHandling == UnknownWordHandling.UseUnknownVector) {
+            unknownIndex = wordVectors.vocab().indexOf(wordVectors.getUNK());
+            if (unknownIndex < 0) {
+                return null;
+            }
+        }
+
+        return syn0;
     }
 
     /**
@@ -155,6 +199,19 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
     }
 
     private List<String> tokenizeSentence(String sentence) {
+        if (cacheTokens) {
+            List<String> tokens = tokensCache.get(sentence);
+            if (tokens == null) {
+                tokens = doTokenizeSentence(sentence);
+                tokensCache.put(sentence, tokens);
+            }
+            return tokens;
+        }
+
+        return doTokenizeSentence(sentence);
+    }
+
+    private List<String> doTokenizeSentence(String sentence) {
         Tokenizer t = tokenizerFactory.create(sentence);
 
         List<String> tokens = new ArrayList<>();
@@ -283,26 +340,31 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
             featuresShape[3] = maxLength;
         }
 
-        INDArray features = Nd4j.create(featuresShape);
-        for (int i = 0; i < currMinibatchSize; i++) {
-            List<String> currSentence = tokenizedSentences.get(i).getFirst();
-
-            for (int j = 0; j < currSentence.size() && j < maxSentenceLength; j++) {
-                INDArray vector = getVector(currSentence.get(j));
-
-                INDArrayIndex[] indices = new INDArrayIndex[4];
-                //TODO REUSE
-                indices[0] = NDArrayIndex.point(i);
-                indices[1] = NDArrayIndex.point(0);
-                if (sentencesAlongHeight) {
-                    indices[2] = NDArrayIndex.point(j);
-                    indices[3] = NDArrayIndex.all();
-                } else {
-                    indices[2] = NDArrayIndex.all();
-                    indices[3] = NDArrayIndex.point(j);
+        INDArray features;
+        if (weights != null) {
+            features = gatherFeatures(tokenizedSentences, maxLength);
+        } else {
+            features = Nd4j.create(featuresShape);
+            for (int i = 0; i < currMinibatchSize; i++) {
+                List<String> currSentence = tokenizedSentences.get(i).getFirst();
+
+                for (int j = 0; j < currSentence.size() && j < maxLength; j++) {
+                    INDArray vector = getVector(currSentence.get(j));
+
+                    INDArrayIndex[] indices = new INDArrayIndex[4];
+                    //TODO REUSE
+                    indices[0] = NDArrayIndex.point(i);
+                    indices[1] = NDArrayIndex.point(0);
+                    if (sentencesAlongHeight) {
+                        indices[2] = NDArrayIndex.point(j);
+                        indices[3] = NDArrayIndex.all();
+                    } else {
+                        indices[2] = NDArrayIndex.all();
+                        indices[3] = NDArrayIndex.point(j);
+                    }
+
+                    features.put(indices, vector);
                 }
-
-                features.put(indices, vector);
             }
         }
 
@@ -330,6 +392,52 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
         return ds;
     }
 
+    /**
+     * Builds features for the whole minibatch with a single row gather out of word vectors matrix: tokens are mapped
+     * to vocabulary indexes first, then all vectors are pulled at once into [minibatch * maxLength, wordVectorSize]
+     * matrix, which is then reshaped into features array. Padding positions are zeroed out.
+     */
+    private INDArray gatherFeatures(List<Pair<List<String>, String>> tokenizedSentences, int maxLength) {
+        int currMinibatchSize = tokenizedSentences.size();
+        int[] rowIndexes = new int[currMinibatchSize * maxLength];
+        double[] padding = null;
+
+        for (int i = 0; i < currMinibatchSize; i++) {
+            List<String> currSentence = tokenizedSentences.get(i).getFirst();
+            int length = Math.min(currSentence.size(), maxLength);
+            int offset = i * maxLength;
+            for (int j = 0; j < length; j++) {
+                String word = currSentence.get(j);
+                //Yes, this *should* be using == for the sentinel String here
+                rowIndexes[offset + j] =
+                                word == UNKNOWN_WORD_SENTINEL ? unknownIndex : wordVectors.vocab().indexOf(word);
+            }
+
+            if (length < maxLength) {
+                if (padding == null) {
+                    padding = new double[rowIndexes.length];
+                    Arrays.fill(padding, 1.0);
+                }
+                //Padding positions point to row 0, and are zeroed out after the gather
+                Arrays.fill(padding, offset + length, offset + maxLength, 0.0);
+            }
+        }
+
+        INDArray rows = Nd4j.pullRows(weights, 1, rowIndexes);
+        if (useNormalizedWordVectors) {
+            rows.diviColumnVector(rows.norm2(1));
+        }
+        if (padding != null) {
+            rows.muliColumnVector(Nd4j.create(padding, new int[] {padding.length, 1}));
+        }
+
+        INDArray features = rows.reshape('c', currMinibatchSize, 1, maxLength, wordVectorSize);
+        if (!sentencesAlongHeight) {
+            features = features.permute(0, 1, 3, 2).dup('c');
+        }
+        return features;
+    }
+
     @Override
     public int totalExamples() {
         return sentenceProvider.totalNumSentences();
@@ -402,6 +510,7 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
         private int minibatchSize = 32;
         private boolean sentencesAlongHeight = true;
         private DataSetPreProcessor dataSetPreProcessor;
+        private boolean cacheTokens = false;
 
         /**
          * Specify how the (labelled) sentences / documents should be provided
@@ -503,6 +612,15 @@ public class CnnSentenceDataSetIterator implements DataSetIterator {
             return this;
         }
 
+        /**
+         * If true: tokenized sentences are cached in memory, so sentences aren't tokenized again on subsequent epochs.
+         * Useful for small-to-medium corpora, when the same sentences are iterated over many times. Default: false
+         */
+        public Builder cacheTokens(boolean cacheTokens) {
+            this.cacheTokens = cacheTokens;
+            return this;
+        }
+
         public CnnSentenceDataSetIterator build() {
             if (wordVectors == null) {
                 throw new IllegalStateException(
@@ -24,6 +24,7 @@ import lombok.NonNull;
 import lombok.Setter;
 import org.apache.commons.math3.util.FastMath;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.TrainingPlan;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.Word2Vec;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
@@ -65,7 +66,8 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
     protected static double MAX_EXP = 6;
     protected long seed = 123;
     //negative sampling table
-    protected INDArray table, syn1Neg;
+    protected INDArray table;
+    protected volatile INDArray syn1Neg;
     protected boolean useAdaGrad;
     protected double negative = 0;
     protected boolean useHS = true;
@@ -147,9 +149,44 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
             syn1 = Nd4j.create(syn0.shape());
         }
 
+        // vocabulary could be extended after weights were initialized, i.e. for incremental training
+        if (!reset && syn0.rows() < vocab.numWords())
+            expandWeights();
+
         initNegative();
     }
 
+    /**
+     * This method appends rows for elements added to vocabulary after weights were initialized.
+     * Weights of existing elements are preserved, and negative sampling table is rebuilt for updated frequencies.
+     *
+     * PLEASE NOTE: INDArrays can't be resized in place, so each expansion is a single bulk copy of existing weights
+     */
+    public synchronized void expandWeights() {
+        int oldRows = syn0.rows();
+        int newRows = vocab.numWords();
+        int extraRows = Math.max(0, newRows - oldRows);
+
+        if (extraRows > 0) {
+            log.info("Expanding lookup table from [{}] to [{}] rows...", oldRows, newRows);
+            INDArray randRows = Nd4j.rand(new int[] {extraRows, vectorLength}, rng).subi(0.5).divi(vectorLength);
+            syn0 = Nd4j.vstack(syn0, randRows);
+
+            if (syn1 != null)
+                syn1 = Nd4j.vstack(syn1, Nd4j.zeros(extraRows, vectorLength));
+        }
+
+        if (syn1Neg != null) {
+            // frequencies could change even if there were no new elements
+            INDArray newSyn1Neg = extraRows > 0 ? Nd4j.vstack(syn1Neg, Nd4j.zeros(extraRows, vectorLength)) : syn1Neg;
+            makeTable(Math.max(expTable.length, 100000), 0.75);
+            syn1Neg = newSyn1Neg;
+        }
+
+        if (useAdaGrad && extraRows > 0)
+            initAdaGrad();
+    }
+
     private List<String> fitTnseAndGetLabels(final BarnesHutTsne tsne, final int numWords) {
         INDArray array = Nd4j.create(numWords, vectorLength);
         List<String> labels = new ArrayList<>();
@@ -276,10 +313,17 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
     }
 
 
-    public synchronized void initNegative() {
+    public void initNegative() {
+        // lock is taken only once, when syn1Neg isn't initialized yet
         if (negative > 0 && syn1Neg == null) {
-            syn1Neg = Nd4j.zeros(syn0.shape());
-            makeTable(Math.max(expTable.length, 100000), 0.75);
+            synchronized (this) {
+                if (syn1Neg == null) {
+                    makeTable(Math.max(expTable.length, 100000), 0.75);
+
+                    // syn1Neg is published last, so table is always visible once syn1Neg is not null
+                    syn1Neg = Nd4j.zeros(syn0.shape());
+                }
+            }
         }
     }
 
@@ -446,29 +490,9 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
 
 
     protected void makeTable(int tableSize, double power) {
-        int vocabSize = syn0.rows();
-        table = Nd4j.create(tableSize);
-        double trainWordsPow = 0.0;
-        for (String word : vocab.words()) {
-            trainWordsPow += Math.pow(vocab.wordFrequency(word), power);
-        }
-
-        int wordIdx = 0;
-        String word = vocab.wordAtIndex(wordIdx);
-        double d1 = Math.pow(vocab.wordFrequency(word), power) / trainWordsPow;
-        for (int i = 0; i < tableSize; i++) {
-            table.putScalar(i, wordIdx);
-            double mul = i * 1.0 / (double) tableSize;
-            if (mul > d1) {
-                if (wordIdx < vocabSize - 1)
-                    wordIdx++;
-                word = vocab.wordAtIndex(wordIdx);
-                String wordAtIndex = vocab.wordAtIndex(wordIdx);
-                if (word == null)
-                    continue;
-                d1 += Math.pow(vocab.wordFrequency(wordAtIndex), power) / trainWordsPow;
-            }
-        }
+        // frequencies are fetched once into primitive array, instead of per-slot vocab lookups
+        double[] weights = TrainingPlan.unigramWeights(vocab, Math.min(syn0.rows(), vocab.numWords()), power);
+        table = Nd4j.create(TrainingPlan.buildUnigramTable(weights, tableSize));
     }
 
     /**
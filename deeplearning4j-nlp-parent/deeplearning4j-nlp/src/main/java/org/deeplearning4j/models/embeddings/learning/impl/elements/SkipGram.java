@@ -38,6 +38,7 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
     protected double negative;
     protected double sampling;
     protected int[] variableWindows;
+    protected TrainingPlan<T> trainingPlan;
     protected int vectorLength;
 
     @Getter
@@ -102,6 +103,9 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
         this.useAdaGrad = configuration.isUseAdaGrad();
         this.negative = configuration.getNegative();
         this.sampling = configuration.getSampling();
+
+        // sub-sampling thresholds are precomputed once, so we don't do per-element VocabCache lookups later
+        this.trainingPlan = new TrainingPlan.Builder<T>().vocabCache(vocabCache).sampling(sampling).build();
         this.variableWindows = configuration.getVariableWindows();
 
         this.vectorLength = configuration.getLayersSize();
@@ -118,30 +122,10 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
     }
 
     public Sequence<T> applySubsampling(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom) {
-        Sequence<T> result = new Sequence<>();
-
-        // subsampling implementation, if subsampling threshold met, just continue to next element
-        if (sampling > 0) {
-            result.setSequenceId(sequence.getSequenceId());
-            if (sequence.getSequenceLabels() != null)
-                result.setSequenceLabels(sequence.getSequenceLabels());
-            if (sequence.getSequenceLabel() != null)
-                result.setSequenceLabel(sequence.getSequenceLabel());
-
-            for (T element : sequence.getElements()) {
-                double numWords = vocabCache.totalWordOccurrences();
-                double ran = (Math.sqrt(element.getElementFrequency() / (sampling * numWords)) + 1)
-                                * (sampling * numWords) / element.getElementFrequency();
-
-                nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
-
-                if (ran < (nextRandom.get() & 0xFFFF) / (double) 65536) {
-                    continue;
-                }
-                result.addElement(element);
-            }
-            return result;
-        } else
+        // subsampling implementation, if subsampling threshold met, element is skipped
+        if (sampling > 0)
+            return trainingPlan.applySubsampling(sequence, nextRandom);
+        else
             return sequence;
     }
 
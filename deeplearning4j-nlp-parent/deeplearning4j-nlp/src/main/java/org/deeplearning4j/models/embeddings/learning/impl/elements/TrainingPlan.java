@@ -0,0 +1,262 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TrainingPlan holds per-vocabulary values precomputed once before training starts, so the inner training loop
+ * doesn't need VocabCache lookups:
+ *  - sub-sampling keep thresholds, as primitive array indexed by element index
+ *  - learning rate decay schedule, driven by lock-free processed elements counter
+ *  - unigram table for negative sampling, built from primitive frequencies
+ */
+public class TrainingPlan<T extends SequenceElement> {
+    private final double[] keepThresholds;
+    private final double sampling;
+    private final double totalWordsCount;
+
+    private final double learningRate;
+    private final double minLearningRate;
+    private final double decayPerWord;
+
+    @Getter
+    private final AtomicLong wordsCounter = new AtomicLong(0);
+
+    protected TrainingPlan(@NonNull VocabCache<T> vocabCache, double sampling, double learningRate,
+                    double minLearningRate, int iterations, int epochs, long trainingWordsCount) {
+        this.sampling = sampling;
+        this.totalWordsCount = vocabCache.totalWordOccurrences();
+        this.learningRate = learningRate;
+        this.minLearningRate = minLearningRate;
+
+        // learning rate decays over the corpus being trained on, which isn't the whole vocabulary for incremental training
+        double decayWords = trainingWordsCount > 0 ? trainingWordsCount : totalWordsCount;
+        this.decayPerWord = decayWords > 0 ? 1.0 / (decayWords * Math.max(1, iterations) * Math.max(1, epochs)) : 0.0;
+
+        if (sampling > 0) {
+            int numWords = vocabCache.numWords();
+            keepThresholds = new double[numWords];
+            for (int i = 0; i < numWords; i++) {
+                T element = vocabCache.elementAtIndex(i);
+                keepThresholds[i] = element == null ? Double.POSITIVE_INFINITY
+                                : keepThreshold(element.getElementFrequency());
+            }
+        } else
+            keepThresholds = new double[0];
+    }
+
+    /**
+     * Returns number of vocabulary entries covered by this plan
+     *
+     * @return
+     */
+    public int size() {
+        return keepThresholds.length;
+    }
+
+    protected double keepThreshold(double frequency) {
+        return (Math.sqrt(frequency / (sampling * totalWordsCount)) + 1) * (sampling * totalWordsCount) / frequency;
+    }
+
+    /**
+     * Returns sub-sampling threshold for given element. Element is kept if threshold is >= uniformly distributed random value
+     *
+     * @param element
+     * @return
+     */
+    public double keepThreshold(@NonNull T element) {
+        int idx = element.getIndex();
+        if (idx >= 0 && idx < keepThresholds.length)
+            return keepThresholds[idx];
+
+        // element isn't covered by this plan, i.e. it was added to vocab after plan was built
+        return keepThreshold(element.getElementFrequency());
+    }
+
+    /**
+     * This method applies frequency-based sub-sampling to given sequence, consuming nextRandom exactly the same way as
+     * original word2vec implementation does
+     *
+     * @param sequence
+     * @param nextRandom
+     * @return
+     */
+    public Sequence<T> applySubsampling(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom) {
+        if (sampling <= 0)
+            return sequence;
+
+        Sequence<T> result = new Sequence<>();
+        result.setSequenceId(sequence.getSequenceId());
+        if (sequence.getSequenceLabels() != null)
+            result.setSequenceLabels(sequence.getSequenceLabels());
+        if (sequence.getSequenceLabel() != null)
+            result.setSequenceLabel(sequence.getSequenceLabel());
+
+        long random = nextRandom.get();
+        for (T element : sequence.getElements()) {
+            random = Math.abs(random * 25214903917L + 11);
+
+            if (keepThreshold(element) < (random & 0xFFFF) / (double) 65536)
+                continue;
+
+            result.addElement(element);
+        }
+        nextRandom.set(random);
+
+        return result;
+    }
+
+    /**
+     * This method increments processed elements counter, used for learning rate decay
+     *
+     * @param numberOfElements
+     * @return updated counter value
+     */
+    public long incrementWordsCounter(int numberOfElements) {
+        return wordsCounter.addAndGet(numberOfElements);
+    }
+
+    /**
+     * Returns learning rate for current position of processed elements counter
+     *
+     * @return
+     */
+    public double currentLearningRate() {
+        return learningRate(wordsCounter.get());
+    }
+
+    /**
+     * Returns learning rate for given number of processed elements
+     *
+     * @param wordsProcessed
+     * @return
+     */
+    public double learningRate(long wordsProcessed) {
+        return Math.max(minLearningRate, learningRate * (1 - wordsProcessed * decayPerWord));
+    }
+
+    /**
+     * This method builds frequency^power weights for the first numWords vocabulary entries, indexed by element index
+     *
+     * @param vocabCache
+     * @param numWords
+     * @param power
+     * @return
+     */
+    public static <T extends SequenceElement> double[] unigramWeights(@NonNull VocabCache<T> vocabCache, int numWords,
+                    double power) {
+        double[] weights = new double[numWords];
+        for (int i = 0; i < numWords; i++) {
+            T element = vocabCache.elementAtIndex(i);
+            weights[i] = element == null ? 0.0 : Math.pow(element.getElementFrequency(), power);
+        }
+        return weights;
+    }
+
+    /**
+     * This method builds unigram table for negative sampling out of given weights, in single pass over primitive arrays
+     *
+     * @param weights weights indexed by element index, i.e. frequency^0.75
+     * @param tableSize
+     * @return
+     */
+    public static double[] buildUnigramTable(@NonNull double[] weights, int tableSize) {
+        double[] table = new double[tableSize];
+        if (weights.length == 0)
+            return table;
+
+        double totalWeight = 0.0;
+        for (double weight : weights)
+            totalWeight += weight;
+
+        int lastIdx = weights.length - 1;
+        int wordIdx = 0;
+        double d1 = weights[wordIdx] / totalWeight;
+        for (int i = 0; i < tableSize; i++) {
+            table[i] = wordIdx;
+            double mul = i * 1.0 / (double) tableSize;
+            if (mul > d1) {
+                if (wordIdx < lastIdx)
+                    wordIdx++;
+                d1 += weights[wordIdx] / totalWeight;
+            }
+        }
+
+        return table;
+    }
+
+    public static class Builder<T extends SequenceElement> {
+        protected VocabCache<T> vocabCache;
+        protected double sampling = 0;
+        protected double learningRate = 0.025;
+        protected double minLearningRate = 0.0001;
+        protected int iterations = 1;
+        protected int epochs = 1;
+        protected long trainingWordsCount = 0;
+
+        public Builder() {
+
+        }
+
+        public Builder<T> vocabCache(@NonNull VocabCache<T> vocabCache) {
+            this.vocabCache = vocabCache;
+            return this;
+        }
+
+        /**
+         * Sub-sampling threshold. Keep thresholds are precomputed only if sampling > 0
+         *
+         * @param sampling
+         * @return
+         */
+        public Builder<T> sampling(double sampling) {
+            this.sampling = sampling;
+            return this;
+        }
+
+        public Builder<T> learningRate(double learningRate) {
+            this.learningRate = learningRate;
+            return this;
+        }
+
+        public Builder<T> minLearningRate(double minLearningRate) {
+            this.minLearningRate = minLearningRate;
+            return this;
+        }
+
+        public Builder<T> iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        public Builder<T> epochs(int epochs) {
+            this.epochs = epochs;
+            return this;
+        }
+
+        /**
+         * Number of elements in training corpus, used for learning rate decay.
+         * If not set, total number of element occurrences in VocabCache is used.
+         *
+         * @param trainingWordsCount
+         * @return
+         */
+        public Builder<T> trainingWordsCount(long trainingWordsCount) {
+            this.trainingWordsCount = trainingWordsCount;
+            return this;
+        }
+
+        public TrainingPlan<T> build() {
+            if (vocabCache == null)
+                throw new IllegalStateException("VocabCache should be defined for TrainingPlan");
+
+            return new TrainingPlan<>(vocabCache, sampling, learningRate, minLearningRate, iterations, epochs,
+                            trainingWordsCount);
+        }
+    }
+}
@@ -58,6 +58,7 @@ public class ParagraphVectors extends Word2Vec {
 
     protected transient final Object inferenceLocker = new Object();
     protected transient ExecutorService inferenceExecutor;
+    protected transient ExecutorService batchExecutor;
     protected transient AtomicLong countSubmitted;
     protected transient AtomicLong countFinished;
 
@@ -76,6 +77,14 @@ public class ParagraphVectors extends Word2Vec {
                                     return t;
                                 }
                             });
+            batchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+                    t.setName("ParagraphVectors batch inference thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
             countSubmitted = new AtomicLong(0);
             countFinished = new AtomicLong(0);
         }
@@ -211,7 +220,15 @@ public class ParagraphVectors extends Word2Vec {
      */
     public INDArray inferVector(@NonNull List<VocabWord> document, double learningRate, double minLearningRate,
                     int iterations) {
+        return inferSequence(prepareInferenceLearner(), document, learningRate, minLearningRate, iterations);
+    }
 
+    /**
+     * This method returns learner used for inference, creating PV-DM learner if model has no learner defined
+     *
+     * @return
+     */
+    protected SequenceLearningAlgorithm<VocabWord> prepareInferenceLearner() {
         if (this.vocab == null || this.vocab.numWords() == 0)
             reassignExistingModel();
 
@@ -230,10 +247,13 @@ public class ParagraphVectors extends Word2Vec {
             }
         }
 
-        learner = sequenceLearningAlgorithm;
-
+        initLearners();
 
+        return sequenceLearningAlgorithm;
+    }
 
+    protected INDArray inferSequence(SequenceLearningAlgorithm<VocabWord> learner, @NonNull List<VocabWord> document,
+                    double learningRate, double minLearningRate, int iterations) {
         if (document.isEmpty())
             throw new ND4JIllegalStateException("Impossible to apply inference to empty list of words");
 
@@ -242,11 +262,118 @@ public class ParagraphVectors extends Word2Vec {
         sequence.addElements(document);
         sequence.setSequenceLabel(new VocabWord(1.0, String.valueOf(new Random().nextInt())));
 
-        initLearners();
+        return learner.inferSequence(sequence, seed, learningRate, minLearningRate, iterations);
+    }
+
+    /**
+     * This method converts given document into list of known VocabWords
+     *
+     * @param document
+     * @return
+     */
+    protected List<VocabWord> documentAsVocabWords(@NonNull LabelledDocument document) {
+        if (document.getReferencedContent() != null && !document.getReferencedContent().isEmpty())
+            return document.getReferencedContent();
 
-        INDArray inf = learner.inferSequence(sequence, seed, learningRate, minLearningRate, iterations);
+        if (tokenizerFactory == null)
+            throw new IllegalStateException("TokenizerFactory should be defined, prior to inference");
 
-        return inf;
+        List<String> tokens = tokenizerFactory.create(document.getContent()).getTokens();
+        List<VocabWord> documentAsWords = new ArrayList<>();
+        for (String token : tokens) {
+            VocabWord word = vocab.wordFor(token);
+            if (word != null)
+                documentAsWords.add(word);
+        }
+
+        return documentAsWords;
+    }
+
+    /**
+     * This method infers vectors for given documents in parallel, with default parameters for learning rate and iterations.
+     *
+     * @param documents
+     * @return INDArray of shape [documents.size(), layerSize], rows are in the same order as input documents
+     */
+    public INDArray inferVectorBatch(@NonNull List<LabelledDocument> documents) {
+        return inferVectorBatch(documents, this.learningRate.get(), this.minLearningRate,
+                        this.numEpochs * this.numIterations);
+    }
+
+    /**
+     * This method infers vectors for given documents in parallel: documents are split into contiguous chunks,
+     * processed by inference threads. Each document gets its own temporary vector, while lookup table is shared.
+     *
+     * @param documents
+     * @return INDArray of shape [documents.size(), layerSize], rows are in the same order as input documents
+     */
+    public INDArray inferVectorBatch(@NonNull final List<LabelledDocument> documents, final double learningRate,
+                    final double minLearningRate, final int iterations) {
+        if (documents.isEmpty())
+            throw new ND4JIllegalStateException("Impossible to apply inference to empty list of documents");
+
+        if (countSubmitted == null)
+            initInference();
+
+        // learners are configured once here, so worker threads don't contend on initialization
+        final SequenceLearningAlgorithm<VocabWord> learner = prepareInferenceLearner();
+
+        final INDArray[] rows = new INDArray[documents.size()];
+        int numThreads = Math.max(Runtime.getRuntime().availableProcessors() - 2, 2);
+        int chunkSize = Math.max(1, (documents.size() + numThreads - 1) / numThreads);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < documents.size(); start += chunkSize) {
+            final int chunkStart = start;
+            final int chunkEnd = Math.min(documents.size(), start + chunkSize);
+            futures.add(inferenceExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = chunkStart; i < chunkEnd; i++) {
+                        List<VocabWord> document = documentAsVocabWords(documents.get(i));
+                        if (document.isEmpty())
+                            throw new ND4JIllegalStateException("Document [" + i
+                                            + "] passed for inference has no matches in model vocabulary.");
+
+                        rows[i] = inferSequence(learner, document, learningRate, minLearningRate, iterations);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        return Nd4j.vstack(rows);
+    }
+
+    /**
+     * This method schedules batched inference for given documents in background, and returns immediately.
+     *
+     * @param documents
+     * @return Future for INDArray of shape [documents.size(), layerSize], rows are in the same order as input documents
+     */
+    public Future<INDArray> inferVectorBatchAsync(@NonNull final List<LabelledDocument> documents) {
+        if (countSubmitted == null)
+            initInference();
+
+        // coordinating task runs outside of inference pool, so it never waits for its own pool
+        return batchExecutor.submit(new Callable<INDArray>() {
+            @Override
+            public INDArray call() throws Exception {
+                return inferVectorBatch(documents);
+            }
+        });
     }
 
     /**
@@ -645,6 +772,34 @@ public class ParagraphVectors extends Word2Vec {
         extractLabels();
     }
 
+    /**
+     * This method continues training of existing model over new labelled corpus: vocabulary is extended with new
+     * words and labels, new label vectors are learned, and existing ones are updated starting from existing weights.
+     *
+     * @param iterator LabelAwareIterator over new corpus
+     */
+    public void fitIncremental(@NonNull LabelAwareIterator iterator) {
+        if (tokenizerFactory == null)
+            throw new IllegalStateException("TokenizerFactory should be defined, prior to fitIncremental() call");
+
+        this.labelAwareIterator = iterator;
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(iterator)
+                        .tokenizerFactory(tokenizerFactory)
+                        .allowMultithreading(configuration == null || configuration.isAllowParallelTokenization())
+                        .build();
+
+        // fit() call here ends with extractLabels(), so labelsMatrix will include new labels as well
+        fitIncremental(new AbstractSequenceIterator.Builder<>(transformer).build());
+
+        if (labelsSource == null)
+            labelsSource = new LabelsSource();
+
+        if (iterator.getLabelsSource() != null)
+            for (String label : iterator.getLabelsSource().getLabels())
+                labelsSource.storeLabel(label);
+    }
+
     /**
      * This method returns similarity of the document to specific label, based on mean value
      *
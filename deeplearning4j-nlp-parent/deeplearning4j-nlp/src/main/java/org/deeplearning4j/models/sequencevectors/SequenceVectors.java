@@ -10,6 +10,7 @@ import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
 import org.deeplearning4j.models.embeddings.learning.SequenceLearningAlgorithm;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.TrainingPlan;
 import org.deeplearning4j.models.embeddings.learning.impl.sequence.DBOW;
 import org.deeplearning4j.models.embeddings.learning.impl.sequence.DM;
 import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
@@ -70,6 +71,9 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
     protected boolean enableScavenger = false;
     protected int vocabLimit = 0;
 
+    // number of elements in current training corpus, if it differs from vocabulary, i.e. for incremental training
+    protected transient long trainingElementsCount = 0;
+
 
     @Setter
     protected transient Set<VectorsListener<T>> eventListeners;
@@ -280,7 +284,11 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
         if (this.stopWords == null)
             this.stopWords = new ArrayList<>();
 
-        final AtomicLong wordsCounter = new AtomicLong(0);
+        // learning rate schedule is precomputed once, and shared by all threads via lock-free counter
+        final TrainingPlan<T> trainingPlan = new TrainingPlan.Builder<T>().vocabCache(vocab)
+                        .learningRate(learningRate.get()).minLearningRate(minLearningRate).iterations(numIterations)
+                        .epochs(numEpochs).trainingWordsCount(trainingElementsCount).build();
+        final AtomicLong wordsCounter = trainingPlan.getWordsCounter();
         for (int currentEpoch = 1; currentEpoch <= numEpochs; currentEpoch++) {
             final AtomicLong linesCounter = new AtomicLong(0);
 
@@ -293,8 +301,8 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             final AtomicLong timer = new AtomicLong(System.currentTimeMillis());
             final List<VectorCalculationsThread> threads = new ArrayList<>();
             for (int x = 0; x < workers; x++) {
-                threads.add(x, new VectorCalculationsThread(x, currentEpoch, wordsCounter, vocab.totalWordOccurrences(),
-                                linesCounter, sequencer, timer, numEpochs));
+                threads.add(x, new VectorCalculationsThread(x, currentEpoch, trainingPlan, linesCounter, sequencer,
+                                timer));
                 threads.get(x).start();
             }
 
@@ -339,6 +347,57 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
     }
 
 
+    /**
+     * This method continues training of existing model over new corpus, without retraining from scratch:
+     * vocabulary is extended with previously unseen elements (and labels, if sequence vectors are trained),
+     * subject to the same min word frequency, vocabulary limit, scavenger and UNK settings as fit(),
+     * rows for them are appended to existing lookup table, negative sampling table is rebuilt for updated frequencies,
+     * and training continues from existing weights.
+     *
+     * PLEASE NOTE: if hierarchic softmax is used, Huffman tree is rebuilt, so syn1 gets re-adapted during training.
+     * Negative sampling is recommended for incremental training.
+     *
+     * @param newIterator SequenceIterator over new corpus
+     */
+    public void fitIncremental(@NonNull SequenceIterator<T> newIterator) {
+        if (vocab == null || lookupTable == null || vocab.numWords() == 0)
+            throw new IllegalStateException("You can't fitIncremental() model without existing Vocabulary and WeightLookupTable");
+
+        if (!(lookupTable instanceof InMemoryLookupTable))
+            throw new IllegalStateException("Incremental training is supported for InMemoryLookupTable only");
+
+        this.iterator = newIterator;
+
+        int numWordsBefore = vocab.numWords();
+        VocabConstructor<T> constructor = new VocabConstructor.Builder<T>().addSource(iterator, minWordFrequency)
+                        .setTargetVocabCache(vocab).fetchLabels(trainSequenceVectors)
+                        .setStopWords(stopWords == null ? new ArrayList<String>() : stopWords)
+                        .enableScavenger(enableScavenger).setEntriesLimit(vocabLimit)
+                        .setUnk(useUnknown && unknownElement != null ? unknownElement : null).build();
+
+        constructor.buildExtendedVocabulary(true);
+
+        if (configuration.isUseHierarchicSoftmax() && vocab.numWords() > numWordsBefore)
+            log.warn("Huffman tree was rebuilt for extended vocabulary, hierarchic softmax weights will be re-adapted");
+
+        // existing weights are preserved here, rows for new elements are appended
+        ((InMemoryLookupTable<T>) lookupTable).expandWeights();
+
+        // learning algorithms hold references to weights, so they should be configured once again
+        configured = false;
+
+        boolean originalReset = resetModel;
+        resetModel = false;
+        trainingElementsCount = constructor.getNumberOfElements();
+        try {
+            fit();
+        } finally {
+            resetModel = originalReset;
+            trainingElementsCount = 0;
+        }
+    }
+
+
     protected void trainSequence(@NonNull Sequence<T> sequence, AtomicLong nextRandom, double alpha) {
 
         if (sequence.getElements().isEmpty())
@@ -1126,26 +1185,22 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
     private class VectorCalculationsThread extends Thread implements Runnable {
         private final int threadId;
         private final int epochNumber;
-        private final AtomicLong wordsCounter;
-        private final long totalWordsCount;
+        private final TrainingPlan<T> trainingPlan;
         private final AtomicLong totalLines;
 
         private final AsyncSequencer digitizer;
         private final AtomicLong nextRandom;
         private final AtomicLong timer;
         private final long startTime;
-        private final int totalEpochs;
 
         /*
                 Long constructors suck, so this should be reduced to something reasonable later
          */
-        public VectorCalculationsThread(int threadId, int epoch, AtomicLong wordsCounter, long totalWordsCount,
-                        AtomicLong linesCounter, AsyncSequencer digitizer, AtomicLong timer, int totalEpochs) {
+        public VectorCalculationsThread(int threadId, int epoch, TrainingPlan<T> trainingPlan, AtomicLong linesCounter,
+                        AsyncSequencer digitizer, AtomicLong timer) {
             this.threadId = threadId;
-            this.totalEpochs = totalEpochs;
             this.epochNumber = epoch;
-            this.wordsCounter = wordsCounter;
-            this.totalWordsCount = totalWordsCount;
+            this.trainingPlan = trainingPlan;
             this.totalLines = linesCounter;
             this.digitizer = digitizer;
             this.timer = timer;
@@ -1182,17 +1237,13 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                         for (int x = 0; x < sequences.size(); x++) {
                             Sequence<T> sequence = sequences.get(x);
 
-                            //log.info("LR before: {}; wordsCounter: {}; totalWordsCount: {}", learningRate.get(), this.wordsCounter.get(), this.totalWordsCount);
-                            alpha = Math.max(minLearningRate,
-                                            learningRate.get() * (1 - (1.0 * this.wordsCounter.get()
-                                                            / ((double) this.totalWordsCount) / (numIterations
-                                                                            * totalEpochs))));
+                            alpha = trainingPlan.currentLearningRate();
 
                             trainSequence(sequence, nextRandom, alpha);
 
                             // increment processed word count, please note: this affects learningRate decay
                             totalLines.incrementAndGet();
-                            this.wordsCounter.addAndGet(sequence.getElements().size());
+                            long wordsCounter = trainingPlan.incrementWordsCounter(sequence.getElements().size());
 
                             if (totalLines.get() % 100000 == 0) {
                                 long currentTime = System.currentTimeMillis();
@@ -1202,10 +1253,10 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                                 long totalTimeSpent = currentTime - startTime;
 
                                 double seqSec = (100000.0 / ((double) timeSpent / 1000.0));
-                                double wordsSecTotal = this.wordsCounter.get() / ((double) totalTimeSpent / 1000.0);
+                                double wordsSecTotal = wordsCounter / ((double) totalTimeSpent / 1000.0);
 
                                 log.info("Epoch: [{}]; Words vectorized so far: [{}];  Lines vectorized so far: [{}]; Seq/sec: [{}]; Words/sec: [{}]; learningRate: [{}]",
-                                                this.epochNumber, this.wordsCounter.get(), this.totalLines.get(),
+                                                this.epochNumber, wordsCounter, this.totalLines.get(),
                                                 String.format("%.2f", seqSec), String.format("%.2f", wordsSecTotal),
                                                 alpha);
                             }
@@ -79,6 +79,23 @@ public class Word2Vec extends SequenceVectors<VocabWord> {
         this.iterator = iterator;
     }
 
+    /**
+     * This method continues training of existing model over new corpus: vocabulary is extended with new words,
+     * and training continues from existing weights.
+     *
+     * @param iterator SentenceIterator over new corpus
+     */
+    public void fitIncremental(@NonNull SentenceIterator iterator) {
+        if (tokenizerFactory == null)
+            throw new IllegalStateException("TokenizerFactory should be defined, prior to fitIncremental() call");
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(iterator)
+                        .tokenizerFactory(tokenizerFactory)
+                        .allowMultithreading(configuration == null || configuration.isAllowParallelTokenization())
+                        .build();
+        fitIncremental(new AbstractSequenceIterator.Builder<>(transformer).build());
+    }
+
     public static class Builder extends SequenceVectors.Builder<VocabWord> {
         protected SentenceIterator sentenceIterator;
         protected LabelAwareIterator labelAwareIterator;
@@ -0,0 +1,126 @@
+package org.deeplearning4j.models.word2vec.wordstore;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+
+/**
+ * Read-only label -> index lookup built out of VocabCache, that accepts any CharSequence or char[] span as key.
+ * This allows resolving tokens to vocabulary indexes straight from the source text, without creating String per token.
+ *
+ * PLEASE NOTE: this is a snapshot of vocabulary at construction time, elements added to VocabCache afterwards aren't
+ * visible here.
+ */
+public class CharSequenceVocabIndex {
+    private final char[][] labels;
+    private final int[] indexes;
+    private final int mask;
+    private final int size;
+
+    public CharSequenceVocabIndex(@NonNull VocabCache<? extends SequenceElement> vocabCache) {
+        int numWords = vocabCache.numWords();
+        int capacity = 2;
+        while (capacity < numWords * 2)
+            capacity <<= 1;
+
+        labels = new char[capacity][];
+        indexes = new int[capacity];
+        mask = capacity - 1;
+
+        int cnt = 0;
+        for (int i = 0; i < numWords; i++) {
+            SequenceElement element = vocabCache.elementAtIndex(i);
+            if (element == null || element.getLabel() == null)
+                continue;
+
+            char[] label = element.getLabel().toCharArray();
+            int slot = hash(label, 0, label.length) & mask;
+            while (labels[slot] != null) {
+                if (equals(labels[slot], label, 0, label.length))
+                    break;
+                slot = (slot + 1) & mask;
+            }
+
+            if (labels[slot] == null)
+                cnt++;
+
+            labels[slot] = label;
+            indexes[slot] = i;
+        }
+        size = cnt;
+    }
+
+    /**
+     * Returns number of labels in this index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns vocabulary index of given label
+     *
+     * @param label
+     * @return index, or -1 if label isn't present in vocabulary
+     */
+    public int indexOf(@NonNull CharSequence label) {
+        int length = label.length();
+        int h = 0;
+        for (int i = 0; i < length; i++)
+            h = 31 * h + label.charAt(i);
+
+        int slot = mix(h) & mask;
+        char[] candidate;
+        while ((candidate = labels[slot]) != null) {
+            if (candidate.length == length) {
+                boolean match = true;
+                for (int i = 0; i < length && match; i++)
+                    match = candidate[i] == label.charAt(i);
+                if (match)
+                    return indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns vocabulary index of label held in given span of char array
+     *
+     * @param chars
+     * @param offset
+     * @param length
+     * @return index, or -1 if label isn't present in vocabulary
+     */
+    public int indexOf(@NonNull char[] chars, int offset, int length) {
+        int slot = hash(chars, offset, length) & mask;
+        char[] candidate;
+        while ((candidate = labels[slot]) != null) {
+            if (equals(candidate, chars, offset, length))
+                return indexes[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++)
+            h = 31 * h + chars[i];
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(char[] label, char[] chars, int offset, int length) {
+        if (label.length != length)
+            return false;
+
+        for (int i = 0; i < length; i++)
+            if (label[i] != chars[offset + i])
+                return false;
+
+        return true;
+    }
+}
@@ -36,10 +36,13 @@ public class VocabConstructor<T extends SequenceElement> {
     private boolean fetchLabels = false;
     private int limit;
     private AtomicLong seqCount = new AtomicLong(0);
+    private AtomicLong elementsCount = new AtomicLong(0);
     private InvertedIndex<T> index;
     private boolean enableScavenger = false;
     private T unk;
     private boolean allowParallelBuilder = true;
+    // elements of this vocabulary are never removed by frequency filtering, i.e. during vocabulary extension
+    private VocabCache<T> retainedElements;
 
     protected static final Logger log = LoggerFactory.getLogger(VocabConstructor.class);
 
@@ -56,11 +59,89 @@ public class VocabConstructor<T extends SequenceElement> {
     }
 
     /**
-     * Placeholder for future implementation
+     * This method extends target VocabCache with elements from sources passed through builder.
+     *
+     * Indexes of already existing elements are preserved: their frequencies are increased, and previously unseen
+     * elements are appended to the end of vocabulary, so existing rows of lookup table stay valid.
+     * Min frequency defined for sources, scavenger and entries limit are applied to new elements only.
+     * If UNK element is defined, and isn't in vocabulary yet, it's appended as well.
+     *
+     * Please note: this method expects target vocabulary has Huffman tree indexes applied
+     *
+     * @param buildHuffmanTree if TRUE, Huffman codes will be rebuilt for updated frequencies, without changing indexes
      * @return
      */
-    protected VocabCache<T> buildExtendedVocabulary() {
-        return null;
+    public VocabCache<T> buildExtendedVocabulary(boolean buildHuffmanTree) {
+        if (cache == null || cache.numWords() == 0)
+            throw new IllegalStateException("Target VocabCache should be defined and non-empty for vocabulary extension");
+
+        // new sources are scanned into temporary vocabulary first. frequency filtering (and scavenger) is applied
+        // to unseen elements only: frequencies of existing elements are increased regardless of their counts
+        VocabConstructor<T> scanner = new VocabConstructor<>();
+        scanner.sources.addAll(sources);
+        scanner.stopWords = stopWords;
+        scanner.fetchLabels = fetchLabels;
+        scanner.index = index;
+        scanner.allowParallelBuilder = allowParallelBuilder;
+        scanner.enableScavenger = enableScavenger;
+        scanner.retainedElements = cache;
+
+        VocabCache<T> scanned = scanner.buildJointVocabulary(false, false);
+        seqCount.addAndGet(scanner.getNumberOfSequences());
+        elementsCount.addAndGet(scanner.getNumberOfElements());
+
+        List<T> newElements = new ArrayList<>();
+        for (T element : scanned.vocabWords()) {
+            T existing = cache.wordFor(element.getLabel());
+            if (existing != null) {
+                existing.increaseElementFrequency((int) element.getElementFrequency());
+                existing.incrementSequencesCount(element.getSequencesCount());
+            } else {
+                newElements.add(element);
+            }
+        }
+
+        if (unk != null && !cache.containsWord(unk.getLabel())) {
+            unk.setSpecial(true);
+            newElements.add(unk);
+        }
+
+        // new elements get indexes in order of decreasing frequency, just like Huffman would do
+        Collections.sort(newElements, new Comparator<T>() {
+            @Override
+            public int compare(T o1, T o2) {
+                return Double.compare(o2.getElementFrequency(), o1.getElementFrequency());
+            }
+        });
+
+        int numAdded = 0;
+        for (T element : newElements) {
+            // same as for joint vocabulary: elements with index above limit are dropped, unless special or labels
+            if (limit > 0 && cache.numWords() > limit && !element.isSpecial() && !element.isLabel())
+                continue;
+
+            element.setIndex(cache.numWords());
+
+            cache.addToken(element);
+            cache.addWordToIndex(element.getIndex(), element.getLabel());
+
+            // backward compatibility code
+            cache.putVocabWord(element.getLabel());
+            numAdded++;
+        }
+
+        cache.updateWordsOccurencies();
+
+        if (buildHuffmanTree) {
+            // we only rebuild codes & points here, indexes are left intact
+            Huffman huffman = new Huffman(cache.vocabWords());
+            huffman.build();
+        }
+
+        log.info("Vocabulary extended with [{}] new elements; Current vocabulary size: [{}]", numAdded,
+                        cache.numWords());
+
+        return cache;
     }
 
     /**
@@ -84,6 +165,15 @@ public class VocabConstructor<T extends SequenceElement> {
         return seqCount.get();
     }
 
+    /**
+     * This method returns total number of elements passed through VocabConstructor
+     *
+     * @return
+     */
+    public long getNumberOfElements() {
+        return elementsCount.get();
+    }
+
     /**
      * This method transfers existing vocabulary into current one
      *
@@ -209,6 +299,7 @@ public class VocabConstructor<T extends SequenceElement> {
                 Sequence<T> document = iterator.nextSequence();
 
                 seqCount.incrementAndGet();
+                elementsCount.addAndGet(document.size());
                 parsedCount.addAndGet(document.size());
                 tempHolder.incrementTotalDocCount();
                 execCounter.incrementAndGet();
@@ -366,7 +457,8 @@ public class VocabConstructor<T extends SequenceElement> {
         int numWords = cache.numWords();
         LinkedBlockingQueue<String> labelsToRemove = new LinkedBlockingQueue<>();
         for (T element : cache.vocabWords()) {
-            if (element.getElementFrequency() < minWordFrequency && !element.isSpecial() && !element.isLabel())
+            if (element.getElementFrequency() < minWordFrequency && !element.isSpecial() && !element.isLabel()
+                            && (retainedElements == null || !retainedElements.containsWord(element.getLabel())))
                 labelsToRemove.add(element.getLabel());
         }
 
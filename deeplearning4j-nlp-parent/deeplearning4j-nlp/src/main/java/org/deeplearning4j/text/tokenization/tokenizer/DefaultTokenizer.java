@@ -20,34 +20,69 @@ package org.deeplearning4j.text.tokenization.tokenizer;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.NoSuchElementException;
 
 /**
- * Default tokenizer
+ * Default tokenizer: splits on whitespace, the same way java.util.StringTokenizer does with default delimiters,
+ * but scans the source string directly instead of going through StringTokenizer
  * @author Adam Gibson
  */
 public class DefaultTokenizer implements Tokenizer {
 
     public DefaultTokenizer(String tokens) {
-        tokenizer = new StringTokenizer(tokens);
+        this.tokens = tokens;
     }
 
-    private StringTokenizer tokenizer;
+    private final String tokens;
+    private int position = 0;
     private TokenPreProcess tokenPreProcess;
 
+    /**
+     * Returns true for characters treated as token delimiters: space, tab, newline, carriage return and form feed
+     */
+    protected static boolean isDelimiter(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    protected static int skipDelimiters(CharSequence sequence, int position) {
+        int length = sequence.length();
+        while (position < length && isDelimiter(sequence.charAt(position)))
+            position++;
+        return position;
+    }
+
+    protected static int scanToken(CharSequence sequence, int position) {
+        int length = sequence.length();
+        while (position < length && !isDelimiter(sequence.charAt(position)))
+            position++;
+        return position;
+    }
+
     @Override
     public boolean hasMoreTokens() {
-        return tokenizer.hasMoreTokens();
+        position = skipDelimiters(tokens, position);
+        return position < tokens.length();
     }
 
     @Override
     public int countTokens() {
-        return tokenizer.countTokens();
+        int count = 0;
+        int pos = skipDelimiters(tokens, position);
+        while (pos < tokens.length()) {
+            count++;
+            pos = skipDelimiters(tokens, scanToken(tokens, pos));
+        }
+        return count;
     }
 
     @Override
     public String nextToken() {
-        String base = tokenizer.nextToken();
+        int start = skipDelimiters(tokens, position);
+        if (start >= tokens.length())
+            throw new NoSuchElementException();
+
+        position = scanToken(tokens, start);
+        String base = tokens.substring(start, position);
         if (tokenPreProcess != null)
             base = tokenPreProcess.preProcess(base);
         return base;
@@ -55,7 +90,7 @@ public class DefaultTokenizer implements Tokenizer {
 
     @Override
     public List<String> getTokens() {
-        List<String> tokens = new ArrayList<>();
+        List<String> tokens = new ArrayList<>(countTokens());
         while (hasMoreTokens()) {
             tokens.add(nextToken());
         }
@@ -0,0 +1,189 @@
+package org.deeplearning4j.text.tokenization.tokenizer;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.word2vec.wordstore.CharSequenceVocabIndex;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.StringCleaning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Whitespace tokenizer that scans source CharSequence in place, and emits tokens as spans over it.
+ *
+ * Normalized form of the current token (optionally with punctuation/digits stripped and lower-cased, same as
+ * DefaultTokenizer + CommonPreprocessor would produce) is kept in reusable char buffer, so tokens can be resolved
+ * to vocabulary indexes via {@link CharSequenceVocabIndex} without creating String per token.
+ *
+ * Regular {@link Tokenizer} methods are supported as well, so this tokenizer can be used anywhere TokenizerFactory is
+ * accepted.
+ */
+public class SpanTokenizer implements Tokenizer {
+    private final CharSequence source;
+    private final boolean normalize;
+    private TokenPreProcess tokenPreProcess;
+
+    private int position = 0;
+    private int spanStart = -1;
+    private int spanEnd = -1;
+
+    private char[] buffer = new char[32];
+    private int tokenLength = 0;
+
+    public SpanTokenizer(@NonNull CharSequence source, boolean normalize) {
+        this.source = source;
+        this.normalize = normalize;
+    }
+
+    /**
+     * This method advances tokenizer to the next token span
+     *
+     * @return false if there are no more tokens
+     */
+    public boolean nextSpan() {
+        int start = DefaultTokenizer.skipDelimiters(source, position);
+        if (start >= source.length())
+            return false;
+
+        spanStart = start;
+        spanEnd = DefaultTokenizer.scanToken(source, start);
+        position = spanEnd;
+
+        fillBuffer();
+        return true;
+    }
+
+    private void fillBuffer() {
+        int length = spanEnd - spanStart;
+        if (buffer.length < length)
+            buffer = new char[Math.max(length, buffer.length * 2)];
+
+        tokenLength = 0;
+        for (int i = spanStart; i < spanEnd; i++) {
+            char c = source.charAt(i);
+            if (!normalize) {
+                buffer[tokenLength++] = c;
+                continue;
+            }
+
+            if (c >= 0x80) {
+                // non-ASCII token: fall back to locale-aware lower-casing
+                String token = StringCleaning.stripPunct(source.subSequence(spanStart, spanEnd).toString())
+                                .toLowerCase();
+                if (buffer.length < token.length())
+                    buffer = new char[token.length()];
+                token.getChars(0, token.length(), buffer, 0);
+                tokenLength = token.length();
+                return;
+            }
+
+            if (StringCleaning.isPunct(c))
+                continue;
+
+            buffer[tokenLength++] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    /**
+     * Start offset of current span within source sequence, inclusive
+     */
+    public int spanStart() {
+        return spanStart;
+    }
+
+    /**
+     * End offset of current span within source sequence, exclusive
+     */
+    public int spanEnd() {
+        return spanEnd;
+    }
+
+    /**
+     * Returns internal buffer holding normalized current token. Only first {@link #tokenLength()} chars are valid.
+     * CAUTION: buffer is reused for subsequent tokens.
+     */
+    public char[] tokenChars() {
+        return buffer;
+    }
+
+    /**
+     * Length of normalized current token
+     */
+    public int tokenLength() {
+        return tokenLength;
+    }
+
+    /**
+     * This method advances tokenizer to the next token, and returns its vocabulary index
+     *
+     * @param vocabIndex
+     * @return vocabulary index of the next token, or -1 if it's not in vocabulary
+     */
+    public int nextIndex(@NonNull CharSequenceVocabIndex vocabIndex) {
+        if (!nextSpan())
+            throw new NoSuchElementException();
+
+        // custom preprocessors work with Strings only
+        if (tokenPreProcess != null)
+            return vocabIndex.indexOf(tokenPreProcess.preProcess(new String(buffer, 0, tokenLength)));
+
+        return vocabIndex.indexOf(buffer, 0, tokenLength);
+    }
+
+    /**
+     * This method returns vocabulary indexes for all remaining tokens, with -1 for tokens that aren't in vocabulary
+     *
+     * @param vocabIndex
+     * @return
+     */
+    public int[] getTokenIndexes(@NonNull CharSequenceVocabIndex vocabIndex) {
+        int[] indexes = new int[countTokens()];
+        for (int i = 0; i < indexes.length; i++)
+            indexes[i] = nextIndex(vocabIndex);
+
+        return indexes;
+    }
+
+    @Override
+    public boolean hasMoreTokens() {
+        position = DefaultTokenizer.skipDelimiters(source, position);
+        return position < source.length();
+    }
+
+    @Override
+    public int countTokens() {
+        int count = 0;
+        int pos = DefaultTokenizer.skipDelimiters(source, position);
+        while (pos < source.length()) {
+            count++;
+            pos = DefaultTokenizer.skipDelimiters(source, DefaultTokenizer.scanToken(source, pos));
+        }
+        return count;
+    }
+
+    @Override
+    public String nextToken() {
+        if (!nextSpan())
+            throw new NoSuchElementException();
+
+        String token = new String(buffer, 0, tokenLength);
+        if (tokenPreProcess != null)
+            token = tokenPreProcess.preProcess(token);
+
+        return token;
+    }
+
+    @Override
+    public List<String> getTokens() {
+        List<String> tokens = new ArrayList<>(countTokens());
+        while (hasMoreTokens()) {
+            tokens.add(nextToken());
+        }
+        return tokens;
+    }
+
+    @Override
+    public void setTokenPreProcessor(TokenPreProcess tokenPreProcessor) {
+        this.tokenPreProcess = tokenPreProcessor;
+    }
+}
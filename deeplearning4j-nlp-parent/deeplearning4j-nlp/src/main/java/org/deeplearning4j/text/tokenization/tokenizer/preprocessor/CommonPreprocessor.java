@@ -3,11 +3,36 @@ package org.deeplearning4j.text.tokenization.tokenizer.preprocessor;
 import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
 
 /**
+ * Strips punctuation and digits, and lower-cases the token.
+ * ASCII tokens are handled in a single pass without regex, and returned as is if nothing had to be changed.
+ *
  * @author jeffreytang
  */
 public class CommonPreprocessor implements TokenPreProcess {
     @Override
     public String preProcess(String token) {
-        return StringCleaning.stripPunct(token).toLowerCase();
+        int length = token.length();
+        char[] result = null;
+        int pos = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c >= 0x80) {
+                // non-ASCII tokens go through regular path, to keep locale-aware lower-casing
+                return StringCleaning.stripPunct(token).toLowerCase();
+            }
+
+            boolean punct = StringCleaning.isPunct(c);
+            char lower = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+            if (result == null && (punct || lower != c)) {
+                result = new char[length];
+                token.getChars(0, i, result, 0);
+                pos = i;
+            }
+
+            if (result != null && !punct)
+                result[pos++] = lower;
+        }
+
+        return result == null ? token : new String(result, 0, pos);
     }
 }
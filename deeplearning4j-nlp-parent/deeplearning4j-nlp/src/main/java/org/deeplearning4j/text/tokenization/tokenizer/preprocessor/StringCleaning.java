@@ -38,4 +38,31 @@ public class StringCleaning {
     public static String stripPunct(String base) {
         return punctPattern.matcher(base).replaceAll("");
     }
+
+    /**
+     * Checks if given character belongs to the set of characters removed by {@link #stripPunct(String)}
+     * @param c the character to check
+     * @return true if character is a digit or punctuation
+     */
+    public static boolean isPunct(char c) {
+        switch (c) {
+            case '.':
+            case ':':
+            case ',':
+            case '"':
+            case '\'':
+            case '(':
+            case ')':
+            case '[':
+            case ']':
+            case '|':
+            case '/':
+            case '?':
+            case '!':
+            case ';':
+                return true;
+            default:
+                return c >= '0' && c <= '9';
+        }
+    }
 }
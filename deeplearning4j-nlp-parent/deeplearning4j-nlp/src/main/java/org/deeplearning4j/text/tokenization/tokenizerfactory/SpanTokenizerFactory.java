@@ -0,0 +1,79 @@
+package org.deeplearning4j.text.tokenization.tokenizerfactory;
+
+import lombok.NonNull;
+import org.deeplearning4j.text.tokenization.tokenizer.DefaultStreamTokenizer;
+import org.deeplearning4j.text.tokenization.tokenizer.SpanTokenizer;
+import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
+import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
+
+import java.io.InputStream;
+
+/**
+ * TokenizerFactory producing {@link SpanTokenizer} instances: whitespace tokenization with optional built-in
+ * normalization, equal to DefaultTokenizerFactory with CommonPreprocessor, but without per-token String allocations
+ * when tokens are resolved to vocabulary indexes.
+ *
+ * Additional TokenPreProcess, if set, is applied after built-in normalization.
+ */
+public class SpanTokenizerFactory implements TokenizerFactory {
+
+    private boolean normalize;
+    private TokenPreProcess tokenPreProcess;
+
+    public SpanTokenizerFactory() {
+        this(true);
+    }
+
+    /**
+     * @param normalize if true, punctuation and digits are stripped from tokens, and tokens are lower-cased
+     */
+    public SpanTokenizerFactory(boolean normalize) {
+        this.normalize = normalize;
+    }
+
+    @Override
+    public Tokenizer create(String toTokenize) {
+        return create((CharSequence) toTokenize);
+    }
+
+    public SpanTokenizer create(@NonNull CharSequence toTokenize) {
+        SpanTokenizer t = new SpanTokenizer(toTokenize, normalize);
+        t.setTokenPreProcessor(tokenPreProcess);
+        return t;
+    }
+
+    @Override
+    public Tokenizer create(InputStream toTokenize) {
+        Tokenizer t = new DefaultStreamTokenizer(toTokenize);
+        if (!normalize) {
+            t.setTokenPreProcessor(tokenPreProcess);
+        } else {
+            final TokenPreProcess normalizer = new CommonPreprocessor();
+            final TokenPreProcess preProcess = tokenPreProcess;
+            t.setTokenPreProcessor(new TokenPreProcess() {
+                @Override
+                public String preProcess(String token) {
+                    String normalized = normalizer.preProcess(token);
+                    return preProcess == null ? normalized : preProcess.preProcess(normalized);
+                }
+            });
+        }
+        return t;
+    }
+
+    @Override
+    public void setTokenPreProcessor(TokenPreProcess preProcessor) {
+        this.tokenPreProcess = preProcessor;
+    }
+
+    /**
+     * Returns TokenPreProcessor set for this TokenizerFactory instance
+     *
+     * @return TokenPreProcessor instance, or null if no preprocessor was defined
+     */
+    @Override
+    public TokenPreProcess getTokenPreProcessor() {
+        return tokenPreProcess;
+    }
+}
@@ -224,4 +224,50 @@ public class TestCnnSentenceDataSetIterator {
         assertEquals(expectedFeatureMask, ds.getFeaturesMaskArray());
         assertNull(ds.getLabelsMaskArray());
     }
+
+    @Test
+    public void testCachedTokensAcrossEpochs() throws Exception {
+        WordVectors w2v = WordVectorSerializer
+                        .readWord2VecModel(new ClassPathResource("word2vec/googleload/sample_vec.bin").getFile());
+
+        List<String> sentences = Arrays.asList("these balance Database model", "into same THISWORDDOESNTEXIST are",
+                        "NOVALID WORDSHERE", "same model");
+        List<String> labelsForSentences = Arrays.asList("Positive", "Negative", "Positive", "Negative");
+
+        for (boolean alongHeight : new boolean[] {true, false}) {
+            LabeledSentenceProvider p1 = new CollectionLabeledSentenceProvider(sentences, labelsForSentences, null);
+            LabeledSentenceProvider p2 = new CollectionLabeledSentenceProvider(sentences, labelsForSentences, null);
+
+            CnnSentenceDataSetIterator plain = new CnnSentenceDataSetIterator.Builder().sentenceProvider(p1)
+                            .wordVectors(w2v).minibatchSize(3).sentencesAlongHeight(alongHeight).build();
+            CnnSentenceDataSetIterator cached = new CnnSentenceDataSetIterator.Builder().sentenceProvider(p2)
+                            .wordVectors(w2v).minibatchSize(3).sentencesAlongHeight(alongHeight).cacheTokens(true)
+                            .build();
+
+            DataSet expected = plain.next();
+            INDArray expectedMask = Nd4j.create(new double[][] {{1, 1, 1, 1}, {1, 1, 1, 0}, {1, 1, 0, 0}});
+            assertEquals(expectedMask, expected.getFeaturesMaskArray());
+
+            for (int epoch = 0; epoch < 2; epoch++) {
+                assertTrue(cached.hasNext());
+                DataSet ds = cached.next();
+                assertEquals(expected.getFeatures(), ds.getFeatures());
+                assertEquals(expected.getLabels(), ds.getLabels());
+                assertEquals(expected.getFeaturesMaskArray(), ds.getFeaturesMaskArray());
+                assertFalse(cached.hasNext());
+                cached.reset();
+            }
+
+            //Padding positions should be zero
+            INDArray padded;
+            if (alongHeight) {
+                padded = expected.getFeatures().get(NDArrayIndex.point(2), NDArrayIndex.point(0),
+                                NDArrayIndex.point(3), NDArrayIndex.all());
+            } else {
+                padded = expected.getFeatures().get(NDArrayIndex.point(2), NDArrayIndex.point(0), NDArrayIndex.all(),
+                                NDArrayIndex.point(3));
+            }
+            assertEquals(0.0, padded.norm2Number().doubleValue(), 0.0);
+        }
+    }
 }
@@ -8,11 +8,16 @@ import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.documentiterator.FileLabelAwareIterator;
 import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
 import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.junit.Before;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -143,4 +148,78 @@ public class InMemoryLookupTableTest {
 
         assertEquals(mem1.syn0.rows() + 3, mem2.syn0.rows());
     }
+
+    @Test
+    public void testExpandWeights() throws Exception {
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(Arrays.asList("alpha beta beta", "gamma beta")))
+                        .tokenizerFactory(t).build();
+
+        new VocabConstructor.Builder<VocabWord>()
+                        .addSource(new AbstractSequenceIterator.Builder<>(transformer).build(), 1)
+                        .setTargetVocabCache(cache).build().buildJointVocabulary(false, true);
+
+        InMemoryLookupTable<VocabWord> table =
+                        (InMemoryLookupTable<VocabWord>) new InMemoryLookupTable.Builder<VocabWord>().vectorLength(10)
+                                        .cache(cache).negative(5).useHierarchicSoftmax(true).seed(12).build();
+        table.resetWeights(true);
+
+        assertEquals(3, table.getSyn0().rows());
+        INDArray syn0 = table.getSyn0().dup();
+        INDArray syn1 = table.getSyn1().dup();
+        INDArray syn1Neg = table.getSyn1Neg().dup();
+        INDArray negTable = table.getTable().dup();
+
+        transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(Arrays.asList("delta delta delta epsilon", "epsilon")))
+                        .tokenizerFactory(t).build();
+
+        new VocabConstructor.Builder<VocabWord>()
+                        .addSource(new AbstractSequenceIterator.Builder<>(transformer).build(), 1)
+                        .setTargetVocabCache(cache).build().buildExtendedVocabulary(true);
+
+        assertEquals(5, cache.numWords());
+
+        table.expandWeights();
+
+        // rows are appended for new elements
+        assertArrayEquals(new int[] {5, 10}, table.getSyn0().shape());
+        assertArrayEquals(new int[] {5, 10}, table.getSyn1().shape());
+        assertArrayEquals(new int[] {5, 10}, table.getSyn1Neg().shape());
+
+        // existing weights are preserved
+        assertEquals(syn0, table.getSyn0().get(NDArrayIndex.interval(0, 3), NDArrayIndex.all()));
+        assertEquals(syn1, table.getSyn1().get(NDArrayIndex.interval(0, 3), NDArrayIndex.all()));
+        assertEquals(syn1Neg, table.getSyn1Neg().get(NDArrayIndex.interval(0, 3), NDArrayIndex.all()));
+
+        // new elements get random syn0 rows, and zero syn1/syn1Neg rows, just like on initialization
+        for (String word : new String[] {"delta", "epsilon"}) {
+            int idx = cache.indexOf(word);
+            assertTrue(idx >= 3);
+            assertNotEquals(0.0, table.getSyn0().getRow(idx).norm2Number().doubleValue(), 0.0);
+            assertEquals(0.0, table.getSyn1().getRow(idx).norm2Number().doubleValue(), 0.0);
+            assertEquals(0.0, table.getSyn1Neg().getRow(idx).norm2Number().doubleValue(), 0.0);
+        }
+
+        // negative sampling table is rebuilt for the new frequencies, so new elements can be sampled
+        assertNotEquals(negTable, table.getTable());
+        boolean newSampled = false;
+        for (int i = 0; i < table.getTable().length(); i++) {
+            if (table.getTable().getDouble(i) >= 3) {
+                newSampled = true;
+                break;
+            }
+        }
+        assertTrue(newSampled);
+
+        // no new elements: weights are left as is
+        INDArray expanded = table.getSyn0();
+        table.expandWeights();
+        assertTrue(expanded == table.getSyn0());
+    }
 }
@@ -0,0 +1,91 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TrainingPlanTest {
+    private AbstractCache<VocabWord> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new AbstractCache.Builder<VocabWord>().build();
+
+        cache.addToken(new VocabWord(1.0, "word"));
+        cache.addToken(new VocabWord(2.0, "test"));
+        cache.addToken(new VocabWord(97.0, "tester"));
+
+        Huffman huffman = new Huffman(cache.tokens());
+        huffman.build();
+        huffman.applyIndexes(cache);
+    }
+
+    @Test
+    public void testUnigramTable() throws Exception {
+        double[] weights = TrainingPlan.unigramWeights(cache, cache.numWords(), 1.0);
+        assertArrayEquals(new double[] {97.0, 2.0, 1.0}, weights, 1e-5);
+
+        double[] table = TrainingPlan.buildUnigramTable(weights, 1000);
+        int[] counts = new int[3];
+        for (double idx : table)
+            counts[(int) idx]++;
+
+        assertEquals(972, counts[0], 1);
+        assertEquals(20, counts[1], 1);
+        assertEquals(8, counts[2], 1);
+    }
+
+    @Test
+    public void testSubsamplingDisabled() throws Exception {
+        TrainingPlan<VocabWord> plan = new TrainingPlan.Builder<VocabWord>().vocabCache(cache).build();
+
+        Sequence<VocabWord> sequence = new Sequence<>();
+        sequence.addElement(cache.tokenFor("tester"));
+        sequence.addElement(cache.tokenFor("word"));
+
+        AtomicLong nextRandom = new AtomicLong(119);
+        assertTrue(sequence == plan.applySubsampling(sequence, nextRandom));
+        assertEquals(119, nextRandom.get());
+        assertEquals(0, plan.size());
+    }
+
+    @Test
+    public void testSubsamplingThresholds() throws Exception {
+        TrainingPlan<VocabWord> plan =
+                        new TrainingPlan.Builder<VocabWord>().vocabCache(cache).sampling(1e-3).build();
+
+        assertEquals(3, plan.size());
+
+        // frequent elements get lower keep thresholds
+        assertTrue(plan.keepThreshold(cache.tokenFor("tester")) < plan.keepThreshold(cache.tokenFor("word")));
+
+        Sequence<VocabWord> sequence = new Sequence<>();
+        for (int x = 0; x < 100; x++)
+            sequence.addElement(cache.tokenFor("tester"));
+
+        Sequence<VocabWord> sampled = plan.applySubsampling(sequence, new AtomicLong(119));
+        assertTrue(sampled.size() < sequence.size());
+    }
+
+    @Test
+    public void testLearningRateDecay() throws Exception {
+        TrainingPlan<VocabWord> plan = new TrainingPlan.Builder<VocabWord>().vocabCache(cache).learningRate(0.025)
+                        .minLearningRate(0.001).iterations(1).epochs(2).build();
+
+        assertEquals(0.025, plan.currentLearningRate(), 1e-7);
+
+        // 100 words total, 2 epochs: half-way through training
+        plan.incrementWordsCounter(100);
+        assertEquals(0.0125, plan.currentLearningRate(), 1e-7);
+
+        plan.incrementWordsCounter(100);
+        assertEquals(0.001, plan.currentLearningRate(), 1e-7);
+    }
+}
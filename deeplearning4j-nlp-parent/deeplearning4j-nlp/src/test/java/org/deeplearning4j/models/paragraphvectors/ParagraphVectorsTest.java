@@ -930,6 +930,40 @@ public class ParagraphVectorsTest {
         log.info("vec1/vec2: {}", Transforms.cosineSim(vec1, vec2));
     }
 
+    @Test
+    public void testBatchedInference() throws Exception {
+        ClassPathResource resource = new ClassPathResource("/big/raw_sentences.txt");
+        SentenceIterator iter = new BasicLineIterator(resource.getFile());
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        ParagraphVectors pv = new ParagraphVectors.Builder().minWordFrequency(1).iterations(1).epochs(1).seed(119)
+                        .layerSize(50).learningRate(0.025).labelsSource(new LabelsSource("DOC_")).windowSize(5)
+                        .iterate(iter).trainWordVectors(true).tokenizerFactory(t).negativeSample(0)
+                        .useHierarchicSoftmax(true).sampling(0).sequenceLearningAlgorithm(new DBOW<VocabWord>())
+                        .build();
+
+        pv.fit();
+
+        List<LabelledDocument> documents = new ArrayList<>();
+        for (String text : Arrays.asList("This is my work", "Where is my money", "It is a good day",
+                        "He said that he will be here", "They want to go home")) {
+            LabelledDocument document = new LabelledDocument();
+            document.setContent(text);
+            documents.add(document);
+        }
+
+        INDArray batch = pv.inferVectorBatch(documents);
+        assertArrayEquals(new int[] {documents.size(), 50}, batch.shape());
+
+        for (int i = 0; i < documents.size(); i++)
+            assertTrue(batch.getRow(i).norm2Number().doubleValue() > 0.0);
+
+        INDArray async = pv.inferVectorBatchAsync(documents).get();
+        assertArrayEquals(batch.shape(), async.shape());
+    }
+
     @Ignore
     @Test
     public void testGoogleModelForInference() throws Exception {
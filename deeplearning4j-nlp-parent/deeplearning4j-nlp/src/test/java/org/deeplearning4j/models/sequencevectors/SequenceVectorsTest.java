@@ -32,14 +32,17 @@ import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
 import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.heartbeat.Heartbeat;
+import org.nd4j.linalg.ops.transforms.Transforms;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -233,6 +236,55 @@ public class SequenceVectorsTest {
         logger.info("Nearest labels to 'day': " + labels);
     }
 
+    @Test
+    public void testFitIncremental() throws Exception {
+        ClassPathResource resource = new ClassPathResource("big/raw_sentences.txt");
+        File file = resource.getFile();
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(new BasicLineIterator(file))
+                        .tokenizerFactory(t).build();
+
+        SequenceVectors<VocabWord> vectors = new SequenceVectors.Builder<VocabWord>(new VectorsConfiguration())
+                        .minWordFrequency(5).iterate(new AbstractSequenceIterator.Builder<>(transformer).build())
+                        .batchSize(250).iterations(1).epochs(1).layerSize(100).negativeSample(5)
+                        .useHierarchicSoftmax(false).resetModel(true).trainElementsRepresentation(true).build();
+
+        vectors.fit();
+
+        int numWords = vectors.getVocab().numWords();
+        int idxNight = vectors.getVocab().indexOf("night");
+        INDArray night = vectors.getWordVectorMatrix("night").dup();
+
+        // new corpus: "night" isn't used there, "xylophone" is a new word, and "quokka" is below min word frequency
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sentences.add("it was a good day for the xylophone");
+            sentences.add("the xylophone is at home");
+        }
+        sentences.add("quokka");
+
+        transformer = new SentenceTransformer.Builder().iterator(new CollectionSentenceIterator(sentences))
+                        .tokenizerFactory(t).build();
+
+        vectors.fitIncremental(new AbstractSequenceIterator.Builder<>(transformer).build());
+
+        assertEquals(numWords + 1, vectors.getVocab().numWords());
+        assertEquals(numWords, vectors.getVocab().indexOf("xylophone"));
+        assertFalse(vectors.hasWord("quokka"));
+
+        // existing vectors are preserved
+        assertEquals(idxNight, vectors.getVocab().indexOf("night"));
+        assertEquals(night, vectors.getWordVectorMatrix("night"));
+
+        // new word vector is trained: initial values are within +/- 0.5 / layerSize
+        INDArray xylophone = vectors.getWordVectorMatrix("xylophone");
+        assertNotNull(xylophone);
+        assertTrue(Transforms.abs(xylophone, true).maxNumber().doubleValue() > 0.5 / 100);
+    }
+
     @Test
     public void testElementsLearningAlgo1() throws Exception {
         SequenceVectors<VocabWord> vectors = new SequenceVectors.Builder<VocabWord>(new VectorsConfiguration())
@@ -9,6 +9,7 @@ import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.documentiterator.FileLabelAwareIterator;
 import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
 import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
 import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
 import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
@@ -24,6 +25,7 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -312,4 +314,106 @@ public class VocabConstructorTest {
         assertTrue(cacheTarget.indexOf("Zscience") > sourceSize - 1);
         assertTrue(cacheTarget.indexOf("Zhealth") > sourceSize - 1);
     }
+
+    @Test
+    public void testBuildExtendedVocabulary() throws Exception {
+        VocabCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(Arrays.asList("alpha beta beta", "gamma beta")))
+                        .tokenizerFactory(t).build();
+
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(new AbstractSequenceIterator.Builder<>(transformer).build(), 1)
+                        .setTargetVocabCache(cache).build();
+
+        constructor.buildJointVocabulary(false, true);
+
+        assertEquals(3, cache.numWords());
+        int idxBeta = cache.indexOf("beta");
+        int idxAlpha = cache.indexOf("alpha");
+        int idxGamma = cache.indexOf("gamma");
+
+        transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(
+                                        Arrays.asList("delta delta alpha", "delta epsilon", "alpha")))
+                        .tokenizerFactory(t).build();
+
+        VocabConstructor<VocabWord> extender = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(new AbstractSequenceIterator.Builder<>(transformer).build(), 2)
+                        .setTargetVocabCache(cache).build();
+
+        extender.buildExtendedVocabulary(true);
+
+        // epsilon is below min frequency, so only delta is added
+        assertEquals(4, cache.numWords());
+        assertTrue(cache.containsWord("delta"));
+        assertFalse(cache.containsWord("epsilon"));
+
+        // existing indexes are preserved, new element is appended
+        assertEquals(idxBeta, cache.indexOf("beta"));
+        assertEquals(idxAlpha, cache.indexOf("alpha"));
+        assertEquals(idxGamma, cache.indexOf("gamma"));
+        assertEquals(3, cache.indexOf("delta"));
+        assertEquals("delta", cache.wordAtIndex(3));
+
+        // frequencies of existing elements are increased
+        assertEquals(3, cache.wordFrequency("alpha"));
+        assertEquals(3, cache.wordFrequency("delta"));
+        assertEquals(10, cache.totalWordOccurrences());
+        assertEquals(6, extender.getNumberOfElements());
+    }
+
+    @Test
+    public void testBuildExtendedVocabularyLimitAndUnk() throws Exception {
+        VocabCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(Arrays.asList("alpha beta beta", "gamma beta")))
+                        .tokenizerFactory(t).build();
+
+        new VocabConstructor.Builder<VocabWord>()
+                        .addSource(new AbstractSequenceIterator.Builder<>(transformer).build(), 1)
+                        .setTargetVocabCache(cache).build().buildJointVocabulary(false, true);
+
+        assertEquals(3, cache.numWords());
+
+        transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(
+                                        Arrays.asList("delta delta delta epsilon", "epsilon zeta gamma")))
+                        .tokenizerFactory(t).build();
+
+        VocabWord unk = new VocabWord(1.0, "UNK");
+        VocabConstructor<VocabWord> extender = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(new AbstractSequenceIterator.Builder<>(transformer).build(), 2)
+                        .setTargetVocabCache(cache).setEntriesLimit(3).setUnk(unk).build();
+
+        extender.buildExtendedVocabulary(true);
+
+        // zeta is below min frequency, and only one new element fits into limit: epsilon is dropped
+        assertEquals(5, cache.numWords());
+        assertEquals(3, cache.indexOf("delta"));
+        assertFalse(cache.containsWord("epsilon"));
+        assertFalse(cache.containsWord("zeta"));
+
+        // existing elements are never filtered out: gamma frequency is increased, even though it's below min frequency
+        assertEquals(2, cache.wordFrequency("gamma"));
+
+        // UNK is appended regardless of limit
+        assertTrue(cache.containsWord("UNK"));
+        assertTrue(cache.wordFor("UNK").isSpecial());
+        assertEquals(4, cache.indexOf("UNK"));
+
+        // UNK isn't added twice
+        transformer = new SentenceTransformer.Builder()
+                        .iterator(new CollectionSentenceIterator(Arrays.asList("delta beta")))
+                        .tokenizerFactory(t).build();
+
+        new VocabConstructor.Builder<VocabWord>()
+                        .addSource(new AbstractSequenceIterator.Builder<>(transformer).build(), 1)
+                        .setTargetVocabCache(cache).setUnk(unk).build().buildExtendedVocabulary(true);
+
+        assertEquals(5, cache.numWords());
+        assertEquals(4, cache.indexOf("UNK"));
+    }
 }
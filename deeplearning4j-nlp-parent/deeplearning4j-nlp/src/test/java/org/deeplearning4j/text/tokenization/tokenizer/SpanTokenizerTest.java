@@ -0,0 +1,80 @@
+package org.deeplearning4j.text.tokenization.tokenizer;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.CharSequenceVocabIndex;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.SpanTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpanTokenizerTest {
+
+    private static final String TEXT = "  Mary had a little lamb.\tIts fleece was WHITE as snow (1865),\n"
+                    + "and \"everywhere\" that Mary went; the lamb was sure to go! \u00C7a va 42";
+
+    @Test
+    public void testSameTokensAsDefaultTokenizer() throws Exception {
+        TokenizerFactory defaultFactory = new DefaultTokenizerFactory();
+        defaultFactory.setTokenPreProcessor(new CommonPreprocessor());
+
+        TokenizerFactory spanFactory = new SpanTokenizerFactory();
+
+        Tokenizer expected = defaultFactory.create(TEXT);
+        Tokenizer actual = spanFactory.create(TEXT);
+
+        assertEquals(expected.countTokens(), actual.countTokens());
+        assertEquals(expected.getTokens(), actual.getTokens());
+        assertFalse(actual.hasMoreTokens());
+    }
+
+    @Test
+    public void testNoNormalization() throws Exception {
+        Tokenizer expected = new DefaultTokenizerFactory().create(TEXT);
+        Tokenizer actual = new SpanTokenizerFactory(false).create(TEXT);
+
+        assertEquals(expected.getTokens(), actual.getTokens());
+    }
+
+    @Test
+    public void testSpans() throws Exception {
+        SpanTokenizer tokenizer = new SpanTokenizerFactory().create((CharSequence) " Hello, World");
+
+        assertTrue(tokenizer.nextSpan());
+        assertEquals(1, tokenizer.spanStart());
+        assertEquals(7, tokenizer.spanEnd());
+        assertEquals("hello", new String(tokenizer.tokenChars(), 0, tokenizer.tokenLength()));
+
+        assertTrue(tokenizer.nextSpan());
+        assertEquals("world", new String(tokenizer.tokenChars(), 0, tokenizer.tokenLength()));
+
+        assertFalse(tokenizer.nextSpan());
+    }
+
+    @Test
+    public void testVocabIndexes() throws Exception {
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        String[] words = new String[] {"mary", "lamb", "snow", "go"};
+        for (int i = 0; i < words.length; i++) {
+            VocabWord word = new VocabWord(1.0, words[i]);
+            word.setIndex(i);
+            cache.addToken(word);
+            cache.addWordToIndex(i, words[i]);
+        }
+
+        CharSequenceVocabIndex index = new CharSequenceVocabIndex(cache);
+        assertEquals(4, index.size());
+        assertEquals(1, index.indexOf("lamb"));
+        assertEquals(1, index.indexOf(new StringBuilder("lamb")));
+        assertEquals(-1, index.indexOf("sheep"));
+
+        SpanTokenizer tokenizer = new SpanTokenizerFactory().create((CharSequence) "Mary's LAMB: snow? sheep go");
+        assertArrayEquals(new int[] {-1, 1, 2, -1, 3}, tokenizer.getTokenIndexes(index));
+
+        tokenizer = new SpanTokenizerFactory().create((CharSequence) "Mary lamb");
+        assertArrayEquals(new int[] {0, 1}, tokenizer.getTokenIndexes(index));
+    }
+}
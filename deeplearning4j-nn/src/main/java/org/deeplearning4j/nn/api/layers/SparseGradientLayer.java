@@ -0,0 +1,40 @@
+package org.deeplearning4j.nn.api.layers;
+
+import org.deeplearning4j.nn.api.Layer;
+
+/**
+ * A layer that (optionally) has row-sparse gradients for some of its parameters: that is, after each backprop, only
+ * a (usually small) subset of the rows of the parameter's gradient may be non-zero. For example, the weights of an
+ * {@link org.deeplearning4j.nn.layers.feedforward.embedding.EmbeddingLayer}: only the rows for the indices present
+ * in the minibatch have non-zero gradients.<br>
+ * Updaters can use this information to apply the updater (Adam, RMSProp, etc) lazily - i.e., only to the rows
+ * with non-zero gradients - so that the cost of each iteration scales with the number of rows used in the minibatch
+ * rather than with the size of the parameter.
+ */
+public interface SparseGradientLayer extends Layer {
+
+    /**
+     * @param paramName Name of the parameter
+     * @return True if the gradients for the specified parameter are row-sparse
+     */
+    boolean isSparseGradientParam(String paramName);
+
+    /**
+     * Get the rows of the specified (2d) parameter that may have non-zero gradients, as of the last backprop.
+     * All other rows of the gradient are zero.
+     *
+     * @param paramName Name of the parameter
+     * @return Sorted, unique row indices; or null if the gradient is not row-sparse, or not available (i.e., no backprop
+     *         has been done yet)
+     */
+    int[] getSparseGradientRows(String paramName);
+
+    /**
+     * Notify the layer that rows of the gradient for the specified parameter, other than those returned by
+     * {@link #getSparseGradientRows(String)}, may have been modified - for example, when the updater was applied to the
+     * full gradient rather than just the used rows. The entire gradient must then be zeroed at the next backprop.
+     *
+     * @param paramName Name of the parameter
+     */
+    void invalidateSparseGradientRows(String paramName);
+}
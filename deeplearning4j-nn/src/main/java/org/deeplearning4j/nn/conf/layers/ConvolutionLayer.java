@@ -215,6 +215,9 @@ public class ConvolutionLayer extends FeedForwardLayer {
         //TODO convolution helper memory use... (CuDNN etc)
 
         //During forward pass: im2col array, mmul (result activations), in-place broadcast add
+        //Note that the im2col array is either allocated in the layer working memory workspace, or (with no workspace)
+        // held in a per-thread scratch buffer shared by all convolution layers, which is kept between iterations. It is
+        // reported as scratch memory: like working memory, the network total is the max over layers, not the sum
         int im2colSizePerEx =
                         c.getDepth() * outputType.getHeight() * outputType.getWidth() * kernelSize[0] * kernelSize[1];
 
@@ -225,16 +228,14 @@ public class ConvolutionLayer extends FeedForwardLayer {
 
         //During backprop: im2col array for forward pass (possibly cached) + the epsilon6d array required to calculate
         // the 4d epsilons (equal size to input)
-        //Note that the eps6d array is same size as im2col
+        //Note that the eps6d array is same size as im2col, and is calculated in the same scratch buffer as the im2col
+        // array, once the im2col array is no longer required
         for (CacheMode cm : CacheMode.values()) {
-            long trainWorkingSizePerEx;
+            long trainWorkingSizePerEx = 0;
             long cacheMemSizePerEx = 0;
-            if (cm == CacheMode.NONE) {
-                trainWorkingSizePerEx = 2 * im2colSizePerEx;
-            } else {
-                //im2col is cached, but epsNext2d/eps6d is not
+            if (cm != CacheMode.NONE) {
+                //im2col is cached (a copy of the scratch buffer), but epsNext2d/eps6d is not
                 cacheMemSizePerEx = im2colSizePerEx;
-                trainWorkingSizePerEx = im2colSizePerEx;
             }
 
             if (getIDropout() != null) {
@@ -249,9 +250,10 @@ public class ConvolutionLayer extends FeedForwardLayer {
 
         return new LayerMemoryReport.Builder(layerName, ConvolutionLayer.class, inputType, outputType)
                         .standardMemory(paramSize, updaterStateSize)
+                        .workingMemory(0, 0, MemoryReport.CACHE_MODE_ALL_ZEROS, trainWorkingMemoryPerEx)
                         //im2col caching -> only variable size caching
-                        .workingMemory(0, im2colSizePerEx, MemoryReport.CACHE_MODE_ALL_ZEROS, trainWorkingMemoryPerEx)
-                        .cacheMemory(MemoryReport.CACHE_MODE_ALL_ZEROS, cachedPerEx).build();
+                        .cacheMemory(MemoryReport.CACHE_MODE_ALL_ZEROS, cachedPerEx)
+                        .scratchMemory(0, im2colSizePerEx).build();
 
     }
 
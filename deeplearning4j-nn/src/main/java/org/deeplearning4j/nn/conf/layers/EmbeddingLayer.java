@@ -25,7 +25,13 @@ import java.util.Map;
  * with all but one value being zero).<br>
  * <b>Note</b>: can only be used as the first layer for a network<br>
  * <b>Note 2</b>: For a given example index i, the output is activationFunction(weights.getRow(i) + bias), hence the
- * weight rows can be considered a vector/embedding for each example.
+ * weight rows can be considered a vector/embedding for each example.<br>
+ * <b>Note 3</b>: With {@link Builder#sparseGradients(boolean)} enabled, the weight gradients are row-sparse, and
+ * the updater (Adam, RMSProp, etc) is applied lazily: only to the rows for the indices present in each minibatch.
+ * This makes the cost of each parameter update scale with the number of unique indices in the minibatch rather than
+ * nIn. Note that this is not identical to the standard (dense) updater: rows not present in the minibatch are not
+ * modified at all (i.e., no momentum or L1/L2 regularization is applied to them), and their updater state is not
+ * decayed.
  *
  * @author Alex Black
  */
@@ -35,10 +41,12 @@ import java.util.Map;
 @EqualsAndHashCode(callSuper = true)
 public class EmbeddingLayer extends FeedForwardLayer {
     private boolean hasBias = true; //Default for pre-0.9.2 implementations
+    private boolean sparseGradients = false;
 
     private EmbeddingLayer(Builder builder) {
         super(builder);
         this.hasBias = builder.hasBias;
+        this.sparseGradients = builder.sparseGradients;
         initializeConstraints(builder);
     }
 
@@ -88,6 +96,7 @@ public class EmbeddingLayer extends FeedForwardLayer {
     public static class Builder extends FeedForwardLayer.Builder<Builder> {
 
         private boolean hasBias = false;
+        private boolean sparseGradients = false;
 
         /**
          * If true: include bias parameters in the layer. False (default): no bias.
@@ -99,6 +108,19 @@ public class EmbeddingLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * If true: the weight gradients are row-sparse, and the updater is applied only to the weight rows for the
+         * indices present in each minibatch (i.e., "lazy" updates). This can be much faster for large nIn, as the
+         * cost of each parameter update scales with the number of unique indices in the minibatch rather than nIn.
+         * False (default): standard (dense) updates.
+         *
+         * @param sparseGradients If true: use sparse gradients and lazy updates for the weights
+         */
+        public Builder sparseGradients(boolean sparseGradients) {
+            this.sparseGradients = sparseGradients;
+            return this;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public EmbeddingLayer build() {
@@ -40,6 +40,10 @@ public class LayerMemoryReport extends MemoryReport {
     Map<CacheMode, Long> cacheModeMemFixed;
     Map<CacheMode, Long> cacheModeMemVariablePerEx;
 
+    //Scratch memory: persistent (held between iterations, outside of workspaces), same for train and inference
+    private long scratchMemoryFixed;
+    private long scratchMemoryVariablePerEx;
+
     protected LayerMemoryReport(Builder b) {
         this.layerName = b.layerName;
         this.layerType = b.layerType;
@@ -56,6 +60,9 @@ public class LayerMemoryReport extends MemoryReport {
 
         this.cacheModeMemFixed = b.cacheModeMemFixed;
         this.cacheModeMemVariablePerEx = b.cacheModeMemVariablePerEx;
+
+        this.scratchMemoryFixed = b.scratchMemoryFixed;
+        this.scratchMemoryVariablePerEx = b.scratchMemoryVariablePerEx;
     }
 
     @Override
@@ -127,6 +134,8 @@ public class LayerMemoryReport extends MemoryReport {
                 } else {
                     return minibatchSize * cacheModeMemVariablePerEx.get(cacheMode) * bytesPerElement;
                 }
+            case SCRATCH_MEMORY:
+                return (scratchMemoryFixed + minibatchSize * scratchMemoryVariablePerEx) * bytesPerElement;
             default:
                 throw new IllegalStateException("Unknown memory type: " + memoryType);
         }
@@ -160,6 +169,10 @@ public class LayerMemoryReport extends MemoryReport {
         Map<CacheMode, Long> cacheModeMemFixed;
         Map<CacheMode, Long> cacheModeMemVariablePerEx;
 
+        //Scratch memory
+        private long scratchMemoryFixed;
+        private long scratchMemoryVariablePerEx;
+
         /**
          *
          * @param layerName  Name of the layer or graph vertex
@@ -247,6 +260,22 @@ public class LayerMemoryReport extends MemoryReport {
             return this;
         }
 
+        /**
+         * Reports the scratch memory requirements. Scratch memory is held between iterations (it is allocated outside of
+         * any workspace and reused), for both inference and training. Like working memory, it is shared between
+         * layers: the network total is the maximum over all layers, not the sum.<br>
+         * Note that scratch memory is held for each thread that uses the network.
+         *
+         * @param scratchMemoryFixed         Number of elements of scratch memory, independent of the minibatch size
+         * @param scratchMemoryVariablePerEx Number of elements of scratch memory, for each example (of the largest
+         *                                   minibatch seen so far)
+         */
+        public Builder scratchMemory(long scratchMemoryFixed, long scratchMemoryVariablePerEx) {
+            this.scratchMemoryFixed = scratchMemoryFixed;
+            this.scratchMemoryVariablePerEx = scratchMemoryVariablePerEx;
+            return this;
+        }
+
         public LayerMemoryReport build() {
             return new LayerMemoryReport(this);
         }
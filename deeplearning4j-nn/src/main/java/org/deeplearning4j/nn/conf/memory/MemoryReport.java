@@ -25,9 +25,10 @@ import java.util.Map;
  * <br>
  * <br>
  * <br>
- * For the purposes of estimating memory use under different situations, we consider there to be 3 types of memory:<br>
- * Standard memory, working memory and Cached memory. Each type has the concept of 'fixed' size memory (independent
- * of minibatch size) and 'variable' memory (total use depends on minibatch size; memory reported is for one example).<br>
+ * For the purposes of estimating memory use under different situations, we consider there to be 4 types of memory:<br>
+ * Standard memory, working memory, Cached memory and Scratch memory. Each type has the concept of 'fixed' size memory
+ * (independent of minibatch size) and 'variable' memory (total use depends on minibatch size; memory reported is for one
+ * example).<br>
  * <br>
  * <br>
  * The following breakdown of memory types will be used:<br>
@@ -47,6 +48,7 @@ import java.util.Map;
  * <li>Fixed size (as a function of CacheMode)</li>
  * <li>Variable size (as a function of CacheMode)</li>
  * </ul>
+ * <li>Scratch memory (held between iterations and shared between layers, for both train and inference)</li>
  * </ul>
  * <br>
  * <br>
@@ -54,13 +56,17 @@ import java.util.Map;
  * TotalMemory(X,CM,M) = sum_L ( StandardFixedMem(X) + M * StandardVariableMem(X) )<br>
  *  + max_L ( WorkingFixedMem(X,CM) + M * WorkingVariableMem(X,CM) )<br>
  *  + sum_L ( CachedFixedMem(X,CM) + M * CachedVariableMem(X,CM))<br>
+ *  + max_L ( ScratchFixedMem + M * ScratchVariableMem )<br>
  * <br>
  * Note 1: CachedFixedMem(INFERENCE,any) = 0 and CachedVariableMem(INFERENCE,any) = 0. i.e., cache is a train-only
  * feature.<br>
  * Note 2: Working memory may depend on cache mode: if we cache something, we have less computation to do later, and
  *         hence less working memory.<br>
  * Note 3: Reported memory figures are given in NDArray size unit - thus 1 refers to 1 float or 1 double value,
- * depending on the data type setting.
+ * depending on the data type setting.<br>
+ * Note 4: Scratch memory is shared between layers (one buffer per thread, sized for the largest layer), and is held
+ *         for each thread that uses the network. The variable component is for the largest minibatch size seen so
+ *         far.
  * <br>
  *
  * @author Alex Black
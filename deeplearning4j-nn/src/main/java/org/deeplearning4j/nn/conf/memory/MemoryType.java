@@ -6,7 +6,7 @@ package org.deeplearning4j.nn.conf.memory;
  * @author Alex Black
  */
 public enum MemoryType {
-    PARAMETERS, PARAMATER_GRADIENTS, ACTIVATIONS, ACTIVATION_GRADIENTS, UPDATER_STATE, WORKING_MEMORY_FIXED, WORKING_MEMORY_VARIABLE, CACHED_MEMORY_FIXED, CACHED_MEMORY_VARIABLE;
+    PARAMETERS, PARAMATER_GRADIENTS, ACTIVATIONS, ACTIVATION_GRADIENTS, UPDATER_STATE, WORKING_MEMORY_FIXED, WORKING_MEMORY_VARIABLE, CACHED_MEMORY_FIXED, CACHED_MEMORY_VARIABLE, SCRATCH_MEMORY;
 
     /**
      * @return True, if the memory type is used during inference. False if the memory type is used only during training.
@@ -17,6 +17,7 @@ public enum MemoryType {
             case ACTIVATIONS:
             case WORKING_MEMORY_FIXED:
             case WORKING_MEMORY_VARIABLE:
+            case SCRATCH_MEMORY:
                 return true;
             case PARAMATER_GRADIENTS:
             case ACTIVATION_GRADIENTS:
@@ -61,15 +61,18 @@ public class NetworkMemoryReport extends MemoryReport {
         //As per MemoryReport javadoc: we need
         // sum_layers (StdFixed + minibatch * StdVariable) + sum_layers (CacheFixed + minibatch * CacheVariable)
         // + max_layers ( WorkingMemoryFixed + minibatch * WorkingMemoryVariable)
+        // + max_layers ( ScratchFixed + minibatch * ScratchVariable )
 
         long totalBytes = 0;
         long maxWorking = 0;
         long maxWorkingFixed = 0;
         long maxWorkingVariable = 0;
+        long maxScratch = 0;
         for (MemoryReport lmr : layerAndVertexReports.values()) {
 
             for (MemoryType mt : MemoryType.values()) {
-                if (mt == MemoryType.WORKING_MEMORY_FIXED || mt == MemoryType.WORKING_MEMORY_VARIABLE) {
+                if (mt == MemoryType.WORKING_MEMORY_FIXED || mt == MemoryType.WORKING_MEMORY_VARIABLE
+                                || mt == MemoryType.SCRATCH_MEMORY) {
                     continue;
                 }
                 totalBytes += lmr.getMemoryBytes(mt, minibatchSize, memoryUseMode, cacheMode, dataType);
@@ -86,9 +89,13 @@ public class NetworkMemoryReport extends MemoryReport {
                 maxWorkingFixed = workFixed;
                 maxWorkingVariable = workVar;
             }
+
+            //Scratch buffers are shared between layers (one per thread, sized for the largest layer)
+            maxScratch = Math.max(maxScratch, lmr.getMemoryBytes(MemoryType.SCRATCH_MEMORY, minibatchSize,
+                            memoryUseMode, cacheMode, dataType));
         }
 
-        return totalBytes + maxWorkingFixed + maxWorkingVariable;
+        return totalBytes + maxWorkingFixed + maxWorkingVariable + maxScratch;
     }
 
     @Override
@@ -99,7 +106,8 @@ public class NetworkMemoryReport extends MemoryReport {
 
             long bytes = lmr.getMemoryBytes(memoryType, minibatchSize, memoryUseMode, cacheMode, dataType);
 
-            if (memoryType == MemoryType.WORKING_MEMORY_FIXED || memoryType == MemoryType.WORKING_MEMORY_VARIABLE) {
+            if (memoryType == MemoryType.WORKING_MEMORY_FIXED || memoryType == MemoryType.WORKING_MEMORY_VARIABLE
+                            || memoryType == MemoryType.SCRATCH_MEMORY) {
                 totalBytes = Math.max(totalBytes, bytes);
             } else {
                 totalBytes += bytes;
@@ -39,6 +39,7 @@ import org.deeplearning4j.nn.conf.inputs.InputType;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.util.ActivationLiveness;
 import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
 import org.deeplearning4j.nn.graph.vertex.GraphVertex;
 import org.deeplearning4j.nn.graph.vertex.VertexIndices;
@@ -103,6 +104,11 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     public final static String workspacePretrain = "LOOP_PTR";
     public final static String workspaceTBPTT = "LOOP_TBPTT";
     public final static String workspaceLSTM = "LOOP_LSTM";
+    /**
+     * Prefix for the names of the workspaces used to hold activations during inference: one per liveness slot
+     * (see {@link ActivationLiveness})
+     */
+    public final static String workspaceInferenceActivations = "LOOP_INF_ACT_";
 
     public final static WorkspaceConfiguration workspaceConfigurationFeedForward = WorkspaceConfiguration.builder()
             .initialSize(0).overallocationLimit(0.2).policyReset(ResetPolicy.BLOCK_LEFT)
@@ -168,6 +174,21 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
     private NeuralNetConfiguration defaultConfiguration;
     private Collection<IterationListener> listeners = new ArrayList<>();
+
+    //Liveness analysis for activations: used to release/reuse activation memory during inference
+    private transient ActivationLiveness activationLiveness;
+    /**
+     * Peak memory (bytes) used for activations during the last call to one of the output methods: i.e., the maximum
+     * total size of the activations that were live at any point. Excludes network inputs and working memory
+     */
+    @Getter
+    private transient long lastOutputPeakActivationBytes;
+    /**
+     * Total size (bytes) of all activations calculated during the last call to one of the output methods. This is the
+     * amount of memory that would be required if no activations were released before the end of the forward pass
+     */
+    @Getter
+    private transient long lastOutputTotalActivationBytes;
     private Collection<TrainingListener> trainingListeners = new ArrayList<>();
 
 
@@ -1573,15 +1594,149 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
     protected INDArray[] silentOutput(boolean train, INDArray... input) {
         setInputs(input);
-        Map<String, INDArray> activations = feedForward(false, false, false, false);
+        if (configuration.getTrainingWorkspaceMode() == WorkspaceMode.SINGLE) {
+            //All activations and working memory are in the one workspace: no memory can be released until the end
+            Map<String, INDArray> activations = feedForward(train, false, false, false);
+            INDArray[] outputs = new INDArray[numOutputArrays];
+            int i = 0;
+            for (String s : configuration.getNetworkOutputs()) {
+                outputs[i++] = activations.get(s);
+            }
+            return outputs;
+        }
+        return feedForwardOutputs(train);
+    }
+
+    /**
+     * Forward pass, returning only the network outputs. Unlike {@link #feedForward(boolean, boolean, boolean, boolean)}
+     * each activation array is released as soon as all vertices that use it have been executed, as per the
+     * {@link ActivationLiveness} analysis. With workspaces enabled, each activation is held in one of a small number of
+     * reused (per liveness slot) workspaces; thus peak memory use for activations is determined by the maximum size
+     * of the activations live at any one time, rather than the total size of all activations in the network.
+     *
+     * @param train Training mode (true) or test mode (false)
+     * @return Network outputs, in the external workspace (if it exists) or detached
+     */
+    protected INDArray[] feedForwardOutputs(boolean train) {
+        if (activationLiveness == null) {
+            activationLiveness = new ActivationLiveness(vertices, topologicalOrder);
+        }
+        int[] lastUse = activationLiveness.getLastUse();
+        int[] slot = activationLiveness.getSlot();
+
+        boolean useWorkspaces = configuration.getTrainingWorkspaceMode() != WorkspaceMode.NONE;
+        MemoryWorkspace workspace = useWorkspaces
+                ? Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceConfigurationFeedForward,
+                workspaceFeedForward)
+                : new DummyWorkspace();
+
+        Map<String, Integer> outputIdx = new HashMap<>();
+        List<String> networkOutputs = configuration.getNetworkOutputs();
+        for (int i = 0; i < networkOutputs.size(); i++) {
+            outputIdx.put(networkOutputs.get(i), i);
+        }
+
         INDArray[] outputs = new INDArray[numOutputArrays];
-        int i = 0;
-        for (String s : configuration.getNetworkOutputs()) {
-            outputs[i++] = activations.get(s);
+        INDArray[] activations = new INDArray[vertices.length];
+        long[] activationBytes = new long[vertices.length];
+        MemoryWorkspace[] openSlots = new MemoryWorkspace[activationLiveness.getNumSlots()];
+        long liveBytes = 0;
+        long peakBytes = 0;
+        long totalBytes = 0;
+        try {
+            for (int i = 0; i < topologicalOrder.length; i++) {
+                int vIdx = topologicalOrder[i];
+                GraphVertex current = vertices[vIdx];
+                if (current.isInputVertex()) {
+                    activations[vIdx] = inputs[current.getVertexIndex()];
+                    continue;
+                }
+
+                VertexIndices[] inputsFrom = current.getInputVertices();
+                INDArray out;
+                long bytes;
+                try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                    //Inputs are set here (not when the input activations are calculated): any preprocessing is then
+                    // done in this vertex's workspace scope
+                    for (int j = 0; j < inputsFrom.length; j++) {
+                        current.setInput(j, activations[inputsFrom[j].getVertexIndex()]);
+                    }
+                    out = current.doForward(train);
+                    bytes = out.length() * Nd4j.sizeOfDataType(out.data().dataType());
+
+                    if (current.isOutputVertex()) {
+                        out = out.leverageTo(workspaceExternal);
+                        outputs[outputIdx.get(current.getVertexName())] = out;
+                    } else if (lastUse[vIdx] == ActivationLiveness.UNUSED) {
+                        //Not used by any other vertex: no need to keep it
+                    } else if (useWorkspaces) {
+                        out = retainInSlot(out, slot[vIdx], openSlots);
+                    }
+                }
+
+                totalBytes += bytes;
+                if (current.isOutputVertex() || lastUse[vIdx] != ActivationLiveness.UNUSED) {
+                    activations[vIdx] = out;
+                    activationBytes[vIdx] = bytes;
+                    liveBytes += bytes;
+                    peakBytes = Math.max(peakBytes, liveBytes);
+                }
+
+                //This vertex has been executed: release any activations that are no longer required
+                current.clear();
+                if (current.hasLayer()) {
+                    current.getLayer().setInput(null);
+                }
+                for (VertexIndices vi : inputsFrom) {
+                    int inIdx = vi.getVertexIndex();
+                    if (lastUse[inIdx] != i || activations[inIdx] == null || vertices[inIdx].isOutputVertex())
+                        continue;
+                    activations[inIdx] = null;
+                    liveBytes -= activationBytes[inIdx];
+                    if (slot[inIdx] != ActivationLiveness.NO_SLOT && openSlots[slot[inIdx]] != null) {
+                        releaseSlot(slot[inIdx], openSlots);
+                    }
+                }
+            }
+        } finally {
+            for (int i = 0; i < openSlots.length; i++) {
+                if (openSlots[i] != null) {
+                    releaseSlot(i, openSlots);
+                }
+            }
         }
+
+        lastOutputPeakActivationBytes = peakBytes;
+        lastOutputTotalActivationBytes = totalBytes;
+
+        if (!train && useWorkspaces)
+            Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(workspaceFeedForward).initializeWorkspace();
+
         return outputs;
     }
 
+    //Copy the array into the workspace for the specified slot, leaving the workspace open until releaseSlot is called
+    private static INDArray retainInSlot(INDArray array, int slot, MemoryWorkspace[] openSlots) {
+        MemoryWorkspace current = Nd4j.getMemoryManager().getCurrentWorkspace();
+        MemoryWorkspace ws = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(
+                workspaceConfigurationFeedForward, workspaceInferenceActivations + slot);
+        ws.notifyScopeEntered();
+        openSlots[slot] = ws;
+        try {
+            return array.dup();
+        } finally {
+            Nd4j.getMemoryManager().setCurrentWorkspace(current);
+        }
+    }
+
+    //Close the workspace for the specified slot: its memory will be reused by the next activation assigned to the slot
+    private static void releaseSlot(int slot, MemoryWorkspace[] openSlots) {
+        MemoryWorkspace current = Nd4j.getMemoryManager().getCurrentWorkspace();
+        openSlots[slot].close();
+        openSlots[slot] = null;
+        Nd4j.getMemoryManager().setCurrentWorkspace(current);
+    }
+
     /**
      * A convenience method that returns a single INDArray, instead of an INDArray[].
      * Useful for ComputationGraphs that have only a single output.
@@ -0,0 +1,106 @@
+package org.deeplearning4j.nn.graph.util;
+
+import lombok.Getter;
+import org.deeplearning4j.nn.graph.vertex.GraphVertex;
+import org.deeplearning4j.nn.graph.vertex.VertexIndices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liveness analysis for the activations of a ComputationGraph during inference.<br>
+ * Given the topological order in which the vertices are executed, this calculates for each vertex the position (in
+ * the topological order) of the last vertex that uses its activations. After that vertex has executed, the
+ * activations are no longer required, and the memory can be released or reused.<br>
+ * Activations are also assigned to "slots", such that no two activations that are live at the same time share a slot.
+ * Each slot can then be backed by a single (reused) memory buffer, such as a workspace. The number of slots required
+ * is the maximum number of activations live at any one time, which is usually much smaller than the number of
+ * vertices.<br>
+ * Network inputs and outputs are not assigned to slots: the inputs are provided by the user, and outputs are
+ * returned to the user.
+ */
+@Getter
+public class ActivationLiveness {
+
+    /**
+     * Value for {@link #getLastUse()} for activations that are never used by another vertex
+     */
+    public static final int UNUSED = -1;
+    /**
+     * Value for {@link #getSlot()} for activations that are not assigned a slot
+     */
+    public static final int NO_SLOT = -1;
+
+    /**
+     * Key: vertex index. Value: position in the topological order of the last vertex that uses the activations
+     * of the vertex, or {@link #UNUSED}
+     */
+    private final int[] lastUse;
+    /**
+     * Key: vertex index. Value: slot assigned to the activations of the vertex, or {@link #NO_SLOT}
+     */
+    private final int[] slot;
+    /**
+     * Number of slots required
+     */
+    private final int numSlots;
+
+    /**
+     * @param vertices         Vertices of the graph, by vertex index
+     * @param topologicalOrder Topological order of the vertices (vertex indices)
+     */
+    public ActivationLiveness(GraphVertex[] vertices, int[] topologicalOrder) {
+        int n = vertices.length;
+        int[] position = new int[n];
+        for (int i = 0; i < topologicalOrder.length; i++) {
+            position[topologicalOrder[i]] = i;
+        }
+
+        lastUse = new int[n];
+        for (int v = 0; v < n; v++) {
+            lastUse[v] = UNUSED;
+            VertexIndices[] outputsTo = vertices[v].getOutputVertices();
+            if (outputsTo == null)
+                continue;
+            for (VertexIndices vi : outputsTo) {
+                lastUse[v] = Math.max(lastUse[v], position[vi.getVertexIndex()]);
+            }
+        }
+
+        //Assign slots greedily in topological order: an activation is live from the position it is calculated at,
+        // up to and including its last use. Its slot is available for reuse by activations calculated after that
+        slot = new int[n];
+        List<Integer> freeSlots = new ArrayList<>();
+        List<List<Integer>> freeAfter = new ArrayList<>(topologicalOrder.length);
+        for (int i = 0; i < topologicalOrder.length; i++) {
+            freeAfter.add(null);
+        }
+        int nSlots = 0;
+        for (int i = 0; i < topologicalOrder.length; i++) {
+            int v = topologicalOrder[i];
+            GraphVertex gv = vertices[v];
+            if (gv.isInputVertex() || gv.isOutputVertex() || lastUse[v] == UNUSED) {
+                slot[v] = NO_SLOT;
+            } else {
+                int s;
+                if (freeSlots.isEmpty()) {
+                    s = nSlots++;
+                } else {
+                    s = freeSlots.remove(freeSlots.size() - 1);
+                }
+                slot[v] = s;
+                List<Integer> l = freeAfter.get(lastUse[v]);
+                if (l == null) {
+                    l = new ArrayList<>();
+                    freeAfter.set(lastUse[v], l);
+                }
+                l.add(s);
+            }
+
+            if (freeAfter.get(i) != null) {
+                freeSlots.addAll(freeAfter.get(i));
+            }
+        }
+        numSlots = nSlots;
+    }
+}
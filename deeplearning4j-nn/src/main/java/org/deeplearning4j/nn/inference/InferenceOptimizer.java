@@ -0,0 +1,382 @@
+package org.deeplearning4j.nn.inference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.InputPreProcessor;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.graph.GraphVertex;
+import org.deeplearning4j.nn.conf.graph.LayerVertex;
+import org.deeplearning4j.nn.conf.graph.MergeVertex;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.conf.preprocessor.ComposableInputPreProcessor;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.BatchNormalizationParamInitializer;
+import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.activations.impl.ActivationIdentity;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.*;
+
+/**
+ * Converts a trained {@link MultiLayerNetwork} or {@link ComputationGraph} into a smaller network that produces the
+ * same output at inference time (i.e., for output/feedForward with training = false), but does less work.
+ * The following transformations are applied, repeatedly, until none apply:<br>
+ * - <b>Batch normalization folding</b>: a {@link BatchNormalization} layer directly after a {@link DenseLayer} or
+ * {@link ConvolutionLayer} with identity activation is removed, and the batch norm scale and shift (using the global
+ * mean and variance estimates) are folded into the weights and bias of the preceding layer<br>
+ * - <b>Activation fusion</b>: an {@link ActivationLayer} directly after a {@link DenseLayer} or {@link ConvolutionLayer}
+ * with identity activation is removed, and its activation function is applied by the preceding layer instead<br>
+ * - <b>No-op removal</b>: {@link DropoutLayer}s, {@link ActivationLayer}s with identity activation and (for
+ * ComputationGraph) {@link MergeVertex} instances with a single input are removed<br>
+ * <br>
+ * In a ComputationGraph, a layer is only modified if its output is used only by the removed vertex, and vertices that
+ * are network outputs are never removed. Input preprocessors of removed MultiLayerNetwork layers are moved to the
+ * following layer.<br>
+ * The original network is not modified. The returned network is intended for inference only: for example, batch
+ * normalization statistics are no longer updated if it is trained.<br>
+ * Equivalence of the original and optimized networks can be checked numerically using
+ * {@link #optimize(MultiLayerNetwork, INDArray, double)} or
+ * {@link #optimize(ComputationGraph, INDArray[], double)}.
+ */
+@Slf4j
+public class InferenceOptimizer {
+
+    private InferenceOptimizer() {}
+
+    /**
+     * Optimize the specified network for inference. The original network is not modified.
+     *
+     * @param net Network to optimize
+     * @return Optimized network
+     */
+    public static MultiLayerNetwork optimize(MultiLayerNetwork net) {
+        MultiLayerConfiguration conf = net.getLayerWiseConfigurations().clone();
+
+        List<LayerEntry> layers = new ArrayList<>();
+        for (int i = 0; i < net.getnLayers(); i++) {
+            layers.add(new LayerEntry(conf.getConf(i), conf.getInputPreProcess(i), net.getLayer(i)));
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < layers.size() - 1 && !changed; i++) {
+                LayerEntry curr = layers.get(i);
+                LayerEntry next = layers.get(i + 1);
+                if (isNoOp(curr.conf.getLayer())) {
+                    //Preprocessor of the removed layer (if any) needs to be applied before the next layer
+                    if (curr.preProcessor != null) {
+                        next.preProcessor = (next.preProcessor == null ? curr.preProcessor
+                                        : new ComposableInputPreProcessor(curr.preProcessor, next.preProcessor));
+                    }
+                    layers.remove(i);
+                    changed = true;
+                } else if (next.preProcessor == null && isFusable(curr.conf.getLayer())) {
+                    if (next.conf.getLayer() instanceof BatchNormalization) {
+                        curr.params = foldBatchNorm(curr.conf.getLayer(), curr.params(), next.origLayer);
+                        layers.remove(i + 1);
+                        changed = true;
+                    } else if (next.conf.getLayer() instanceof ActivationLayer) {
+                        fuseActivation(curr.conf.getLayer(), (ActivationLayer) next.conf.getLayer());
+                        layers.remove(i + 1);
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        List<NeuralNetConfiguration> confs = new ArrayList<>();
+        Map<Integer, InputPreProcessor> preProcessors = new HashMap<>();
+        for (int i = 0; i < layers.size(); i++) {
+            confs.add(layers.get(i).conf);
+            if (layers.get(i).preProcessor != null) {
+                preProcessors.put(i, layers.get(i).preProcessor);
+            }
+        }
+        conf.setConfs(confs);
+        conf.setInputPreProcessors(preProcessors);
+
+        MultiLayerNetwork ret = new MultiLayerNetwork(conf);
+        ret.init();
+        for (int i = 0; i < layers.size(); i++) {
+            setParams(ret.getLayer(i), layers.get(i));
+        }
+
+        log.info("Optimized MultiLayerNetwork for inference: {} layers reduced to {}", net.getnLayers(),
+                        ret.getnLayers());
+        return ret;
+    }
+
+    /**
+     * Optimize the specified network for inference, and check that the output of the optimized network matches the
+     * output of the original network for the specified input.
+     *
+     * @param net              Network to optimize
+     * @param testInput        Input used to check equivalence of the two networks
+     * @param maxRelativeError Maximum allowable difference between the outputs, relative to the maximum absolute
+     *                         value of the original network's output (or 1.0, if larger)
+     * @return Optimized network
+     * @throws IllegalStateException If the outputs of the two networks differ by more than the allowable error
+     */
+    public static MultiLayerNetwork optimize(MultiLayerNetwork net, INDArray testInput, double maxRelativeError) {
+        MultiLayerNetwork ret = optimize(net);
+        checkEquivalent(new INDArray[] {net.output(testInput, false)},
+                        new INDArray[] {ret.output(testInput, false)}, maxRelativeError);
+        return ret;
+    }
+
+    /**
+     * Optimize the specified network for inference. The original network is not modified.
+     *
+     * @param graph Network to optimize
+     * @return Optimized network
+     */
+    public static ComputationGraph optimize(ComputationGraph graph) {
+        ComputationGraphConfiguration conf = graph.getConfiguration().clone();
+        Map<String, GraphVertex> vertices = conf.getVertices();
+        List<String> outputs = conf.getNetworkOutputs();
+
+        //Parameters of modified layers, by vertex name
+        Map<String, Map<String, INDArray>> modifiedParams = new HashMap<>();
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Map<String, List<String>> consumers = consumers(conf);
+            for (String name : new ArrayList<>(vertices.keySet())) {
+                GraphVertex v = vertices.get(name);
+                if (v == null || outputs.contains(name)) {
+                    continue;
+                }
+                List<String> inputs = conf.getVertexInputs().get(name);
+
+                if (inputs != null && inputs.size() == 1 && isNoOp(v)) {
+                    removeVertex(conf, name);
+                    changed = true;
+                    break;
+                }
+
+                List<String> usedBy = consumers.get(name);
+                if (!(v instanceof LayerVertex) || usedBy == null || usedBy.size() != 1) {
+                    continue;
+                }
+                org.deeplearning4j.nn.conf.layers.Layer layer = ((LayerVertex) v).getLayerConf().getLayer();
+                String nextName = usedBy.get(0);
+                GraphVertex next = vertices.get(nextName);
+                if (!isFusable(layer) || !(next instanceof LayerVertex) || outputs.contains(nextName)
+                                || ((LayerVertex) next).getPreProcessor() != null
+                                || conf.getVertexInputs().get(nextName).size() != 1) {
+                    continue;
+                }
+
+                org.deeplearning4j.nn.conf.layers.Layer nextLayer = ((LayerVertex) next).getLayerConf().getLayer();
+                if (nextLayer instanceof BatchNormalization) {
+                    Map<String, INDArray> params = modifiedParams.get(name);
+                    if (params == null) {
+                        params = dupParams(graph.getLayer(name));
+                    }
+                    modifiedParams.put(name, foldBatchNorm(layer, params, graph.getLayer(nextName)));
+                    removeVertex(conf, nextName);
+                    changed = true;
+                    break;
+                } else if (nextLayer instanceof ActivationLayer) {
+                    fuseActivation(layer, (ActivationLayer) nextLayer);
+                    removeVertex(conf, nextName);
+                    changed = true;
+                    break;
+                }
+            }
+        }
+
+        ComputationGraph ret = new ComputationGraph(conf);
+        ret.init();
+        for (Layer l : ret.getLayers()) {
+            String name = l.conf().getLayer().getLayerName();
+            setParams(l, new LayerEntry(null, null, graph.getLayer(name), modifiedParams.get(name)));
+        }
+
+        log.info("Optimized ComputationGraph for inference: {} vertices reduced to {}", graph.getVertices().length,
+                        ret.getVertices().length);
+        return ret;
+    }
+
+    /**
+     * Optimize the specified network for inference, and check that the outputs of the optimized network match the
+     * outputs of the original network for the specified inputs.
+     *
+     * @param graph            Network to optimize
+     * @param testInputs       Inputs used to check equivalence of the two networks
+     * @param maxRelativeError Maximum allowable difference between the outputs, relative to the maximum absolute
+     *                         value of the original network's outputs (or 1.0, if larger)
+     * @return Optimized network
+     * @throws IllegalStateException If the outputs of the two networks differ by more than the allowable error
+     */
+    public static ComputationGraph optimize(ComputationGraph graph, INDArray[] testInputs, double maxRelativeError) {
+        ComputationGraph ret = optimize(graph);
+        checkEquivalent(graph.output(false, testInputs), ret.output(false, testInputs), maxRelativeError);
+        return ret;
+    }
+
+    private static void checkEquivalent(INDArray[] expected, INDArray[] actual, double maxRelativeError) {
+        for (int i = 0; i < expected.length; i++) {
+            double scale = Math.max(1.0, Transforms.abs(expected[i], true).maxNumber().doubleValue());
+            double maxDiff = Transforms.abs(expected[i].sub(actual[i]), false).maxNumber().doubleValue();
+            if (maxDiff / scale > maxRelativeError) {
+                throw new IllegalStateException("Optimized network output " + i + " differs from original network"
+                                + " output: max absolute difference " + maxDiff + " exceeds maximum relative error "
+                                + maxRelativeError + " (scale: " + scale + ")");
+            }
+        }
+    }
+
+    private static boolean isNoOp(org.deeplearning4j.nn.conf.layers.Layer layer) {
+        return layer instanceof DropoutLayer || (layer instanceof ActivationLayer
+                        && ((ActivationLayer) layer).getActivationFn() instanceof ActivationIdentity);
+    }
+
+    private static boolean isNoOp(GraphVertex v) {
+        if (v instanceof MergeVertex) {
+            return true;
+        }
+        return v instanceof LayerVertex && ((LayerVertex) v).getPreProcessor() == null
+                        && isNoOp(((LayerVertex) v).getLayerConf().getLayer());
+    }
+
+    /**
+     * @return True if the layer can absorb a following batch normalization or activation layer
+     */
+    private static boolean isFusable(org.deeplearning4j.nn.conf.layers.Layer layer) {
+        return (layer instanceof DenseLayer || layer instanceof ConvolutionLayer)
+                        && ((BaseLayer) layer).getActivationFn() instanceof ActivationIdentity;
+    }
+
+    private static void fuseActivation(org.deeplearning4j.nn.conf.layers.Layer layer, ActivationLayer activation) {
+        IActivation fn = activation.getActivationFn();
+        ((BaseLayer) layer).setActivationFn(fn);
+    }
+
+    /**
+     * Fold the batch normalization layer into the parameters of the preceding dense or convolution layer.
+     * At inference, batch norm calculates gamma * (z - mean) / std + beta with z = Wx + b, which is equivalent to
+     * W' x + b' with W' = W * gamma / std and b' = (b - mean) * gamma / std + beta (per output unit/channel)
+     */
+    private static Map<String, INDArray> foldBatchNorm(org.deeplearning4j.nn.conf.layers.Layer layer,
+                    Map<String, INDArray> params, Layer batchNorm) {
+        BatchNormalization bnConf = (BatchNormalization) batchNorm.conf().getLayer();
+        INDArray mean = batchNorm.getParam(BatchNormalizationParamInitializer.GLOBAL_MEAN);
+        //Note that the global variance estimate already includes epsilon
+        INDArray std = Transforms.sqrt(batchNorm.getParam(BatchNormalizationParamInitializer.GLOBAL_VAR), true);
+        INDArray scale;
+        INDArray beta;
+        if (bnConf.isLockGammaBeta()) {
+            scale = Nd4j.valueArrayOf(mean.shape(), bnConf.getGamma()).divi(std);
+            beta = Nd4j.valueArrayOf(mean.shape(), bnConf.getBeta());
+        } else {
+            scale = batchNorm.getParam(BatchNormalizationParamInitializer.GAMMA).div(std);
+            beta = batchNorm.getParam(BatchNormalizationParamInitializer.BETA);
+        }
+        int nOut = mean.length();
+
+        INDArray w = params.get(DefaultParamInitializer.WEIGHT_KEY);
+        if (layer instanceof DenseLayer) {
+            //Dense weights: [nIn, nOut]
+            w.muliRowVector(scale);
+        } else {
+            //Convolution weights: [nOut, nIn, kH, kW] in c order
+            w.reshape('c', nOut, w.length() / nOut).muliColumnVector(scale.reshape(nOut, 1));
+        }
+
+        INDArray b = params.get(DefaultParamInitializer.BIAS_KEY);
+        if (b == null) {
+            //Layer without bias: folding requires one
+            if (layer instanceof DenseLayer) {
+                ((DenseLayer) layer).setHasBias(true);
+            } else {
+                ((ConvolutionLayer) layer).setHasBias(true);
+            }
+            b = Nd4j.zeros(1, nOut);
+            params.put(DefaultParamInitializer.BIAS_KEY, b);
+        }
+        b.subi(mean).muli(scale).addi(beta);
+        return params;
+    }
+
+    private static Map<String, INDArray> dupParams(Layer layer) {
+        Map<String, INDArray> out = new LinkedHashMap<>();
+        for (Map.Entry<String, INDArray> e : layer.paramTable().entrySet()) {
+            out.put(e.getKey(), e.getValue().dup('c'));
+        }
+        return out;
+    }
+
+    private static void setParams(Layer layer, LayerEntry entry) {
+        if (entry.params != null) {
+            for (Map.Entry<String, INDArray> e : entry.params.entrySet()) {
+                layer.setParam(e.getKey(), e.getValue());
+            }
+        } else if (layer.numParams() > 0) {
+            layer.setParams(entry.origLayer.params().dup());
+        }
+    }
+
+    private static Map<String, List<String>> consumers(ComputationGraphConfiguration conf) {
+        Map<String, List<String>> out = new HashMap<>();
+        for (Map.Entry<String, List<String>> e : conf.getVertexInputs().entrySet()) {
+            for (String in : e.getValue()) {
+                List<String> l = out.get(in);
+                if (l == null) {
+                    l = new ArrayList<>();
+                    out.put(in, l);
+                }
+                l.add(e.getKey());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Remove a vertex with a single input, connecting all of the vertices that use its output to its input instead
+     */
+    private static void removeVertex(ComputationGraphConfiguration conf, String name) {
+        String input = conf.getVertexInputs().get(name).get(0);
+        conf.getVertices().remove(name);
+        conf.getVertexInputs().remove(name);
+        for (Map.Entry<String, List<String>> e : conf.getVertexInputs().entrySet()) {
+            List<String> inputs = new ArrayList<>(e.getValue());
+            Collections.replaceAll(inputs, name, input);
+            e.setValue(inputs);
+        }
+    }
+
+    private static class LayerEntry {
+        private final NeuralNetConfiguration conf;
+        private InputPreProcessor preProcessor;
+        private final Layer origLayer;
+        private Map<String, INDArray> params;
+
+        private LayerEntry(NeuralNetConfiguration conf, InputPreProcessor preProcessor, Layer origLayer) {
+            this(conf, preProcessor, origLayer, null);
+        }
+
+        private LayerEntry(NeuralNetConfiguration conf, InputPreProcessor preProcessor, Layer origLayer,
+                        Map<String, INDArray> params) {
+            this.conf = conf;
+            this.preProcessor = preProcessor;
+            this.origLayer = origLayer;
+            this.params = params;
+        }
+
+        /**
+         * @return Copy of the layer parameters, that can be modified
+         */
+        private Map<String, INDArray> params() {
+            return (params != null ? params : dupParams(origLayer));
+        }
+    }
+}
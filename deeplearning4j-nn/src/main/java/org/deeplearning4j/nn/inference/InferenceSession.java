@@ -0,0 +1,138 @@
+package org.deeplearning4j.nn.inference;
+
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * InferenceSession: a lightweight, single-threaded context for doing inference with a {@link MultiLayerNetwork} or
+ * {@link ComputationGraph}.<br>
+ * <br>
+ * The output methods of MultiLayerNetwork and ComputationGraph are not thread safe: they modify the network (inputs,
+ * mask arrays, activations stored in layers/vertices, workspace configuration). An InferenceSession instead holds its
+ * own copy of this per-call state - i.e., its own layers and configuration - while sharing the parameters of the
+ * original network. Creating a session is therefore cheap relative to cloning the network, as no parameters are copied.
+ * Workspaces are per-thread in ND4J, hence are not shared between sessions used in different threads.<br>
+ * <br>
+ * Each session should only be used by one thread at a time; see {@link InferenceSessionPool} for a thread-safe
+ * alternative that can be used by any number of threads concurrently.<br>
+ * <b>Note</b>: as parameters are shared, any changes to the parameters of the original network (for example, due to
+ * further training) are visible to the session. If the original network's parameter array is replaced (for example,
+ * by calling init again), the session is no longer valid (see {@link #isValid()}) and a new one should be created.
+ */
+public class InferenceSession {
+
+    private final Model model;
+    private final INDArray params;
+    private final MultiLayerNetwork network;
+    private final ComputationGraph graph;
+
+    /**
+     * @param model Model to create the session for. Must be a MultiLayerNetwork or ComputationGraph, and must have been
+     *              initialized
+     */
+    public InferenceSession(Model model) {
+        this.model = model;
+        this.params = model.params();
+        if (params == null) {
+            throw new IllegalStateException("Cannot create inference session: model has not been initialized");
+        }
+        if (model instanceof MultiLayerNetwork) {
+            MultiLayerNetwork net = (MultiLayerNetwork) model;
+            network = new MultiLayerNetwork(net.getLayerWiseConfigurations().clone());
+            network.init(params, false);
+            graph = null;
+        } else if (model instanceof ComputationGraph) {
+            ComputationGraph cg = (ComputationGraph) model;
+            graph = new ComputationGraph(cg.getConfiguration().clone());
+            graph.init(params, false);
+            network = null;
+        } else {
+            throw new IllegalArgumentException("Cannot create inference session: unsupported model type "
+                            + model.getClass().getName() + ". Only MultiLayerNetwork and ComputationGraph are supported");
+        }
+    }
+
+    /**
+     * @return The model this session was created for
+     */
+    public Model getModel() {
+        return model;
+    }
+
+    /**
+     * @return True if the session still shares the parameters of the original model; false if the original model's
+     *         parameter array has been replaced
+     */
+    public boolean isValid() {
+        return model.params() == params;
+    }
+
+    /**
+     * Calculate the network output at test time, for a network with a single input and output
+     *
+     * @param input Network input
+     * @return Network output
+     */
+    public INDArray outputSingle(INDArray input) {
+        return outputSingle(input, null);
+    }
+
+    /**
+     * Calculate the network output at test time, for a network with a single input and output
+     *
+     * @param input        Network input
+     * @param featuresMask Features mask array. May be null
+     * @return Network output
+     */
+    public INDArray outputSingle(INDArray input, INDArray featuresMask) {
+        if (network != null) {
+            return network.output(input, false, featuresMask, null);
+        }
+        INDArray[] out = output(new INDArray[] {input}, featuresMask == null ? null : new INDArray[] {featuresMask});
+        if (out.length != 1) {
+            throw new IllegalStateException("Cannot use outputSingle with ComputationGraph that does not have "
+                            + "exactly 1 output. nOutputs: " + out.length);
+        }
+        return out[0];
+    }
+
+    /**
+     * Calculate the network outputs at test time
+     *
+     * @param inputs Network inputs
+     * @return Network outputs (order: same as defined in network configuration)
+     */
+    public INDArray[] output(INDArray... inputs) {
+        return output(inputs, null);
+    }
+
+    /**
+     * Calculate the network outputs at test time
+     *
+     * @param inputs        Network inputs
+     * @param featuresMasks Features mask arrays. May be null
+     * @return Network outputs (order: same as defined in network configuration)
+     */
+    public INDArray[] output(INDArray[] inputs, INDArray[] featuresMasks) {
+        if (network != null) {
+            if (inputs.length != 1 || (featuresMasks != null && featuresMasks.length != 1)) {
+                throw new IllegalArgumentException("MultiLayerNetwork has exactly 1 input: got " + inputs.length
+                                + " inputs");
+            }
+            return new INDArray[] {network.output(inputs[0], false, featuresMasks == null ? null : featuresMasks[0],
+                            null)};
+        }
+
+        if (featuresMasks == null) {
+            return graph.output(false, inputs);
+        }
+        graph.setLayerMaskArrays(featuresMasks, null);
+        try {
+            return graph.output(false, inputs);
+        } finally {
+            graph.clearLayerMaskArrays();
+        }
+    }
+}
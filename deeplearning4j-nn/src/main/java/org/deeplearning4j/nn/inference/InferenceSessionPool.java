@@ -0,0 +1,134 @@
+package org.deeplearning4j.nn.inference;
+
+import org.deeplearning4j.nn.api.Model;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InferenceSessionPool: thread-safe inference for a single {@link org.deeplearning4j.nn.multilayer.MultiLayerNetwork}
+ * or {@link org.deeplearning4j.nn.graph.ComputationGraph} instance.<br>
+ * Any number of threads may call the output methods concurrently: each call uses an {@link InferenceSession} from the
+ * pool (creating one if none are available), and returns it to the pool when done. All sessions share the parameters
+ * of the model, so the memory cost per concurrent caller is only that of the activations and working memory - not a
+ * copy of the network, as required when using one cloned network per thread.<br>
+ * The model itself is never modified, and may continue to be used directly (by one thread at a time) as usual.
+ */
+public class InferenceSessionPool {
+
+    /**
+     * Default maximum number of idle sessions retained in the pool
+     */
+    public static final int DEFAULT_MAX_IDLE_SESSIONS = 64;
+
+    private final Model model;
+    private final int maxIdleSessions;
+    private final ConcurrentLinkedQueue<InferenceSession> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numIdle = new AtomicInteger(0);
+    private final AtomicInteger numCreated = new AtomicInteger(0);
+
+    /**
+     * @param model Model to do inference with. Must be a MultiLayerNetwork or ComputationGraph, and must have been
+     *              initialized
+     */
+    public InferenceSessionPool(Model model) {
+        this(model, DEFAULT_MAX_IDLE_SESSIONS);
+    }
+
+    /**
+     * @param model           Model to do inference with. Must be a MultiLayerNetwork or ComputationGraph, and must
+     *                        have been initialized
+     * @param maxIdleSessions Maximum number of idle sessions to retain in the pool. Sessions released when the pool
+     *                        is full are discarded
+     */
+    public InferenceSessionPool(Model model, int maxIdleSessions) {
+        if (maxIdleSessions < 0)
+            throw new IllegalArgumentException("Max idle sessions must be >= 0: got " + maxIdleSessions);
+        this.model = model;
+        this.maxIdleSessions = maxIdleSessions;
+        //Create one session up front, to fail fast on invalid models
+        release(newSession());
+    }
+
+    private InferenceSession newSession() {
+        InferenceSession s = new InferenceSession(model);
+        numCreated.incrementAndGet();
+        return s;
+    }
+
+    /**
+     * Get a session from the pool, or create a new one if none are available. The session should be returned to the
+     * pool via {@link #release(InferenceSession)} once the caller is done with it.
+     */
+    public InferenceSession acquire() {
+        InferenceSession s;
+        while ((s = idle.poll()) != null) {
+            numIdle.decrementAndGet();
+            if (s.isValid()) {
+                return s;
+            }
+            //Model parameters array has been replaced: discard the session
+        }
+        return newSession();
+    }
+
+    /**
+     * Return a session (obtained via {@link #acquire()}) to the pool
+     */
+    public void release(InferenceSession session) {
+        if (session.getModel() != model || !session.isValid())
+            return;
+        if (numIdle.incrementAndGet() <= maxIdleSessions) {
+            idle.offer(session);
+        } else {
+            numIdle.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return Total number of sessions created by this pool so far. This is (usually) the maximum number of concurrent
+     *         callers seen
+     */
+    public int getNumSessionsCreated() {
+        return numCreated.get();
+    }
+
+    /**
+     * See {@link InferenceSession#outputSingle(INDArray)}
+     */
+    public INDArray outputSingle(INDArray input) {
+        return outputSingle(input, null);
+    }
+
+    /**
+     * See {@link InferenceSession#outputSingle(INDArray, INDArray)}
+     */
+    public INDArray outputSingle(INDArray input, INDArray featuresMask) {
+        InferenceSession s = acquire();
+        try {
+            return s.outputSingle(input, featuresMask);
+        } finally {
+            release(s);
+        }
+    }
+
+    /**
+     * See {@link InferenceSession#output(INDArray...)}
+     */
+    public INDArray[] output(INDArray... inputs) {
+        return output(inputs, null);
+    }
+
+    /**
+     * See {@link InferenceSession#output(INDArray[], INDArray[])}
+     */
+    public INDArray[] output(INDArray[] inputs, INDArray[] featuresMasks) {
+        InferenceSession s = acquire();
+        try {
+            return s.output(inputs, featuresMasks);
+        } finally {
+            release(s);
+        }
+    }
+}
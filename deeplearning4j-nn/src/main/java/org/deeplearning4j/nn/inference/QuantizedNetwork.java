@@ -0,0 +1,450 @@
+package org.deeplearning4j.nn.inference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.eval.Evaluation;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.InputPreProcessor;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.AbstractLSTM;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.EmbeddingLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.deeplearning4j.nn.params.LSTMParamInitializer;
+import org.deeplearning4j.optimize.api.IterationListener;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.*;
+
+/**
+ * Inference-only, post-training quantized version of a {@link MultiLayerNetwork}.<br>
+ * The weights of {@link DenseLayer}, {@link ConvolutionLayer} and {@link EmbeddingLayer} layers, and the input weights
+ * of LSTM layers ({@link org.deeplearning4j.nn.conf.layers.LSTM}, {@link org.deeplearning4j.nn.conf.layers.GravesLSTM})
+ * are stored as 8-bit integers, with a separate scale and zero point for each output unit/channel. All other
+ * parameters (biases, recurrent weights, output layers, batch norm, etc.) are stored at full precision. This reduces
+ * the memory required to store these weights by 4x (relative to single precision).<br>
+ * <br>
+ * ND4J has no 8-bit integer data type or integer matrix multiplication kernels: at inference, the quantized weights of
+ * each layer are dequantized (using bulk ND4J operations) into a per-thread working memory array that is shared by all
+ * layers, and the layer is executed in floating point. That is, computation uses int8 weights with floating point
+ * activations. This trades some computation (a subtract and multiply per weight per forward pass, which is amortized
+ * over the minibatch) for memory. For small minibatches, inference is therefore slower than for the original
+ * network.<br>
+ * <br>
+ * Note that the memory reduction applies to parameter storage only ({@link #sizeBytes()}): each thread that calls
+ * {@link #output(INDArray)} additionally allocates a full precision working memory array, with the size of the largest
+ * layer's parameters (see {@link #workingMemoryBytesPerThread()}), plus its own set of layer instances (which hold no
+ * parameters of their own).<br>
+ * <br>
+ * Optionally, the network can be calibrated using a sample of data: the range of the input activations to each
+ * quantized layer is recorded, and used to determine a per-layer scale and zero point for 8-bit (unsigned)
+ * activations. The inputs to the quantized layers are then quantized (and dequantized) to 8 bits at inference. This
+ * simulates the accuracy of fully 8-bit inference, without its performance benefits.<br>
+ * <br>
+ * Use {@link #evaluate(DataSetIterator)} or {@link #accuracyDelta(MultiLayerNetwork, QuantizedNetwork, DataSetIterator)}
+ * to check the accuracy of the quantized network, relative to the original network.<br>
+ * Instances are thread safe.
+ */
+@Slf4j
+public class QuantizedNetwork {
+
+    private final MultiLayerConfiguration conf;
+    private final LayerParams[] layerParams;
+    private final ActivationQuantization[] activationQuantization;
+    private final int maxNumParams;
+    private final ThreadLocal<ThreadState> threadState = new ThreadLocal<>();
+
+    private QuantizedNetwork(MultiLayerConfiguration conf, LayerParams[] layerParams,
+                    ActivationQuantization[] activationQuantization) {
+        this.conf = conf;
+        this.layerParams = layerParams;
+        this.activationQuantization = activationQuantization;
+        int max = 0;
+        for (LayerParams p : layerParams) {
+            max = Math.max(max, p.numParams);
+        }
+        this.maxNumParams = max;
+    }
+
+    /**
+     * Quantize the weights of the specified network. Activations are not quantized.
+     *
+     * @param net Network to quantize. Not modified.
+     * @return Quantized network
+     */
+    public static QuantizedNetwork quantize(MultiLayerNetwork net) {
+        return quantize(net, null);
+    }
+
+    /**
+     * Quantize the weights of the specified network, and (if calibration data is provided) the input activations of
+     * the quantized layers.
+     *
+     * @param net             Network to quantize. Not modified.
+     * @param calibrationData Data used to calibrate activation ranges. May be null, in which case activations are
+     *                        not quantized
+     * @return Quantized network
+     */
+    public static QuantizedNetwork quantize(MultiLayerNetwork net, DataSetIterator calibrationData) {
+        int nLayers = net.getnLayers();
+        LayerParams[] layerParams = new LayerParams[nLayers];
+        for (int i = 0; i < nLayers; i++) {
+            layerParams[i] = new LayerParams(net.getLayer(i));
+        }
+
+        ActivationQuantization[] activationQuantization = new ActivationQuantization[nLayers];
+        if (calibrationData != null) {
+            double[] min = new double[nLayers];
+            double[] max = new double[nLayers];
+            Arrays.fill(min, Double.MAX_VALUE);
+            Arrays.fill(max, -Double.MAX_VALUE);
+            if (calibrationData.resetSupported()) {
+                calibrationData.reset();
+            }
+            while (calibrationData.hasNext()) {
+                DataSet ds = calibrationData.next();
+                //Activations: index 0 is the network input, index i is the input to layer i
+                List<INDArray> activations = net.feedForward(ds.getFeatures(), false);
+                for (int i = 0; i < nLayers; i++) {
+                    if (layerParams[i].isQuantized()) {
+                        min[i] = Math.min(min[i], activations.get(i).minNumber().doubleValue());
+                        max[i] = Math.max(max[i], activations.get(i).maxNumber().doubleValue());
+                    }
+                }
+            }
+            for (int i = 0; i < nLayers; i++) {
+                //EmbeddingLayer inputs are indices, not activations: these can't be quantized
+                if (layerParams[i].isQuantized() && min[i] <= max[i]
+                                && !(net.getLayer(i).conf().getLayer() instanceof EmbeddingLayer)) {
+                    activationQuantization[i] = new ActivationQuantization(min[i], max[i]);
+                }
+            }
+        }
+
+        QuantizedNetwork ret = new QuantizedNetwork(net.getLayerWiseConfigurations().clone(), layerParams,
+                        activationQuantization);
+        log.info("Quantized network: parameters reduced from {} bytes to {} bytes", ret.originalSizeBytes(),
+                        ret.sizeBytes());
+        return ret;
+    }
+
+    /**
+     * Perform inference (forward pass, training = false) on the specified input
+     *
+     * @param input Network input
+     * @return Network output
+     */
+    public INDArray output(INDArray input) {
+        ThreadState state = threadState();
+        int miniBatch = input.size(0);
+        INDArray x = input;
+        for (int i = 0; i < layerParams.length; i++) {
+            InputPreProcessor preProcessor = conf.getInputPreProcess(i);
+            if (preProcessor != null) {
+                x = preProcessor.preProcess(x, miniBatch);
+            }
+            if (activationQuantization[i] != null) {
+                x = activationQuantization[i].quantizeDequantize(x);
+            }
+            layerParams[i].load(state.paramsView);
+            Layer l = state.layers[i];
+            l.setInputMiniBatchSize(miniBatch);
+            x = l.activate(x, false);
+        }
+        return x;
+    }
+
+    /**
+     * Evaluate the quantized network (classification) on the specified data
+     */
+    public Evaluation evaluate(DataSetIterator iterator) {
+        if (iterator.resetSupported() && !iterator.hasNext()) {
+            iterator.reset();
+        }
+        Evaluation e = new Evaluation();
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            INDArray out = output(ds.getFeatures());
+            if (out.rank() == 3) {
+                e.evalTimeSeries(ds.getLabels(), out, ds.getLabelsMaskArray());
+            } else {
+                e.eval(ds.getLabels(), out);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Evaluate both the original and quantized networks on the specified data, and return the difference in accuracy.
+     * The iterator must support reset.
+     *
+     * @return Accuracy of the quantized network minus the accuracy of the original network
+     */
+    public static double accuracyDelta(MultiLayerNetwork original, QuantizedNetwork quantized,
+                    DataSetIterator iterator) {
+        iterator.reset();
+        Evaluation originalEval = original.evaluate(iterator);
+        iterator.reset();
+        Evaluation quantizedEval = quantized.evaluate(iterator);
+        double delta = quantizedEval.accuracy() - originalEval.accuracy();
+        log.info("Accuracy - original network: {}, quantized network: {}, delta: {}", originalEval.accuracy(),
+                        quantizedEval.accuracy(), delta);
+        return delta;
+    }
+
+    /**
+     * @return Size of the stored parameters of the quantized network, in bytes. This does not include the per-thread
+     * working memory; see {@link #workingMemoryBytesPerThread()}
+     */
+    public long sizeBytes() {
+        long bytes = 0;
+        for (LayerParams p : layerParams) {
+            bytes += p.sizeBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Size of the full precision working memory array allocated by each thread that performs inference, in
+     * bytes
+     */
+    public long workingMemoryBytesPerThread() {
+        return maxNumParams * (long) Nd4j.sizeOfDataType();
+    }
+
+    /**
+     * @return Size of the parameters of the original (unquantized) network, in bytes
+     */
+    public long originalSizeBytes() {
+        long bytes = 0;
+        for (LayerParams p : layerParams) {
+            bytes += p.numParams * (long) Nd4j.sizeOfDataType();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Number of layers with quantized weights
+     */
+    public int getNumQuantizedLayers() {
+        int count = 0;
+        for (LayerParams p : layerParams) {
+            if (p.isQuantized()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private ThreadState threadState() {
+        ThreadState state = threadState.get();
+        if (state == null) {
+            state = new ThreadState();
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                state.paramsView = Nd4j.create(1, Math.max(1, maxNumParams));
+            }
+            state.layers = new Layer[layerParams.length];
+            for (int i = 0; i < layerParams.length; i++) {
+                NeuralNetConfiguration c = conf.getConf(i);
+                int n = layerParams[i].numParams;
+                INDArray view = (n > 0 ? state.paramsView.get(NDArrayIndex.point(0), NDArrayIndex.interval(0, n))
+                                : null);
+                state.layers[i] = c.getLayer().instantiate(c, Collections.<IterationListener>emptyList(), i, view,
+                                false);
+            }
+            threadState.set(state);
+        }
+        return state;
+    }
+
+    private static class ThreadState {
+        //Working memory for the parameters of one layer: shared by all layers (which are executed one at a time)
+        private INDArray paramsView;
+        private Layer[] layers;
+    }
+
+    /**
+     * Parameters for one layer. Each parameter is a contiguous segment of the layer's flattened parameter vector,
+     * stored either quantized or at full precision
+     */
+    private static class LayerParams {
+        private final int numParams;
+        private final List<QuantizedSegment> quantized = new ArrayList<>();
+        private final List<FloatSegment> full = new ArrayList<>();
+
+        private LayerParams(Layer layer) {
+            INDArray flat = layer.params();
+            numParams = (flat == null ? 0 : flat.length());
+            if (numParams == 0) {
+                return;
+            }
+            Set<String> toQuantize = quantizedParams(layer.conf().getLayer());
+            for (Map.Entry<String, INDArray> e : layer.paramTable().entrySet()) {
+                INDArray view = e.getValue();
+                int offset = (int) (view.offset() - flat.offset());
+                INDArray segment = flat.get(NDArrayIndex.point(0),
+                                NDArrayIndex.interval(offset, offset + view.length())).dup();
+                if (toQuantize.contains(e.getKey())) {
+                    //One scale/zero point per output unit/channel: columns for 'f' order weights ([nIn,nOut] for
+                    // dense, embedding and LSTM input weights), and rows for 'c' order ([nOut,nIn,kH,kW] conv weights)
+                    int nBlocks = (view.ordering() == 'f' ? view.size(view.rank() - 1) : view.size(0));
+                    quantized.add(new QuantizedSegment(offset, segment.data().asFloat(), nBlocks));
+                } else {
+                    full.add(new FloatSegment(offset, segment));
+                }
+            }
+        }
+
+        private boolean isQuantized() {
+            return !quantized.isEmpty();
+        }
+
+        private long sizeBytes() {
+            long bytes = 0;
+            for (QuantizedSegment q : quantized) {
+                bytes += q.sizeBytes();
+            }
+            for (FloatSegment f : full) {
+                bytes += f.values.length() * (long) Nd4j.sizeOfDataType();
+            }
+            return bytes;
+        }
+
+        /**
+         * Load (and dequantize) the parameters for this layer into the working memory array
+         */
+        private void load(INDArray paramsView) {
+            for (FloatSegment f : full) {
+                paramsView.get(NDArrayIndex.point(0), NDArrayIndex.interval(f.offset, f.offset + f.values.length()))
+                                .assign(f.values);
+            }
+            for (QuantizedSegment q : quantized) {
+                q.dequantize(paramsView);
+            }
+        }
+
+        private static Set<String> quantizedParams(org.deeplearning4j.nn.conf.layers.Layer layer) {
+            if (layer instanceof DenseLayer || layer instanceof ConvolutionLayer || layer instanceof EmbeddingLayer) {
+                return Collections.singleton(DefaultParamInitializer.WEIGHT_KEY);
+            }
+            if (layer instanceof AbstractLSTM) {
+                //Only the input weights: recurrent weights are used at every time step, and errors would accumulate
+                return Collections.singleton(LSTMParamInitializer.INPUT_WEIGHT_KEY);
+            }
+            return Collections.emptySet();
+        }
+    }
+
+    private static class FloatSegment {
+        private final int offset;
+        private final INDArray values;
+
+        private FloatSegment(int offset, INDArray values) {
+            this.offset = offset;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Values quantized to signed 8-bit integers, with an asymmetric (scale and zero point) quantization for each of a
+     * number of contiguous blocks of equal size
+     */
+    private static class QuantizedSegment {
+        private final int offset;
+        private final byte[] values;
+        private final int blockSize;
+        private final int nBlocks;
+        private final INDArray scales;
+        private final INDArray zeroPoints;
+
+        private QuantizedSegment(int offset, float[] data, int nBlocks) {
+            this.offset = offset;
+            this.values = new byte[data.length];
+            this.nBlocks = nBlocks;
+            this.blockSize = data.length / nBlocks;
+
+            float[] scales = new float[nBlocks];
+            float[] zeroPoints = new float[nBlocks];
+            for (int b = 0; b < nBlocks; b++) {
+                int start = b * blockSize;
+                //Range always includes 0, so that 0 is represented exactly
+                float min = 0.0f;
+                float max = 0.0f;
+                for (int i = start; i < start + blockSize; i++) {
+                    min = Math.min(min, data[i]);
+                    max = Math.max(max, data[i]);
+                }
+                float scale = (max - min) / 255.0f;
+                if (scale == 0.0f) {
+                    scale = 1.0f;
+                }
+                int zeroPoint = clamp(Math.round(-128 - min / scale), -128, 127);
+                scales[b] = scale;
+                zeroPoints[b] = zeroPoint;
+                for (int i = start; i < start + blockSize; i++) {
+                    values[i] = (byte) clamp(Math.round(data[i] / scale) + zeroPoint, -128, 127);
+                }
+            }
+
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                this.scales = Nd4j.create(scales);
+                this.zeroPoints = Nd4j.create(zeroPoints);
+            }
+        }
+
+        /**
+         * Dequantize into the working memory array. Only the byte to float conversion is done element-wise in Java;
+         * the subtraction of the zero points and multiplication by the scales are bulk (native) operations
+         */
+        private void dequantize(INDArray paramsView) {
+            float[] f = new float[values.length];
+            for (int i = 0; i < f.length; i++) {
+                f[i] = values[i];
+            }
+            //Blocks are contiguous: as an 'f' order [blockSize, nBlocks] matrix, each column is one block
+            INDArray q = Nd4j.create(f, new int[] {blockSize, nBlocks}, 'f');
+            q.subiRowVector(zeroPoints).muliRowVector(scales);
+            paramsView.get(NDArrayIndex.point(0), NDArrayIndex.interval(offset, offset + values.length))
+                            .assign(q.reshape('f', 1, values.length));
+        }
+
+        private long sizeBytes() {
+            return values.length + 2L * nBlocks * Nd4j.sizeOfDataType();
+        }
+
+        private static int clamp(int value, int min, int max) {
+            return Math.max(min, Math.min(max, value));
+        }
+    }
+
+    /**
+     * Asymmetric 8-bit (unsigned) quantization for activations, with the scale and zero point determined from the
+     * activation range observed during calibration
+     */
+    private static class ActivationQuantization {
+        private final double scale;
+        private final double zeroPoint;
+
+        private ActivationQuantization(double min, double max) {
+            min = Math.min(min, 0.0);
+            max = Math.max(max, 0.0);
+            double s = (max - min) / 255.0;
+            this.scale = (s == 0.0 ? 1.0 : s);
+            this.zeroPoint = Math.max(0, Math.min(255, Math.round(-min / scale)));
+        }
+
+        private INDArray quantizeDequantize(INDArray x) {
+            INDArray q = Transforms.round(x.div(scale).addi(zeroPoint), false);
+            q = Transforms.max(Transforms.min(q, 255.0, false), 0.0, false);
+            return q.subi(zeroPoint).muli(scale);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package org.deeplearning4j.nn.inference;
+
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RnnSessionScheduler: stateful (rnnTimeStep style) streaming inference for many concurrent sessions, with
+ * automatic batching.<br>
+ * <br>
+ * Callers submit steps (inputs with size(0) == 1, for one or more time steps) for a session, identified by a
+ * String ID. The recurrent state for each session is stored by the scheduler. A single worker thread collects
+ * pending steps from many sessions (up to the maximum batch size, waiting at most the maximum batch wait time after
+ * the first pending step) and executes them in a single minibatch forward pass using {@link RnnStreamingInference}.
+ * Steps for the same session are always executed in the order they were submitted - at most one step per session
+ * is included in each batch.<br>
+ * <br>
+ * Sessions that have not been used for longer than the session timeout are evicted, and their state discarded:
+ * the next step for an evicted session starts from the default (zero) initial state. Sessions can also be removed
+ * explicitly via {@link #removeSession(String)}.
+ */
+@Slf4j
+public class RnnSessionScheduler {
+
+    /**
+     * Default maximum number of sessions per batch
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    /**
+     * Default maximum time to wait for a batch to fill, in milliseconds
+     */
+    public static final long DEFAULT_MAX_BATCH_WAIT_MS = 2;
+    /**
+     * Default idle time after which sessions are evicted, in milliseconds
+     */
+    public static final long DEFAULT_SESSION_TIMEOUT_MS = 10 * 60 * 1000L;
+
+    private final Model model;
+    private final int maxBatchSize;
+    private final long maxBatchWaitMs;
+    private final long sessionTimeoutMs;
+
+    private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong numBatches = new AtomicLong();
+    private final AtomicLong numSteps = new AtomicLong();
+    private final AtomicLong numEvicted = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean shutdown;
+    private RnnStreamingInference inference;
+
+    /**
+     * Create a scheduler with the default configuration
+     *
+     * @param model Model to do inference with. Must be a MultiLayerNetwork or ComputationGraph, and must have been
+     *              initialized
+     */
+    public RnnSessionScheduler(Model model) {
+        this(model, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_WAIT_MS, DEFAULT_SESSION_TIMEOUT_MS);
+    }
+
+    /**
+     * @param model            Model to do inference with. Must be a MultiLayerNetwork or ComputationGraph, and must
+     *                         have been initialized
+     * @param maxBatchSize     Maximum number of sessions to include in a single forward pass
+     * @param maxBatchWaitMs   Maximum time (after the first pending step) to wait for more steps to fill a batch
+     * @param sessionTimeoutMs Sessions not used for longer than this are evicted
+     */
+    public RnnSessionScheduler(Model model, int maxBatchSize, long maxBatchWaitMs, long sessionTimeoutMs) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Max batch size must be > 0: got " + maxBatchSize);
+        if (maxBatchWaitMs < 0)
+            throw new IllegalArgumentException("Max batch wait time must be >= 0: got " + maxBatchWaitMs);
+        if (sessionTimeoutMs <= 0)
+            throw new IllegalArgumentException("Session timeout must be > 0: got " + sessionTimeoutMs);
+        this.model = model;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchWaitMs = maxBatchWaitMs;
+        this.sessionTimeoutMs = sessionTimeoutMs;
+        this.inference = new RnnStreamingInference(model);
+
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWorker();
+            }
+        }, "RnnSessionScheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Submit a step for the specified session. The step is executed asynchronously, after any previously submitted
+     * steps for the same session.
+     *
+     * @param sessionId ID of the session. A new session is created if no session with this ID exists
+     * @param inputs    Network inputs, with size(0) == 1
+     * @return Future for the network outputs
+     */
+    public Future<INDArray[]> submit(String sessionId, INDArray... inputs) {
+        if (sessionId == null)
+            throw new IllegalArgumentException("Session ID cannot be null");
+        if (shutdown)
+            throw new IllegalStateException("Cannot submit step: scheduler has been shut down");
+        SettableFuture<INDArray[]> f = SettableFuture.create();
+        Request r = new Request(sessionId, inputs, f);
+        queue.add(r);
+        if (shutdown && queue.remove(r)) {
+            //Shut down concurrently with the add: the worker may have already exited, and won't execute this step
+            failPending(Collections.singletonList(r));
+        }
+        return f;
+    }
+
+    /**
+     * Execute a step for the specified session, blocking until the step has been executed. See
+     * {@link #submit(String, INDArray...)}
+     *
+     * @param sessionId ID of the session. A new session is created if no session with this ID exists
+     * @param inputs    Network inputs, with size(0) == 1
+     * @return Network outputs
+     */
+    public INDArray[] step(String sessionId, INDArray... inputs) {
+        try {
+            return submit(sessionId, inputs).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for step of session " + sessionId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Error executing step for session " + sessionId, e.getCause());
+        }
+    }
+
+    /**
+     * Remove the specified session (if it exists), discarding its state.<br>
+     * Note that if a step for the session is currently being executed, the session is not re-created when that step
+     * completes (the step's output is still returned). However, any steps for the session that are still pending
+     * will start a new session, from the default initial state.
+     */
+    public void removeSession(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Get the current state of the specified session. Can be used (along with
+     * {@link #setSessionState(String, RnnSessionState)}) to persist sessions, or migrate them between schedulers.
+     * Should only be called when no steps are pending for the session.
+     *
+     * @return Session state, or null if no session with this ID exists (or no steps have been done yet)
+     */
+    public RnnSessionState getSessionState(String sessionId) {
+        Session s = sessions.get(sessionId);
+        return s == null ? null : s.state;
+    }
+
+    /**
+     * Set the state of the specified session, creating the session if it does not exist. Should only be called when
+     * no steps are pending for the session.
+     *
+     * @param state State for the session, as obtained from {@link #getSessionState(String)} or
+     *              {@link RnnStreamingInference}. Null to reset the session to the default initial state
+     */
+    public void setSessionState(String sessionId, RnnSessionState state) {
+        sessions.put(sessionId, new Session(state, System.currentTimeMillis()));
+    }
+
+    /**
+     * @return Number of sessions currently stored
+     */
+    public int getNumSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * @return Number of batches (forward passes) executed so far
+     */
+    public long getNumBatches() {
+        return numBatches.get();
+    }
+
+    /**
+     * @return Number of steps (over all sessions) executed so far
+     */
+    public long getNumSteps() {
+        return numSteps.get();
+    }
+
+    /**
+     * @return Number of sessions evicted due to the session timeout, so far
+     */
+    public long getNumEvictedSessions() {
+        return numEvicted.get();
+    }
+
+    /**
+     * Shut down the scheduler. Pending steps are failed with an IllegalStateException
+     */
+    public void shutdown() {
+        shutdown = true;
+        worker.interrupt();
+        if (Thread.currentThread() != worker) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        //Fail anything added after the worker exited
+        List<Request> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        failPending(pending);
+    }
+
+    /**
+     * Evict any sessions that have not been used for longer than the session timeout.
+     * This is done periodically by the worker thread, but may also be called manually.
+     *
+     * @return Number of sessions evicted
+     */
+    public int evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTimeoutMs;
+        int count = 0;
+        Iterator<Map.Entry<String, Session>> iter = sessions.entrySet().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().getValue().lastAccess < cutoff) {
+                iter.remove();
+                count++;
+            }
+        }
+        numEvicted.addAndGet(count);
+        return count;
+    }
+
+    private void runWorker() {
+        //Steps that could not be included in a previous batch (another step for the same session was already in it,
+        // or different input shapes). These are always considered before any new steps, to preserve ordering
+        List<Request> deferred = new ArrayList<>();
+        long evictionCheckInterval = Math.max(1, Math.min(sessionTimeoutMs / 10, 60000L));
+        long lastEvictionCheck = System.currentTimeMillis();
+
+        while (!shutdown) {
+            try {
+                List<Request> batch = new ArrayList<>();
+                Set<String> seen = new HashSet<>();
+                List<Request> candidates = new ArrayList<>(deferred);
+                deferred.clear();
+                for (Request r : candidates) {
+                    consider(r, batch, seen, deferred);
+                }
+
+                if (batch.isEmpty()) {
+                    Request r = queue.poll(evictionCheckInterval, TimeUnit.MILLISECONDS);
+                    if (r != null) {
+                        consider(r, batch, seen, deferred);
+                    }
+                }
+
+                if (!batch.isEmpty()) {
+                    long deadline = System.currentTimeMillis() + maxBatchWaitMs;
+                    while (batch.size() < maxBatchSize) {
+                        long wait = deadline - System.currentTimeMillis();
+                        Request r = (wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll());
+                        if (r == null)
+                            break;
+                        consider(r, batch, seen, deferred);
+                    }
+                    execute(batch);
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastEvictionCheck >= evictionCheckInterval) {
+                    evictIdleSessions();
+                    lastEvictionCheck = now;
+                }
+            } catch (InterruptedException e) {
+                if (!shutdown) {
+                    log.warn("RnnSessionScheduler worker thread interrupted", e);
+                }
+                break;
+            }
+        }
+        failPending(deferred);
+        List<Request> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        failPending(pending);
+    }
+
+    private void consider(Request r, List<Request> batch, Set<String> seen, List<Request> deferred) {
+        //At most one step per session per batch. Note that a session is marked as seen even if its step is deferred
+        // for another reason, so that later steps for the same session can't overtake it
+        boolean firstForSession = seen.add(r.sessionId);
+        if (firstForSession && batch.size() < maxBatchSize && (batch.isEmpty() || compatible(batch.get(0), r))) {
+            batch.add(r);
+        } else {
+            deferred.add(r);
+        }
+    }
+
+    private static boolean compatible(Request first, Request r) {
+        if (first.inputs.length != r.inputs.length)
+            return false;
+        for (int i = 0; i < first.inputs.length; i++) {
+            if (!Arrays.equals(first.inputs[i].shape(), r.inputs[i].shape()))
+                return false;
+        }
+        return true;
+    }
+
+    private void execute(List<Request> batch) {
+        if (!inference.isValid()) {
+            //Model parameter array has been replaced
+            inference = new RnnStreamingInference(model);
+        }
+
+        List<INDArray[]> inputs = new ArrayList<>(batch.size());
+        List<Session> before = new ArrayList<>(batch.size());
+        List<RnnSessionState> states = new ArrayList<>(batch.size());
+        for (Request r : batch) {
+            inputs.add(r.inputs);
+            Session s = sessions.get(r.sessionId);
+            before.add(s);
+            states.add(s == null ? null : s.state);
+        }
+
+        List<RnnStepResult> results;
+        try {
+            results = inference.step(inputs, states);
+        } catch (Throwable t) {
+            log.warn("Error executing batch of {} RNN session steps", batch.size(), t);
+            for (Request r : batch) {
+                r.future.setException(t);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < batch.size(); i++) {
+            Request r = batch.get(i);
+            Session updated = new Session(results.get(i).getState(), now);
+            //Only update the session if it was not removed, evicted or set (setSessionState) during the step
+            if (before.get(i) == null) {
+                sessions.putIfAbsent(r.sessionId, updated);
+            } else {
+                sessions.replace(r.sessionId, before.get(i), updated);
+            }
+            r.future.set(results.get(i).getOutputs());
+        }
+        numBatches.incrementAndGet();
+        numSteps.addAndGet(batch.size());
+    }
+
+    private static void failPending(List<Request> requests) {
+        for (Request r : requests) {
+            r.future.setException(new IllegalStateException("RnnSessionScheduler has been shut down"));
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Request {
+        private final String sessionId;
+        private final INDArray[] inputs;
+        private final SettableFuture<INDArray[]> future;
+    }
+
+    @AllArgsConstructor
+    private static class Session {
+        private final RnnSessionState state;
+        private final long lastAccess;
+    }
+}
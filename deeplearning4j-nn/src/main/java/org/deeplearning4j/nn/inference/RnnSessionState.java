@@ -0,0 +1,41 @@
+package org.deeplearning4j.nn.inference;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The recurrent state (i.e., the state used by rnnTimeStep) for a single session/stream, as used by
+ * {@link RnnStreamingInference} and {@link RnnSessionScheduler}.<br>
+ * The contents are opaque to the caller: the state returned by one step should be passed to the next step for the
+ * same session. Instances are immutable, and can be stored or serialized by the caller as required.
+ */
+public class RnnSessionState implements Serializable {
+
+    //Key: recurrent layer (layer index for MultiLayerNetwork, layer name for ComputationGraph). Value: layer state map
+    // (as per RecurrentLayer.rnnGetPreviousState()), with arrays for a single example: i.e., size(0) == 1
+    private final Map<String, Map<String, INDArray>> layerStates;
+
+    RnnSessionState(Map<String, Map<String, INDArray>> layerStates) {
+        this.layerStates = Collections.unmodifiableMap(layerStates);
+    }
+
+    Map<String, INDArray> getLayerState(String layer) {
+        return layerStates.get(layer);
+    }
+
+    /**
+     * @return Total size of the state arrays, in bytes
+     */
+    public long sizeBytes() {
+        long bytes = 0;
+        for (Map<String, INDArray> m : layerStates.values()) {
+            for (INDArray arr : m.values()) {
+                bytes += arr.length() * arr.data().getElementSize();
+            }
+        }
+        return bytes;
+    }
+}
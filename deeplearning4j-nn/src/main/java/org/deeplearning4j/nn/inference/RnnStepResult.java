@@ -0,0 +1,18 @@
+package org.deeplearning4j.nn.inference;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * The result of a single step of {@link RnnStreamingInference} for one session: the network outputs, and the updated
+ * recurrent state to use for the next step of the session.
+ */
+@Data
+@AllArgsConstructor
+public class RnnStepResult {
+
+    private INDArray[] outputs;
+    private RnnSessionState state;
+
+}
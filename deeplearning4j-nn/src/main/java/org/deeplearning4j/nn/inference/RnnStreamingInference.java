@@ -0,0 +1,260 @@
+package org.deeplearning4j.nn.inference;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.api.layers.RecurrentLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RnnStreamingInference: stateful (rnnTimeStep style) inference for any number of independent sessions/streams,
+ * using a single {@link MultiLayerNetwork} or {@link ComputationGraph}.<br>
+ * <br>
+ * With {@link MultiLayerNetwork#rnnTimeStep(INDArray)}, the recurrent state is stored in the layers of the network,
+ * hence one network can only track one stream at a time. Here, the state is instead supplied by and returned to the
+ * caller as an opaque {@link RnnSessionState} object per session. Furthermore, steps for multiple sessions can be
+ * done in a single minibatch forward pass: the inputs and states of all sessions are stacked along the minibatch
+ * dimension, and the outputs and updated states split again after the forward pass.<br>
+ * <br>
+ * Sessions without state (i.e., null state - the first step of a session) use the default initialization (zeros),
+ * as per rnnTimeStep. Inputs for each session must have size(0) == 1: i.e., shape [1,nIn] for a single time step,
+ * or [1,nIn,T] for multiple time steps; all inputs for one call must have the same shape.<br>
+ * <br>
+ * Like {@link InferenceSession}, the network used internally shares the parameters of the original model, which is
+ * not modified. Calls are serialized (i.e., the step methods are synchronized); see {@link RnnSessionScheduler} for
+ * automatic batching of steps submitted by many threads/sessions concurrently.
+ */
+public class RnnStreamingInference {
+
+    private final Model model;
+    private final INDArray params;
+    private final MultiLayerNetwork network;
+    private final ComputationGraph graph;
+    //Recurrent layers: layer index (MultiLayerNetwork) or layer name (ComputationGraph)
+    private final List<String> recurrentLayers = new ArrayList<>();
+
+    /**
+     * @param model Model to do inference with. Must be a MultiLayerNetwork or ComputationGraph, and must have been
+     *              initialized
+     */
+    public RnnStreamingInference(Model model) {
+        this.model = model;
+        this.params = model.params();
+        if (params == null) {
+            throw new IllegalStateException("Cannot create RNN streaming inference: model has not been initialized");
+        }
+        if (model instanceof MultiLayerNetwork) {
+            MultiLayerNetwork net = (MultiLayerNetwork) model;
+            network = new MultiLayerNetwork(net.getLayerWiseConfigurations().clone());
+            network.init(params, false);
+            graph = null;
+            Layer[] layers = network.getLayers();
+            for (int i = 0; i < layers.length; i++) {
+                if (layers[i] instanceof RecurrentLayer) {
+                    recurrentLayers.add(String.valueOf(i));
+                }
+            }
+        } else if (model instanceof ComputationGraph) {
+            ComputationGraph cg = (ComputationGraph) model;
+            graph = new ComputationGraph(cg.getConfiguration().clone());
+            graph.init(params, false);
+            network = null;
+            for (Layer l : graph.getLayers()) {
+                if (l instanceof RecurrentLayer) {
+                    recurrentLayers.add(l.conf().getLayer().getLayerName());
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot create RNN streaming inference: unsupported model type "
+                            + model.getClass().getName() + ". Only MultiLayerNetwork and ComputationGraph are supported");
+        }
+    }
+
+    /**
+     * @return The model used for inference
+     */
+    public Model getModel() {
+        return model;
+    }
+
+    /**
+     * @return True if the parameters of the original model are still shared; false if the original model's parameter
+     *         array has been replaced (in which case, a new instance should be created)
+     */
+    public boolean isValid() {
+        return model.params() == params;
+    }
+
+    /**
+     * Do one step (one or more time steps) of inference for a single session
+     *
+     * @param state  State for the session, as returned by the previous step. Null for the first step of a session
+     * @param inputs Network inputs, with size(0) == 1
+     * @return Network outputs and updated state for the session
+     */
+    public RnnStepResult step(RnnSessionState state, INDArray... inputs) {
+        return step(Collections.singletonList(inputs), Collections.singletonList(state)).get(0);
+    }
+
+    /**
+     * Do one step (one or more time steps) of inference for multiple sessions, in a single minibatch forward pass
+     *
+     * @param inputs Network inputs, one entry per session. Each input array must have size(0) == 1
+     * @param states States for each session, as returned by the previous step (null entries for the first step of a
+     *               session). Must have the same number of entries as the inputs
+     * @return Network outputs and updated state, for each session
+     */
+    public synchronized List<RnnStepResult> step(List<INDArray[]> inputs, List<RnnSessionState> states) {
+        if (inputs.size() != states.size()) {
+            throw new IllegalArgumentException("Number of inputs (" + inputs.size() + ") must match number of states ("
+                            + states.size() + ")");
+        }
+        if (inputs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int n = inputs.size();
+
+        int numInputs = inputs.get(0).length;
+        INDArray[] batchInputs = new INDArray[numInputs];
+        for (int j = 0; j < numInputs; j++) {
+            INDArray[] toStack = new INDArray[n];
+            for (int i = 0; i < n; i++) {
+                INDArray[] in = inputs.get(i);
+                if (in.length != numInputs || in[j].size(0) != 1) {
+                    throw new IllegalArgumentException("Invalid input for session " + i + ": all sessions must have "
+                                    + numInputs + " input arrays, each with size(0) == 1");
+                }
+                toStack[i] = in[j];
+            }
+            batchInputs[j] = (n == 1 ? toStack[0] : Nd4j.concat(0, toStack));
+        }
+
+        try {
+            //Set the state for all sessions, stacked along the minibatch dimension
+            for (String layer : recurrentLayers) {
+                Map<String, INDArray> stacked = stackLayerStates(layer, states);
+                if (stacked != null) {
+                    setLayerState(layer, stacked);
+                }
+            }
+
+            INDArray[] out;
+            if (network != null) {
+                if (numInputs != 1) {
+                    throw new IllegalArgumentException("MultiLayerNetwork has exactly 1 input: got " + numInputs
+                                    + " inputs");
+                }
+                out = new INDArray[] {network.rnnTimeStep(batchInputs[0])};
+            } else {
+                out = graph.rnnTimeStep(batchInputs);
+            }
+
+            //Split the outputs and updated state by session
+            List<Map<String, Map<String, INDArray>>> newStates = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                newStates.add(new HashMap<String, Map<String, INDArray>>());
+            }
+            for (String layer : recurrentLayers) {
+                Map<String, INDArray> layerState = getLayerState(layer);
+                if (layerState == null || layerState.isEmpty())
+                    continue;
+                for (int i = 0; i < n; i++) {
+                    Map<String, INDArray> m = new HashMap<>();
+                    for (Map.Entry<String, INDArray> e : layerState.entrySet()) {
+                        m.put(e.getKey(), getExample(e.getValue(), i));
+                    }
+                    newStates.get(i).put(layer, m);
+                }
+            }
+
+            List<RnnStepResult> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                INDArray[] sessionOut = new INDArray[out.length];
+                for (int j = 0; j < out.length; j++) {
+                    sessionOut[j] = getExample(out[j], i);
+                }
+                results.add(new RnnStepResult(sessionOut, new RnnSessionState(newStates.get(i))));
+            }
+            return results;
+        } finally {
+            //Don't retain any state (or references to it) between calls
+            if (network != null) {
+                network.rnnClearPreviousState();
+            } else {
+                graph.rnnClearPreviousState();
+            }
+        }
+    }
+
+    private Map<String, INDArray> stackLayerStates(String layer, List<RnnSessionState> states) {
+        int n = states.size();
+        List<Map<String, INDArray>> layerStates = new ArrayList<>(n);
+        Set<String> keys = new LinkedHashSet<>();
+        for (RnnSessionState s : states) {
+            Map<String, INDArray> m = (s == null ? null : s.getLayerState(layer));
+            layerStates.add(m);
+            if (m != null) {
+                keys.addAll(m.keySet());
+            }
+        }
+        if (keys.isEmpty()) {
+            //No session has state for this layer: use default initialization
+            return null;
+        }
+
+        Map<String, INDArray> stacked = new HashMap<>();
+        for (String key : keys) {
+            INDArray template = null;
+            for (Map<String, INDArray> m : layerStates) {
+                if (m != null && m.containsKey(key)) {
+                    template = m.get(key);
+                    break;
+                }
+            }
+            INDArray[] toStack = new INDArray[n];
+            for (int i = 0; i < n; i++) {
+                Map<String, INDArray> m = layerStates.get(i);
+                //Sessions without state: zeros, equivalent to the default initialization
+                toStack[i] = (m != null && m.containsKey(key) ? m.get(key) : Nd4j.zeros(template.shape()));
+            }
+            stacked.put(key, n == 1 ? toStack[0].dup() : Nd4j.concat(0, toStack));
+        }
+        return stacked;
+    }
+
+    private Map<String, INDArray> getLayerState(String layer) {
+        if (network != null) {
+            return network.rnnGetPreviousState(Integer.parseInt(layer));
+        }
+        return graph.rnnGetPreviousState(layer);
+    }
+
+    private void setLayerState(String layer, Map<String, INDArray> state) {
+        if (network != null) {
+            network.rnnSetPreviousState(Integer.parseInt(layer), state);
+        } else {
+            graph.rnnSetPreviousState(layer, state);
+        }
+    }
+
+    private static INDArray getExample(INDArray arr, int example) {
+        INDArrayIndex[] indexes = new INDArrayIndex[arr.rank()];
+        indexes[0] = NDArrayIndex.interval(example, example + 1);
+        for (int i = 1; i < indexes.length; i++) {
+            indexes[i] = NDArrayIndex.all();
+        }
+        return arr.get(indexes).dup();
+    }
+}
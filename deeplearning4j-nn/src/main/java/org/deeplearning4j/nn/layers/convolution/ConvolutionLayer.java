@@ -60,6 +60,11 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
     protected transient INDArray dummyBias;     //Used only when: hasBias == false AND helpers are used
     protected transient INDArray dummyBiasGrad; //As above
 
+    //Key for the im2col array in the scratch buffer pool. Also reused for the 2d epsilons during backprop
+    protected static final String IM2COL_BUFFER = "im2col";
+    //Shared by all convolution layers: one im2col buffer per thread, sized for the largest layer
+    protected static final ScratchBufferPool SCRATCH_BUFFERS = new ScratchBufferPool();
+
     public ConvolutionLayer(NeuralNetConfiguration conf) {
         super(conf);
         initializeHelper();
@@ -91,6 +96,31 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
                 }
             }
         }
+
+        if (helper == null && PointwiseConvolutionHelper.isPointwise(layerConf())) {
+            //1x1 convolutions: calculate directly via matrix multiplication on the input, skipping im2col/col2im
+            helper = new PointwiseConvolutionHelper();
+        }
+    }
+
+    /**
+     * @return Scratch (working memory) buffers used by convolution layers when no workspace is active, such as the
+     *         im2col array. Note that these are shared by all convolution layers
+     */
+    public static ScratchBufferPool scratchBuffers() {
+        return SCRATCH_BUFFERS;
+    }
+
+    /**
+     * Get an (uninitialized) im2col array. If a workspace is active, the array is allocated in the workspace, which
+     * already reuses the memory between iterations. Otherwise (WorkspaceMode.NONE), the shared per-thread scratch buffer
+     * is used, to avoid allocating a new array in every forward and backward pass
+     */
+    protected INDArray im2colArray(int[] shape) {
+        if (Nd4j.getMemoryManager().getCurrentWorkspace() != null) {
+            return Nd4j.createUninitialized(shape, 'c');
+        }
+        return SCRATCH_BUFFERS.get(IM2COL_BUFFER, shape, 'c');
     }
 
     @Override
@@ -197,9 +227,11 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
         //Do im2col, but with order [miniB,outH,outW,depthIn,kH,kW]; but need to input [miniBatch,depth,kH,kW,outH,outW] given the current im2col implementation
         //To get this: create an array of the order we want, permute it to the order required by im2col implementation, and then do im2col on that
         //to get old order from required order: permute(0,3,4,5,1,2)
+        int[] im2colShape = new int[] {miniBatch, outH, outW, inDepth, kH, kW};
         INDArray im2col2d = p.getSecond(); //Re-use im2col2d array from forward pass if available; recalculate if not
+        INDArray col = null;
         if (im2col2d == null) {
-            INDArray col = Nd4j.createUninitialized(new int[] {miniBatch, outH, outW, inDepth, kH, kW}, 'c');
+            col = im2colArray(im2colShape);
             INDArray col2 = col.permute(0, 3, 4, 5, 1, 2);
             Convolution.im2col(input, kH, kW, strides[0], strides[1], pad[0], pad[1], dilation[0], dilation[1],
                             convolutionMode == ConvolutionMode.Same, col2);
@@ -218,7 +250,14 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
 
         //Calculate epsilons for layer below, in 2d format (note: this is in 'image patch' format before col2im reduction)
         //Note: cc -> f mmul here, then reshape to 6d in f order
-        INDArray epsNext2d = w2d.mmul(delta2d); //TODO can we reuse im2col array instead of allocating new result array?
+        //The im2col array is no longer required at this point: reuse the im2col array for the result (if calculated here,
+        // or if it is the scratch buffer). A c order [miniBatch,outH,outW,inDepth,kH,kW] array has the same layout as
+        // an f order [kW,kH,inDepth,outW,outH,miniBatch] array - i.e., the transpose of the c order 2d im2col array is
+        // exactly the f order epsNext2d array
+        INDArray epsCol = (col != null ? col : im2colArray(im2colShape));
+        INDArray epsNext2d = Shape.newShapeNoCopy(epsCol, new int[] {miniBatch * outH * outW, inDepth * kH * kW}, false)
+                        .transpose();
+        Nd4j.gemm(w2d, delta2d, epsNext2d, false, false, 1.0, 0.0);
         INDArray eps6d = Shape.newShapeNoCopy(epsNext2d, new int[] {kW, kH, inDepth, outW, outH, miniBatch}, true);
 
         //Calculate epsilonNext by doing im2col reduction.
@@ -361,7 +400,9 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
         //To get this: create an array of the order we want, permute it to the order required by im2col implementation, and then do im2col on that
         //to get old order from required order: permute(0,3,4,5,1,2)
         //Post reshaping: rows are such that minibatch varies slowest, outW fastest as we step through the rows post-reshape
-        INDArray col = Nd4j.createUninitialized(new int[] {miniBatch, outH, outW, inDepth, kH, kW}, 'c');
+        //The im2col array is only working memory: use the workspace, or the (reused) scratch buffer if no workspace is
+        // active, instead of allocating every iteration
+        INDArray col = im2colArray(new int[] {miniBatch, outH, outW, inDepth, kH, kW});
         INDArray col2 = col.permute(0, 3, 4, 5, 1, 2);
         Convolution.im2col(input, kH, kW, strides[0], strides[1], pad[0], pad[1], dilation[0], dilation[1],
                         convolutionMode == ConvolutionMode.Same, col2);
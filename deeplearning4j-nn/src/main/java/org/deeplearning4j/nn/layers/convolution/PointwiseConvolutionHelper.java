@@ -0,0 +1,193 @@
+package org.deeplearning4j.nn.layers.convolution;
+
+import org.deeplearning4j.nn.conf.ConvolutionMode;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.AlgoMode;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.BwdDataAlgo;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.BwdFilterAlgo;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.FwdAlgo;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.params.ConvolutionParamInitializer;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.primitives.Pair;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.util.Arrays;
+
+/**
+ * CPU convolution helper for pointwise (1x1 kernel, no padding) convolutions, with any stride.<br>
+ * For these, im2col is a pure copy of the input (or of a strided subset of the input, for stride > 1): instead, the
+ * convolution is calculated as one matrix multiplication per example directly on a 2d view of the input, of shape
+ * [inDepth, outH*outW]. The same applies to the backward pass (weight gradients and epsilons), where col2im is also
+ * not required.<br>
+ * Used by {@link ConvolutionLayer} for 1x1 convolutions when no other helper (i.e., cuDNN) is available.
+ */
+public class PointwiseConvolutionHelper implements ConvolutionHelper {
+
+    /**
+     * @return True if the layer configuration is a pointwise convolution (1x1 kernel, no padding) that can be
+     *         handled by this helper
+     */
+    public static boolean isPointwise(org.deeplearning4j.nn.conf.layers.ConvolutionLayer layerConf) {
+        int[] kernel = layerConf.getKernelSize();
+        int[] pad = layerConf.getPadding();
+        return kernel[0] == 1 && kernel[1] == 1
+                        && (layerConf.getConvolutionMode() == ConvolutionMode.Same || (pad[0] == 0 && pad[1] == 0));
+    }
+
+    private static boolean isSupported(int[] kernel, int[] pad) {
+        return kernel[0] == 1 && kernel[1] == 1 && pad[0] == 0 && pad[1] == 0;
+    }
+
+    @Override
+    public boolean checkSupported() {
+        return true;
+    }
+
+    @Override
+    public Pair<Gradient, INDArray> backpropGradient(INDArray input, INDArray weights, INDArray delta, int[] kernel,
+                    int[] strides, int[] pad, INDArray biasGradView, INDArray weightGradView, IActivation afn,
+                    AlgoMode mode, BwdFilterAlgo bwdFilterAlgo, BwdDataAlgo bwdDataAlgo,
+                    ConvolutionMode convolutionMode, int[] dilation) {
+        if (!isSupported(kernel, pad)) {
+            return null;
+        }
+
+        int miniBatch = input.size(0);
+        int inH = input.size(2);
+        int inW = input.size(3);
+        int outDepth = weights.size(0);
+        int inDepth = weights.size(1);
+
+        INDArray in = pointwiseInput(input, strides);
+        int outH = in.size(2);
+        int outW = in.size(3);
+        if (delta.size(2) != outH || delta.size(3) != outW) {
+            return null;
+        }
+        if (!isContiguous(delta)) {
+            delta = delta.dup('c');
+        }
+
+        INDArray in3d = in.reshape('c', miniBatch, inDepth, outH * outW);
+        INDArray delta3d = delta.reshape('c', miniBatch, outDepth, outH * outW);
+        INDArray w2d = weights2d(weights, outDepth, inDepth);
+
+        //Weight gradients: sum over examples of delta_b * in_b^T.
+        //weightGradView is c order, hence its transpose is f order; using AB = (B^T A^T)^T
+        INDArray weightGradView2df =
+                        Shape.newShapeNoCopy(weightGradView, new int[] {outDepth, inDepth}, false).transpose();
+        for (int i = 0; i < miniBatch; i++) {
+            Nd4j.gemm(in3d.tensorAlongDimension(i, 1, 2), delta3d.tensorAlongDimension(i, 1, 2), weightGradView2df,
+                            false, true, 1.0, (i == 0 ? 0.0 : 1.0));
+        }
+
+        biasGradView.assign(delta.sum(0, 2, 3));
+
+        //Epsilons: w^T * delta_b for each example; calculated as (delta_b^T * w)^T into c order output.
+        //For stride > 1, only the input positions used in the forward pass get (non-zero) epsilons
+        boolean strided = (strides[0] != 1 || strides[1] != 1);
+        INDArray epsNext = createOutputArray(new int[] {miniBatch, inDepth, inH, inW});
+        INDArray epsOut = (strided ? Nd4j.create(new int[] {miniBatch, inDepth, outH, outW}, 'c') : epsNext);
+        INDArray eps3d = epsOut.reshape('c', miniBatch, inDepth, outH * outW);
+        for (int i = 0; i < miniBatch; i++) {
+            Nd4j.gemm(delta3d.tensorAlongDimension(i, 1, 2), w2d, eps3d.tensorAlongDimension(i, 1, 2).transpose(),
+                            true, false, 1.0, 0.0);
+        }
+        if (strided) {
+            epsNext.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.interval(0, strides[0], inH),
+                            NDArrayIndex.interval(0, strides[1], inW)).assign(epsOut);
+        }
+
+        Gradient retGradient = new DefaultGradient();
+        retGradient.setGradientFor(ConvolutionParamInitializer.BIAS_KEY, biasGradView);
+        retGradient.setGradientFor(ConvolutionParamInitializer.WEIGHT_KEY, weightGradView, 'c');
+
+        return new Pair<>(retGradient, epsNext);
+    }
+
+    @Override
+    public INDArray preOutput(INDArray input, INDArray weights, INDArray bias, int[] kernel, int[] strides, int[] pad,
+                    AlgoMode mode, FwdAlgo fwdAlgo, ConvolutionMode convolutionMode, int[] dilation) {
+        if (!isSupported(kernel, pad)) {
+            return null;
+        }
+
+        int miniBatch = input.size(0);
+        int outDepth = weights.size(0);
+        int inDepth = weights.size(1);
+
+        INDArray in = pointwiseInput(input, strides);
+        int outH = in.size(2);
+        int outW = in.size(3);
+
+        INDArray in3d = in.reshape('c', miniBatch, inDepth, outH * outW);
+        INDArray w2d = weights2d(weights, outDepth, inDepth);
+        INDArray biasColumn = bias.reshape(outDepth, 1);
+
+        //Output: c order, [miniBatch, outDepth, outH, outW]. For each example: w * in_b, with shape [outDepth, outH*outW]
+        //Calculated as (in_b^T * w^T)^T: the transpose of a c order output slice is f order
+        INDArray z = createOutputArray(new int[] {miniBatch, outDepth, outH, outW});
+        INDArray z3d = z.reshape('c', miniBatch, outDepth, outH * outW);
+        for (int i = 0; i < miniBatch; i++) {
+            INDArray zSlice = z3d.tensorAlongDimension(i, 1, 2);
+            Nd4j.gemm(in3d.tensorAlongDimension(i, 1, 2), w2d, zSlice.transpose(), true, true, 1.0, 0.0);
+            zSlice.addiColumnVector(biasColumn);
+        }
+
+        return z;
+    }
+
+    @Override
+    public INDArray activate(INDArray z, IActivation afn) {
+        //Standard activation function implementation is used
+        return null;
+    }
+
+    /**
+     * Get the input positions used by a pointwise convolution: the full input for stride 1, or every strides[i]'th
+     * row/column otherwise. The returned array is always c order and contiguous, so can be reshaped without copying.
+     */
+    private static INDArray pointwiseInput(INDArray input, int[] strides) {
+        INDArray in = input;
+        if (strides[0] != 1 || strides[1] != 1) {
+            in = input.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.interval(0, strides[0], input.size(2)),
+                            NDArrayIndex.interval(0, strides[1], input.size(3)));
+        }
+        if (!isContiguous(in)) {
+            in = in.dup('c');
+        }
+        return in;
+    }
+
+    private static INDArray weights2d(INDArray weights, int outDepth, int inDepth) {
+        //Weights: [outDepth, inDepth, 1, 1], c order -> zero-copy reshape, unless weights aren't c order for some reason
+        INDArray w2d = Shape.newShapeNoCopy(weights, new int[] {outDepth, inDepth}, false);
+        if (w2d == null) {
+            w2d = weights.dup('c').reshape('c', outDepth, inDepth);
+        }
+        return w2d;
+    }
+
+    private static boolean isContiguous(INDArray arr) {
+        return Arrays.equals(arr.stride(), ArrayUtil.calcStrides(arr.shape()));
+    }
+
+    private static INDArray createOutputArray(int[] shape) {
+        if (Nd4j.getWorkspaceManager().checkIfWorkspaceExists(ComputationGraph.workspaceExternal)
+                        && Nd4j.getMemoryManager().getCurrentWorkspace() != Nd4j.getWorkspaceManager()
+                                        .getWorkspaceForCurrentThread(ComputationGraph.workspaceExternal)) {
+            try (MemoryWorkspace wsB = Nd4j.getWorkspaceManager()
+                            .getWorkspaceForCurrentThread(ComputationGraph.workspaceExternal).notifyScopeBorrowed()) {
+                return Nd4j.create(shape, 'c');
+            }
+        }
+        return Nd4j.create(shape, 'c');
+    }
+}
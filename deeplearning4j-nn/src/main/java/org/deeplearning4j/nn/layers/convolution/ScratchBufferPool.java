@@ -0,0 +1,132 @@
+package org.deeplearning4j.nn.layers.convolution;
+
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-thread scratch (working memory) arrays, such as the im2col array of a convolution layer, for use when no
+ * workspace is active (i.e., with WorkspaceMode.NONE - otherwise, the workspace already reuses the memory).<br>
+ * Each buffer is identified by a key. A single pool is intended to be shared by all layers that need the same kind of
+ * buffer: for each key, each thread holds one buffer, allocated (outside of any workspace) the first time it is
+ * requested, and grown only when a larger array is requested. Peak memory is thus the largest request for each key
+ * (i.e., the largest layer), not the sum over layers; and the buffers are reused across layers, iterations and fit
+ * calls, and between the forward and backward pass.<br>
+ * Arrays returned by {@link #get(String, int[], char)} have undefined contents, and must not be used after the next
+ * call to get for the same key (in the same thread) - by any layer. They should never be returned from a layer (as
+ * activations, epsilons, etc), or held between method calls, as the contents will be overwritten later.<br>
+ * The buffers are held for as long as the thread is alive, or until {@link #clear()} is called. Note that they are
+ * deliberately not released when a layer is cleared (which happens at the end of every fit call), as they would then
+ * be reallocated in the next fit call.
+ */
+public class ScratchBufferPool {
+
+    private volatile ThreadLocal<Map<String, Buffer>> buffers = new ThreadLocal<>();
+    //All per-thread maps, so that clear() can release the arrays for all threads - not just the calling thread. Keyed
+    // weakly by thread (identity), so that the buffers of terminated threads are not retained
+    private final Map<Thread, Map<String, Buffer>> allThreadBuffers = new WeakHashMap<>();
+
+    private static class Buffer {
+        private final INDArray backing;
+        private INDArray view;
+
+        private Buffer(INDArray backing) {
+            this.backing = backing;
+        }
+    }
+
+    /**
+     * Get the scratch array for the given key, with the specified shape and order. The contents are undefined.
+     *
+     * @param key   Key for the buffer
+     * @param shape Shape of the array
+     * @param order Order of the array ('c' or 'f')
+     * @return Scratch array
+     */
+    public INDArray get(String key, int[] shape, char order) {
+        ThreadLocal<Map<String, Buffer>> tl = buffers;
+        Map<String, Buffer> m = tl.get();
+        if (m == null) {
+            m = new ConcurrentHashMap<>();
+            tl.set(m);
+            synchronized (allThreadBuffers) {
+                allThreadBuffers.put(Thread.currentThread(), m);
+            }
+        }
+
+        long length = 1;
+        for (int s : shape) {
+            length *= s;
+        }
+
+        Buffer b = m.get(key);
+        if (b == null || b.backing.length() < length || b.backing.data().dataType() != Nd4j.dataType()) {
+            //Grow the buffer: the previous buffer (if any) is released
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                b = new Buffer(Nd4j.createUninitialized(new int[] {1, (int) length}, 'c'));
+            }
+            m.put(key, b);
+        }
+
+        INDArray view = b.view;
+        if (view == null || view.ordering() != order || !Arrays.equals(view.shape(), shape)) {
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                view = Nd4j.create(b.backing.data(), shape, Nd4j.getStrides(shape, order), 0, order);
+            }
+            b.view = view;
+        }
+        return view;
+    }
+
+    /**
+     * @return Total size of the scratch arrays currently held for the current thread, in bytes
+     */
+    public long currentThreadBytes() {
+        Map<String, Buffer> m = buffers.get();
+        if (m == null) {
+            return 0;
+        }
+        return bytes(m);
+    }
+
+    /**
+     * @return Total size of the scratch arrays currently held for all threads, in bytes
+     */
+    public long totalBytes() {
+        long bytes = 0;
+        synchronized (allThreadBuffers) {
+            for (Map<String, Buffer> m : allThreadBuffers.values()) {
+                bytes += bytes(m);
+            }
+        }
+        return bytes;
+    }
+
+    private static long bytes(Map<String, Buffer> m) {
+        long bytes = 0;
+        for (Buffer b : m.values()) {
+            bytes += b.backing.length() * b.backing.data().getElementSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Release all scratch arrays held by this pool, for all threads. Arrays previously returned by
+     * {@link #get(String, int[], char)} must not be used after calling this method.
+     */
+    public void clear() {
+        synchronized (allThreadBuffers) {
+            //Replace the thread local: other threads will allocate a new (registered) map the next time they call get
+            buffers = new ThreadLocal<>();
+            for (Map<String, Buffer> m : allThreadBuffers.values()) {
+                m.clear();
+            }
+            allThreadBuffers.clear();
+        }
+    }
+}
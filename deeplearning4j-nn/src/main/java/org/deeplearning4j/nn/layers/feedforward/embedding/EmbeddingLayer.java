@@ -19,8 +19,8 @@
 package org.deeplearning4j.nn.layers.feedforward.embedding;
 
 import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
-import org.nd4j.linalg.primitives.Pair;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
@@ -31,6 +31,8 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
 
+import java.util.Arrays;
+
 /**Embedding layer: feed-forward layer that expects single integers per example as input (class numbers, in range 0 to numClass-1)
  * as input. This input has shape [numExamples,1] instead of [numExamples,numClasses] for the equivalent one-hot representation.
  * Mathematically, EmbeddingLayer is equivalent to using a DenseLayer with a one-hot representation for the input; however,
@@ -38,13 +40,19 @@ import org.nd4j.linalg.primitives.Pair;
  * with all but one value being zero).<br>
  * <b>Note</b>: can only be used as the first layer for a network<br>
  * <b>Note 2</b>: For a given example index i, the output is activationFunction(weights.getRow(i) + bias), hence the
- * weight rows can be considered a vector/embedding for each example.
+ * weight rows can be considered a vector/embedding for each example.<br>
+ * <b>Note 3</b>: If sparse gradients are enabled, only the weight gradient rows for the indices in the last minibatch
+ * are non-zero (see {@link SparseGradientLayer}); the remaining rows are not re-zeroed on each backprop.
  * @author Alex Black
  */
 @Slf4j
-public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer> {
+public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer>
+                implements SparseGradientLayer {
     private static final int[] DIM_1 = new int[]{1};
 
+    //Rows of the weight gradient view that may be non-zero. Null: unknown (entire gradient view needs to be zeroed)
+    private int[] sparseGradientRows;
+
     public EmbeddingLayer(NeuralNetConfiguration conf) {
         super(conf);
     }
@@ -61,13 +69,26 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         }
 
         INDArray weightGradients = gradientViews.get(DefaultParamInitializer.WEIGHT_KEY);
-        weightGradients.assign(0);
 
         int[] indexes = new int[input.length()];
         for (int i = 0; i < indexes.length; i++) {
             indexes[i] = input.getInt(i, 0);
         }
 
+        if (layerConf().isSparseGradients()) {
+            //Only need to zero the rows that were set in the last backprop
+            if (sparseGradientRows == null) {
+                weightGradients.assign(0);
+            } else {
+                INDArray zeros = Nd4j.zeros(sparseGradientRows.length, weightGradients.columns());
+                Nd4j.getExecutioner().exec(new ScatterUpdate(weightGradients, zeros, sparseGradientRows, DIM_1,
+                                ScatterUpdate.UpdateOp.ASSIGN));
+            }
+            sparseGradientRows = uniqueSorted(indexes);
+        } else {
+            weightGradients.assign(0);
+        }
+
         ScatterUpdate op = new ScatterUpdate(weightGradients, delta, indexes, DIM_1, ScatterUpdate.UpdateOp.ADD);
         Nd4j.getExecutioner().exec(op);
 
@@ -83,6 +104,44 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         return new Pair<>(ret, null); //Don't bother returning epsilons: no layer below this one...
     }
 
+    private static int[] uniqueSorted(int[] indexes) {
+        int[] sorted = Arrays.copyOf(indexes, indexes.length);
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    @Override
+    public boolean isSparseGradientParam(String paramName) {
+        return layerConf().isSparseGradients() && DefaultParamInitializer.WEIGHT_KEY.equals(paramName);
+    }
+
+    @Override
+    public int[] getSparseGradientRows(String paramName) {
+        if (!isSparseGradientParam(paramName))
+            return null;
+        return sparseGradientRows;
+    }
+
+    @Override
+    public void invalidateSparseGradientRows(String paramName) {
+        if (isSparseGradientParam(paramName)) {
+            sparseGradientRows = null;
+        }
+    }
+
+    @Override
+    public void setBackpropGradientsViewArray(INDArray gradients) {
+        super.setBackpropGradientsViewArray(gradients);
+        //New gradient view: contents unknown
+        sparseGradientRows = null;
+    }
+
     @Override
     public INDArray preOutput(boolean training) {
         if (input.columns() != 1) {
@@ -122,38 +122,8 @@ public class LSTMHelpers {
             }
         }
 
-        //Allocate arrays for activations:
         boolean sigmoidGates = gateActivationFn instanceof ActivationSigmoid;
         IActivation afn = layer.layerConf().getActivationFn();
-        INDArray outputActivations = null;
-
-        FwdPassReturn toReturn = new FwdPassReturn();
-        if (forBackprop) {
-            toReturn.fwdPassOutputAsArrays = new INDArray[timeSeriesLength];
-            toReturn.memCellState = new INDArray[timeSeriesLength];
-            toReturn.memCellActivations = new INDArray[timeSeriesLength];
-            toReturn.iz = new INDArray[timeSeriesLength];
-            toReturn.ia = new INDArray[timeSeriesLength];
-            toReturn.fa = new INDArray[timeSeriesLength];
-            toReturn.oa = new INDArray[timeSeriesLength];
-            toReturn.ga = new INDArray[timeSeriesLength];
-            if (!sigmoidGates) {
-                toReturn.fz = new INDArray[timeSeriesLength];
-                toReturn.oz = new INDArray[timeSeriesLength];
-                toReturn.gz = new INDArray[timeSeriesLength];
-            }
-
-            if (cacheMode != CacheMode.NONE) {
-                try (MemoryWorkspace ws = Nd4j.getWorkspaceManager()
-                                .getWorkspaceForCurrentThread(ComputationGraph.workspaceCache).notifyScopeBorrowed()) {
-                    outputActivations = Nd4j.create(new int[] {miniBatchSize, hiddenLayerSize, timeSeriesLength}, 'f'); //F order to keep time steps together
-                    toReturn.fwdPassOutput = outputActivations;
-                }
-            }
-        } else {
-            outputActivations = Nd4j.create(new int[] {miniBatchSize, hiddenLayerSize, timeSeriesLength}, 'f'); //F order to keep time steps together
-            toReturn.fwdPassOutput = outputActivations;
-        }
 
         Level1 l1BLAS = Nd4j.getBlasWrapper().level1();
 
@@ -186,69 +156,110 @@ public class LSTMHelpers {
             }
         }
 
-        for (int iTimeIndex = 0; iTimeIndex < timeSeriesLength; iTimeIndex++) {
-            int time = iTimeIndex;
+        //Input-to-gates projection (plus biases) for all time steps at once: one large matrix multiplication instead
+        // of one small one per time step. Only the recurrent contribution needs to be calculated sequentially
+        INDArray ifogInputProjection = inputProjectionAllTimeSteps(input, inputWeights, biases, is2dInput,
+                        miniBatchSize, timeSeriesLength);
+
+        //Allocate arrays for activations. These are allocated once for the whole sequence, so that no allocations or
+        // copies are required per time step:
+        //For backprop, the gate activations, pre-outs and memory cell state/activations for every time step are
+        // retained as (f order, contiguous) slices of per-sequence arrays. Otherwise, per time step arrays are reused
+        INDArray outputActivations;
+        INDArray ifogAll = null;
+        INDArray izAll = null;
+        INDArray fzAll = null;
+        INDArray ozAll = null;
+        INDArray gzAll = null;
+        INDArray memCellStateAll = null;
+        INDArray memCellActivationsAll = null;
+        INDArray ifogStep = null;
+        INDArray[] memCellStateStep = null;
+        INDArray memCellActivationsStep = null;
+        int[] stepShape = new int[] {miniBatchSize, hiddenLayerSize};
+        int[] seqShape = new int[] {miniBatchSize, hiddenLayerSize, timeSeriesLength}; //F order to keep time steps together
 
-            if (!forwards) {
-                time = timeSeriesLength - iTimeIndex - 1;
+        FwdPassReturn toReturn = new FwdPassReturn();
+        if (forBackprop) {
+            toReturn.fwdPassOutputAsArrays = new INDArray[timeSeriesLength];
+            toReturn.memCellState = new INDArray[timeSeriesLength];
+            toReturn.memCellActivations = new INDArray[timeSeriesLength];
+            toReturn.iz = new INDArray[timeSeriesLength];
+            toReturn.ia = new INDArray[timeSeriesLength];
+            toReturn.fa = new INDArray[timeSeriesLength];
+            toReturn.oa = new INDArray[timeSeriesLength];
+            toReturn.ga = new INDArray[timeSeriesLength];
+            if (!sigmoidGates) {
+                toReturn.fz = new INDArray[timeSeriesLength];
+                toReturn.oz = new INDArray[timeSeriesLength];
+                toReturn.gz = new INDArray[timeSeriesLength];
             }
 
+            //If we're using cache here - create all of the arrays needed for backprop within the cache workspace, so
+            // all views of these arrays will be valid in cache
+            try (MemoryWorkspace ws = cacheMode != CacheMode.NONE
+                            ? Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
+                                            .notifyScopeBorrowed()
+                            : null) {
+                ifogAll = Nd4j.create(new int[] {miniBatchSize, 4 * hiddenLayerSize, timeSeriesLength}, 'f');
+                izAll = Nd4j.create(seqShape, 'f');
+                if (!sigmoidGates) {
+                    fzAll = Nd4j.create(seqShape, 'f');
+                    ozAll = Nd4j.create(seqShape, 'f');
+                    gzAll = Nd4j.create(seqShape, 'f');
+                }
+                memCellStateAll = Nd4j.create(seqShape, 'f');
+                memCellActivationsAll = Nd4j.create(seqShape, 'f');
+                outputActivations = Nd4j.create(seqShape, 'f');
+            }
+            if (cacheMode != CacheMode.NONE) {
+                toReturn.fwdPassOutput = outputActivations;
+            }
+        } else {
+            outputActivations = Nd4j.create(seqShape, 'f');
+            toReturn.fwdPassOutput = outputActivations;
 
-            INDArray miniBatchData = (is2dInput ? input : input.tensorAlongDimension(time, 1, 0)); //[Expected shape: [m,nIn]. Also deals with edge case of T=1, with 'time series' data of shape [m,nIn], equiv. to [m,nIn,1]
-            miniBatchData = Shape.toMmulCompatible(miniBatchData);
-
-            // if we're using cache here - let's create ifogActivations within cache workspace, so all views from this array will be valid in cache
-            if (cacheMode != CacheMode.NONE)
-                Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                .notifyScopeBorrowed();
+            ifogStep = Nd4j.create(new int[] {miniBatchSize, 4 * hiddenLayerSize}, 'f');
+            //Two memory cell state arrays, used alternately: current and previous time step
+            memCellStateStep = new INDArray[] {Nd4j.create(stepShape, 'f'), Nd4j.create(stepShape, 'f')};
+            memCellActivationsStep = Nd4j.create(stepShape, 'f');
+        }
+        //Working memory for peephole connections and (backprop only) input modulation gate * input gate
+        INDArray temp = Nd4j.create(stepShape, 'f');
 
-            //Calculate activations for: network input + forget, output, input modulation gates. Next 3 lines are first part of those
-            INDArray ifogActivations = miniBatchData.mmul(inputWeights); //Shape: [miniBatch,4*layerSize]
+        for (int iTimeIndex = 0; iTimeIndex < timeSeriesLength; iTimeIndex++) {
+            int time = iTimeIndex;
 
-            if (cacheMode != CacheMode.NONE)
-                Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                .notifyScopeLeft();
+            if (!forwards) {
+                time = timeSeriesLength - iTimeIndex - 1;
+            }
 
+            //Calculate activations for: network input + forget, output, input modulation gates.
+            //Input projection (incl. bias) has already been calculated above; add the recurrent contribution
+            INDArray ifogActivations = (forBackprop ? ifogAll.tensorAlongDimension(time, 1, 0) : ifogStep); //Shape: [miniBatch,4*layerSize]
+            ifogActivations.assign(ifogInputProjection.get(
+                            NDArrayIndex.interval(time * miniBatchSize, (time + 1) * miniBatchSize),
+                            NDArrayIndex.all()));
             Nd4j.gemm(prevOutputActivations, recurrentWeightsIFOG, ifogActivations, false, false, 1.0, 1.0);
-            ifogActivations.addiRowVector(biases);
 
             INDArray inputActivations =
                             ifogActivations.get(NDArrayIndex.all(), NDArrayIndex.interval(0, hiddenLayerSize));
-            if (forBackprop) {
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeBorrowed();
-
-                toReturn.iz[time] = inputActivations.dup('f');
-
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeLeft();
-            }
-            layer.layerConf().getActivationFn().getActivation(inputActivations, training);
+            if (forBackprop)
+                toReturn.iz[time] = izAll.tensorAlongDimension(time, 1, 0).assign(inputActivations);
+            afn.getActivation(inputActivations, training);
             if (forBackprop)
                 toReturn.ia[time] = inputActivations;
 
             INDArray forgetGateActivations = ifogActivations.get(NDArrayIndex.all(),
                             NDArrayIndex.interval(hiddenLayerSize, 2 * hiddenLayerSize));
             if (hasPeepholeConnections) {
-                INDArray pmcellWFF = prevMemCellState.dup('f').muliRowVector(wFFTranspose);
+                INDArray pmcellWFF = temp.assign(prevMemCellState).muliRowVector(wFFTranspose);
                 l1BLAS.axpy(pmcellWFF.length(), 1.0, pmcellWFF, forgetGateActivations); //y = a*x + y i.e., forgetGateActivations.addi(pmcellWFF)
             }
             //Above line: treats matrix as a vector. Can only do this because we're sure both pwcelWFF and forgetGateACtivations are f order, offset 0 and have same strides
-            if (forBackprop && !sigmoidGates) {
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeBorrowed();
-
-                toReturn.fz[time] = forgetGateActivations.dup('f'); //Forget gate pre-out (z)
-
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeLeft();
-            }
+            if (forBackprop && !sigmoidGates)
+                toReturn.fz[time] = fzAll.tensorAlongDimension(time, 1, 0).assign(forgetGateActivations); //Forget gate pre-out (z)
             gateActivationFn.getActivation(forgetGateActivations, training);
-
             if (forBackprop)
                 toReturn.fa[time] = forgetGateActivations;
 
@@ -256,42 +267,25 @@ public class LSTMHelpers {
             INDArray inputModGateActivations = ifogActivations.get(NDArrayIndex.all(),
                             NDArrayIndex.interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
             if (hasPeepholeConnections) {
-                INDArray pmcellWGG = prevMemCellState.dup('f').muliRowVector(wGGTranspose);
+                INDArray pmcellWGG = temp.assign(prevMemCellState).muliRowVector(wGGTranspose);
                 l1BLAS.axpy(pmcellWGG.length(), 1.0, pmcellWGG, inputModGateActivations); //inputModGateActivations.addi(pmcellWGG)
             }
-            if (forBackprop && !sigmoidGates) {
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeBorrowed();
-
-                toReturn.gz[time] = inputModGateActivations.dup('f'); //Input modulation gate pre-out (z)
-
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeLeft();
-            }
+            if (forBackprop && !sigmoidGates)
+                toReturn.gz[time] = gzAll.tensorAlongDimension(time, 1, 0).assign(inputModGateActivations); //Input modulation gate pre-out (z)
             gateActivationFn.getActivation(inputModGateActivations, training);
             if (forBackprop)
                 toReturn.ga[time] = inputModGateActivations;
 
             //Memory cell state
-            INDArray currentMemoryCellState;
+            INDArray currentMemoryCellState = (forBackprop ? memCellStateAll.tensorAlongDimension(time, 1, 0)
+                            : memCellStateStep[iTimeIndex % 2]);
+            Nd4j.getExecutioner().exec(new MulOp(forgetGateActivations, prevMemCellState, currentMemoryCellState));
             INDArray inputModMulInput;
             if (forBackprop) {
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeBorrowed();
-
-                currentMemoryCellState = prevMemCellState.dup('f').muli(forgetGateActivations);
-
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeLeft();
-
-                // this variable isn't stored in cache
-                inputModMulInput = inputModGateActivations.dup('f').muli(inputActivations);
+                //Gate activations are needed for backprop: can't modify them in-place
+                inputModMulInput = Nd4j.getExecutioner()
+                                .execAndReturn(new MulOp(inputModGateActivations, inputActivations, temp));
             } else {
-                currentMemoryCellState = forgetGateActivations.muli(prevMemCellState);
                 inputModMulInput = inputModGateActivations.muli(inputActivations);
             }
             l1BLAS.axpy(currentMemoryCellState.length(), 1.0, inputModMulInput, currentMemoryCellState); //currentMemoryCellState.addi(inputModMulInput)
@@ -299,53 +293,25 @@ public class LSTMHelpers {
             INDArray outputGateActivations = ifogActivations.get(NDArrayIndex.all(),
                             NDArrayIndex.interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
             if (hasPeepholeConnections) {
-                INDArray pmcellWOO = currentMemoryCellState.dup('f').muliRowVector(wOOTranspose);
+                INDArray pmcellWOO = temp.assign(currentMemoryCellState).muliRowVector(wOOTranspose);
                 l1BLAS.axpy(pmcellWOO.length(), 1.0, pmcellWOO, outputGateActivations); //outputGateActivations.addi(pmcellWOO)
             }
-            if (forBackprop && !sigmoidGates) {
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeBorrowed();
-
-                toReturn.oz[time] = outputGateActivations.dup('f'); //Output gate activations
-
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeLeft();
-            }
+            if (forBackprop && !sigmoidGates)
+                toReturn.oz[time] = ozAll.tensorAlongDimension(time, 1, 0).assign(outputGateActivations); //Output gate pre-out (z)
             gateActivationFn.getActivation(outputGateActivations, training);
             if (forBackprop)
                 toReturn.oa[time] = outputGateActivations;
 
-
-            ////////////// same as with iFogActivations - if we use cache, let's create this array right there
-            if (cacheMode != CacheMode.NONE)
-                Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                .notifyScopeBorrowed();
-
             //LSTM unit outputs:
-            INDArray currMemoryCellActivation = afn.getActivation(currentMemoryCellState.dup('f'), training);
-
+            INDArray currMemoryCellActivation = (forBackprop
+                            ? memCellActivationsAll.tensorAlongDimension(time, 1, 0) : memCellActivationsStep);
+            currMemoryCellActivation = afn.getActivation(currMemoryCellActivation.assign(currentMemoryCellState),
+                            training);
 
-            if (cacheMode != CacheMode.NONE)
-                Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                .notifyScopeLeft();
-            ///////////////////
-
-            INDArray currHiddenUnitActivations;
-            if (forBackprop) {
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeBorrowed();
-
-                currHiddenUnitActivations = currMemoryCellActivation.dup('f').muli(outputGateActivations); //Expected shape: [m,hiddenLayerSize]
-
-                if (cacheMode != CacheMode.NONE)
-                    Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(ComputationGraph.workspaceCache)
-                                    .notifyScopeLeft();
-            } else {
-                currHiddenUnitActivations = currMemoryCellActivation.muli(outputGateActivations); //Expected shape: [m,hiddenLayerSize]
-            }
+            //Hidden unit activations are calculated directly into the output array
+            INDArray currHiddenUnitActivations = outputActivations.tensorAlongDimension(time, 1, 0); //Expected shape: [m,hiddenLayerSize]
+            Nd4j.getExecutioner().exec(new MulOp(currMemoryCellActivation, outputGateActivations,
+                            currHiddenUnitActivations));
 
             if (maskArray != null) {
                 //Mask array is present: bidirectional RNN -> need to zero out these activations to avoid
@@ -361,12 +327,6 @@ public class LSTMHelpers {
                 toReturn.fwdPassOutputAsArrays[time] = currHiddenUnitActivations;
                 toReturn.memCellState[time] = currentMemoryCellState;
                 toReturn.memCellActivations[time] = currMemoryCellActivation;
-
-                if (cacheMode != CacheMode.NONE) {
-                    outputActivations.tensorAlongDimension(time, 1, 0).assign(currHiddenUnitActivations);
-                }
-            } else {
-                outputActivations.tensorAlongDimension(time, 1, 0).assign(currHiddenUnitActivations);
             }
 
             prevOutputActivations = currHiddenUnitActivations;
@@ -379,7 +339,11 @@ public class LSTMHelpers {
             toReturn.lastMemCell = currentMemoryCellState;
         }
 
-
+        if (!forBackprop) {
+            //Last activations are a view of the returned output array: copy, so that the stored state (for
+            // rnnTimeStep) can't be modified via the output
+            toReturn.lastAct = toReturn.lastAct.dup('f');
+        }
 
         //toReturn.leverageTo(ComputationGraph.workspaceExternal);
 
@@ -389,6 +353,27 @@ public class LSTMHelpers {
         return toReturn;
     }
 
+    /**
+     * Calculate the input-to-gates projection (plus biases) for all time steps with a single matrix multiplication
+     *
+     * @return Array with shape [miniBatchSize*timeSeriesLength, 4*hiddenLayerSize], f order. Rows for time step t
+     *         are t*miniBatchSize to (t+1)*miniBatchSize-1
+     */
+    private static INDArray inputProjectionAllTimeSteps(INDArray input, INDArray inputWeights, INDArray biases,
+                    boolean is2dInput, int miniBatchSize, int timeSeriesLength) {
+        INDArray input2d;
+        if (is2dInput) {
+            input2d = Shape.toMmulCompatible(input);
+        } else {
+            //[m,nIn,T] -> [m,T,nIn] -> [m*T,nIn]. In f order, row (i + m*t) is example i at time step t
+            input2d = input.permute(0, 2, 1).dup('f').reshape('f', miniBatchSize * timeSeriesLength, input.size(1));
+        }
+        INDArray projection = Nd4j.create(new int[] {miniBatchSize * timeSeriesLength, inputWeights.size(1)}, 'f');
+        Nd4j.gemm(input2d, inputWeights, projection, false, false, 1.0, 0.0);
+        projection.addiRowVector(biases);
+        return projection;
+    }
+
     static public Pair<Gradient, INDArray> backpropGradientHelper(final NeuralNetConfiguration conf,
                     final IActivation gateActivationFn, final INDArray input, final INDArray recurrentWeights, //Shape: [hiddenLayerSize,4*hiddenLayerSize+3]; order: [wI,wF,wO,wG,wFF,wOO,wGG]
                     final INDArray inputWeights, //Shape: [n^(L-1),4*hiddenLayerSize]; order: [wi,wf,wo,wg]
@@ -0,0 +1,372 @@
+package org.deeplearning4j.nn.transferlearning;
+
+import lombok.Getter;
+import org.deeplearning4j.util.HalfPrecisionUtil;
+import org.deeplearning4j.util.MappedDataBuffers;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Properties;
+
+/**
+ * An on-disk cache of featurized data, as produced by
+ * {@link TransferLearningHelper#featurizeAndCache(org.nd4j.linalg.dataset.api.iterator.DataSetIterator, File)}.<br>
+ * The cache directory contains one binary file per minibatch, plus a manifest that records the number of batches and
+ * examples, and a hash of the frozen parameters used to produce the features. The manifest is written only after all
+ * batches have been written, so an incomplete cache (for example, due to a failure during featurization) is never
+ * treated as valid.<br>
+ * Features (i.e., the activations of the frozen layers) may optionally be stored in half precision (fp16), halving the
+ * size of the cache relative to single precision. Labels and mask arrays are always stored at full precision.<br>
+ * Batch files are read using memory mapped IO. Full precision arrays are stored in the native byte order, with their
+ * values aligned: when read back with the same ND4J data type and byte order, these arrays are backed directly by
+ * a (copy on write) mapping of the batch file, without copying. Half precision features (and arrays from a cache
+ * written with a different data type or byte order) are converted, and hence copied.
+ */
+public class FeaturizedDataCache {
+
+    public static final String MANIFEST_FILE = "featurized.properties";
+
+    private static final String BATCH_FILE_PREFIX = "batch_";
+    private static final String BATCH_FILE_EXTENSION = ".bin";
+
+    private static final String KEY_FROZEN_PARAMS_HASH = "frozenParamsHash";
+    private static final String KEY_NUM_BATCHES = "numBatches";
+    private static final String KEY_NUM_EXAMPLES = "numExamples";
+    private static final String KEY_HALF_PRECISION = "halfPrecision";
+    private static final String KEY_FORMAT_VERSION = "formatVersion";
+
+    private static final int MAGIC = 0x444c3446;
+    //Version 1 (no version in the manifest): big endian, unaligned values. Version 2: native order, aligned values
+    private static final int FORMAT_VERSION = 2;
+    private static final int VALUE_ALIGNMENT = 8;
+    private static final byte ORDER_BIG_ENDIAN = 0;
+    private static final byte ORDER_LITTLE_ENDIAN = 1;
+    private static final byte TYPE_FLOAT = 0;
+    private static final byte TYPE_DOUBLE = 1;
+    private static final byte TYPE_HALF = 2;
+    //Magic number, format version, byte order
+    private static final int HEADER_LENGTH = 4 + 4 + 1;
+
+    @Getter
+    private final File directory;
+    @Getter
+    private final String frozenParamsHash;
+    @Getter
+    private final int numBatches;
+    @Getter
+    private final long numExamples;
+    @Getter
+    private final boolean halfPrecision;
+    @Getter
+    private final int formatVersion;
+
+    private FeaturizedDataCache(File directory, String frozenParamsHash, int numBatches, long numExamples,
+                    boolean halfPrecision, int formatVersion) {
+        this.directory = directory;
+        this.frozenParamsHash = frozenParamsHash;
+        this.numBatches = numBatches;
+        this.numExamples = numExamples;
+        this.halfPrecision = halfPrecision;
+        this.formatVersion = formatVersion;
+    }
+
+    /**
+     * Open an existing cache.
+     *
+     * @param directory Cache directory
+     * @return The cache, or null if the directory does not contain a complete cache
+     */
+    public static FeaturizedDataCache open(File directory) {
+        File manifest = new File(directory, MANIFEST_FILE);
+        if (!manifest.isFile()) {
+            return null;
+        }
+        Properties p = new Properties();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(manifest))) {
+            p.load(is);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading featurized data cache manifest: " + manifest, e);
+        }
+        return new FeaturizedDataCache(directory, p.getProperty(KEY_FROZEN_PARAMS_HASH),
+                        Integer.parseInt(p.getProperty(KEY_NUM_BATCHES)),
+                        Long.parseLong(p.getProperty(KEY_NUM_EXAMPLES)),
+                        Boolean.parseBoolean(p.getProperty(KEY_HALF_PRECISION)),
+                        Integer.parseInt(p.getProperty(KEY_FORMAT_VERSION, "1")));
+    }
+
+    /**
+     * @param frozenParamsHash Hash of the current frozen parameters
+     * @param halfPrecision    Whether features are required in half precision
+     * @return True if this cache was produced by frozen parameters with the specified hash, at the specified precision,
+     *         using the current cache file format
+     */
+    public boolean isValid(String frozenParamsHash, boolean halfPrecision) {
+        return formatVersion == FORMAT_VERSION && this.frozenParamsHash != null
+                        && this.frozenParamsHash.equals(frozenParamsHash) && this.halfPrecision == halfPrecision;
+    }
+
+    /**
+     * Get the specified minibatch from the cache
+     *
+     * @param batchIdx Index of the batch, 0 to {@link #getNumBatches()}-1 inclusive
+     */
+    public MultiDataSet getBatch(int batchIdx) {
+        if (batchIdx < 0 || batchIdx >= numBatches) {
+            throw new IllegalArgumentException(
+                            "Invalid batch index: " + batchIdx + ", cache has " + numBatches + " batches");
+        }
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalStateException("Featurized data cache in " + directory + " has format version "
+                            + formatVersion + ", expected " + FORMAT_VERSION + ": cache must be rebuilt");
+        }
+        File f = batchFile(directory, batchIdx);
+        //Opened for writing (if possible) only because Java requires this for copy on write mappings
+        try (RandomAccessFile raf = MappedDataBuffers.openForMapping(f); FileChannel channel = raf.getChannel();
+                        MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Invalid featurized data cache file: " + f);
+            }
+            buffer.order(buffer.get() == ORDER_BIG_ENDIAN ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            INDArray[] features = readArrays(buffer, channel);
+            INDArray[] labels = readArrays(buffer, channel);
+            INDArray[] featuresMask = readArrays(buffer, channel);
+            INDArray[] labelsMask = readArrays(buffer, channel);
+            return new org.nd4j.linalg.dataset.MultiDataSet(features, labels, featuresMask, labelsMask);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading featurized data cache file: " + f, e);
+        }
+    }
+
+    /**
+     * Delete all cache files (batches and manifest) in the specified directory. Other files are not deleted.
+     */
+    public static void clear(File directory) {
+        File manifest = new File(directory, MANIFEST_FILE);
+        if (manifest.exists() && !manifest.delete()) {
+            throw new RuntimeException("Could not delete featurized data cache manifest: " + manifest);
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            String name = f.getName();
+            if (name.startsWith(BATCH_FILE_PREFIX) && name.endsWith(BATCH_FILE_EXTENSION) && !f.delete()) {
+                throw new RuntimeException("Could not delete featurized data cache file: " + f);
+            }
+        }
+    }
+
+    /**
+     * Write a single featurized minibatch to the cache directory
+     *
+     * @param halfPrecision If true: store the features in half precision
+     */
+    static void writeBatch(File directory, int batchIdx, MultiDataSet mds, boolean halfPrecision) {
+        byte featuresType = (halfPrecision ? TYPE_HALF : fullPrecisionType());
+        byte otherType = fullPrecisionType();
+
+        long length = HEADER_LENGTH;
+        length = sizeBytes(length, mds.getFeatures(), featuresType);
+        length = sizeBytes(length, mds.getLabels(), otherType);
+        length = sizeBytes(length, mds.getFeaturesMaskArrays(), otherType);
+        length = sizeBytes(length, mds.getLabelsMaskArrays(), otherType);
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Featurized minibatch is too large to cache: " + length + " bytes");
+        }
+
+        //Magic number and version are big endian; everything after the byte order flag is in the native byte order
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.put(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? ORDER_BIG_ENDIAN : ORDER_LITTLE_ENDIAN);
+        buffer.order(ByteOrder.nativeOrder());
+        writeArrays(buffer, mds.getFeatures(), featuresType);
+        writeArrays(buffer, mds.getLabels(), otherType);
+        writeArrays(buffer, mds.getFeaturesMaskArrays(), otherType);
+        writeArrays(buffer, mds.getLabelsMaskArrays(), otherType);
+        buffer.flip();
+
+        File f = batchFile(directory, batchIdx);
+        try (FileOutputStream fos = new FileOutputStream(f); FileChannel channel = fos.getChannel()) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing featurized data cache file: " + f, e);
+        }
+    }
+
+    /**
+     * Write the manifest, marking the cache as complete
+     */
+    static void writeManifest(File directory, String frozenParamsHash, int numBatches, long numExamples,
+                    boolean halfPrecision) {
+        Properties p = new Properties();
+        p.setProperty(KEY_FROZEN_PARAMS_HASH, frozenParamsHash);
+        p.setProperty(KEY_NUM_BATCHES, String.valueOf(numBatches));
+        p.setProperty(KEY_NUM_EXAMPLES, String.valueOf(numExamples));
+        p.setProperty(KEY_HALF_PRECISION, String.valueOf(halfPrecision));
+        p.setProperty(KEY_FORMAT_VERSION, String.valueOf(FORMAT_VERSION));
+        File manifest = new File(directory, MANIFEST_FILE);
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(manifest))) {
+            p.store(os, "Featurized data cache");
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing featurized data cache manifest: " + manifest, e);
+        }
+    }
+
+    private static File batchFile(File directory, int batchIdx) {
+        return new File(directory, BATCH_FILE_PREFIX + batchIdx + BATCH_FILE_EXTENSION);
+    }
+
+    private static byte fullPrecisionType() {
+        return (Nd4j.dataType() == DataBuffer.Type.DOUBLE ? TYPE_DOUBLE : TYPE_FLOAT);
+    }
+
+    private static int elementSize(byte type) {
+        switch (type) {
+            case TYPE_HALF:
+                return 2;
+            case TYPE_FLOAT:
+                return 4;
+            case TYPE_DOUBLE:
+                return 8;
+            default:
+                throw new IllegalStateException("Unknown data type: " + type);
+        }
+    }
+
+    private static long align(long position) {
+        return ((position + VALUE_ALIGNMENT - 1) / VALUE_ALIGNMENT) * VALUE_ALIGNMENT;
+    }
+
+    /**
+     * @return The position after writing the specified arrays, starting at the specified position
+     */
+    private static long sizeBytes(long position, INDArray[] arrays, byte type) {
+        position += 4; //Number of arrays, or -1 for null
+        if (arrays == null) {
+            return position;
+        }
+        for (INDArray arr : arrays) {
+            position += 1; //Present flag
+            if (arr != null) {
+                //Type, rank, shape, then values (aligned)
+                position = align(position + 1 + 4 + 4 * arr.rank()) + arr.length() * (long) elementSize(type);
+            }
+        }
+        return position;
+    }
+
+    private static void writeArrays(ByteBuffer buffer, INDArray[] arrays, byte type) {
+        if (arrays == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(arrays.length);
+        for (INDArray arr : arrays) {
+            if (arr == null) {
+                buffer.put((byte) 0);
+                continue;
+            }
+            buffer.put((byte) 1);
+            buffer.put(type);
+            int[] shape = arr.shape();
+            buffer.putInt(shape.length);
+            for (int s : shape) {
+                buffer.putInt(s);
+            }
+            buffer.position((int) align(buffer.position()));
+
+            //Values are always stored in c order
+            DataBuffer data = arr.dup('c').data();
+            switch (type) {
+                case TYPE_DOUBLE:
+                    buffer.asDoubleBuffer().put(data.asDouble());
+                    break;
+                case TYPE_FLOAT:
+                    buffer.asFloatBuffer().put(data.asFloat());
+                    break;
+                default:
+                    float[] values = data.asFloat();
+                    for (int i = 0; i < values.length; i++) {
+                        buffer.putShort(i * 2 + buffer.position(), HalfPrecisionUtil.toHalf(values[i]));
+                    }
+                    break;
+            }
+            buffer.position(buffer.position() + arr.length() * elementSize(type));
+        }
+    }
+
+    private static INDArray[] readArrays(MappedByteBuffer buffer, FileChannel channel) throws IOException {
+        int n = buffer.getInt();
+        if (n < 0) {
+            return null;
+        }
+        INDArray[] out = new INDArray[n];
+        for (int i = 0; i < n; i++) {
+            if (buffer.get() == 0) {
+                continue;
+            }
+            byte type = buffer.get();
+            int[] shape = new int[buffer.getInt()];
+            int length = 1;
+            for (int j = 0; j < shape.length; j++) {
+                shape[j] = buffer.getInt();
+                length *= shape[j];
+            }
+            buffer.position((int) align(buffer.position()));
+
+            MappedByteBuffer mapped = null;
+            if (length > 0 && type == fullPrecisionType() && buffer.order() == ByteOrder.nativeOrder()) {
+                //Copy on write: the array may be modified without modifying the cache. Read only if the cache files
+                // are not writable, in which case the values are copied
+                mapped = MappedDataBuffers.mapCopyOnWrite(channel, buffer.position(),
+                                (long) length * elementSize(type));
+            }
+            if (mapped != null && !mapped.isReadOnly()) {
+                //Back the array directly by the file. The mapping remains valid after the channel is closed
+                mapped.order(ByteOrder.nativeOrder());
+                DataBuffer data = MappedDataBuffers.create(mapped, Nd4j.dataType(), length);
+                out[i] = Nd4j.create(data, shape, Nd4j.getStrides(shape, 'c'), 0, 'c');
+                buffer.position(buffer.position() + length * elementSize(type));
+                continue;
+            }
+
+            switch (type) {
+                case TYPE_DOUBLE:
+                    double[] d = new double[length];
+                    buffer.asDoubleBuffer().get(d);
+                    out[i] = Nd4j.create(d, shape, 'c');
+                    break;
+                case TYPE_FLOAT:
+                    float[] f = new float[length];
+                    buffer.asFloatBuffer().get(f);
+                    out[i] = Nd4j.create(f, shape, 'c');
+                    break;
+                case TYPE_HALF:
+                    float[] h = new float[length];
+                    int pos = buffer.position();
+                    for (int j = 0; j < length; j++) {
+                        h[j] = HalfPrecisionUtil.toFloat(buffer.getShort(pos + 2 * j));
+                    }
+                    out[i] = Nd4j.create(h, shape, 'c');
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown data type in featurized data cache: " + type);
+            }
+            buffer.position(buffer.position() + length * elementSize(type));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,147 @@
+package org.deeplearning4j.nn.transferlearning;
+
+import lombok.Getter;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A DataSetIterator over a {@link FeaturizedDataCache}, for use with
+ * {@link TransferLearningHelper#fitFeaturized(DataSetIterator)}.<br>
+ * On reset, the hash of the helper's current frozen parameters is checked against the hash recorded in the cache:
+ * if they differ, an IllegalStateException is thrown. See {@link FeaturizedMultiDataSetIterator} for details.
+ */
+public class FeaturizedDataSetIterator implements DataSetIterator {
+
+    private final FeaturizedDataCache cache;
+    private final TransferLearningHelper helper;
+    @Getter
+    private DataSetPreProcessor preProcessor;
+    private int cursor;
+    private int examplesSoFar;
+    private DataSet first;
+
+    /**
+     * @param cache  Cache to iterate over
+     * @param helper Helper used to featurize the data, used to check the cache is still valid on reset. May be null.
+     */
+    public FeaturizedDataSetIterator(FeaturizedDataCache cache, TransferLearningHelper helper) {
+        this.cache = cache;
+        this.helper = helper;
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException("Cached featurized data: batch size is fixed");
+    }
+
+    @Override
+    public int totalExamples() {
+        return (int) cache.getNumExamples();
+    }
+
+    @Override
+    public int inputColumns() {
+        return first().getFeatures().size(1);
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return first().getLabels().size(1);
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        //Reading from disk: prefetching is beneficial
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        if (helper != null && !cache.getFrozenParamsHash().equals(helper.frozenParamsHash())) {
+            throw new IllegalStateException("Featurized data cache at " + cache.getDirectory()
+                            + " is stale: frozen parameters have changed since the data was featurized");
+        }
+        cursor = 0;
+        examplesSoFar = 0;
+    }
+
+    @Override
+    public int batch() {
+        return (cache.getNumBatches() == 0 ? 0 : first().numExamples());
+    }
+
+    @Override
+    public int cursor() {
+        return examplesSoFar;
+    }
+
+    @Override
+    public int numExamples() {
+        return totalExamples();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor < cache.getNumBatches();
+    }
+
+    @Override
+    public DataSet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DataSet ds = toDataSet(cache.getBatch(cursor++));
+        examplesSoFar += ds.numExamples();
+        if (preProcessor != null) {
+            preProcessor.preProcess(ds);
+        }
+        return ds;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    private DataSet first() {
+        if (first == null) {
+            first = toDataSet(cache.getBatch(0));
+        }
+        return first;
+    }
+
+    private static DataSet toDataSet(MultiDataSet mds) {
+        if (mds.numFeatureArrays() != 1 || mds.numLabelsArrays() != 1) {
+            throw new IllegalStateException("Cannot convert cached data to a DataSet: cache contains "
+                            + mds.numFeatureArrays() + " feature arrays and " + mds.numLabelsArrays()
+                            + " label arrays. Use a MultiDataSetIterator instead");
+        }
+        return new DataSet(mds.getFeatures(0), mds.getLabels(0), firstOrNull(mds.getFeaturesMaskArrays()),
+                        firstOrNull(mds.getLabelsMaskArrays()));
+    }
+
+    private static INDArray firstOrNull(INDArray[] arrays) {
+        return (arrays == null ? null : arrays[0]);
+    }
+}
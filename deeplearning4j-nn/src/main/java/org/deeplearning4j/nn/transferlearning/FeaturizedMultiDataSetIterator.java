@@ -0,0 +1,89 @@
+package org.deeplearning4j.nn.transferlearning;
+
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A MultiDataSetIterator over a {@link FeaturizedDataCache}, for use with
+ * {@link TransferLearningHelper#fitFeaturized(MultiDataSetIterator)}.<br>
+ * On reset, the hash of the helper's current frozen parameters is checked against the hash recorded in the cache:
+ * if they differ (i.e., the frozen parameters were modified after the data was featurized), the cached features are
+ * stale, and an IllegalStateException is thrown. In that case, call
+ * {@link TransferLearningHelper#featurizeAndCache(MultiDataSetIterator, java.io.File)} again to rebuild the cache.
+ */
+public class FeaturizedMultiDataSetIterator implements MultiDataSetIterator {
+
+    private final FeaturizedDataCache cache;
+    private final TransferLearningHelper helper;
+    private MultiDataSetPreProcessor preProcessor;
+    private int cursor;
+
+    /**
+     * @param cache  Cache to iterate over
+     * @param helper Helper used to featurize the data, used to check the cache is still valid on reset. May be null.
+     */
+    public FeaturizedMultiDataSetIterator(FeaturizedDataCache cache, TransferLearningHelper helper) {
+        this.cache = cache;
+        this.helper = helper;
+    }
+
+    @Override
+    public MultiDataSet next(int num) {
+        throw new UnsupportedOperationException("Cached featurized data: batch size is fixed");
+    }
+
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public MultiDataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        //Reading from disk: prefetching is beneficial
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        if (helper != null && !cache.getFrozenParamsHash().equals(helper.frozenParamsHash())) {
+            throw new IllegalStateException("Featurized data cache at " + cache.getDirectory()
+                            + " is stale: frozen parameters have changed since the data was featurized");
+        }
+        cursor = 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor < cache.getNumBatches();
+    }
+
+    @Override
+    public MultiDataSet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        MultiDataSet mds = cache.getBatch(cursor++);
+        if (preProcessor != null) {
+            preProcessor.preProcess(mds);
+        }
+        return mds;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Not supported");
+    }
+}
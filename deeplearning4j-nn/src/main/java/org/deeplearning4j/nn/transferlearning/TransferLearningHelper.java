@@ -1,20 +1,30 @@
 package org.deeplearning4j.nn.transferlearning;
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
+import org.deeplearning4j.nn.api.Model;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
 import org.deeplearning4j.nn.graph.vertex.GraphVertex;
 import org.deeplearning4j.nn.graph.vertex.VertexIndices;
 import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.MultiDataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * This class is intended for use with the transfer learning API.
@@ -24,11 +34,14 @@ import java.util.*;
  * of the frozen layers.
  * During training the forward pass and the backward pass through the frozen layers can be skipped entirely and the "featurized"
  * dataset can be fit with the smaller unfrozen part of the computation graph which allows for quicker iterations.
+ * An entire iterator can be featurized once and cached on disk using featurizeAndCache; the returned iterator can then be
+ * used with fitFeaturized for any number of epochs.
  * The class internally traverses the computation graph/MLN and builds an instance of the computation graph/MLN that is
  * equivalent to the unfrozen subset.
  *
  * @author susaneraly
  */
+@Slf4j
 public class TransferLearningHelper {
 
     private boolean isGraph = true;
@@ -305,6 +318,10 @@ public class TransferLearningHelper {
         if (!isGraph) {
             throw new IllegalArgumentException("Cannot use multidatasets with MultiLayerNetworks.");
         }
+        return featurize(origGraph, input);
+    }
+
+    private MultiDataSet featurize(ComputationGraph graph, org.nd4j.linalg.dataset.api.MultiDataSet input) {
         INDArray[] labels = input.getLabels();
         INDArray[] features = input.getFeatures();
         if (input.getFeaturesMaskArrays() != null) {
@@ -314,13 +331,13 @@ public class TransferLearningHelper {
         INDArray[] labelMasks = input.getLabelsMaskArrays();
 
         INDArray[] featuresNow = new INDArray[graphInputs.size()];
-        Map<String, INDArray> activationsNow = origGraph.feedForward(features, false);
+        Map<String, INDArray> activationsNow = graph.feedForward(features, false);
         for (int i = 0; i < graphInputs.size(); i++) {
             String anInput = graphInputs.get(i);
-            if (origGraph.getVertex(anInput).isInputVertex()) {
+            if (graph.getVertex(anInput).isInputVertex()) {
                 //was an original input to the graph
-                int inputIndex = origGraph.getConfiguration().getNetworkInputs().indexOf(anInput);
-                featuresNow[i] = origGraph.getInput(inputIndex);
+                int inputIndex = graph.getConfiguration().getNetworkInputs().indexOf(anInput);
+                featuresNow[i] = graph.getInput(inputIndex);
             } else {
                 //needs to be grabbed from the internal activations
                 featuresNow[i] = activationsNow.get(anInput);
@@ -340,6 +357,10 @@ public class TransferLearningHelper {
      * @return a multidataset with input features that are the outputs of the frozen layer vertices and the original labels.
      */
     public DataSet featurize(DataSet input) {
+        return featurize(isGraph ? (Model) origGraph : origMLN, input);
+    }
+
+    private DataSet featurize(Model model, DataSet input) {
         if (isGraph) {
             //trying to featurize for a computation graph
             if (origGraph.getNumInputArrays() > 1 || origGraph.getNumOutputArrays() > 1) {
@@ -352,14 +373,15 @@ public class TransferLearningHelper {
                 }
                 MultiDataSet inbW = new MultiDataSet(new INDArray[] {input.getFeatures()},
                                 new INDArray[] {input.getLabels()}, null, new INDArray[] {input.getLabelsMaskArray()});
-                MultiDataSet ret = featurize(inbW);
+                MultiDataSet ret = featurize((ComputationGraph) model, inbW);
                 return new DataSet(ret.getFeatures()[0], input.getLabels(), ret.getLabelsMaskArrays()[0],
                                 input.getLabelsMaskArray());
             }
         } else {
             if (input.getFeaturesMaskArray() != null)
                 throw new UnsupportedOperationException("Feature masks not supported with featurizing currently");
-            return new DataSet(origMLN.feedForwardToLayer(frozenInputLayer + 1, input.getFeatures(), false)
+            return new DataSet(((MultiLayerNetwork) model)
+                            .feedForwardToLayer(frozenInputLayer + 1, input.getFeatures(), false)
                             .get(frozenInputLayer + 1), input.getLabels(), null, input.getLabelsMaskArray());
         }
     }
@@ -401,6 +423,189 @@ public class TransferLearningHelper {
         }
     }
 
+    /**
+     * Featurize an entire DataSetIterator once, and store the featurized data in an on-disk cache in the specified
+     * directory. The returned iterator reads from the cache, and can be used with {@link #fitFeaturized(DataSetIterator)}
+     * for any number of epochs, without repeating the forward pass through the frozen layers.<br>
+     * If the directory already contains a complete cache that was produced with the current frozen parameters, it is
+     * reused (and the source iterator is not used). Otherwise, any existing cache is deleted and rebuilt.<br>
+     * Note that the cache is not tied to the contents of the source iterator: use a different directory for different
+     * data.
+     *
+     * @param iter     Data to featurize
+     * @param cacheDir Directory for the cache
+     * @return Iterator over the cached featurized data
+     */
+    public DataSetIterator featurizeAndCache(DataSetIterator iter, File cacheDir) {
+        return featurizeAndCache(iter, cacheDir, 1, false);
+    }
+
+    /**
+     * As per {@link #featurizeAndCache(DataSetIterator, File)}, with the specified number of parallel workers and
+     * precision.
+     *
+     * @param iter          Data to featurize
+     * @param cacheDir      Directory for the cache
+     * @param numWorkers    Number of threads to featurize with. Each additional worker holds a copy of the model
+     * @param halfPrecision If true: store the featurized data in half precision (fp16). This halves the size of the
+     *                      cache (relative to single precision) at the cost of some precision in the features
+     * @return Iterator over the cached featurized data
+     */
+    public DataSetIterator featurizeAndCache(DataSetIterator iter, File cacheDir, int numWorkers,
+                    boolean halfPrecision) {
+        FeaturizedDataCache cache = featurizeToCache(iter, cacheDir, numWorkers, halfPrecision);
+        return new FeaturizedDataSetIterator(cache, this);
+    }
+
+    /**
+     * Featurize an entire MultiDataSetIterator once, and store the featurized data in an on-disk cache in the
+     * specified directory. See {@link #featurizeAndCache(DataSetIterator, File)} for details.
+     *
+     * @param iter     Data to featurize
+     * @param cacheDir Directory for the cache
+     * @return Iterator over the cached featurized data
+     */
+    public MultiDataSetIterator featurizeAndCache(MultiDataSetIterator iter, File cacheDir) {
+        return featurizeAndCache(iter, cacheDir, 1, false);
+    }
+
+    /**
+     * As per {@link #featurizeAndCache(MultiDataSetIterator, File)}, with the specified number of parallel workers
+     * and precision. See {@link #featurizeAndCache(DataSetIterator, File, int, boolean)} for details.
+     */
+    public MultiDataSetIterator featurizeAndCache(MultiDataSetIterator iter, File cacheDir, int numWorkers,
+                    boolean halfPrecision) {
+        if (!isGraph) {
+            throw new IllegalArgumentException("Cannot use multidatasets with MultiLayerNetworks.");
+        }
+        FeaturizedDataCache cache = featurizeToCache(iter, cacheDir, numWorkers, halfPrecision);
+        return new FeaturizedMultiDataSetIterator(cache, this);
+    }
+
+    /**
+     * Hash of the parameters of all frozen layers. Used to determine if previously featurized (cached) data is still
+     * valid, as the featurized data changes if any of the frozen parameters are modified.
+     *
+     * @return Hash of the frozen parameters, as a hex string
+     */
+    public String frozenParamsHash() {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        if (isGraph) {
+            for (GraphVertex gv : origGraph.getVertices()) {
+                if (gv.hasLayer() && gv.getLayer() instanceof FrozenLayer) {
+                    updateDigest(md, gv.getVertexName(), gv.getLayer().params());
+                }
+            }
+        } else {
+            for (int i = 0; i <= frozenInputLayer; i++) {
+                updateDigest(md, String.valueOf(i), origMLN.getLayer(i).params());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static void updateDigest(MessageDigest md, String name, INDArray params) {
+        md.update(name.getBytes(StandardCharsets.UTF_8));
+        if (params == null || params.length() == 0) {
+            return;
+        }
+        ByteBuffer bb;
+        DataBuffer data = params.dup('c').data();
+        if (data.dataType() == DataBuffer.Type.DOUBLE) {
+            double[] d = data.asDouble();
+            bb = ByteBuffer.allocate(8 * d.length);
+            bb.asDoubleBuffer().put(d);
+        } else {
+            float[] f = data.asFloat();
+            bb = ByteBuffer.allocate(4 * f.length);
+            bb.asFloatBuffer().put(f);
+        }
+        md.update(bb);
+    }
+
+    private FeaturizedDataCache featurizeToCache(final Iterator<?> iter, final File cacheDir, int numWorkers,
+                    final boolean halfPrecision) {
+        if (numWorkers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be positive: got " + numWorkers);
+        }
+        String hash = frozenParamsHash();
+        FeaturizedDataCache existing = FeaturizedDataCache.open(cacheDir);
+        if (existing != null && existing.isValid(hash, halfPrecision)) {
+            log.info("Reusing featurized data cache at {}: {} batches", cacheDir, existing.getNumBatches());
+            return existing;
+        }
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            throw new RuntimeException("Could not create featurized data cache directory: " + cacheDir);
+        }
+        FeaturizedDataCache.clear(cacheDir);
+
+        //Each worker featurizes with its own copy of the model, as a model can't be used from multiple threads
+        final BlockingQueue<Model> models = new LinkedBlockingQueue<>();
+        models.add(isGraph ? (Model) origGraph : origMLN);
+        for (int i = 1; i < numWorkers; i++) {
+            models.add(isGraph ? (Model) origGraph.clone() : origMLN.clone());
+        }
+
+        //Limit the number of minibatches held in memory, waiting to be featurized
+        final Semaphore inFlight = new Semaphore(2 * numWorkers);
+        ExecutorService exec = Executors.newFixedThreadPool(numWorkers);
+        List<Future<Integer>> futures = new ArrayList<>();
+        long numExamples = 0;
+        try {
+            int batchIdx = 0;
+            while (iter.hasNext()) {
+                final Object next = iter.next();
+                final int idx = batchIdx++;
+                inFlight.acquire();
+                futures.add(exec.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        Model m = models.take();
+                        try {
+                            org.nd4j.linalg.dataset.api.MultiDataSet featurized;
+                            if (next instanceof DataSet) {
+                                featurized = ComputationGraphUtil.toMultiDataSet(featurize(m, (DataSet) next));
+                            } else {
+                                featurized = featurize((ComputationGraph) m,
+                                                (org.nd4j.linalg.dataset.api.MultiDataSet) next);
+                            }
+                            FeaturizedDataCache.writeBatch(cacheDir, idx, featurized, halfPrecision);
+                            return featurized.getFeatures(0).size(0);
+                        } finally {
+                            models.put(m);
+                            inFlight.release();
+                        }
+                    }
+                }));
+            }
+
+            for (Future<Integer> f : futures) {
+                numExamples += f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while featurizing data", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error featurizing data", e.getCause());
+        } finally {
+            exec.shutdownNow();
+        }
+
+        FeaturizedDataCache.writeManifest(cacheDir, hash, futures.size(), numExamples, halfPrecision);
+        log.info("Featurized {} examples ({} batches) to cache at {}", numExamples, futures.size(), cacheDir);
+        return FeaturizedDataCache.open(cacheDir);
+    }
+
     private void copyParamsFromSubsetGraphToOrig() {
         for (GraphVertex aVertex : unFrozenSubsetGraph.getVertices()) {
             if (!aVertex.hasLayer())
@@ -3,12 +3,15 @@ package org.deeplearning4j.nn.updater;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.GradientUpdater;
+import org.nd4j.linalg.learning.config.IUpdater;
 import org.nd4j.linalg.ops.transforms.Transforms;
 
 import java.util.ArrayList;
@@ -16,12 +19,17 @@ import java.util.List;
 
 /**
  * UpdaterBlock: used in {@link BaseMultiLayerUpdater}, this class implements updating (i.e., Adam, RMSProp, Momentum,
- * etc) across multiple contiguous layers/parameters, as described in the {@link BaseMultiLayerUpdater} javadoc.
+ * etc) across multiple contiguous layers/parameters, as described in the {@link BaseMultiLayerUpdater} javadoc.<br>
+ * Parameters with row-sparse gradients (see {@link SparseGradientLayer}) are always in a block of their own. For these
+ * blocks, the updater is applied lazily: only to the gradient and updater state rows that were used in the last
+ * backprop.
  *
  * @author Alex Black
  */
 @Data
 public class UpdaterBlock {
+    private static final int[] DIM_1 = new int[] {1};
+
     private int paramOffsetStart;
     private int paramOffsetEnd;
     private int updaterViewOffsetStart;
@@ -137,6 +145,21 @@ public class UpdaterBlock {
             return;
         }
 
+        //Sparse gradients: apply the updater (and L1/L2) only to the rows that were used
+        if (isSparseGradientBlock()) {
+            ParamState p = layersAndVariablesInBlock.get(0);
+            SparseGradientLayer l = (SparseGradientLayer) p.getLayer();
+            if (!externalGradient) {
+                int[] rows = l.getSparseGradientRows(p.getParamName());
+                if (rows != null && applySparse(p, rows, iteration, epoch)) {
+                    return;
+                }
+            }
+            //Dense path: the updater may write to every row of the gradient view, not just the rows from the last
+            // backprop - so the layer needs to zero the full gradient view next time
+            l.invalidateSparseGradientRows(p.getParamName());
+        }
+
         //Apply the updater itself
         gradientUpdater.applyUpdater(blockGradViewArray, iteration, epoch);
 
@@ -158,6 +181,79 @@ public class UpdaterBlock {
         }
     }
 
+    /**
+     * @return True if this block consists of a single parameter with row-sparse gradients
+     */
+    public boolean isSparseGradientBlock() {
+        if (layersAndVariablesInBlock.size() != 1)
+            return false;
+        ParamState p = layersAndVariablesInBlock.get(0);
+        return UpdaterUtils.isSparseGradientParam(p.getLayer(), p.getParamName());
+    }
+
+    /**
+     * Apply the updater and L1/L2 lazily: i.e., gather the used rows of the gradient, parameters and updater state,
+     * apply the updater to these, then scatter the results back.
+     * This relies on the updater state consisting of a whole number of arrays, each with the same length and layout
+     * as the parameters (for example, Adam: [m, v]; RMSProp: [lastGradient])
+     *
+     * @return False if the updater state isn't laid out as required (in which case nothing is modified)
+     */
+    private boolean applySparse(ParamState p, int[] rows, int iteration, int epoch) {
+        Layer layer = p.getLayer();
+        String paramName = p.getParamName();
+        INDArray param = layer.getParam(paramName);
+        if (param.rank() != 2)
+            return false;
+        char order = param.ordering();
+        int nRows = param.rows();
+        int nCols = param.columns();
+        int length = nRows * nCols;
+
+        IUpdater u = layer.conf().getLayer().getUpdaterByParam(paramName);
+        int stateSize = (int) u.stateSize(length);
+        if (length == 0 || stateSize % length != 0)
+            return false;
+        int nStateArrays = stateSize / length;
+
+        int nUsed = rows.length;
+        int usedLength = nUsed * nCols;
+
+        INDArray grad2d = p.getGradView().reshape(order, nRows, nCols);
+        INDArray usedGrad = Nd4j.pullRows(grad2d, 1, rows, 'c');
+        INDArray usedGradRow = usedGrad.reshape('c', 1, usedLength);
+
+        INDArray[] state2d = new INDArray[nStateArrays];
+        INDArray usedState = null;
+        if (nStateArrays > 0) {
+            usedState = Nd4j.create(1, nStateArrays * usedLength);
+            for (int i = 0; i < nStateArrays; i++) {
+                state2d[i] = updaterView.get(NDArrayIndex.point(0), NDArrayIndex.interval(i * length, (i + 1) * length))
+                                .reshape(order, nRows, nCols);
+                usedState.get(NDArrayIndex.point(0), NDArrayIndex.interval(i * usedLength, (i + 1) * usedLength))
+                                .assign(Nd4j.pullRows(state2d[i], 1, rows).reshape('c', 1, usedLength));
+            }
+        }
+
+        //Updater state has been gathered already: no initialization required
+        GradientUpdater sparseUpdater = u.instantiate(usedState, false);
+        sparseUpdater.applyUpdater(usedGradRow, iteration, epoch);
+
+        INDArray usedParams = Nd4j.pullRows(param, 1, rows).reshape('c', 1, usedLength);
+        postApply(layer, paramName, usedGradRow, usedParams);
+
+        //Scatter the updates and new updater state back
+        Nd4j.getExecutioner().exec(new ScatterUpdate(grad2d, usedGradRow.reshape('c', nUsed, nCols), rows, DIM_1,
+                        ScatterUpdate.UpdateOp.ASSIGN));
+        for (int i = 0; i < nStateArrays; i++) {
+            INDArray s = usedState.get(NDArrayIndex.point(0),
+                            NDArrayIndex.interval(i * usedLength, (i + 1) * usedLength)).dup('c');
+            Nd4j.getExecutioner().exec(new ScatterUpdate(state2d[i], s.reshape('c', nUsed, nCols), rows, DIM_1,
+                            ScatterUpdate.UpdateOp.ASSIGN));
+        }
+        return true;
+    }
+
     /**
      * Apply L1 and L2 regularization, if necessary. Note that L1/L2 may differ for different layers in the same block
      *
@@ -1,6 +1,7 @@
 package org.deeplearning4j.nn.updater;
 
 import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.nd4j.linalg.learning.config.IUpdater;
 
 /**
@@ -20,11 +21,16 @@ public class UpdaterUtils {
         //(b) If one or more of the params are pretrainable params, they are in the same layer
         //    This last point is necessary as we don't want to modify the pretrain gradient/updater state during
         //    backprop, or modify the pretrain gradient/updater state of one layer while training another
+        //(c) Neither param has row-sparse gradients: these are updated lazily on their own (see UpdaterBlock)
         if (!u1.equals(u2)) {
             //Different updaters or different config
             return false;
         }
 
+        if (isSparseGradientParam(layer1, param1) || isSparseGradientParam(layer2, param2)) {
+            return false;
+        }
+
         boolean isPretrainParam1 = layer1.conf().getLayer().isPretrainParam(param1);
         boolean isPretrainParam2 = layer2.conf().getLayer().isPretrainParam(param2);
         if (isPretrainParam1 || isPretrainParam2) {
@@ -36,4 +42,11 @@ public class UpdaterUtils {
 
         return true;
     }
+
+    /**
+     * @return True if the specified parameter has row-sparse gradients, as per {@link SparseGradientLayer}
+     */
+    public static boolean isSparseGradientParam(Layer layer, String param) {
+        return layer instanceof SparseGradientLayer && ((SparseGradientLayer) layer).isSparseGradientParam(param);
+    }
 }
@@ -0,0 +1,86 @@
+package org.deeplearning4j.util;
+
+/**
+ * Conversion between float values and IEEE 754 half precision (fp16) values, stored as shorts.<br>
+ * Conversion to half precision rounds to nearest (ties to even). Values too large for half precision (larger in
+ * magnitude than 65504, after rounding) are converted to infinity; values too small are converted to (signed) zero.
+ */
+public class HalfPrecisionUtil {
+
+    /**
+     * Largest finite half precision value
+     */
+    public static final float MAX_VALUE = 65504.0f;
+
+    private HalfPrecisionUtil() {}
+
+    /**
+     * Convert a float to IEEE 754 half precision, rounding to nearest (ties to even)
+     */
+    public static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exp = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+
+        if (exp == 0xff) {
+            //NaN or infinity
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        int halfExp = exp - 127 + 15;
+        if (halfExp >= 0x1f) {
+            //Too large: infinity
+            return (short) (sign | 0x7c00);
+        }
+        if (halfExp <= 0) {
+            //Subnormal, or too small: zero
+            if (halfExp < -10) {
+                return (short) sign;
+            }
+            mantissa |= 0x800000;
+            int shift = 14 - halfExp;
+            int halfMantissa = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (halfMantissa & 1) != 0)) {
+                halfMantissa++;
+            }
+            return (short) (sign | halfMantissa);
+        }
+
+        int out = (halfExp << 10) | (mantissa >> 13);
+        int remainder = mantissa & 0x1fff;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (out & 1) != 0)) {
+            //Rounding up may carry into the exponent, which is correct (up to and including infinity)
+            out++;
+        }
+        return (short) (sign | out);
+    }
+
+    /**
+     * Convert an IEEE 754 half precision value to a float
+     */
+    public static float toFloat(short value) {
+        int sign = (value & 0x8000) << 16;
+        int exp = (value >>> 10) & 0x1f;
+        int mantissa = value & 0x3ff;
+
+        if (exp == 0x1f) {
+            //NaN or infinity
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        if (exp == 0) {
+            if (mantissa == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            //Subnormal: normalize
+            exp = 1;
+            while ((mantissa & 0x400) == 0) {
+                mantissa <<= 1;
+                exp--;
+            }
+            mantissa &= 0x3ff;
+        }
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mantissa << 13));
+    }
+}
@@ -0,0 +1,102 @@
+package org.deeplearning4j.util;
+
+import com.google.common.collect.MapMaker;
+import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Utilities for ND4J data buffers that are backed directly (without copying) by a memory mapped file.<br>
+ * ND4J data buffers created from a direct byte buffer only hold the address of the memory, not a reference to the
+ * byte buffer itself. The mapping must however remain reachable for as long as the data buffer is in use: otherwise
+ * the file may be unmapped by the garbage collector while the data buffer still refers to it. Hence, the mapping for
+ * each data buffer is held here, keyed by the data buffer's identity (weakly, so that the mapping is released once the
+ * data buffer is no longer used).
+ */
+public class MappedDataBuffers {
+
+    //Note: weak keys use identity (==) comparison, not DataBuffer.equals (which compares the buffer contents)
+    private static final ConcurrentMap<DataBuffer, MappedByteBuffer> mappings =
+                    new MapMaker().weakKeys().makeMap();
+
+    private MappedDataBuffers() {}
+
+    /**
+     * Open a file for use with {@link #mapCopyOnWrite(FileChannel, long, long)}. Java only permits copy on write
+     * mappings of channels opened for writing (even though the file itself is never modified by such a mapping): the
+     * file is opened for reading and writing if it is writable, and for reading only otherwise.
+     *
+     * @param file File to open
+     * @return The opened file
+     */
+    public static RandomAccessFile openForMapping(@NonNull File file) throws IOException {
+        return new RandomAccessFile(file, file.canWrite() ? "rw" : "r");
+    }
+
+    /**
+     * Map the specified region of a file, copy on write: values may be modified in memory without modifying the file.
+     * If the channel was not opened for writing (see {@link #openForMapping(File)}), the region is mapped read only
+     * instead. Read only mappings (see {@link MappedByteBuffer#isReadOnly()}) must not be used to back arrays that may
+     * be modified: copy the values instead.
+     *
+     * @param channel Channel to map
+     * @param offset  Offset of the region in the file
+     * @param bytes   Size of the region
+     * @return The mapped region, in big endian byte order (as per FileChannel.map)
+     */
+    public static MappedByteBuffer mapCopyOnWrite(@NonNull FileChannel channel, long offset, long bytes)
+                    throws IOException {
+        try {
+            return channel.map(FileChannel.MapMode.PRIVATE, offset, bytes);
+        } catch (NonWritableChannelException e) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes);
+        }
+    }
+
+    /**
+     * Create a data buffer that uses the specified mapped buffer as its memory, without copying. The mapped buffer
+     * must be writable (for example, a copy on write mapping), in the native byte order, and at least
+     * length * (element size) bytes.
+     *
+     * @param mapped Mapped buffer (positioned at the start of the values)
+     * @param type   Data type of the values
+     * @param length Number of values
+     * @return Data buffer backed by the mapped buffer
+     */
+    public static DataBuffer create(@NonNull MappedByteBuffer mapped, @NonNull DataBuffer.Type type, int length) {
+        if (mapped.isReadOnly()) {
+            throw new IllegalArgumentException("Mapped buffer is read only: arrays backed by it could not be modified");
+        }
+        if (mapped.order() != ByteOrder.nativeOrder()) {
+            throw new IllegalArgumentException("Mapped buffer must be in native byte order (" + ByteOrder.nativeOrder()
+                            + "), got " + mapped.order());
+        }
+        DataBuffer data = Nd4j.createBuffer(mapped, type, length);
+        mappings.put(data, mapped);
+        return data;
+    }
+
+    /**
+     * @return True if the specified data buffer was created by {@link #create(MappedByteBuffer, DataBuffer.Type, int)}
+     *         (and hence is backed by a memory mapped file)
+     */
+    public static boolean isMapped(@NonNull DataBuffer data) {
+        return mappings.containsKey(data);
+    }
+
+    /**
+     * @return The mapped buffer backing the specified data buffer, or null if it is not backed by a mapped buffer
+     */
+    public static MappedByteBuffer getMapping(@NonNull DataBuffer data) {
+        return mappings.get(data);
+    }
+}
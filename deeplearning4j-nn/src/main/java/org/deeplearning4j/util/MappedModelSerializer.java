@@ -0,0 +1,465 @@
+package org.deeplearning4j.util;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.preprocessor.Normalizer;
+import org.nd4j.linalg.dataset.api.preprocessor.serializer.NormalizerSerializer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.shade.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Save and restore models using an uncompressed, memory mapped file format.<br>
+ * Unlike the zip format used by {@link ModelSerializer}, restoring a model from this format does not read (and copy)
+ * the parameters: instead, the parameters section of the file is memory mapped, and used directly as the network's
+ * flattened parameters array. Consequently, restoring is fast regardless of the model size, the parameters are loaded
+ * lazily (page by page, as they are first used), and the operating system can share the (page cache) memory for the
+ * parameters between all processes that restore the same file.<br>
+ * The file is mapped copy-on-write: modifying the parameters of a restored network (for example, by training it) is
+ * allowed, but does not modify the file. Modified pages are no longer shared.<br>
+ * <br>
+ * File layout:<br>
+ * - A header: magic number, format version, model type, data type and byte order of the parameters, offsets and
+ * lengths of the parameters and updater state sections, the network configuration (JSON) and (optionally) the
+ * normalizer. The header is small, and is read fully on restore<br>
+ * - The flattened parameters, starting at a page ({@link #ALIGNMENT} bytes) aligned offset<br>
+ * - Optionally, the updater state, also page aligned<br>
+ * Parameters are stored in the native byte order of the machine that wrote the file, at the current ND4J data type.
+ * If a file is restored on a machine with a different byte order, or with a different ND4J data type, the parameters
+ * are read and converted (copied) instead of memory mapped.<br>
+ * <br>
+ * Use {@link #convertFromZip(File, File)} and {@link #convertToZip(File, File)} to convert models between this format
+ * and the {@link ModelSerializer} zip format.<br>
+ * Note that each section is limited to 2GB (a Java memory mapping limitation). Writing a model replaces the file
+ * atomically (via a temporary file in the same directory): networks already restored from the previous file continue
+ * to use the previous file's contents.
+ */
+@Slf4j
+public class MappedModelSerializer {
+
+    /**
+     * Alignment (in bytes) of the parameters and updater state sections within the file
+     */
+    public static final int ALIGNMENT = 4096;
+
+    private static final int MAGIC = 0x444c344d;
+    private static final int VERSION = 1;
+    private static final byte MODEL_MULTI_LAYER_NETWORK = 0;
+    private static final byte MODEL_COMPUTATION_GRAPH = 1;
+    private static final byte TYPE_FLOAT = 0;
+    private static final byte TYPE_DOUBLE = 1;
+    private static final byte ORDER_LITTLE_ENDIAN = 0;
+    private static final byte ORDER_BIG_ENDIAN = 1;
+
+    private static final int WRITE_CHUNK_SIZE = 1 << 20;
+
+    private MappedModelSerializer() {}
+
+    /**
+     * Write a model to a file in the memory mapped format
+     *
+     * @param model       the model to write
+     * @param file        the file to write to
+     * @param saveUpdater whether to save the updater state or not
+     * @throws IOException
+     */
+    public static void writeModel(@NonNull Model model, @NonNull File file, boolean saveUpdater) throws IOException {
+        writeModel(model, file, saveUpdater, null);
+    }
+
+    /**
+     * Write a model (and, optionally, a normalizer) to a file in the memory mapped format
+     *
+     * @param model       the model to write
+     * @param file        the file to write to
+     * @param saveUpdater whether to save the updater state or not
+     * @param normalizer  the normalizer to save with the model. May be null.
+     * @throws IOException
+     */
+    public static void writeModel(@NonNull Model model, @NonNull File file, boolean saveUpdater,
+                    Normalizer<?> normalizer) throws IOException {
+        byte modelType;
+        String json;
+        INDArray updaterState = null;
+        if (model instanceof MultiLayerNetwork) {
+            MultiLayerNetwork net = (MultiLayerNetwork) model;
+            modelType = MODEL_MULTI_LAYER_NETWORK;
+            json = net.getLayerWiseConfigurations().toJson();
+            if (saveUpdater && net.getUpdater() != null) {
+                updaterState = net.getUpdater().getStateViewArray();
+            }
+        } else if (model instanceof ComputationGraph) {
+            ComputationGraph graph = (ComputationGraph) model;
+            modelType = MODEL_COMPUTATION_GRAPH;
+            json = graph.getConfiguration().toJson();
+            if (saveUpdater && graph.getUpdater() != null) {
+                updaterState = graph.getUpdater().getStateViewArray();
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported model type: " + model.getClass().getName()
+                            + ". Only MultiLayerNetwork and ComputationGraph are supported");
+        }
+
+        byte[] config = json.getBytes(StandardCharsets.UTF_8);
+        byte[] normalizerBytes = new byte[0];
+        if (normalizer != null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try {
+                NormalizerSerializer.getDefault().write(normalizer, baos);
+            } catch (Exception e) {
+                throw new IOException("Error serializing normalizer", e);
+            }
+            normalizerBytes = baos.toByteArray();
+        }
+
+        INDArray params = model.params();
+        long paramsLength = (params == null ? 0 : params.length());
+        long updaterLength = (updaterState == null ? 0 : updaterState.length());
+        int elementSize = Nd4j.sizeOfDataType();
+
+        //Magic, version, model type, data type, byte order, 2x (offset, length), config, normalizer
+        long headerLength = 4 + 4 + 1 + 1 + 1 + 4 * 8 + 4 + config.length + 4 + normalizerBytes.length;
+        long paramsOffset = align(headerLength);
+        long updaterOffset = (updaterLength > 0 ? align(paramsOffset + paramsLength * elementSize) : 0);
+
+        //Write to a temporary file, then (atomically) replace the target file. The target must not be truncated and
+        // rewritten in place, as networks restored from it may still have it mapped
+        //Note: temporary file prefix must be at least 3 characters
+        File temp = File.createTempFile("." + file.getName() + ".", ".tmp", file.getAbsoluteFile().getParentFile());
+        boolean success = false;
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(temp, "rw"); FileChannel channel = raf.getChannel()) {
+                ByteBuffer header = ByteBuffer.allocate((int) headerLength);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.put(modelType);
+                header.put(Nd4j.dataType() == DataBuffer.Type.DOUBLE ? TYPE_DOUBLE : TYPE_FLOAT);
+                header.put(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? ORDER_BIG_ENDIAN : ORDER_LITTLE_ENDIAN);
+                header.putLong(paramsOffset);
+                header.putLong(paramsLength);
+                header.putLong(updaterOffset);
+                header.putLong(updaterLength);
+                header.putInt(config.length);
+                header.put(config);
+                header.putInt(normalizerBytes.length);
+                header.put(normalizerBytes);
+                header.flip();
+                writeFully(channel, header, 0);
+
+                if (paramsLength > 0) {
+                    writeArray(channel, params, paramsOffset);
+                }
+                if (updaterLength > 0) {
+                    writeArray(channel, updaterState, updaterOffset);
+                }
+            }
+
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            success = true;
+        } finally {
+            if (!success && temp.exists() && !temp.delete()) {
+                log.warn("Could not delete temporary file {}", temp);
+            }
+        }
+    }
+
+    /**
+     * Restore a MultiLayerNetwork from a file in the memory mapped format, including the updater state (if present)
+     *
+     * @param file the file to restore from
+     * @return the restored network
+     * @throws IOException
+     */
+    public static MultiLayerNetwork restoreMultiLayerNetwork(@NonNull File file) throws IOException {
+        return restoreMultiLayerNetwork(file, true);
+    }
+
+    /**
+     * Restore a MultiLayerNetwork from a file in the memory mapped format
+     *
+     * @param file        the file to restore from
+     * @param loadUpdater whether to restore the updater state (if present)
+     * @return the restored network
+     * @throws IOException
+     */
+    public static MultiLayerNetwork restoreMultiLayerNetwork(@NonNull File file, boolean loadUpdater)
+                    throws IOException {
+        Header header = readHeader(file);
+        if (header.modelType != MODEL_MULTI_LAYER_NETWORK) {
+            throw new IllegalStateException("File " + file + " contains a ComputationGraph, not a MultiLayerNetwork");
+        }
+
+        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(header.json));
+        network.init(mapArray(file, header, header.paramsOffset, header.paramsLength), false);
+        if (loadUpdater && header.updaterLength > 0) {
+            network.getUpdater().setStateViewArray(network,
+                            mapArray(file, header, header.updaterOffset, header.updaterLength), false);
+        }
+        return network;
+    }
+
+    /**
+     * Restore a ComputationGraph from a file in the memory mapped format, including the updater state (if present)
+     *
+     * @param file the file to restore from
+     * @return the restored network
+     * @throws IOException
+     */
+    public static ComputationGraph restoreComputationGraph(@NonNull File file) throws IOException {
+        return restoreComputationGraph(file, true);
+    }
+
+    /**
+     * Restore a ComputationGraph from a file in the memory mapped format
+     *
+     * @param file        the file to restore from
+     * @param loadUpdater whether to restore the updater state (if present)
+     * @return the restored network
+     * @throws IOException
+     */
+    public static ComputationGraph restoreComputationGraph(@NonNull File file, boolean loadUpdater)
+                    throws IOException {
+        Header header = readHeader(file);
+        if (header.modelType != MODEL_COMPUTATION_GRAPH) {
+            throw new IllegalStateException("File " + file + " contains a MultiLayerNetwork, not a ComputationGraph");
+        }
+
+        ComputationGraph graph = new ComputationGraph(ComputationGraphConfiguration.fromJson(header.json));
+        graph.init(mapArray(file, header, header.paramsOffset, header.paramsLength), false);
+        if (loadUpdater && header.updaterLength > 0) {
+            graph.getUpdater().setStateViewArray(mapArray(file, header, header.updaterOffset, header.updaterLength));
+        }
+        return graph;
+    }
+
+    /**
+     * Restore the normalizer saved with the model, if any
+     *
+     * @param file the file to restore from
+     * @return the normalizer, or null if no normalizer was saved with the model
+     * @throws IOException
+     */
+    public static <T extends Normalizer> T restoreNormalizer(@NonNull File file) throws IOException {
+        Header header = readHeader(file);
+        if (header.normalizer.length == 0) {
+            return null;
+        }
+        try {
+            return NormalizerSerializer.getDefault().restore(new ByteArrayInputStream(header.normalizer));
+        } catch (Exception e) {
+            throw new IOException("Error restoring normalizer from file: " + file, e);
+        }
+    }
+
+    /**
+     * @param file the file to check
+     * @return true if the file is a model in the memory mapped format
+     */
+    public static boolean isMappedModel(@NonNull File file) {
+        if (!file.isFile() || file.length() < 8) {
+            return false;
+        }
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+            return dis.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Convert a model saved by {@link ModelSerializer} (zip format) to the memory mapped format. The updater state
+     * and normalizer (if present) are also converted.
+     *
+     * @param zipFile    the model file (zip format) to convert
+     * @param mappedFile the file to write the model to, in the memory mapped format
+     * @throws IOException
+     */
+    public static void convertFromZip(@NonNull File zipFile, @NonNull File mappedFile) throws IOException {
+        Model model;
+        if (isComputationGraphZip(zipFile)) {
+            model = ModelSerializer.restoreComputationGraph(zipFile, true);
+        } else {
+            model = ModelSerializer.restoreMultiLayerNetwork(zipFile, true);
+        }
+        Normalizer<?> normalizer = ModelSerializer.restoreNormalizerFromFile(zipFile);
+        writeModel(model, mappedFile, true, normalizer);
+    }
+
+    /**
+     * Convert a model in the memory mapped format to the {@link ModelSerializer} zip format. The updater state and
+     * normalizer (if present) are also converted.
+     *
+     * @param mappedFile the model file (memory mapped format) to convert
+     * @param zipFile    the file to write the model to, in the zip format
+     * @throws IOException
+     */
+    public static void convertToZip(@NonNull File mappedFile, @NonNull File zipFile) throws IOException {
+        Header header = readHeader(mappedFile);
+        Model model;
+        if (header.modelType == MODEL_COMPUTATION_GRAPH) {
+            model = restoreComputationGraph(mappedFile, true);
+        } else {
+            model = restoreMultiLayerNetwork(mappedFile, true);
+        }
+        ModelSerializer.writeModel(model, zipFile, header.updaterLength > 0);
+        Normalizer<?> normalizer = restoreNormalizer(mappedFile);
+        if (normalizer != null) {
+            ModelSerializer.addNormalizerToModel(zipFile, normalizer);
+        }
+    }
+
+    private static boolean isComputationGraphZip(File zipFile) throws IOException {
+        try (ZipFile zf = new ZipFile(zipFile)) {
+            ZipEntry config = zf.getEntry("configuration.json");
+            if (config == null) {
+                throw new IllegalStateException("Model wasnt found within file: no configuration in " + zipFile);
+            }
+            try (InputStream is = zf.getInputStream(config)) {
+                //ComputationGraph configurations have vertices; MultiLayerNetwork configurations have a list of confs
+                return new ObjectMapper().readTree(is).has("vertices");
+            }
+        }
+    }
+
+    private static long align(long position) {
+        return ((position + ALIGNMENT - 1) / ALIGNMENT) * ALIGNMENT;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeArray(FileChannel channel, INDArray array, long position) throws IOException {
+        INDArray flat = (array.isRowVector() ? array : array.reshape('c', 1, array.length()));
+        int length = flat.length();
+        boolean isDouble = (Nd4j.dataType() == DataBuffer.Type.DOUBLE);
+        int elementSize = (isDouble ? 8 : 4);
+        //Copy in chunks, to avoid a second copy of (potentially very large) arrays on the heap
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (int start = 0; start < length; start += WRITE_CHUNK_SIZE) {
+                int end = Math.min(length, start + WRITE_CHUNK_SIZE);
+                DataBuffer data = flat.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end)).dup().data();
+                ByteBuffer buffer = ByteBuffer.allocate((end - start) * elementSize).order(ByteOrder.nativeOrder());
+                if (isDouble) {
+                    buffer.asDoubleBuffer().put(data.asDouble());
+                } else {
+                    buffer.asFloatBuffer().put(data.asFloat());
+                }
+                writeFully(channel, buffer, position + start * (long) elementSize);
+            }
+        }
+    }
+
+    private static Header readHeader(File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (dis.readInt() != MAGIC) {
+                throw new IllegalStateException("File " + file + " is not a model in the memory mapped format");
+            }
+            int version = dis.readInt();
+            if (version > VERSION) {
+                throw new IllegalStateException("Unsupported memory mapped model format version " + version
+                                + " in file " + file + ": maximum supported version is " + VERSION);
+            }
+            Header h = new Header();
+            h.modelType = dis.readByte();
+            h.dataType = dis.readByte();
+            h.byteOrder = (dis.readByte() == ORDER_BIG_ENDIAN ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            h.paramsOffset = dis.readLong();
+            h.paramsLength = dis.readLong();
+            h.updaterOffset = dis.readLong();
+            h.updaterLength = dis.readLong();
+            byte[] config = new byte[dis.readInt()];
+            dis.readFully(config);
+            h.json = new String(config, StandardCharsets.UTF_8);
+            h.normalizer = new byte[dis.readInt()];
+            dis.readFully(h.normalizer);
+            return h;
+        }
+    }
+
+    private static INDArray mapArray(File file, Header header, long offset, long length) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+        int elementSize = (header.dataType == TYPE_DOUBLE ? 8 : 4);
+        long bytes = length * elementSize;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Cannot map array of " + bytes + " bytes from file " + file
+                            + ": arrays are limited to " + Integer.MAX_VALUE + " bytes");
+        }
+
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = MappedDataBuffers.openForMapping(file); FileChannel channel = raf.getChannel()) {
+            //Copy on write: the network's parameters may be modified without modifying the file
+            buffer = MappedDataBuffers.mapCopyOnWrite(channel, offset, bytes);
+        }
+        buffer.order(header.byteOrder);
+
+        DataBuffer.Type fileType = (header.dataType == TYPE_DOUBLE ? DataBuffer.Type.DOUBLE : DataBuffer.Type.FLOAT);
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            boolean formatMatches = (fileType == Nd4j.dataType() && header.byteOrder == ByteOrder.nativeOrder());
+            if (formatMatches && !buffer.isReadOnly()) {
+                //The mapping is held (keyed by the data buffer's identity) for as long as the data buffer is in use
+                DataBuffer data = MappedDataBuffers.create(buffer, fileType, (int) length);
+                return Nd4j.create(data, new int[] {1, (int) length});
+            }
+
+            if (formatMatches) {
+                log.warn("Model file {} is not writable, and hence cannot be mapped copy on write. Parameters will be "
+                                + "copied, not memory mapped", file);
+            } else {
+                log.warn("Model file {} was saved with data type {} and byte order {}; current data type is {} and "
+                                + "byte order is {}. Parameters will be copied, not memory mapped", file, fileType,
+                                header.byteOrder, Nd4j.dataType(), ByteOrder.nativeOrder());
+            }
+            if (fileType == DataBuffer.Type.DOUBLE) {
+                double[] d = new double[(int) length];
+                buffer.asDoubleBuffer().get(d);
+                return Nd4j.create(d, new int[] {1, (int) length}, 'c');
+            } else {
+                float[] f = new float[(int) length];
+                buffer.asFloatBuffer().get(f);
+                return Nd4j.create(f, new int[] {1, (int) length}, 'c');
+            }
+        }
+    }
+
+    private static class Header {
+        private byte modelType;
+        private byte dataType;
+        private ByteOrder byteOrder;
+        private long paramsOffset;
+        private long paramsLength;
+        private long updaterOffset;
+        private long updaterLength;
+        private String json;
+        private byte[] normalizer;
+    }
+}
@@ -30,6 +30,8 @@ import java.util.zip.ZipOutputStream;
 
 /**
  * Utility class suited to save/restore neural net models
+ * See {@link MappedModelSerializer} for a format that can be memory mapped on restore, which is more suitable for
+ * large models
  *
  * @author raver119@gmail.com
  */
@@ -931,6 +931,8 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
         protected StorageLevel storageLevelStreams = StorageLevel.MEMORY_ONLY();
         protected VoidConfiguration voidConfiguration;
         protected RDDTrainingApproach rddTrainingApproach = RDDTrainingApproach.Export;
+        protected DataExportFormat exportFormat = DataExportFormat.Files;
+        protected boolean exportCompression = false;
         protected long rngSeed;
         protected String exportDirectory = null;
         protected Integer numWorkers;
@@ -1053,6 +1055,29 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
             return this;
         }
 
+        /**
+         * File format to use when exporting the training data, when {@link #rddTrainingApproach(RDDTrainingApproach)}
+         * is set to {@link RDDTrainingApproach#Export}. Default: {@link DataExportFormat#Files}.<br>
+         * {@link DataExportFormat#Blocks} packs many minibatches into each file, which avoids the overhead of creating,
+         * listing and opening one (small) file per minibatch.
+         *
+         * @param exportFormat Format for exported data
+         */
+        public Builder exportFormat(@NonNull DataExportFormat exportFormat) {
+            this.exportFormat = exportFormat;
+            return this;
+        }
+
+        /**
+         * Whether to compress each exported minibatch. Only applies to {@link DataExportFormat#Blocks}. Default: false.
+         *
+         * @param exportCompression If true: compress the exported minibatches
+         */
+        public Builder exportCompression(boolean exportCompression) {
+            this.exportCompression = exportCompression;
+            return this;
+        }
+
         /**
          * Random number generator seed, used mainly for enforcing repeatable splitting on RDDs
          * Default: no seed set (i.e., random seed)
@@ -1211,6 +1236,8 @@ public class SharedTrainingMaster extends BaseTrainingMaster<SharedTrainingResul
                             numWorkersPerNode);
             if (transport != null)
                 master.transport = this.transport;
+            master.exportFormat = this.exportFormat;
+            master.exportCompression = this.exportCompression;
 
             return master;
         }
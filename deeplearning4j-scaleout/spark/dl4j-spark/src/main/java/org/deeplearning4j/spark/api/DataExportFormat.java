@@ -0,0 +1,31 @@
+/*-
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.deeplearning4j.spark.api;
+
+/**
+ * File format used when exporting a {@code JavaRDD<DataSet>} or {@code JavaRDD<MultiDataSet>} for training, when
+ * using {@link RDDTrainingApproach#Export}.
+ *
+ * <b>Files</b>: one file per minibatch. Simple, but with many minibatches the file listing and open overhead
+ * (especially on HDFS) can dominate.
+ * <b>Blocks</b>: many minibatches are packed into large block files with an index footer
+ * (see {@link org.deeplearning4j.spark.data.block.BlockFileWriter}). Entries are read by offset (memory mapped for
+ * local files), and consecutive minibatches from the same block file are read without reopening the file.
+ */
+public enum DataExportFormat {
+    Files, Blocks
+}
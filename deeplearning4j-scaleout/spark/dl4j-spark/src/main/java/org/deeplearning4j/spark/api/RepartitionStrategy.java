@@ -7,12 +7,19 @@ package org.deeplearning4j.spark.api;
  * be problematic when the number of elements in a RDD is small<br>
  * Balanced: a custom repartitioning strategy that attempts to ensure that each partition ends up with the correct number
  * of elements. It has a slightly higher overhead (need to count the number of values in each partition) but should be less
- * prone to random sampling variance than the SparkDefault strategy
+ * prone to random sampling variance than the SparkDefault strategy<br>
+ * SurplusBalanced: like Balanced, each partition ends up with the same number of elements (+/- 1), but instead of
+ * shuffling the entire RDD, only the surplus elements of partitions that are too large are moved to partitions that are
+ * too small (preferring partitions on the same executor). Nothing is moved if partitions are already balanced, and the
+ * repartitioning plan is cached, so repartitioning the same RDD again (for example, in the next epoch) does not
+ * require counting again. The number of partitions is not changed: if it differs from the required number of
+ * partitions, Balanced repartitioning is used instead. Best used with persisted RDDs, as the RDD is computed
+ * twice (once for the elements to keep, once for the surplus)
  *
  *
  * @author Alex Black
  */
 public enum RepartitionStrategy {
-    SparkDefault, Balanced, ApproximateBalanced
+    SparkDefault, Balanced, ApproximateBalanced, SurplusBalanced
 
 }
@@ -21,6 +21,8 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.spark.api.java.function.Function2;
+import org.deeplearning4j.spark.api.DataExportFormat;
+import org.deeplearning4j.spark.data.block.BlockFileExporter;
 import org.deeplearning4j.util.UIDProvider;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.primitives.Pair;
@@ -38,6 +40,11 @@ import java.util.*;
  * Naming convention for exported files:
  * "dataset_" + partitionIdx + JVM_UID + "_" + idx + ".bin"
  * where 'idx' is the index of the DataSet objects in this partition
+ * <p>
+ * If the {@link DataExportFormat#Blocks} format is used, the minibatches of each partition are instead packed into one
+ * or more block files (see {@link BlockFileExporter}), named
+ * "dataset_" + partitionIdx + JVM_UID + "_" + blockIdx + ".dl4jb", and the returned paths refer to the entries of
+ * those files
  *
  * @author Alex Black
  */
@@ -47,13 +54,29 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
     private final int minibatchSize;
     private final String exportBaseDirectory;
     private final String jvmuid;
+    private final DataExportFormat exportFormat;
+    private final boolean compress;
 
     /**
      * @param minibatchSize       Minibatch size to combine examples to (if necessary)
      * @param exportBaseDirectory Base directory for exporting
      */
     public BatchAndExportDataSetsFunction(int minibatchSize, String exportBaseDirectory) {
+        this(minibatchSize, exportBaseDirectory, DataExportFormat.Files, false);
+    }
+
+    /**
+     * @param minibatchSize       Minibatch size to combine examples to (if necessary)
+     * @param exportBaseDirectory Base directory for exporting
+     * @param exportFormat        Format for the exported files
+     * @param compress            Whether to compress the minibatches. Only supported for
+     *                            {@link DataExportFormat#Blocks}
+     */
+    public BatchAndExportDataSetsFunction(int minibatchSize, String exportBaseDirectory, DataExportFormat exportFormat,
+                    boolean compress) {
         this.minibatchSize = minibatchSize;
+        this.exportFormat = exportFormat;
+        this.compress = compress;
         this.exportBaseDirectory = exportBaseDirectory;
         String fullUID = UIDProvider.getJVMUID();
         this.jvmuid = (fullUID.length() <= 8 ? fullUID : fullUID.substring(0, 8));
@@ -62,6 +85,21 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
     @Override
     public Iterator<String> call(Integer partitionIdx, Iterator<DataSet> iterator) throws Exception {
 
+        BlockFileExporter blockExporter = null;
+        if (exportFormat == DataExportFormat.Blocks) {
+            blockExporter = new BlockFileExporter(exportBaseDirectory, "dataset_" + partitionIdx + jvmuid, compress,
+                            BlockFileExporter.DEFAULT_MAX_BLOCK_FILE_BYTES, conf);
+        }
+        try {
+            return exportPartition(partitionIdx, iterator, blockExporter);
+        } finally {
+            if (blockExporter != null)
+                blockExporter.close();
+        }
+    }
+
+    private Iterator<String> exportPartition(int partitionIdx, Iterator<DataSet> iterator,
+                    BlockFileExporter blockExporter) throws Exception {
         List<String> outputPaths = new ArrayList<>();
         LinkedList<DataSet> tempList = new LinkedList<>();
 
@@ -69,12 +107,13 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
         while (iterator.hasNext()) {
             DataSet next = iterator.next();
             if (next.numExamples() == minibatchSize) {
-                outputPaths.add(export(next, partitionIdx, count++));
+                outputPaths.add(export(next, partitionIdx, count++, blockExporter));
                 continue;
             }
             //DataSet must be either smaller or larger than minibatch size...
             tempList.add(next);
-            Pair<Integer, List<String>> countAndPaths = processList(tempList, partitionIdx, count, false);
+            Pair<Integer, List<String>> countAndPaths =
+                            processList(tempList, partitionIdx, count, false, blockExporter);
             if (countAndPaths.getSecond() != null && countAndPaths.getSecond().size() > 0) {
                 outputPaths.addAll(countAndPaths.getSecond());
             }
@@ -82,7 +121,7 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
         }
 
         //We might have some left-over examples...
-        Pair<Integer, List<String>> countAndPaths = processList(tempList, partitionIdx, count, true);
+        Pair<Integer, List<String>> countAndPaths = processList(tempList, partitionIdx, count, true, blockExporter);
         if (countAndPaths.getSecond() != null && countAndPaths.getSecond().size() > 0) {
             outputPaths.addAll(countAndPaths.getSecond());
         }
@@ -91,7 +130,7 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
     }
 
     private Pair<Integer, List<String>> processList(LinkedList<DataSet> tempList, int partitionIdx, int countBefore,
-                    boolean finalExport) throws Exception {
+                    boolean finalExport, BlockFileExporter blockExporter) throws Exception {
         //Go through the list. If we have enough examples: remove the DataSet objects, merge and export them. Otherwise: do nothing
         int numExamples = 0;
         for (DataSet ds : tempList) {
@@ -126,12 +165,16 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
         }
         //At this point: we should have the required number of examples in tempToMerge (unless it's a final export)
         DataSet toExport = DataSet.merge(tempToMerge);
-        exportPaths.add(export(toExport, partitionIdx, countAfter++));
+        exportPaths.add(export(toExport, partitionIdx, countAfter++, blockExporter));
 
         return new Pair<>(countAfter, exportPaths);
     }
 
-    private String export(DataSet dataSet, int partitionIdx, int outputCount) throws Exception {
+    private String export(DataSet dataSet, int partitionIdx, int outputCount, BlockFileExporter blockExporter)
+                    throws Exception {
+        if (blockExporter != null)
+            return blockExporter.export(dataSet);
+
         String filename = "dataset_" + partitionIdx + jvmuid + "_" + outputCount + ".bin";
 
         URI uri = new URI(exportBaseDirectory
@@ -0,0 +1,105 @@
+package org.deeplearning4j.spark.data.block;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Exports DataSet/MultiDataSet objects to one or more block files in a directory: a new block file is started once the
+ * current one exceeds the maximum size. Used by the export functions for
+ * {@link org.deeplearning4j.spark.api.DataExportFormat#Blocks}.<br>
+ * Naming convention for block files: {@code filenamePrefix + "_" + blockIdx + ".dl4jb"}<br>
+ * Paths returned by the export methods are entry paths (see {@link BlockFileFormat#entryPath(String, int)}), and are
+ * only valid once this exporter has been closed.
+ */
+public class BlockFileExporter implements Closeable {
+
+    public static final long DEFAULT_MAX_BLOCK_FILE_BYTES = 256L * 1024 * 1024;
+
+    private final String exportBaseDirectory;
+    private final String filenamePrefix;
+    private final boolean compress;
+    private final long maxBlockFileBytes;
+    private final Configuration conf;
+
+    private BlockFileWriter writer;
+    private String currentPath;
+    private int blockCount;
+
+    /**
+     * @param exportBaseDirectory Directory to export the block files to
+     * @param filenamePrefix      Prefix for the block file names. Must be unique for each exporter
+     * @param compress            Whether to compress the entries
+     * @param maxBlockFileBytes   Maximum size of each block file, before a new block file is started
+     * @param conf                Hadoop configuration
+     */
+    public BlockFileExporter(String exportBaseDirectory, String filenamePrefix, boolean compress,
+                    long maxBlockFileBytes, Configuration conf) {
+        this.exportBaseDirectory = exportBaseDirectory;
+        this.filenamePrefix = filenamePrefix;
+        this.compress = compress;
+        this.maxBlockFileBytes = maxBlockFileBytes;
+        this.conf = conf;
+    }
+
+    /**
+     * Export the DataSet as an entry of the current block file
+     *
+     * @return Entry path for the DataSet
+     */
+    public String export(DataSet dataSet) throws IOException {
+        BlockFileWriter w = currentWriter();
+        return BlockFileFormat.entryPath(currentPath, w.write(dataSet));
+    }
+
+    /**
+     * Export the MultiDataSet as an entry of the current block file
+     *
+     * @return Entry path for the MultiDataSet
+     */
+    public String export(MultiDataSet multiDataSet) throws IOException {
+        BlockFileWriter w = currentWriter();
+        return BlockFileFormat.entryPath(currentPath, w.write(multiDataSet));
+    }
+
+    private BlockFileWriter currentWriter() throws IOException {
+        if (writer != null && writer.bytesWritten() >= maxBlockFileBytes) {
+            writer.close();
+            writer = null;
+        }
+
+        if (writer == null) {
+            String filename = filenamePrefix + "_" + (blockCount++) + BlockFileFormat.EXTENSION;
+            URI uri;
+            try {
+                uri = new URI(exportBaseDirectory
+                                + (exportBaseDirectory.endsWith("/") || exportBaseDirectory.endsWith("\\") ? "" : "/")
+                                + filename);
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid export path", e);
+            }
+            FileSystem file = FileSystem.get(uri, conf);
+            writer = new BlockFileWriter(file.create(new Path(uri)), compress);
+            currentPath = uri.getPath();
+        }
+        return writer;
+    }
+
+    /**
+     * Close the current block file (writing its index)
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.deeplearning4j.spark.data.block;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Constants and path utilities for the block file format used for exporting minibatches.<br>
+ * <br>
+ * Layout of a block file:<br>
+ * - Header: 8 byte magic ({@link #MAGIC})<br>
+ * - Entries: one per minibatch, each the binary serialized DataSet/MultiDataSet (optionally deflate compressed)<br>
+ * - Index: int number of entries, then for each entry: long offset, int length (bytes in file), byte flags<br>
+ * - Trailer: long offset of the index, then the 8 byte magic again<br>
+ * <br>
+ * An individual entry is referred to by a path of the form {@code blockFilePath + "!" + entryIndex}; these are the
+ * paths returned by the export functions, and accepted by
+ * {@link org.deeplearning4j.spark.iterator.PathSparkDataSetIterator} and
+ * {@link org.deeplearning4j.spark.iterator.PathSparkMultiDataSetIterator}.
+ */
+public class BlockFileFormat {
+
+    public static final String EXTENSION = ".dl4jb";
+    public static final char ENTRY_SEPARATOR = '!';
+    public static final byte[] MAGIC = "DL4JBLK1".getBytes(Charset.forName("US-ASCII"));
+    public static final int HEADER_LENGTH = MAGIC.length;
+    public static final int TRAILER_LENGTH = 8 + MAGIC.length;
+    /** Entry flag: entry is deflate compressed */
+    public static final byte FLAG_COMPRESSED = 1;
+
+    private BlockFileFormat() {}
+
+    /**
+     * @param blockFilePath Path of the block file
+     * @param entryIndex    Index of the entry in the block file
+     * @return Path referring to the specified entry of the block file
+     */
+    public static String entryPath(String blockFilePath, int entryIndex) {
+        return blockFilePath + ENTRY_SEPARATOR + entryIndex;
+    }
+
+    /**
+     * @return True if the path refers to an entry in a block file (i.e., created with {@link #entryPath(String, int)})
+     */
+    public static boolean isEntryPath(String path) {
+        int idx = path.lastIndexOf(ENTRY_SEPARATOR);
+        if (idx <= 0 || idx == path.length() - 1 || !path.startsWith(EXTENSION, idx - EXTENSION.length()))
+            return false;
+        for (int i = idx + 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Path of the block file, for a path created with {@link #entryPath(String, int)}
+     */
+    public static String blockFilePath(String entryPath) {
+        return entryPath.substring(0, entryPath.lastIndexOf(ENTRY_SEPARATOR));
+    }
+
+    /**
+     * @return Index of the entry, for a path created with {@link #entryPath(String, int)}
+     */
+    public static int entryIndex(String entryPath) {
+        return Integer.parseInt(entryPath.substring(entryPath.lastIndexOf(ENTRY_SEPARATOR) + 1));
+    }
+
+    static boolean isMagic(byte[] bytes, int offset) {
+        return Arrays.equals(MAGIC, Arrays.copyOfRange(bytes, offset, offset + MAGIC.length));
+    }
+}
@@ -0,0 +1,269 @@
+package org.deeplearning4j.spark.data.block;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads entries from a block file written by {@link BlockFileWriter}. See {@link BlockFileFormat} for the layout.<br>
+ * The index is read once when the file is opened; entries are then read by offset. For files on the local file system,
+ * entries are memory mapped; for other file systems (HDFS, etc) entries are read from a single open stream - reading
+ * consecutive entries (the common case when training) does not require any seeks.<br>
+ * Instances are not thread safe.
+ */
+public class BlockFileReader implements Closeable {
+
+    public static final int BUFFER_SIZE = 4194304; //4 MB
+
+    private final String path;
+    private final Source source;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final byte[] flags;
+
+    private BlockFileReader(String path, Source source) throws IOException {
+        this.path = path;
+        this.source = source;
+
+        long fileLength = source.length();
+        if (fileLength < BlockFileFormat.HEADER_LENGTH + 4 + BlockFileFormat.TRAILER_LENGTH)
+            throw new IOException("Invalid block file (too short, " + fileLength + " bytes): " + path);
+
+        byte[] trailer = new byte[BlockFileFormat.TRAILER_LENGTH];
+        source.readFully(fileLength - trailer.length, trailer);
+        if (!BlockFileFormat.isMagic(trailer, 8))
+            throw new IOException("Invalid block file (no index footer - file may be incomplete): " + path);
+        long indexOffset = ByteBuffer.wrap(trailer).getLong();
+
+        byte[] index = new byte[(int) (fileLength - trailer.length - indexOffset)];
+        source.readFully(indexOffset, index);
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(index));
+        int numEntries = dis.readInt();
+        offsets = new long[numEntries];
+        lengths = new int[numEntries];
+        flags = new byte[numEntries];
+        for (int i = 0; i < numEntries; i++) {
+            offsets[i] = dis.readLong();
+            lengths[i] = dis.readInt();
+            flags[i] = dis.readByte();
+        }
+    }
+
+    /**
+     * Open the specified block file, using a default Hadoop configuration
+     */
+    public static BlockFileReader open(String path) throws IOException {
+        return open(path, new Configuration());
+    }
+
+    /**
+     * Open the specified block file
+     *
+     * @param path Path of the block file (not an entry path)
+     * @param conf Hadoop configuration
+     */
+    public static BlockFileReader open(String path, Configuration conf) throws IOException {
+        FileSystem fileSystem;
+        try {
+            fileSystem = FileSystem.get(new URI(path), conf);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid path: " + path, e);
+        }
+
+        Path p = new Path(path);
+        Source source;
+        if (fileSystem instanceof LocalFileSystem) {
+            source = new MappedSource(((LocalFileSystem) fileSystem).pathToFile(p));
+        } else {
+            source = new StreamSource(fileSystem.open(p, BUFFER_SIZE), fileSystem.getFileStatus(p).getLen());
+        }
+
+        try {
+            return new BlockFileReader(path, source);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Path of the block file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return Number of entries in the block file
+     */
+    public int numEntries() {
+        return offsets.length;
+    }
+
+    /**
+     * Load the specified entry as a DataSet
+     */
+    public DataSet loadDataSet(int entry) throws IOException {
+        DataSet ds = new DataSet();
+        try (InputStream is = entryStream(entry)) {
+            ds.load(is);
+        }
+        return ds;
+    }
+
+    /**
+     * Load the specified entry as a MultiDataSet
+     */
+    public MultiDataSet loadMultiDataSet(int entry) throws IOException {
+        MultiDataSet mds = new org.nd4j.linalg.dataset.MultiDataSet();
+        try (InputStream is = entryStream(entry)) {
+            mds.load(is);
+        }
+        return mds;
+    }
+
+    private InputStream entryStream(int entry) throws IOException {
+        if (entry < 0 || entry >= offsets.length)
+            throw new IllegalArgumentException("Invalid entry index " + entry + ": block file has " + offsets.length
+                            + " entries (" + path + ")");
+
+        InputStream is = source.open(offsets[entry], lengths[entry]);
+        if ((flags[entry] & BlockFileFormat.FLAG_COMPRESSED) != 0)
+            is = new BufferedInputStream(new InflaterInputStream(is));
+        return is;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private interface Source extends Closeable {
+        long length() throws IOException;
+
+        void readFully(long position, byte[] buffer) throws IOException;
+
+        InputStream open(long position, int length) throws IOException;
+    }
+
+    /**
+     * Local files: entries are memory mapped
+     */
+    private static class MappedSource implements Source {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+
+        private MappedSource(File f) throws IOException {
+            this.file = new RandomAccessFile(f, "r");
+            this.channel = file.getChannel();
+        }
+
+        @Override
+        public long length() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer) throws IOException {
+            ByteBuffer bb = ByteBuffer.wrap(buffer);
+            while (bb.hasRemaining()) {
+                if (channel.read(bb, position + bb.position()) < 0)
+                    throw new EOFException("Unexpected end of block file");
+            }
+        }
+
+        @Override
+        public InputStream open(long position, int length) throws IOException {
+            return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    /**
+     * Other file systems: entries are read from a single open stream, seeking only for non-sequential access
+     */
+    private static class StreamSource implements Source {
+        private final FSDataInputStream in;
+        private final long length;
+
+        private StreamSource(FSDataInputStream in, long length) {
+            this.in = in;
+            this.length = length;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer) throws IOException {
+            in.readFully(position, buffer);
+        }
+
+        @Override
+        public InputStream open(long position, int length) throws IOException {
+            if (in.getPos() != position)
+                in.seek(position);
+            byte[] buffer = new byte[length];
+            in.readFully(buffer);
+            return new ByteArrayInputStream(buffer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int toSkip = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + toSkip);
+            return toSkip;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
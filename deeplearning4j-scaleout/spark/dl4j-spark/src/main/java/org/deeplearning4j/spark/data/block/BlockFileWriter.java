@@ -0,0 +1,132 @@
+package org.deeplearning4j.spark.data.block;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+
+import java.io.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes DataSet/MultiDataSet objects as entries of a single block file. See {@link BlockFileFormat} for the layout<br>
+ * The index footer is written on {@link #close()}; a block file that was not closed cannot be read.
+ */
+public class BlockFileWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final boolean compress;
+    private long position;
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+    private byte[] flags = new byte[64];
+    private int numEntries;
+    private boolean closed;
+
+    /**
+     * @param out      Stream to write the block file to. Closed when this writer is closed
+     * @param compress If true: deflate compress each entry (entries that don't compress are stored uncompressed)
+     */
+    public BlockFileWriter(OutputStream out, boolean compress) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.compress = compress;
+        this.out.write(BlockFileFormat.MAGIC);
+        this.position = BlockFileFormat.HEADER_LENGTH;
+    }
+
+    /**
+     * Append a DataSet to the block file
+     *
+     * @return Index of the entry
+     */
+    public int write(DataSet dataSet) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        dataSet.save(baos);
+        return writeEntry(baos.toByteArray());
+    }
+
+    /**
+     * Append a MultiDataSet to the block file
+     *
+     * @return Index of the entry
+     */
+    public int write(MultiDataSet multiDataSet) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        multiDataSet.save(baos);
+        return writeEntry(baos.toByteArray());
+    }
+
+    /**
+     * @return Number of entries written so far
+     */
+    public int numEntries() {
+        return numEntries;
+    }
+
+    /**
+     * @return Number of bytes written so far (excluding the index footer)
+     */
+    public long bytesWritten() {
+        return position;
+    }
+
+    private int writeEntry(byte[] bytes) throws IOException {
+        if (closed)
+            throw new IllegalStateException("Cannot write to closed BlockFileWriter");
+
+        byte entryFlags = 0;
+        if (compress) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length / 2);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater)) {
+                dos.write(bytes);
+            } finally {
+                deflater.end();
+            }
+            if (baos.size() < bytes.length) {
+                bytes = baos.toByteArray();
+                entryFlags = BlockFileFormat.FLAG_COMPRESSED;
+            }
+        }
+
+        if (numEntries == offsets.length) {
+            int newLength = 2 * offsets.length;
+            long[] newOffsets = new long[newLength];
+            int[] newLengths = new int[newLength];
+            byte[] newFlags = new byte[newLength];
+            System.arraycopy(offsets, 0, newOffsets, 0, numEntries);
+            System.arraycopy(lengths, 0, newLengths, 0, numEntries);
+            System.arraycopy(flags, 0, newFlags, 0, numEntries);
+            offsets = newOffsets;
+            lengths = newLengths;
+            flags = newFlags;
+        }
+
+        out.write(bytes);
+        offsets[numEntries] = position;
+        lengths[numEntries] = bytes.length;
+        flags[numEntries] = entryFlags;
+        position += bytes.length;
+        return numEntries++;
+    }
+
+    /**
+     * Write the index footer, and close the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        long indexOffset = position;
+        out.writeInt(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            out.writeLong(offsets[i]);
+            out.writeInt(lengths[i]);
+            out.writeByte(flags[i]);
+        }
+        out.writeLong(indexOffset);
+        out.write(BlockFileFormat.MAGIC);
+        out.close();
+    }
+}
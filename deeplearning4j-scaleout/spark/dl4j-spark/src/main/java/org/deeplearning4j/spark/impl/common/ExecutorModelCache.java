@@ -0,0 +1,241 @@
+package org.deeplearning4j.spark.impl.common;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.SparkEnv;
+import org.apache.spark.broadcast.Broadcast;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.*;
+
+/**
+ * JVM-wide (i.e., executor-local) cache of networks used by the scoring, evaluation and feed-forward functions.<br>
+ * Without this cache, each partition deserializes the network configuration, initializes the network and copies the
+ * broadcast parameters; with many small partitions this dominates the actual inference time.<br>
+ * <br>
+ * Networks are cached per (application id, broadcast parameters id, configuration) key. Broadcast ids are only unique
+ * within a SparkContext, so the configuration and number of parameters of a cached entry are also checked before
+ * reuse: a stale entry (from an earlier SparkContext in the same JVM, for example) is replaced.<br>
+ * - All network instances for the same key share one (read-only) copy of the broadcast parameters<br>
+ * - A network instance is used by at most one task thread at a time: concurrent tasks on the same executor
+ *   borrow separate instances, and {@link #release(Model)} returns them to the cache for reuse<br>
+ * - Keys are reference counted; least recently used keys that aren't in use are evicted once the number of cached
+ *   keys exceeds the limit (see {@link #MAX_ENTRIES_PROPERTY})<br>
+ * <br>
+ * <b>Note</b>: cached networks must only be used for inference - i.e., the parameters must not be modified.
+ */
+@Slf4j
+public class ExecutorModelCache {
+
+    /**
+     * System property for the maximum number of cached (parameters, configuration) keys. Default: 4
+     */
+    public static final String MAX_ENTRIES_PROPERTY = "org.deeplearning4j.spark.modelcache.maxentries";
+    public static final int DEFAULT_MAX_ENTRIES = 4;
+
+    private static final ExecutorModelCache INSTANCE =
+                    new ExecutorModelCache(Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+
+    private final int maxEntries;
+    //Access-ordered, for LRU eviction
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Model, Entry> borrowed = new IdentityHashMap<>();
+
+    public ExecutorModelCache(int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Invalid max entries: must be >= 1, got " + maxEntries);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return The JVM-wide cache instance
+     */
+    public static ExecutorModelCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Borrow a MultiLayerNetwork for the given configuration and parameters. Must be returned via {@link #release(Model)}
+     */
+    public MultiLayerNetwork borrowNetwork(@NonNull Broadcast<String> json, @NonNull Broadcast<INDArray> params) {
+        return (MultiLayerNetwork) borrow(ModelType.MULTILAYER, "b" + json.id(), json, null, params);
+    }
+
+    /**
+     * Borrow a MultiLayerNetwork for the given configuration and parameters. Must be returned via {@link #release(Model)}
+     */
+    public MultiLayerNetwork borrowNetwork(@NonNull String json, @NonNull Broadcast<INDArray> params) {
+        return (MultiLayerNetwork) borrow(ModelType.MULTILAYER, "s" + json, null, json, params);
+    }
+
+    /**
+     * Borrow a ComputationGraph for the given configuration and parameters. Must be returned via {@link #release(Model)}
+     */
+    public ComputationGraph borrowGraph(@NonNull Broadcast<String> json, @NonNull Broadcast<INDArray> params) {
+        return (ComputationGraph) borrow(ModelType.GRAPH, "b" + json.id(), json, null, params);
+    }
+
+    /**
+     * Borrow a ComputationGraph for the given configuration and parameters. Must be returned via {@link #release(Model)}
+     */
+    public ComputationGraph borrowGraph(@NonNull String json, @NonNull Broadcast<INDArray> params) {
+        return (ComputationGraph) borrow(ModelType.GRAPH, "s" + json, null, json, params);
+    }
+
+    /**
+     * Return a network previously obtained from this cache, so it can be reused by other tasks
+     */
+    public void release(Model model) {
+        if (model == null)
+            return;
+
+        synchronized (this) {
+            Entry entry = borrowed.remove(model);
+            if (entry == null) {
+                log.warn("Released model was not borrowed from this cache; ignoring");
+                return;
+            }
+
+            entry.refCount--;
+            //Entry may have been evicted while in use (if so: just drop the instance)
+            if (entries.get(entry.key) == entry) {
+                entry.idle.push(model);
+            }
+            evict();
+        }
+    }
+
+    /**
+     * @return Number of cached (parameters, configuration) keys
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove all cached networks that are not currently in use
+     */
+    public synchronized void clear() {
+        Iterator<Entry> iter = entries.values().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().refCount == 0)
+                iter.remove();
+        }
+    }
+
+    private Model borrow(ModelType type, String jsonKey, Broadcast<String> jsonBroadcast, String json,
+                    Broadcast<INDArray> params) {
+        String key = type + "_" + applicationId() + "_" + params.id() + "_" + jsonKey;
+        String conf = (jsonBroadcast != null ? jsonBroadcast.getValue() : json);
+        int numParams = params.getValue().length();
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && (entry.numParams != numParams || !entry.conf.equals(conf))) {
+                //Same key, different network: broadcast ids were reused (new SparkContext). Instances of the stale
+                // entry that are currently in use are dropped on release
+                log.debug("Replacing stale cached network for key {}", key);
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(key, conf, numParams);
+                entries.put(key, entry);
+            }
+            entry.refCount++;
+
+            Model model = entry.idle.poll();
+            if (model != null) {
+                borrowed.put(model, entry);
+                return model;
+            }
+            evict();
+        }
+
+        //No idle instance: create one outside of the cache lock (only the model creation is expensive)
+        Model model;
+        try {
+            INDArray p = entry.getParams(params);
+            if (type == ModelType.MULTILAYER) {
+                MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(conf));
+                network.init(p, false);
+                model = network;
+            } else {
+                ComputationGraph graph = new ComputationGraph(ComputationGraphConfiguration.fromJson(conf));
+                graph.init(p, false);
+                model = graph;
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                entry.refCount--;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            borrowed.put(model, entry);
+        }
+        return model;
+    }
+
+    private static String applicationId() {
+        SparkEnv env = SparkEnv.get();
+        return (env == null ? "" : env.conf().get("spark.app.id", ""));
+    }
+
+    /**
+     * Evict least recently used entries that aren't in use, until the number of entries is within the limit
+     */
+    private void evict() {
+        if (entries.size() <= maxEntries)
+            return;
+
+        Iterator<Entry> iter = entries.values().iterator();
+        while (entries.size() > maxEntries && iter.hasNext()) {
+            Entry e = iter.next();
+            if (e.refCount == 0) {
+                iter.remove();
+            }
+        }
+    }
+
+    private enum ModelType {
+        MULTILAYER, GRAPH
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String conf;
+        private final int numParams;
+        private final Deque<Model> idle = new ArrayDeque<>();
+        private int refCount;
+        private volatile INDArray params;
+
+        private Entry(String key, String conf, int numParams) {
+            this.key = key;
+            this.conf = conf;
+            this.numParams = numParams;
+        }
+
+        /**
+         * Single copy of the broadcast parameters, shared by all network instances for this entry
+         */
+        private INDArray getParams(Broadcast<INDArray> broadcast) {
+            if (params == null) {
+                synchronized (this) {
+                    if (params == null) {
+                        //.value() is shared by all executors on a single machine; we only read from it here
+                        params = broadcast.value().unsafeDuplication();
+                    }
+                }
+            }
+            return params;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import com.google.common.collect.Iterators;
+import org.deeplearning4j.spark.util.BaseFlatMapFunction2Adaptee;
+import org.deeplearning4j.spark.util.FlatMapFunction2Adapter;
+
+import java.util.Iterator;
+
+/**
+ * Function used with {@code JavaRDD.zipPartitions}: lazily concatenates the contents of the two zipped partitions
+ */
+public class ConcatPartitionsFunction<T> extends BaseFlatMapFunction2Adaptee<Iterator<T>, Iterator<T>, T> {
+
+    public ConcatPartitionsFunction() {
+        super(new ConcatPartitionsFunctionAdapter<T>());
+    }
+}
+
+
+class ConcatPartitionsFunctionAdapter<T> implements FlatMapFunction2Adapter<Iterator<T>, Iterator<T>, T> {
+
+    @Override
+    public Iterable<T> call(final Iterator<T> first, final Iterator<T> second) throws Exception {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.concat(first, second);
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import org.apache.spark.SparkEnv;
+import org.apache.spark.api.java.function.Function2;
+import scala.Tuple3;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * This is a function that counts the number of objects in each partition, and also records the executor that the
+ * partition was computed on.<br>
+ * Returns (partition index, count, executor ID) for each partition
+ */
+public class CountPartitionsWithExecutorFunction<T>
+                implements Function2<Integer, Iterator<T>, Iterator<Tuple3<Integer, Integer, String>>> {
+    @Override
+    public Iterator<Tuple3<Integer, Integer, String>> call(Integer v1, Iterator<T> v2) throws Exception {
+
+        int count = 0;
+        while (v2.hasNext()) {
+            v2.next();
+            count++;
+        }
+
+        SparkEnv env = SparkEnv.get();
+        String executorId = (env == null ? null : env.executorId());
+        return Collections.singletonList(new Tuple3<>(v1, count, executorId)).iterator();
+    }
+}
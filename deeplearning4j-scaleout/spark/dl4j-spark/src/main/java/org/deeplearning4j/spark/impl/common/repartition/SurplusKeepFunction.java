@@ -0,0 +1,45 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import org.apache.spark.api.java.function.Function2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Used with {@link SurplusRepartitionPlan}: returns (lazily) the objects that each partition keeps, i.e., the first
+ * {@link SurplusRepartitionPlan#keep(int)} objects of the partition
+ */
+public class SurplusKeepFunction<T> implements Function2<Integer, Iterator<T>, Iterator<T>> {
+
+    private final SurplusRepartitionPlan plan;
+
+    public SurplusKeepFunction(SurplusRepartitionPlan plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public Iterator<T> call(Integer partitionIdx, final Iterator<T> iter) throws Exception {
+        final int keep = (partitionIdx < plan.numPartitions() ? plan.keep(partitionIdx) : 0);
+        return new Iterator<T>() {
+            private int count = 0;
+
+            @Override
+            public boolean hasNext() {
+                return count < keep && iter.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                count++;
+                return iter.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import org.apache.spark.api.java.function.Function2;
+import scala.Tuple2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Used with {@link SurplusRepartitionPlan}: returns (lazily) the surplus objects of each partition - i.e., all objects
+ * after the first {@link SurplusRepartitionPlan#keep(int)} - keyed by the index of the partition they should be moved
+ * to.<br>
+ * If a partition has more objects than expected by the plan, the additional objects stay in their current partition.
+ */
+public class SurplusMoveFunction<T> implements Function2<Integer, Iterator<T>, Iterator<Tuple2<Integer, T>>> {
+
+    private final SurplusRepartitionPlan plan;
+
+    public SurplusMoveFunction(SurplusRepartitionPlan plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public Iterator<Tuple2<Integer, T>> call(final Integer partitionIdx, final Iterator<T> iter) throws Exception {
+        final boolean inPlan = partitionIdx < plan.numPartitions();
+        final int[] moveTo = (inPlan ? plan.moveTo(partitionIdx) : new int[0]);
+        final int[] moveCounts = (inPlan ? plan.moveCounts(partitionIdx) : new int[0]);
+
+        //Skip the objects that this partition keeps
+        int keep = (inPlan ? plan.keep(partitionIdx) : 0);
+        for (int i = 0; i < keep && iter.hasNext(); i++) {
+            iter.next();
+        }
+
+        return new Iterator<Tuple2<Integer, T>>() {
+            private int moveIdx = 0;
+            private int countInMove = 0;
+
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public Tuple2<Integer, T> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                while (moveIdx < moveTo.length && countInMove >= moveCounts[moveIdx]) {
+                    moveIdx++;
+                    countInMove = 0;
+                }
+
+                int destination;
+                if (moveIdx < moveTo.length) {
+                    destination = moveTo[moveIdx];
+                    countInMove++;
+                } else {
+                    //More objects than planned for: keep in this partition
+                    destination = partitionIdx;
+                }
+                return new Tuple2<>(destination, iter.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
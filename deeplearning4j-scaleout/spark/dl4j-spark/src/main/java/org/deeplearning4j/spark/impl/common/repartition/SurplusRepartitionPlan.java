@@ -0,0 +1,170 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Plan for the {@link org.deeplearning4j.spark.api.RepartitionStrategy#SurplusBalanced} repartitioning strategy.<br>
+ * Given the number of objects in each partition, each partition keeps as many of its objects as possible (up to its
+ * target size), and only the surplus objects are moved to partitions with fewer objects than their target. The target
+ * sizes differ by at most 1; the larger targets are assigned to the largest partitions, to minimize the number of moved
+ * objects.<br>
+ * If the executor of each partition is known, surplus objects are preferentially moved between partitions on the same
+ * executor.
+ */
+public class SurplusRepartitionPlan implements Serializable {
+
+    private final int[] keep;
+    private final int[][] moveTo;
+    private final int[][] moveCounts;
+    private final int numMoved;
+
+    private SurplusRepartitionPlan(int[] keep, int[][] moveTo, int[][] moveCounts, int numMoved) {
+        this.keep = keep;
+        this.moveTo = moveTo;
+        this.moveCounts = moveCounts;
+        this.numMoved = numMoved;
+    }
+
+    /**
+     * Create a plan
+     *
+     * @param counts    Number of objects in each partition
+     * @param executors Executor for each partition (may be null, or contain null values, if unknown)
+     */
+    public static SurplusRepartitionPlan create(int[] counts, String[] executors) {
+        int n = counts.length;
+        if (n == 0)
+            throw new IllegalArgumentException("Cannot create plan for 0 partitions");
+        if (executors != null && executors.length != n)
+            throw new IllegalArgumentException("Number of executors (" + executors.length
+                            + ") does not match number of partitions (" + n + ")");
+
+        long total = 0;
+        for (int c : counts)
+            total += c;
+        int base = (int) (total / n);
+        int remainder = (int) (total % n);
+
+        //Largest partitions get the larger targets, so fewer objects need to be moved
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        final int[] c = counts;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int cmp = Integer.compare(c[o2], c[o1]);
+                return cmp != 0 ? cmp : Integer.compare(o1, o2);
+            }
+        });
+
+        int[] keep = new int[n];
+        int[] surplus = new int[n];
+        int[] deficit = new int[n];
+        for (int i = 0; i < n; i++) {
+            int p = order[i];
+            int target = base + (i < remainder ? 1 : 0);
+            keep[p] = Math.min(counts[p], target);
+            surplus[p] = Math.max(0, counts[p] - target);
+            deficit[p] = Math.max(0, target - counts[p]);
+        }
+
+        List<List<int[]>> moves = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            moves.add(new ArrayList<int[]>());
+
+        //First: moves within each executor
+        if (executors != null) {
+            Map<String, List<Integer>> byExecutor = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) {
+                if (executors[i] == null)
+                    continue;
+                List<Integer> l = byExecutor.get(executors[i]);
+                if (l == null) {
+                    l = new ArrayList<>();
+                    byExecutor.put(executors[i], l);
+                }
+                l.add(i);
+            }
+            for (List<Integer> partitions : byExecutor.values()) {
+                match(partitions, surplus, deficit, moves);
+            }
+        }
+
+        //Then: any remaining moves, between executors
+        List<Integer> all = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            all.add(i);
+        match(all, surplus, deficit, moves);
+
+        int[][] moveTo = new int[n][0];
+        int[][] moveCounts = new int[n][0];
+        int numMoved = 0;
+        for (int i = 0; i < n; i++) {
+            List<int[]> l = moves.get(i);
+            moveTo[i] = new int[l.size()];
+            moveCounts[i] = new int[l.size()];
+            for (int j = 0; j < l.size(); j++) {
+                moveTo[i][j] = l.get(j)[0];
+                moveCounts[i][j] = l.get(j)[1];
+                numMoved += l.get(j)[1];
+            }
+        }
+
+        return new SurplusRepartitionPlan(keep, moveTo, moveCounts, numMoved);
+    }
+
+    private static void match(List<Integer> partitions, int[] surplus, int[] deficit, List<List<int[]>> moves) {
+        Iterator<Integer> deficitIter = partitions.iterator();
+        int d = -1;
+        for (int s : partitions) {
+            while (surplus[s] > 0) {
+                while (d < 0 || deficit[d] == 0) {
+                    if (!deficitIter.hasNext())
+                        return;
+                    d = deficitIter.next();
+                }
+                int m = Math.min(surplus[s], deficit[d]);
+                moves.get(s).add(new int[] {d, m});
+                surplus[s] -= m;
+                deficit[d] -= m;
+            }
+        }
+    }
+
+    /**
+     * @return Number of partitions, both before and after repartitioning
+     */
+    public int numPartitions() {
+        return keep.length;
+    }
+
+    /**
+     * @return Total number of objects to be moved between partitions
+     */
+    public int numMoved() {
+        return numMoved;
+    }
+
+    /**
+     * @return Number of objects (the first objects of the partition) that the specified partition keeps
+     */
+    public int keep(int partition) {
+        return keep[partition];
+    }
+
+    /**
+     * @return Partitions to move the surplus objects of the specified partition to, in order
+     */
+    public int[] moveTo(int partition) {
+        return moveTo[partition];
+    }
+
+    /**
+     * @return Number of surplus objects to move to each of the partitions in {@link #moveTo(int)}
+     */
+    public int[] moveCounts(int partition) {
+        return moveCounts[partition];
+    }
+}
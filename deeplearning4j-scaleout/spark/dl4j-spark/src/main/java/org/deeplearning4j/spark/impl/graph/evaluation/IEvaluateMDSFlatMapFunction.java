@@ -24,8 +24,8 @@ import org.datavec.spark.functions.FlatMapFunctionAdapter;
 import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
 import org.deeplearning4j.datasets.iterator.IteratorMultiDataSetIterator;
 import org.deeplearning4j.eval.IEvaluation;
-import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.deeplearning4j.spark.iterator.SparkAMDSI;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
@@ -87,17 +87,15 @@ class IEvaluateMDSFlatMapFunctionAdapter<T extends IEvaluation>
             return Collections.emptyList();
         }
 
-        INDArray val = params.value().unsafeDuplication();
-        ComputationGraph graph = new ComputationGraph(ComputationGraphConfiguration.fromJson(json.getValue()));
-        graph.init();
-        if (val.length() != graph.numParams(false))
-            throw new IllegalStateException(
-                            "Network did not have same number of parameters as the broadcast set parameters");
-        graph.setParams(val);
-
-        T[] eval = graph.doEvaluation(
-                        new SparkAMDSI(new IteratorMultiDataSetIterator(dataSetIterator, evalBatchSize), 2, true),
-                        evaluations);
-        return Collections.singletonList(eval);
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
+        ComputationGraph graph = cache.borrowGraph(json, params);
+        try {
+            T[] eval = graph.doEvaluation(
+                            new SparkAMDSI(new IteratorMultiDataSetIterator(dataSetIterator, evalBatchSize), 2, true),
+                            evaluations);
+            return Collections.singletonList(eval);
+        } finally {
+            cache.release(graph);
+        }
     }
 }
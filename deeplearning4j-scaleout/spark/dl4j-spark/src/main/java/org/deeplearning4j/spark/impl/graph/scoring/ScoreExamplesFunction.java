@@ -20,8 +20,8 @@ package org.deeplearning4j.spark.impl.graph.scoring;
 
 import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.functions.FlatMapFunctionAdapter;
-import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.deeplearning4j.spark.util.BaseDoubleFlatMapFunctionAdaptee;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
@@ -81,47 +81,45 @@ class ScoreExamplesFunctionAdapter implements FlatMapFunctionAdapter<Iterator<Mu
             return Collections.emptyList();
         }
 
-        ComputationGraph network = new ComputationGraph(ComputationGraphConfiguration.fromJson(jsonConfig.getValue()));
-        network.init();
-        INDArray val = params.value().unsafeDuplication();
-        if (val.length() != network.numParams(false))
-            throw new IllegalStateException(
-                            "Network did not have same number of parameters as the broadcast set parameters");
-        network.setParams(val);
-
-        List<Double> ret = new ArrayList<>();
-
-        List<MultiDataSet> collect = new ArrayList<>(batchSize);
-        int totalCount = 0;
-        while (iterator.hasNext()) {
-            collect.clear();
-            int nExamples = 0;
-            while (iterator.hasNext() && nExamples < batchSize) {
-                MultiDataSet ds = iterator.next();
-                int n = ds.getFeatures(0).size(0);
-                collect.add(ds);
-                nExamples += n;
-            }
-            totalCount += nExamples;
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
+        ComputationGraph network = cache.borrowGraph(jsonConfig, params);
+        try {
+            List<Double> ret = new ArrayList<>();
+
+            List<MultiDataSet> collect = new ArrayList<>(batchSize);
+            int totalCount = 0;
+            while (iterator.hasNext()) {
+                collect.clear();
+                int nExamples = 0;
+                while (iterator.hasNext() && nExamples < batchSize) {
+                    MultiDataSet ds = iterator.next();
+                    int n = ds.getFeatures(0).size(0);
+                    collect.add(ds);
+                    nExamples += n;
+                }
+                totalCount += nExamples;
 
 
-            MultiDataSet data = org.nd4j.linalg.dataset.MultiDataSet.merge(collect);
+                MultiDataSet data = org.nd4j.linalg.dataset.MultiDataSet.merge(collect);
 
 
-            INDArray scores = network.scoreExamples(data, addRegularization);
-            double[] doubleScores = scores.data().asDouble();
+                INDArray scores = network.scoreExamples(data, addRegularization);
+                double[] doubleScores = scores.data().asDouble();
 
-            for (double doubleScore : doubleScores) {
-                ret.add(doubleScore);
+                for (double doubleScore : doubleScores) {
+                    ret.add(doubleScore);
+                }
             }
-        }
 
-        Nd4j.getExecutioner().commit();
+            Nd4j.getExecutioner().commit();
 
-        if (log.isDebugEnabled()) {
-            log.debug("Scored {} examples ", totalCount);
-        }
+            if (log.isDebugEnabled()) {
+                log.debug("Scored {} examples ", totalCount);
+            }
 
-        return ret;
+            return ret;
+        } finally {
+            cache.release(network);
+        }
     }
 }
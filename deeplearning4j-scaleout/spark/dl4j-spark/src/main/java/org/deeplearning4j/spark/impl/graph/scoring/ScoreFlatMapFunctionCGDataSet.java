@@ -22,8 +22,8 @@ import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.functions.FlatMapFunctionAdapter;
 import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
 import org.deeplearning4j.datasets.iterator.IteratorDataSetIterator;
-import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
@@ -71,24 +71,22 @@ class ScoreFlatMapFunctionCGDataSetAdapter
 
         DataSetIterator iter = new IteratorDataSetIterator(dataSetIterator, minibatchSize); //Does batching where appropriate
 
-        ComputationGraph network = new ComputationGraph(ComputationGraphConfiguration.fromJson(json));
-        network.init();
-        INDArray val = params.value().unsafeDuplication(); //.value() is shared by all executors on single machine -> OK, as params are not changed in score function
-        if (val.length() != network.numParams(false))
-            throw new IllegalStateException(
-                            "Network did not have same number of parameters as the broadcast set parameters");
-        network.setParams(val);
-
-        List<Tuple2<Integer, Double>> out = new ArrayList<>();
-        while (iter.hasNext()) {
-            DataSet ds = iter.next();
-            double score = network.score(ds, false);
-            int numExamples = ds.getFeatureMatrix().size(0);
-            out.add(new Tuple2<>(numExamples, score * numExamples));
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
+        ComputationGraph network = cache.borrowGraph(json, params);
+        try {
+            List<Tuple2<Integer, Double>> out = new ArrayList<>();
+            while (iter.hasNext()) {
+                DataSet ds = iter.next();
+                double score = network.score(ds, false);
+                int numExamples = ds.getFeatureMatrix().size(0);
+                out.add(new Tuple2<>(numExamples, score * numExamples));
+            }
+
+            Nd4j.getExecutioner().commit();
+
+            return out;
+        } finally {
+            cache.release(network);
         }
-
-        Nd4j.getExecutioner().commit();
-
-        return out;
     }
 }
@@ -22,8 +22,8 @@ import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.functions.FlatMapFunctionAdapter;
 import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
 import org.deeplearning4j.datasets.iterator.IteratorMultiDataSetIterator;
-import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
@@ -72,24 +72,22 @@ class ScoreFlatMapFunctionCGMultiDataSetAdapter
         MultiDataSetIterator iter = new IteratorMultiDataSetIterator(dataSetIterator, minibatchSize); //Does batching where appropriate
 
 
-        ComputationGraph network = new ComputationGraph(ComputationGraphConfiguration.fromJson(json));
-        network.init();
-        INDArray val = params.value().unsafeDuplication(); //.value() is shared by all executors on single machine -> OK, as params are not changed in score function
-        if (val.length() != network.numParams(false))
-            throw new IllegalStateException(
-                            "Network did not have same number of parameters as the broadcast set parameters");
-        network.setParams(val);
-
-        List<Tuple2<Integer, Double>> out = new ArrayList<>();
-        while (iter.hasNext()) {
-            MultiDataSet ds = iter.next();
-            double score = network.score(ds, false);
-            int numExamples = ds.getFeatures(0).size(0);
-            out.add(new Tuple2<>(numExamples, score * numExamples));
-        }
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
+        ComputationGraph network = cache.borrowGraph(json, params);
+        try {
+            List<Tuple2<Integer, Double>> out = new ArrayList<>();
+            while (iter.hasNext()) {
+                MultiDataSet ds = iter.next();
+                double score = network.score(ds, false);
+                int numExamples = ds.getFeatures(0).size(0);
+                out.add(new Tuple2<>(numExamples, score * numExamples));
+            }
 
-        Nd4j.getExecutioner().commit();
+            Nd4j.getExecutioner().commit();
 
-        return out;
+            return out;
+        } finally {
+            cache.release(network);
+        }
     }
 }
@@ -24,10 +24,9 @@ import org.datavec.spark.functions.FlatMapFunctionAdapter;
 import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
 import org.deeplearning4j.datasets.iterator.IteratorDataSetIterator;
 import org.deeplearning4j.eval.IEvaluation;
-import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
-import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.deeplearning4j.spark.iterator.SparkADSI;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
@@ -90,34 +89,27 @@ class IEvaluateFlatMapFunctionAdapter<T extends IEvaluation> implements FlatMapF
             return Collections.emptyList();
         }
 
-        MultiLayerNetwork network = null;
-        ComputationGraph graph = null;
-        INDArray val = params.value().unsafeDuplication();
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
         if (isCompGraph) {
-            graph = new ComputationGraph(ComputationGraphConfiguration.fromJson(json.getValue()));
-            graph.init();
-            if (val.length() != graph.numParams(false))
-                throw new IllegalStateException(
-                                "Network did not have same number of parameters as the broadcast set parameters");
-            graph.setParams(val);
-
-            T[] eval = graph.doEvaluation(
-                            new SparkADSI(new IteratorDataSetIterator(dataSetIterator, evalBatchSize), 2, true),
-                            evaluations);
-            return Collections.singletonList(eval);
-
+            ComputationGraph graph = cache.borrowGraph(json, params);
+            try {
+                T[] eval = graph.doEvaluation(
+                                new SparkADSI(new IteratorDataSetIterator(dataSetIterator, evalBatchSize), 2, true),
+                                evaluations);
+                return Collections.singletonList(eval);
+            } finally {
+                cache.release(graph);
+            }
         } else {
-            network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(json.getValue()));
-            network.init();
-            if (val.length() != network.numParams(false))
-                throw new IllegalStateException(
-                                "Network did not have same number of parameters as the broadcast set parameters");
-            network.setParameters(val);
-
-            T[] eval = network.doEvaluation(
-                            new SparkADSI(new IteratorDataSetIterator(dataSetIterator, evalBatchSize), 2, true),
-                            evaluations);
-            return Collections.singletonList(eval);
+            MultiLayerNetwork network = cache.borrowNetwork(json, params);
+            try {
+                T[] eval = network.doEvaluation(
+                                new SparkADSI(new IteratorDataSetIterator(dataSetIterator, evalBatchSize), 2, true),
+                                evaluations);
+                return Collections.singletonList(eval);
+            } finally {
+                cache.release(network);
+            }
         }
     }
 }
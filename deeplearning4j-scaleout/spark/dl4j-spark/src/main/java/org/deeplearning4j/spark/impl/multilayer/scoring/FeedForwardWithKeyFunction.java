@@ -20,8 +20,8 @@ package org.deeplearning4j.spark.impl.multilayer.scoring;
 
 import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.functions.FlatMapFunctionAdapter;
-import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.deeplearning4j.spark.util.BasePairFlatMapFunctionAdaptee;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
@@ -85,96 +85,94 @@ class FeedForwardWithKeyFunctionAdapter<K>
             return Collections.emptyList();
         }
 
-        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(jsonConfig.getValue()));
-        network.init();
-        INDArray val = params.value().unsafeDuplication();
-        if (val.length() != network.numParams(false))
-            throw new IllegalStateException(
-                            "Network did not have same number of parameters as the broadcasted set parameters");
-        network.setParameters(val);
-
-        //Issue: for 2d data (MLPs etc) we can just stack the examples.
-        //But: for 3d and 4d: in principle the data sizes could be different
-        //We could handle that with mask arrays - but it gets messy. The approach used here is simpler but less efficient
-
-        List<INDArray> featuresList = new ArrayList<>(batchSize);
-        List<K> keyList = new ArrayList<>(batchSize);
-        List<Integer> origSizeList = new ArrayList<>();
-
-        int[] firstShape = null;
-        boolean sizesDiffer = false;
-        int tupleCount = 0;
-        while (iterator.hasNext()) {
-            Tuple2<K, INDArray> t2 = iterator.next();
-            if (firstShape == null) {
-                firstShape = t2._2().shape();
-            } else if (!sizesDiffer) {
-                for (int i = 1; i < firstShape.length; i++) {
-                    if (firstShape[i] != featuresList.get(tupleCount - 1).size(i)) {
-                        sizesDiffer = true;
-                        break;
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
+        MultiLayerNetwork network = cache.borrowNetwork(jsonConfig, params);
+        try {
+            //Issue: for 2d data (MLPs etc) we can just stack the examples.
+            //But: for 3d and 4d: in principle the data sizes could be different
+            //We could handle that with mask arrays - but it gets messy. The approach used here is simpler but less efficient
+
+            List<INDArray> featuresList = new ArrayList<>(batchSize);
+            List<K> keyList = new ArrayList<>(batchSize);
+            List<Integer> origSizeList = new ArrayList<>();
+
+            int[] firstShape = null;
+            boolean sizesDiffer = false;
+            int tupleCount = 0;
+            while (iterator.hasNext()) {
+                Tuple2<K, INDArray> t2 = iterator.next();
+                if (firstShape == null) {
+                    firstShape = t2._2().shape();
+                } else if (!sizesDiffer) {
+                    for (int i = 1; i < firstShape.length; i++) {
+                        if (firstShape[i] != featuresList.get(tupleCount - 1).size(i)) {
+                            sizesDiffer = true;
+                            break;
+                        }
                     }
                 }
+                featuresList.add(t2._2());
+                keyList.add(t2._1());
+                origSizeList.add(t2._2().size(0));
+                tupleCount++;
             }
-            featuresList.add(t2._2());
-            keyList.add(t2._1());
-            origSizeList.add(t2._2().size(0));
-            tupleCount++;
-        }
 
-        if (tupleCount == 0) {
-            return Collections.emptyList();
-        }
-
-        List<Tuple2<K, INDArray>> output = new ArrayList<>(tupleCount);
-        int currentArrayIndex = 0;
+            if (tupleCount == 0) {
+                return Collections.emptyList();
+            }
 
-        while (currentArrayIndex < featuresList.size()) {
-            int firstIdx = currentArrayIndex;
-            int nextIdx = currentArrayIndex;
-            int examplesInBatch = 0;
-            List<INDArray> toMerge = new ArrayList<>();
-            firstShape = null;
-            while (nextIdx < featuresList.size() && examplesInBatch < batchSize) {
-                if (firstShape == null) {
-                    firstShape = featuresList.get(nextIdx).shape();
-                } else if (sizesDiffer) {
-                    boolean breakWhile = false;
-                    for (int i = 1; i < firstShape.length; i++) {
-                        if (firstShape[i] != featuresList.get(nextIdx).size(i)) {
-                            //Next example has a different size. So: don't add it to the current batch, just process what we have
-                            breakWhile = true;
+            List<Tuple2<K, INDArray>> output = new ArrayList<>(tupleCount);
+            int currentArrayIndex = 0;
+
+            while (currentArrayIndex < featuresList.size()) {
+                int firstIdx = currentArrayIndex;
+                int nextIdx = currentArrayIndex;
+                int examplesInBatch = 0;
+                List<INDArray> toMerge = new ArrayList<>();
+                firstShape = null;
+                while (nextIdx < featuresList.size() && examplesInBatch < batchSize) {
+                    if (firstShape == null) {
+                        firstShape = featuresList.get(nextIdx).shape();
+                    } else if (sizesDiffer) {
+                        boolean breakWhile = false;
+                        for (int i = 1; i < firstShape.length; i++) {
+                            if (firstShape[i] != featuresList.get(nextIdx).size(i)) {
+                                //Next example has a different size. So: don't add it to the current batch, just process what we have
+                                breakWhile = true;
+                                break;
+                            }
+                        }
+                        if (breakWhile) {
                             break;
                         }
                     }
-                    if (breakWhile) {
-                        break;
-                    }
+
+                    INDArray f = featuresList.get(nextIdx++);
+                    toMerge.add(f);
+                    examplesInBatch += f.size(0);
                 }
 
-                INDArray f = featuresList.get(nextIdx++);
-                toMerge.add(f);
-                examplesInBatch += f.size(0);
-            }
+                INDArray batchFeatures = Nd4j.concat(0, toMerge.toArray(new INDArray[toMerge.size()]));
+                INDArray out = network.output(batchFeatures, false);
 
-            INDArray batchFeatures = Nd4j.concat(0, toMerge.toArray(new INDArray[toMerge.size()]));
-            INDArray out = network.output(batchFeatures, false);
+                examplesInBatch = 0;
+                for (int i = firstIdx; i < nextIdx; i++) {
+                    int numExamples = origSizeList.get(i);
+                    INDArray outputSubset = getSubset(examplesInBatch, examplesInBatch + numExamples, out);
+                    examplesInBatch += numExamples;
 
-            examplesInBatch = 0;
-            for (int i = firstIdx; i < nextIdx; i++) {
-                int numExamples = origSizeList.get(i);
-                INDArray outputSubset = getSubset(examplesInBatch, examplesInBatch + numExamples, out);
-                examplesInBatch += numExamples;
+                    output.add(new Tuple2<>(keyList.get(i), outputSubset));
+                }
 
-                output.add(new Tuple2<>(keyList.get(i), outputSubset));
+                currentArrayIndex += (nextIdx - firstIdx);
             }
 
-            currentArrayIndex += (nextIdx - firstIdx);
-        }
-
-        Nd4j.getExecutioner().commit();
+            Nd4j.getExecutioner().commit();
 
-        return output;
+            return output;
+        } finally {
+            cache.release(network);
+        }
     }
 
     private INDArray getSubset(int exampleStart, int exampleEnd, INDArray from) {
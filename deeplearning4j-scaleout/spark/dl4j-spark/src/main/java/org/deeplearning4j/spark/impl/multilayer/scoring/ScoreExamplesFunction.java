@@ -20,8 +20,8 @@ package org.deeplearning4j.spark.impl.multilayer.scoring;
 
 import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.functions.FlatMapFunctionAdapter;
-import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.deeplearning4j.spark.util.BaseDoubleFlatMapFunctionAdaptee;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
@@ -81,46 +81,44 @@ class ScoreExamplesFunctionAdapter implements FlatMapFunctionAdapter<Iterator<Da
             return Collections.emptyList();
         }
 
-        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(jsonConfig.getValue()));
-        network.init();
-        INDArray val = params.value().unsafeDuplication();
-        if (val.length() != network.numParams(false))
-            throw new IllegalStateException(
-                            "Network did not have same number of parameters as the broadcast set parameters");
-        network.setParameters(val);
-
-        List<Double> ret = new ArrayList<>();
-
-        List<DataSet> collect = new ArrayList<>(batchSize);
-        int totalCount = 0;
-        while (iterator.hasNext()) {
-            collect.clear();
-            int nExamples = 0;
-            while (iterator.hasNext() && nExamples < batchSize) {
-                DataSet ds = iterator.next();
-                int n = ds.numExamples();
-                collect.add(ds);
-                nExamples += n;
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
+        MultiLayerNetwork network = cache.borrowNetwork(jsonConfig, params);
+        try {
+            List<Double> ret = new ArrayList<>();
+
+            List<DataSet> collect = new ArrayList<>(batchSize);
+            int totalCount = 0;
+            while (iterator.hasNext()) {
+                collect.clear();
+                int nExamples = 0;
+                while (iterator.hasNext() && nExamples < batchSize) {
+                    DataSet ds = iterator.next();
+                    int n = ds.numExamples();
+                    collect.add(ds);
+                    nExamples += n;
+                }
+                totalCount += nExamples;
+
+                DataSet data = DataSet.merge(collect);
+
+
+                INDArray scores = network.scoreExamples(data, addRegularization);
+                double[] doubleScores = scores.data().asDouble();
+
+                for (double doubleScore : doubleScores) {
+                    ret.add(doubleScore);
+                }
             }
-            totalCount += nExamples;
 
-            DataSet data = DataSet.merge(collect);
+            Nd4j.getExecutioner().commit();
 
-
-            INDArray scores = network.scoreExamples(data, addRegularization);
-            double[] doubleScores = scores.data().asDouble();
-
-            for (double doubleScore : doubleScores) {
-                ret.add(doubleScore);
+            if (log.isDebugEnabled()) {
+                log.debug("Scored {} examples ", totalCount);
             }
-        }
 
-        Nd4j.getExecutioner().commit();
-
-        if (log.isDebugEnabled()) {
-            log.debug("Scored {} examples ", totalCount);
+            return ret;
+        } finally {
+            cache.release(network);
         }
-
-        return ret;
     }
 }
@@ -4,8 +4,8 @@ import org.apache.spark.broadcast.Broadcast;
 import org.datavec.spark.functions.FlatMapFunctionAdapter;
 import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
 import org.deeplearning4j.datasets.iterator.IteratorDataSetIterator;
-import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.spark.impl.common.ExecutorModelCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
@@ -50,24 +50,22 @@ class ScoreFlatMapFunctionAdapter implements FlatMapFunctionAdapter<Iterator<Dat
 
         DataSetIterator iter = new IteratorDataSetIterator(dataSetIterator, minibatchSize); //Does batching where appropriate
 
-        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(json));
-        network.init();
-        INDArray val = params.value().unsafeDuplication(); //.value() object will be shared by all executors on each machine -> OK, as params are not modified by score function
-        if (val.length() != network.numParams(false))
-            throw new IllegalStateException(
-                            "Network did not have same number of parameters as the broadcast set parameters");
-        network.setParameters(val);
-
-        List<Tuple2<Integer, Double>> out = new ArrayList<>();
-        while (iter.hasNext()) {
-            DataSet ds = iter.next();
-            double score = network.score(ds, false);
-            int numExamples = ds.getFeatureMatrix().size(0);
-            out.add(new Tuple2<>(numExamples, score * numExamples));
+        ExecutorModelCache cache = ExecutorModelCache.getInstance();
+        MultiLayerNetwork network = cache.borrowNetwork(json, params);
+        try {
+            List<Tuple2<Integer, Double>> out = new ArrayList<>();
+            while (iter.hasNext()) {
+                DataSet ds = iter.next();
+                double score = network.score(ds, false);
+                int numExamples = ds.getFeatureMatrix().size(0);
+                out.add(new Tuple2<>(numExamples, score * numExamples));
+            }
+
+            Nd4j.getExecutioner().commit();
+
+            return out;
+        } finally {
+            cache.release(network);
         }
-
-        Nd4j.getExecutioner().commit();
-
-        return out;
     }
 }
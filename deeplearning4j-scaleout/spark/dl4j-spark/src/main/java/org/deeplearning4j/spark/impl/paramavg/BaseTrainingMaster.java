@@ -72,6 +72,8 @@ public abstract class BaseTrainingMaster<R extends TrainingResult, W extends Tra
     @JsonDeserialize(using = StorageLevelDeserializer.class)
     protected StorageLevel storageLevelStreams = StorageLevel.MEMORY_ONLY();
     protected RDDTrainingApproach rddTrainingApproach = RDDTrainingApproach.Export;
+    protected DataExportFormat exportFormat = DataExportFormat.Files;
+    protected boolean exportCompression = false;
 
     protected BaseTrainingMaster() {
 
@@ -180,7 +182,8 @@ public abstract class BaseTrainingMaster<R extends TrainingResult, W extends Tra
 
         log.info("Initiating RDD<DataSet> export at {}", baseDir);
         JavaRDD<String> paths = trainingData
-                        .mapPartitionsWithIndex(new BatchAndExportDataSetsFunction(batchSizePerWorker, dataDir), true);
+                        .mapPartitionsWithIndex(new BatchAndExportDataSetsFunction(batchSizePerWorker, dataDir,
+                                        exportFormat, exportCompression), true);
         paths.saveAsTextFile(pathsDir);
         log.info("RDD<DataSet> export complete at {}", baseDir);
 
@@ -196,7 +199,8 @@ public abstract class BaseTrainingMaster<R extends TrainingResult, W extends Tra
 
         log.info("Initiating RDD<MultiDataSet> export at {}", baseDir);
         JavaRDD<String> paths = trainingData.mapPartitionsWithIndex(
-                        new BatchAndExportMultiDataSetsFunction(batchSizePerWorker, dataDir), true);
+                        new BatchAndExportMultiDataSetsFunction(batchSizePerWorker, dataDir, exportFormat,
+                                        exportCompression), true);
         paths.saveAsTextFile(pathsDir);
         log.info("RDD<MultiDataSet> export complete at {}", baseDir);
 
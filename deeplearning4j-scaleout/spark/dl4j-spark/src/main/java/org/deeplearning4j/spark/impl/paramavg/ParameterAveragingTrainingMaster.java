@@ -2,6 +2,7 @@ package org.deeplearning4j.spark.impl.paramavg;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
@@ -26,6 +27,8 @@ import org.deeplearning4j.spark.impl.graph.SparkComputationGraph;
 import org.deeplearning4j.spark.impl.graph.dataset.DataSetToMultiDataSetFn;
 import org.deeplearning4j.spark.impl.listeners.VanillaStatsStorageRouterProvider;
 import org.deeplearning4j.spark.impl.multilayer.SparkDl4jMultiLayer;
+import org.deeplearning4j.spark.impl.paramavg.aggregator.AggregationCompression;
+import org.deeplearning4j.spark.impl.paramavg.aggregator.ExecutorLocalAggregationFunction;
 import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingAggregationTuple;
 import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingElementAddFunction;
 import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingElementCombineFunction;
@@ -55,9 +58,9 @@ import static com.google.common.base.Preconditions.checkArgument;
  */
 @Data
 @JsonIgnoreProperties({"stats", "listeners", "iterationCount", "rng", "lastExportedRDDId", "lastRDDExportPath",
-                "trainingMasterUID"})
+                "trainingMasterUID", "aggregationRound"})
 @EqualsAndHashCode(exclude = {"stats", "listeners", "iterationCount", "rng", "lastExportedRDDId", "lastRDDExportPath",
-                "trainingMasterUID"})
+                "trainingMasterUID", "aggregationRound"})
 @Slf4j
 public class ParameterAveragingTrainingMaster
                 extends BaseTrainingMaster<ParameterAveragingTrainingResult, ParameterAveragingTrainingWorker>
@@ -72,8 +75,11 @@ public class ParameterAveragingTrainingMaster
 
     protected int averagingFrequency;
     protected int aggregationDepth;
+    protected AggregationCompression aggregationCompression = AggregationCompression.NONE;
+    protected boolean executorLocalAggregation = false;
     protected int prefetchNumBatches;
     protected int iterationCount = 0;
+    protected int aggregationRound = 0;
 
     protected Collection<TrainingHook> trainingHookList;
 
@@ -93,6 +99,8 @@ public class ParameterAveragingTrainingMaster
         this.batchSizePerWorker = builder.batchSizePerWorker;
         this.averagingFrequency = builder.averagingFrequency;
         this.aggregationDepth = builder.aggregationDepth;
+        this.aggregationCompression = builder.aggregationCompression;
+        this.executorLocalAggregation = builder.executorLocalAggregation;
         this.prefetchNumBatches = builder.prefetchNumBatches;
         this.repartition = builder.repartition;
         this.repartitionStrategy = builder.repartitionStrategy;
@@ -100,6 +108,8 @@ public class ParameterAveragingTrainingMaster
         this.storageLevelStreams = builder.storageLevelStreams;
         this.rddTrainingApproach = builder.rddTrainingApproach;
         this.exportDirectory = builder.exportDirectory;
+        this.exportFormat = builder.exportFormat;
+        this.exportCompression = builder.exportCompression;
         this.trainingHookList = builder.trainingHooks;
 
         if (builder.rngSeed == null) {
@@ -263,7 +273,7 @@ public class ParameterAveragingTrainingMaster
         WorkerConfiguration configuration = new WorkerConfiguration(false, rddDataSetNumExamples, batchSizePerWorker,
                         averagingFrequency, prefetchNumBatches, collectTrainingStats);
         return new ParameterAveragingTrainingWorker(broadcast, saveUpdater, configuration, trainingHookList, listeners,
-                        getRouterProvider());
+                        getRouterProvider(), aggregationCompression == AggregationCompression.DELTA_FP16);
     }
 
     @Override
@@ -280,7 +290,7 @@ public class ParameterAveragingTrainingMaster
         WorkerConfiguration configuration = new WorkerConfiguration(true, rddDataSetNumExamples, batchSizePerWorker,
                         averagingFrequency, prefetchNumBatches, collectTrainingStats);
         return new ParameterAveragingTrainingWorker(broadcast, saveUpdater, configuration, trainingHookList, listeners,
-                        getRouterProvider());
+                        getRouterProvider(), aggregationCompression == AggregationCompression.DELTA_FP16);
     }
 
     protected int numObjectsEachWorker(int numExamplesEachRddObject) {
@@ -795,22 +805,44 @@ public class ParameterAveragingTrainingMaster
         //Need to do parameter averaging, and where necessary also do averaging of the updaters
         //Let's do all of this in ONE step, such that we don't have extra synchronization costs
 
+        if (executorLocalAggregation) {
+            //First level of aggregation: sum the results within each executor, so only one set of parameters per
+            // executor (instead of one per partition) needs to be serialized and sent over the network
+            String aggregationKey = trainingMasterUID + "_" + (aggregationRound++);
+            results = results.mapPartitionsWithIndex(new ExecutorLocalAggregationFunction(aggregationKey), false);
+        }
+
         if (collectTrainingStats)
             stats.logAggregateStartTime();
-        ParameterAveragingAggregationTuple tuple =
-                        results.treeAggregate(null, new ParameterAveragingElementAddFunction(),
-                                        new ParameterAveragingElementCombineFunction(), this.aggregationDepth);
+        ParameterAveragingAggregationTuple tuple = results.treeAggregate(null,
+                        new ParameterAveragingElementAddFunction(aggregationCompression),
+                        new ParameterAveragingElementCombineFunction(aggregationCompression), this.aggregationDepth);
         INDArray params = tuple.getParametersSum();
         int aggCount = tuple.getAggregationsCount();
         SparkTrainingStats aggregatedStats = tuple.getSparkTrainingStats();
         if (collectTrainingStats)
             stats.logAggregationEndTime();
 
+        boolean discard = false;
+        if (executorLocalAggregation && params != null && tuple.getAggregatedPartitions() != null
+                        && !tuple.getAggregatedPartitions().isConsistent()) {
+            //Task retried or partition recomputed: some results were dropped or counted twice
+            log.warn("Discarding results for split {} of {}: executor-local parameter sums do not match the trained "
+                            + "partitions due to task retries or recomputation ({}). Parameters are not updated",
+                            splitNum, totalSplits, tuple.getAggregatedPartitions());
+            params = null;
+            discard = true;
+        }
+
 
         if (collectTrainingStats)
             stats.logProcessParamsUpdaterStart();
         if (params != null) {
             params.divi(aggCount);
+            if (aggregationCompression == AggregationCompression.DELTA_FP16) {
+                //Workers returned parameter changes: apply the average change to the current parameters
+                params.addi(network != null ? network.getNetwork().params() : graph.getNetwork().params());
+            }
             INDArray updaterState = tuple.getUpdaterStateSum();
             if (updaterState != null)
                 updaterState.divi(aggCount); //May be null if all SGD updaters, for example
@@ -830,7 +862,7 @@ public class ParameterAveragingTrainingMaster
 
                 graph.setScore(tuple.getScoreSum() / tuple.getAggregationsCount());
             }
-        } else {
+        } else if (!discard) {
             log.info("Skipping imbalanced split with no data for all executors");
         }
 
@@ -892,6 +924,8 @@ public class ParameterAveragingTrainingMaster
         protected int batchSizePerWorker = 16;
         protected int averagingFrequency = 5;
         protected int aggregationDepth = 2;
+        protected AggregationCompression aggregationCompression = AggregationCompression.NONE;
+        protected boolean executorLocalAggregation = false;
         protected int prefetchNumBatches = 0;
         protected Repartition repartition = Repartition.Always;
         protected RepartitionStrategy repartitionStrategy = RepartitionStrategy.Balanced;
@@ -899,6 +933,8 @@ public class ParameterAveragingTrainingMaster
         protected StorageLevel storageLevelStreams = StorageLevel.MEMORY_ONLY();
         protected RDDTrainingApproach rddTrainingApproach = RDDTrainingApproach.Export;
         protected String exportDirectory = null;
+        protected DataExportFormat exportFormat = DataExportFormat.Files;
+        protected boolean exportCompression = false;
         protected Long rngSeed;
         protected Collection<TrainingHook> trainingHooks;
 
@@ -1006,6 +1042,37 @@ public class ParameterAveragingTrainingMaster
             return this;
         }
 
+        /**
+         * Compression to use for the partial parameter (and updater state) sums, when they are sent over the network
+         * during aggregation. Default: {@link AggregationCompression#NONE}.<br>
+         * {@link AggregationCompression#FP16} halves the network traffic for aggregation, at the cost of some precision
+         * in the averaged parameters. {@link AggregationCompression#DELTA_FP16} instead sends the parameter changes
+         * since the last averaging, which are usually much smaller in magnitude and hence lose less precision.<br>
+         * <b>Note</b>: Quantization is applied when the partial sums are serialized, with either Java or Kryo
+         * serialization.
+         *
+         * @param aggregationCompression Compression for parameter aggregation
+         */
+        public Builder aggregationCompression(@NonNull AggregationCompression aggregationCompression) {
+            this.aggregationCompression = aggregationCompression;
+            return this;
+        }
+
+        /**
+         * If true: the results of all tasks executing concurrently on the same executor are summed on that executor,
+         * before being aggregated across the cluster. This reduces the number of parameter vectors sent over the
+         * network from one per partition to (approximately) one per executor. Default: false.<br>
+         * <b>Note</b>: Speculative execution (spark.speculation) must be disabled when this is enabled. If a task is
+         * retried or a partition is recomputed during an averaging round, the results of that round may be discarded
+         * (with a warning), as the executor-local sums can then drop or double count some results.
+         *
+         * @param executorLocalAggregation Whether to sum results within each executor before aggregation
+         */
+        public Builder executorLocalAggregation(boolean executorLocalAggregation) {
+            this.executorLocalAggregation = executorLocalAggregation;
+            return this;
+        }
+
         /**
          * Set the number of minibatches to asynchronously prefetch in the worker.
          * <p>
@@ -1116,6 +1183,29 @@ public class ParameterAveragingTrainingMaster
             return this;
         }
 
+        /**
+         * File format to use when exporting the training data, when {@link #rddTrainingApproach(RDDTrainingApproach)}
+         * is set to {@link RDDTrainingApproach#Export}. Default: {@link DataExportFormat#Files}.<br>
+         * {@link DataExportFormat#Blocks} packs many minibatches into each file, which avoids the overhead of creating,
+         * listing and opening one (small) file per minibatch.
+         *
+         * @param exportFormat Format for exported data
+         */
+        public Builder exportFormat(@NonNull DataExportFormat exportFormat) {
+            this.exportFormat = exportFormat;
+            return this;
+        }
+
+        /**
+         * Whether to compress each exported minibatch. Only applies to {@link DataExportFormat#Blocks}. Default: false.
+         *
+         * @param exportCompression If true: compress the exported minibatches
+         */
+        public Builder exportCompression(boolean exportCompression) {
+            this.exportCompression = exportCompression;
+            return this;
+        }
+
         /**
          * Random number generator seed, used mainly for enforcing repeatable splitting on RDDs
          * Default: no seed set (i.e., random seed)
@@ -5,6 +5,7 @@ import org.deeplearning4j.api.storage.Persistable;
 import org.deeplearning4j.api.storage.StorageMetaData;
 import org.deeplearning4j.spark.api.TrainingResult;
 import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
+import org.deeplearning4j.spark.impl.paramavg.aggregator.AggregatedPartitions;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
 import java.util.Collection;
@@ -26,7 +27,16 @@ public class ParameterAveragingTrainingResult implements TrainingResult {
     private final Collection<StorageMetaData> listenerMetaData;
     private final Collection<Persistable> listenerStaticInfo;
     private final Collection<Persistable> listenerUpdates;
-
+    /**
+     * Number of worker results summed into this result: 1 for a single worker, 0 if the worker had no data (or the
+     * parameters were aggregated elsewhere), or more than 1 if results were summed on the executor before aggregation
+     */
+    private int aggregationCount = 1;
+    /**
+     * Partitions trained and summed, when executor-local aggregation is used (otherwise null). See
+     * {@link AggregatedPartitions}
+     */
+    private AggregatedPartitions aggregatedPartitions;
 
     public ParameterAveragingTrainingResult(INDArray parameters, INDArray updaterState, double score,
                     Collection<StorageMetaData> listenerMetaData, Collection<Persistable> listenerStaticInfo,
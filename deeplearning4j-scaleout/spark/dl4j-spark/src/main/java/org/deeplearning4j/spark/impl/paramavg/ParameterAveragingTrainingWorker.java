@@ -47,10 +47,23 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
     private ParameterAveragingTrainingWorkerStats.ParameterAveragingTrainingWorkerStatsHelper stats = null;
     private Collection<IterationListener> iterationListeners;
     private StatsStorageRouterProvider listenerRouterProvider;
+    private final boolean deltaParameters;
 
     public ParameterAveragingTrainingWorker(Broadcast<NetBroadcastTuple> broadcast, boolean saveUpdater,
                     WorkerConfiguration configuration, Collection<TrainingHook> trainingHooks,
                     Collection<IterationListener> listeners, StatsStorageRouterProvider routerProvider) {
+        this(broadcast, saveUpdater, configuration, trainingHooks, listeners, routerProvider, false);
+    }
+
+    /**
+     * @param deltaParameters If true: return the parameter change (final parameters minus the broadcast parameters)
+     *                        instead of the final parameters. Deltas are smaller in magnitude, and hence lose less
+     *                        precision when the aggregation is compressed
+     */
+    public ParameterAveragingTrainingWorker(Broadcast<NetBroadcastTuple> broadcast, boolean saveUpdater,
+                    WorkerConfiguration configuration, Collection<TrainingHook> trainingHooks,
+                    Collection<IterationListener> listeners, StatsStorageRouterProvider routerProvider,
+                    boolean deltaParameters) {
 
         this.broadcast = broadcast;
         this.saveUpdater = saveUpdater;
@@ -58,6 +71,7 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
         this.trainingHooks = trainingHooks;
         this.iterationListeners = listeners;
         this.listenerRouterProvider = routerProvider;
+        this.deltaParameters = deltaParameters;
     }
 
     /**
@@ -286,8 +300,8 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
                 listenerUpdates = ssr.getUpdates();
             }
         }
-        return new ParameterAveragingTrainingResult(network.params(), updaterState, network.score(), storageMetaData,
-                        listenerStaticInfo, listenerUpdates);
+        return new ParameterAveragingTrainingResult(resultParams(network.params()), updaterState, network.score(),
+                        storageMetaData, listenerStaticInfo, listenerUpdates);
     }
 
     @Override
@@ -314,13 +328,22 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
             }
         }
 
-        return new ParameterAveragingTrainingResult(network.params(), updaterState, network.score(), storageMetaData,
-                        listenerStaticInfo, listenerUpdates);
+        return new ParameterAveragingTrainingResult(resultParams(network.params()), updaterState, network.score(),
+                        storageMetaData, listenerStaticInfo, listenerUpdates);
+    }
+
+    private INDArray resultParams(INDArray params) {
+        if (!deltaParameters)
+            return params;
+        return params.sub(broadcast.getValue().getParameters());
     }
 
     @Override
     public ParameterAveragingTrainingResult getFinalResultNoData() {
-        return new ParameterAveragingTrainingResult(null, null, 0.0, null, null, null);
+        ParameterAveragingTrainingResult result = new ParameterAveragingTrainingResult(null, null, 0.0, null, null, null);
+        //No parameters: shouldn't be counted when averaging
+        result.setAggregationCount(0);
+        return result;
     }
 
     @Override
@@ -0,0 +1,63 @@
+package org.deeplearning4j.spark.impl.paramavg.aggregator;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+/**
+ * Bookkeeping for executor-local aggregation (see {@link ExecutorLocalAggregationFunction}): which partitions trained
+ * a model (i.e., returned parameters), and which partitions are included in the executor-local parameter sums.<br>
+ * Which partition emits an executor-local sum depends on task timing. Consequently, if a task is retried or a partition
+ * is recomputed, a partition's parameters may be included in two sums (counted twice), or in a sum that was discarded
+ * (dropped). After aggregation, {@link #isConsistent()} is true only if every partition that trained a model is
+ * included in exactly one sum.
+ */
+public class AggregatedPartitions implements Serializable {
+
+    private final BitSet trained = new BitSet();
+    private final BitSet summed = new BitSet();
+    private boolean duplicated;
+
+    /**
+     * Record that the specified partition trained a model (i.e., returned parameters)
+     */
+    public void addTrained(int partition) {
+        trained.set(partition);
+    }
+
+    /**
+     * Record that the parameters of the specified partition are included in an executor-local sum
+     */
+    public void addSummed(int partition) {
+        if (summed.get(partition))
+            duplicated = true;
+        summed.set(partition);
+    }
+
+    /**
+     * Merge the other partitions into these
+     *
+     * @param other Partitions to merge. May be null
+     * @return This object, after merging
+     */
+    public AggregatedPartitions merge(AggregatedPartitions other) {
+        if (other == null)
+            return this;
+        duplicated |= other.duplicated || summed.intersects(other.summed);
+        trained.or(other.trained);
+        summed.or(other.summed);
+        return this;
+    }
+
+    /**
+     * @return True if every partition that trained a model is included in exactly one executor-local sum (and no other
+     *         partitions are included)
+     */
+    public boolean isConsistent() {
+        return !duplicated && trained.equals(summed);
+    }
+
+    @Override
+    public String toString() {
+        return "AggregatedPartitions(trained=" + trained + ", summed=" + summed + ", duplicated=" + duplicated + ")";
+    }
+}
@@ -0,0 +1,14 @@
+package org.deeplearning4j.spark.impl.paramavg.aggregator;
+
+/**
+ * Compression used for the parameters and updater state sent through the parameter averaging aggregation tree.
+ * <p>
+ * NONE: arrays are sent as-is<br>
+ * FP16: arrays are quantized to 16 bit (half precision) floating point values<br>
+ * DELTA_FP16: workers send the difference between their final parameters and the broadcast parameters, quantized to
+ * 16 bit floating point values. As deltas are typically much smaller in magnitude than the parameters themselves, this
+ * is usually considerably more accurate than FP16. Updater state is sent as FP16.
+ */
+public enum AggregationCompression {
+    NONE, FP16, DELTA_FP16
+}
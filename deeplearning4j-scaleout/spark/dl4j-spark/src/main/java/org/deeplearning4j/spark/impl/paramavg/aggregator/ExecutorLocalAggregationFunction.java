@@ -0,0 +1,163 @@
+package org.deeplearning4j.spark.impl.paramavg.aggregator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.api.java.function.Function2;
+import org.deeplearning4j.spark.impl.paramavg.ParameterAveragingTrainingResult;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+
+/**
+ * A function (for use with mapPartitionsWithIndex) that sums the parameters (and updater state) of training results
+ * within each executor, before they are aggregated across the cluster. This is the first level of a hierarchical
+ * aggregation: instead of one parameter vector per partition, each executor contributes (approximately) one parameter
+ * vector per round of concurrently executing tasks.<br>
+ * <br>
+ * Results from all tasks on the same executor JVM with the same aggregation key are summed. The last task of the
+ * executor to finish emits the sum (with the appropriate {@link ParameterAveragingTrainingResult#getAggregationCount()});
+ * all other results are emitted without parameters, but with their stats and listener information. If an executor
+ * runs more tasks than it has cores, it may emit multiple (disjoint) sums - this does not impact correctness.<br>
+ * <br>
+ * Which partition emits a sum depends on task timing. Hence, if a task is retried or a partition is recomputed, results
+ * may be dropped or counted twice. To detect this, each partition's output records (see {@link AggregatedPartitions})
+ * whether that partition trained a model, and which partitions are included in any sum it emits; the aggregated
+ * result should be discarded if these are not consistent.<br>
+ * <br>
+ * <b>Note</b>: Speculative execution should be disabled when using this function: the results of a speculative
+ * (duplicate) task would otherwise be added twice.
+ */
+@Slf4j
+public class ExecutorLocalAggregationFunction implements
+                Function2<Integer, Iterator<ParameterAveragingTrainingResult>, Iterator<ParameterAveragingTrainingResult>> {
+
+    //Executor-local (i.e., JVM-wide) partial sums, keyed by aggregation round
+    private static final Map<String, LocalAggregate> AGGREGATES = new HashMap<>();
+
+    private final String aggregationKey;
+
+    /**
+     * @param aggregationKey Key for this aggregation round. Must be unique for each averaging round
+     */
+    public ExecutorLocalAggregationFunction(String aggregationKey) {
+        this.aggregationKey = aggregationKey;
+    }
+
+    @Override
+    public Iterator<ParameterAveragingTrainingResult> call(Integer partition,
+                    Iterator<ParameterAveragingTrainingResult> iter) throws Exception {
+        synchronized (AGGREGATES) {
+            LocalAggregate aggregate = AGGREGATES.get(aggregationKey);
+            if (aggregate == null) {
+                removeStaleAggregates();
+                aggregate = new LocalAggregate();
+                AGGREGATES.put(aggregationKey, aggregate);
+            }
+            aggregate.inFlight++;
+        }
+
+        //Consuming the iterator is what actually executes the training for this partition
+        List<ParameterAveragingTrainingResult> results = new ArrayList<>();
+        boolean success = false;
+        try {
+            while (iter.hasNext()) {
+                results.add(iter.next());
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                //Any partial sum is left for other tasks (or a retry of this task) on this executor to emit
+                synchronized (AGGREGATES) {
+                    LocalAggregate aggregate = AGGREGATES.get(aggregationKey);
+                    if (aggregate != null)
+                        aggregate.inFlight--;
+                }
+            }
+        }
+
+        List<ParameterAveragingTrainingResult> out = new ArrayList<>(results.size() + 1);
+        AggregatedPartitions partitions = new AggregatedPartitions();
+        synchronized (AGGREGATES) {
+            LocalAggregate aggregate = AGGREGATES.get(aggregationKey);
+            for (ParameterAveragingTrainingResult r : results) {
+                if (r.getParameters() != null) {
+                    aggregate.add(r, partition);
+                    partitions.addTrained(partition);
+                }
+                out.add(withoutParameters(r));
+            }
+
+            aggregate.inFlight--;
+            if (aggregate.inFlight == 0) {
+                AGGREGATES.remove(aggregationKey);
+                if (aggregate.count > 0) {
+                    out.add(aggregate.toResult());
+                    for (Integer p : aggregate.partitions) {
+                        partitions.addSummed(p);
+                    }
+                }
+            }
+        }
+        if (!out.isEmpty())
+            out.get(0).setAggregatedPartitions(partitions);
+        return out.iterator();
+    }
+
+    private void removeStaleAggregates() {
+        Iterator<Map.Entry<String, LocalAggregate>> iter = AGGREGATES.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, LocalAggregate> e = iter.next();
+            if (e.getValue().inFlight == 0) {
+                log.warn("Discarding executor-local partial parameter sum for aggregation round {} ({} results): "
+                                + "last task for this round on this executor failed", e.getKey(), e.getValue().count);
+                iter.remove();
+            }
+        }
+    }
+
+    private static ParameterAveragingTrainingResult withoutParameters(ParameterAveragingTrainingResult r) {
+        ParameterAveragingTrainingResult result = new ParameterAveragingTrainingResult(null, null, 0.0,
+                        r.getSparkTrainingStats(), r.getListenerMetaData(), r.getListenerStaticInfo(),
+                        r.getListenerUpdates());
+        result.setAggregationCount(0);
+        return result;
+    }
+
+    private static class LocalAggregate {
+        private int inFlight;
+        private int count;
+        private double scoreSum;
+        private INDArray parametersSum;
+        private INDArray updaterStateSum;
+        //Partitions summed: may contain duplicates, if a task was retried on this executor
+        private final List<Integer> partitions = new ArrayList<>();
+
+        private void add(ParameterAveragingTrainingResult r, int partition) {
+            //Worker results are views of the network's parameters: copy the first one
+            if (parametersSum == null)
+                parametersSum = r.getParameters().dup();
+            else
+                parametersSum.addi(r.getParameters());
+
+            if (r.getUpdaterState() != null) {
+                if (updaterStateSum == null)
+                    updaterStateSum = r.getUpdaterState().dup();
+                else
+                    updaterStateSum.addi(r.getUpdaterState());
+            }
+
+            Nd4j.getExecutioner().commit();
+
+            scoreSum += r.getScore();
+            count += r.getAggregationCount();
+            partitions.add(partition);
+        }
+
+        private ParameterAveragingTrainingResult toResult() {
+            ParameterAveragingTrainingResult result = new ParameterAveragingTrainingResult(parametersSum,
+                            updaterStateSum, scoreSum, null, null, null, null);
+            result.setAggregationCount(count);
+            return result;
+        }
+    }
+}
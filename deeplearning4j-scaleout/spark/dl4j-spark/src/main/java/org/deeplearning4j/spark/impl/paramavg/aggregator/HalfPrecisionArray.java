@@ -0,0 +1,67 @@
+package org.deeplearning4j.spark.impl.paramavg.aggregator;
+
+import lombok.NonNull;
+import org.deeplearning4j.util.HalfPrecisionUtil;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Serializable;
+
+/**
+ * An array quantized to 16 bit (IEEE 754 half precision) floating point values, used to reduce the size of arrays
+ * sent across the network during parameter averaging.
+ */
+public class HalfPrecisionArray implements Serializable {
+
+    private final int[] shape;
+    private final short[] data;
+
+    HalfPrecisionArray(int[] shape, short[] data) {
+        this.shape = shape;
+        this.data = data;
+    }
+
+    /**
+     * Quantize the specified array
+     *
+     * @param array Array to quantize
+     * @return The quantized array, or null if the array contains values out of the range of half precision values
+     */
+    public static HalfPrecisionArray encode(@NonNull INDArray array) {
+        INDArray c = (array.isView() || array.ordering() != 'c' ? array.dup('c') : array);
+        float[] values = c.data().asFloat();
+        if (values.length != c.length()) {
+            values = c.dup('c').data().asFloat();
+        }
+
+        short[] data = new short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            float f = values[i];
+            if (Math.abs(f) > HalfPrecisionUtil.MAX_VALUE && !Float.isInfinite(f)) {
+                //Out of range for FP16: can't be encoded without loss
+                return null;
+            }
+            data[i] = HalfPrecisionUtil.toHalf(f);
+        }
+        return new HalfPrecisionArray(array.shape().clone(), data);
+    }
+
+    /**
+     * @return The array, converted back to the default data type
+     */
+    public INDArray decode() {
+        float[] values = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            values[i] = HalfPrecisionUtil.toFloat(data[i]);
+        }
+        return Nd4j.create(values, shape, 'c');
+    }
+
+    int[] getShape() {
+        return shape;
+    }
+
+    short[] getData() {
+        return data;
+    }
+}
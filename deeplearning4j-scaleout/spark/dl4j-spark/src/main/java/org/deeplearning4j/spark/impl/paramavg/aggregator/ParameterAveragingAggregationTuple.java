@@ -1,5 +1,10 @@
 package org.deeplearning4j.spark.impl.paramavg.aggregator;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,13 +17,18 @@ import java.io.Serializable;
 import java.util.Collection;
 
 /**
- * Simple helper tuple used to execute parameter averaging
+ * Simple helper tuple used to execute parameter averaging.<br>
+ * If a compression other than {@link AggregationCompression#NONE} is set, the parameters and updater state sums are
+ * quantized to 16 bit floating point values when the tuple is serialized (i.e., when sent between aggregation levels
+ * and to the driver). This applies to both Java serialization and Kryo serialization: for the latter, the tuple's
+ * {@link KryoSerializer} is used by default (i.e., unless another serializer is explicitly registered for this class)
  *
  * @author Alex Black
  */
 @AllArgsConstructor
 @Data
 @Builder
+@DefaultSerializer(ParameterAveragingAggregationTuple.KryoSerializer.class)
 public class ParameterAveragingAggregationTuple implements Serializable {
     private final INDArray parametersSum;
     private final INDArray updaterStateSum;
@@ -28,4 +38,151 @@ public class ParameterAveragingAggregationTuple implements Serializable {
     private final Collection<StorageMetaData> listenerMetaData;
     private final Collection<Persistable> listenerStaticInfo;
     private final Collection<Persistable> listenerUpdates;
+    private final AggregationCompression compression;
+    //Null unless executor-local aggregation is used
+    private final AggregatedPartitions aggregatedPartitions;
+
+    public ParameterAveragingAggregationTuple(INDArray parametersSum, INDArray updaterStateSum, double scoreSum,
+                    int aggregationsCount, SparkTrainingStats sparkTrainingStats,
+                    Collection<StorageMetaData> listenerMetaData, Collection<Persistable> listenerStaticInfo,
+                    Collection<Persistable> listenerUpdates) {
+        this(parametersSum, updaterStateSum, scoreSum, aggregationsCount, sparkTrainingStats, listenerMetaData,
+                        listenerStaticInfo, listenerUpdates, AggregationCompression.NONE);
+    }
+
+    public ParameterAveragingAggregationTuple(INDArray parametersSum, INDArray updaterStateSum, double scoreSum,
+                    int aggregationsCount, SparkTrainingStats sparkTrainingStats,
+                    Collection<StorageMetaData> listenerMetaData, Collection<Persistable> listenerStaticInfo,
+                    Collection<Persistable> listenerUpdates, AggregationCompression compression) {
+        this(parametersSum, updaterStateSum, scoreSum, aggregationsCount, sparkTrainingStats, listenerMetaData,
+                        listenerStaticInfo, listenerUpdates, compression, null);
+    }
+
+    private Object writeReplace() {
+        if (compression == null || compression == AggregationCompression.NONE)
+            return this;
+        return new CompressedForm(this);
+    }
+
+    /**
+     * Serialized form of the tuple, with the parameters and updater state quantized to half precision
+     */
+    private static class CompressedForm implements Serializable {
+        private final HalfPrecisionArray parametersHalf;
+        private final HalfPrecisionArray updaterStateHalf;
+        //Set only if arrays could not be quantized (values out of range for half precision)
+        private final INDArray parametersSum;
+        private final INDArray updaterStateSum;
+        private final double scoreSum;
+        private final int aggregationsCount;
+        private final SparkTrainingStats sparkTrainingStats;
+        private final Collection<StorageMetaData> listenerMetaData;
+        private final Collection<Persistable> listenerStaticInfo;
+        private final Collection<Persistable> listenerUpdates;
+        private final AggregationCompression compression;
+        private final AggregatedPartitions aggregatedPartitions;
+
+        private CompressedForm(ParameterAveragingAggregationTuple t) {
+            this.parametersHalf = (t.parametersSum == null ? null : HalfPrecisionArray.encode(t.parametersSum));
+            this.updaterStateHalf = (t.updaterStateSum == null ? null : HalfPrecisionArray.encode(t.updaterStateSum));
+            this.parametersSum = (parametersHalf == null ? t.parametersSum : null);
+            this.updaterStateSum = (updaterStateHalf == null ? t.updaterStateSum : null);
+            this.scoreSum = t.scoreSum;
+            this.aggregationsCount = t.aggregationsCount;
+            this.sparkTrainingStats = t.sparkTrainingStats;
+            this.listenerMetaData = t.listenerMetaData;
+            this.listenerStaticInfo = t.listenerStaticInfo;
+            this.listenerUpdates = t.listenerUpdates;
+            this.compression = t.compression;
+            this.aggregatedPartitions = t.aggregatedPartitions;
+        }
+
+        private Object readResolve() {
+            INDArray params = (parametersHalf != null ? parametersHalf.decode() : parametersSum);
+            INDArray updater = (updaterStateHalf != null ? updaterStateHalf.decode() : updaterStateSum);
+            return new ParameterAveragingAggregationTuple(params, updater, scoreSum, aggregationsCount,
+                            sparkTrainingStats, listenerMetaData, listenerStaticInfo, listenerUpdates, compression,
+                            aggregatedPartitions);
+        }
+    }
+
+    /**
+     * Kryo serializer for the tuple, applying the same compression as Java serialization
+     */
+    public static class KryoSerializer extends Serializer<ParameterAveragingAggregationTuple> {
+
+        private static final byte ARRAY_NULL = 0;
+        private static final byte ARRAY_FULL = 1;
+        private static final byte ARRAY_HALF = 2;
+
+        @Override
+        public void write(Kryo kryo, Output output, ParameterAveragingAggregationTuple t) {
+            AggregationCompression compression = t.compression;
+            boolean compress = (compression != null && compression != AggregationCompression.NONE);
+            kryo.writeObjectOrNull(output, compression, AggregationCompression.class);
+            writeArray(kryo, output, t.parametersSum, compress);
+            writeArray(kryo, output, t.updaterStateSum, compress);
+            output.writeDouble(t.scoreSum);
+            output.writeInt(t.aggregationsCount);
+            kryo.writeClassAndObject(output, t.sparkTrainingStats);
+            kryo.writeClassAndObject(output, t.listenerMetaData);
+            kryo.writeClassAndObject(output, t.listenerStaticInfo);
+            kryo.writeClassAndObject(output, t.listenerUpdates);
+            kryo.writeClassAndObject(output, t.aggregatedPartitions);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ParameterAveragingAggregationTuple read(Kryo kryo, Input input,
+                        Class<ParameterAveragingAggregationTuple> type) {
+            AggregationCompression compression = kryo.readObjectOrNull(input, AggregationCompression.class);
+            INDArray parametersSum = readArray(kryo, input);
+            INDArray updaterStateSum = readArray(kryo, input);
+            double scoreSum = input.readDouble();
+            int aggregationsCount = input.readInt();
+            SparkTrainingStats stats = (SparkTrainingStats) kryo.readClassAndObject(input);
+            Collection<StorageMetaData> metaData = (Collection<StorageMetaData>) kryo.readClassAndObject(input);
+            Collection<Persistable> staticInfo = (Collection<Persistable>) kryo.readClassAndObject(input);
+            Collection<Persistable> updates = (Collection<Persistable>) kryo.readClassAndObject(input);
+            AggregatedPartitions partitions = (AggregatedPartitions) kryo.readClassAndObject(input);
+            return new ParameterAveragingAggregationTuple(parametersSum, updaterStateSum, scoreSum, aggregationsCount,
+                            stats, metaData, staticInfo, updates, compression, partitions);
+        }
+
+        private static void writeArray(Kryo kryo, Output output, INDArray array, boolean compress) {
+            if (array == null) {
+                output.writeByte(ARRAY_NULL);
+                return;
+            }
+            HalfPrecisionArray half = (compress ? HalfPrecisionArray.encode(array) : null);
+            if (half == null) {
+                //Not compressed, or values out of range for half precision
+                output.writeByte(ARRAY_FULL);
+                kryo.writeClassAndObject(output, array);
+                return;
+            }
+            output.writeByte(ARRAY_HALF);
+            int[] shape = half.getShape();
+            short[] data = half.getData();
+            output.writeInt(shape.length, true);
+            output.writeInts(shape);
+            output.writeInt(data.length, true);
+            output.writeShorts(data);
+        }
+
+        private static INDArray readArray(Kryo kryo, Input input) {
+            switch (input.readByte()) {
+                case ARRAY_NULL:
+                    return null;
+                case ARRAY_FULL:
+                    return (INDArray) kryo.readClassAndObject(input);
+                case ARRAY_HALF:
+                    int[] shape = input.readInts(input.readInt(true));
+                    short[] data = input.readShorts(input.readInt(true));
+                    return new HalfPrecisionArray(shape, data).decode();
+                default:
+                    throw new IllegalStateException("Invalid serialized aggregation tuple: unknown array type");
+            }
+        }
+    }
 }
@@ -18,19 +18,42 @@ import java.util.Collection;
 public class ParameterAveragingElementAddFunction implements
                 Function2<ParameterAveragingAggregationTuple, ParameterAveragingTrainingResult, ParameterAveragingAggregationTuple> {
 
+    private final AggregationCompression compression;
+
+    public ParameterAveragingElementAddFunction() {
+        this(AggregationCompression.NONE);
+    }
+
+    /**
+     * @param compression Compression to use when the aggregated tuples are serialized
+     */
+    public ParameterAveragingElementAddFunction(AggregationCompression compression) {
+        this.compression = compression;
+    }
+
     @Override
     public ParameterAveragingAggregationTuple call(ParameterAveragingAggregationTuple tuple,
                     ParameterAveragingTrainingResult result) throws Exception {
         if (tuple == null) {
             return ParameterAveragingAggregationTuple.builder().parametersSum(result.getParameters())
-                            .updaterStateSum(result.getUpdaterState()).scoreSum(result.getScore()).aggregationsCount(1)
+                            .updaterStateSum(result.getUpdaterState()).scoreSum(result.getScore())
+                            .aggregationsCount(result.getAggregationCount())
                             .sparkTrainingStats(result.getSparkTrainingStats())
                             .listenerMetaData(result.getListenerMetaData())
                             .listenerStaticInfo(result.getListenerStaticInfo())
-                            .listenerUpdates(result.getListenerUpdates()).build();
+                            .listenerUpdates(result.getListenerUpdates()).compression(compression)
+                            .aggregatedPartitions(result.getAggregatedPartitions()).build();
         }
 
-        INDArray params = tuple.getParametersSum().addi(result.getParameters());
+        //Parameters may be null for results with no data, or already aggregated on the executor
+        INDArray params;
+        if (tuple.getParametersSum() == null) {
+            params = result.getParameters();
+        } else {
+            params = tuple.getParametersSum();
+            if (result.getParameters() != null)
+                params.addi(result.getParameters());
+        }
         INDArray updaterStateSum;
         if (tuple.getUpdaterStateSum() == null) {
             updaterStateSum = result.getUpdaterState();
@@ -79,8 +102,14 @@ public class ParameterAveragingElementAddFunction implements
         }
 
 
+        AggregatedPartitions partitions = tuple.getAggregatedPartitions();
+        if (partitions == null)
+            partitions = result.getAggregatedPartitions();
+        else
+            partitions.merge(result.getAggregatedPartitions());
 
         return new ParameterAveragingAggregationTuple(params, updaterStateSum, scoreSum,
-                        tuple.getAggregationsCount() + 1, stats, listenerMetaData, listenerStaticInfo, listenerUpdates);
+                        tuple.getAggregationsCount() + result.getAggregationCount(), stats, listenerMetaData,
+                        listenerStaticInfo, listenerUpdates, compression, partitions);
     }
 }
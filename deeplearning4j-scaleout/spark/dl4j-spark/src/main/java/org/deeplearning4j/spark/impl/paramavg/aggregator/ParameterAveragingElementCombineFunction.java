@@ -16,6 +16,19 @@ import java.util.Collection;
  */
 public class ParameterAveragingElementCombineFunction implements
                 Function2<ParameterAveragingAggregationTuple, ParameterAveragingAggregationTuple, ParameterAveragingAggregationTuple> {
+    private final AggregationCompression compression;
+
+    public ParameterAveragingElementCombineFunction() {
+        this(AggregationCompression.NONE);
+    }
+
+    /**
+     * @param compression Compression to use when the aggregated tuples are serialized
+     */
+    public ParameterAveragingElementCombineFunction(AggregationCompression compression) {
+        this.compression = compression;
+    }
+
     @Override
     public ParameterAveragingAggregationTuple call(ParameterAveragingAggregationTuple v1,
                     ParameterAveragingAggregationTuple v2) throws Exception {
@@ -25,12 +38,14 @@ public class ParameterAveragingElementCombineFunction implements
             return v1;
 
         //Handle edge case of less data than executors: in this case, one (or both) of v1 and v2 might not have any contents...
+        //Note that tuples without parameters may still have stats and listener info (executor-local aggregation)
+        INDArray newParams;
         if (v1.getParametersSum() == null)
-            return v2;
+            newParams = v2.getParametersSum();
         else if (v2.getParametersSum() == null)
-            return v1;
-
-        INDArray newParams = v1.getParametersSum().addi(v2.getParametersSum());
+            newParams = v1.getParametersSum();
+        else
+            newParams = v1.getParametersSum().addi(v2.getParametersSum());
         INDArray updaterStateSum;
         if (v1.getUpdaterStateSum() == null) {
             updaterStateSum = v2.getUpdaterStateSum();
@@ -81,7 +96,13 @@ public class ParameterAveragingElementCombineFunction implements
                 listenerUpdates.addAll(listenerUpdates2);
         }
 
+        AggregatedPartitions partitions = v1.getAggregatedPartitions();
+        if (partitions == null)
+            partitions = v2.getAggregatedPartitions();
+        else
+            partitions.merge(v2.getAggregatedPartitions());
+
         return new ParameterAveragingAggregationTuple(newParams, updaterStateSum, scoreSum, aggregationCount, stats,
-                        listenerMetaData, listenerStaticInfo, listenerUpdates);
+                        listenerMetaData, listenerStaticInfo, listenerUpdates, compression, partitions);
     }
 }
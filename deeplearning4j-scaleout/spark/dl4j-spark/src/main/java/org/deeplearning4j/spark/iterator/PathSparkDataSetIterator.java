@@ -4,6 +4,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.deeplearning4j.spark.data.block.BlockFileFormat;
+import org.deeplearning4j.spark.data.block.BlockFileReader;
 import org.nd4j.linalg.dataset.DataSet;
 
 import java.io.IOException;
@@ -14,7 +16,9 @@ import java.util.Iterator;
 
 /**
  * A DataSetIterator that loads serialized DataSet objects (saved with {@link DataSet#save(OutputStream)}) from
- * a String that represents the path (for example, on HDFS)
+ * a String that represents the path (for example, on HDFS).<br>
+ * Paths may also refer to entries of block files (see {@link BlockFileFormat}); consecutive entries of the same block
+ * file are read from a single open file
  *
  * @author Alex Black
  */
@@ -22,6 +26,7 @@ public class PathSparkDataSetIterator extends BaseDataSetIterator<String> {
 
     public static final int BUFFER_SIZE = 4194304; //4 MB
     private FileSystem fileSystem;
+    private BlockFileReader blockReader;
 
     public PathSparkDataSetIterator(Iterator<String> iter) {
         this.dataSetStreams = null;
@@ -57,7 +62,20 @@ public class PathSparkDataSetIterator extends BaseDataSetIterator<String> {
         return ds;
     }
 
+    @Override
+    public boolean hasNext() {
+        boolean hasNext = super.hasNext();
+        if (!hasNext)
+            closeBlockReader();
+        return hasNext;
+    }
+
     protected synchronized DataSet load(String path) {
+        if (BlockFileFormat.isEntryPath(path)) {
+            cursor++;
+            return loadBlockEntry(path);
+        }
+
         if (fileSystem == null) {
             try {
                 fileSystem = FileSystem.get(new URI(path), new Configuration());
@@ -76,4 +94,29 @@ public class PathSparkDataSetIterator extends BaseDataSetIterator<String> {
         cursor++;
         return ds;
     }
+
+    private DataSet loadBlockEntry(String entryPath) {
+        String blockFilePath = BlockFileFormat.blockFilePath(entryPath);
+        try {
+            //Consecutive entries are usually in the same block file: keep it open
+            if (blockReader == null || !blockFilePath.equals(blockReader.getPath())) {
+                closeBlockReader();
+                blockReader = BlockFileReader.open(blockFilePath);
+            }
+            return blockReader.loadDataSet(BlockFileFormat.entryIndex(entryPath));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized void closeBlockReader() {
+        if (blockReader != null) {
+            try {
+                blockReader.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            blockReader = null;
+        }
+    }
 }
@@ -4,6 +4,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.deeplearning4j.spark.data.block.BlockFileFormat;
+import org.deeplearning4j.spark.data.block.BlockFileReader;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
@@ -16,7 +18,9 @@ import java.util.Iterator;
 
 /**
  * A DataSetIterator that loads serialized DataSet objects (saved with {@link MultiDataSet#save(OutputStream)}) from
- * a String that represents the path (for example, on HDFS)
+ * a String that represents the path (for example, on HDFS).<br>
+ * Paths may also refer to entries of block files (see {@link BlockFileFormat}); consecutive entries of the same block
+ * file are read from a single open file
  *
  * @author Alex Black
  */
@@ -28,6 +32,7 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
     private MultiDataSetPreProcessor preprocessor;
     private Iterator<String> iter;
     private FileSystem fileSystem;
+    private BlockFileReader blockReader;
 
     public PathSparkMultiDataSetIterator(Iterator<String> iter) {
         this.dataSetStreams = null;
@@ -73,7 +78,10 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
 
     @Override
     public boolean hasNext() {
-        return iter.hasNext();
+        boolean hasNext = iter.hasNext();
+        if (!hasNext)
+            closeBlockReader();
+        return hasNext;
     }
 
     @Override
@@ -92,6 +100,9 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
 
 
     private synchronized MultiDataSet load(String path) {
+        if (BlockFileFormat.isEntryPath(path))
+            return loadBlockEntry(path);
+
         if (fileSystem == null) {
             try {
                 fileSystem = FileSystem.get(new URI(path), new Configuration());
@@ -109,4 +120,29 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
 
         return ds;
     }
+
+    private MultiDataSet loadBlockEntry(String entryPath) {
+        String blockFilePath = BlockFileFormat.blockFilePath(entryPath);
+        try {
+            //Consecutive entries are usually in the same block file: keep it open
+            if (blockReader == null || !blockFilePath.equals(blockReader.getPath())) {
+                closeBlockReader();
+                blockReader = BlockFileReader.open(blockFilePath);
+            }
+            return blockReader.loadMultiDataSet(BlockFileFormat.entryIndex(entryPath));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized void closeBlockReader() {
+        if (blockReader != null) {
+            try {
+                blockReader.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            blockReader = null;
+        }
+    }
 }
@@ -23,13 +23,19 @@ import org.deeplearning4j.spark.impl.common.CountPartitionsFunction;
 import org.deeplearning4j.spark.impl.common.SplitPartitionsFunction;
 import org.deeplearning4j.spark.impl.common.SplitPartitionsFunction2;
 import org.deeplearning4j.spark.impl.common.repartition.BalancedPartitioner;
+import org.deeplearning4j.spark.impl.common.repartition.ConcatPartitionsFunction;
+import org.deeplearning4j.spark.impl.common.repartition.CountPartitionsWithExecutorFunction;
 import org.deeplearning4j.spark.impl.common.repartition.HashingBalancedPartitioner;
 import org.deeplearning4j.spark.impl.common.repartition.MapTupleToPairFlatMap;
+import org.deeplearning4j.spark.impl.common.repartition.SurplusKeepFunction;
+import org.deeplearning4j.spark.impl.common.repartition.SurplusMoveFunction;
+import org.deeplearning4j.spark.impl.common.repartition.SurplusRepartitionPlan;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import scala.Tuple2;
+import scala.Tuple3;
 
 import java.io.*;
 import java.lang.reflect.Array;
@@ -50,6 +56,16 @@ public class SparkUtils {
                     + "Use nd4j-kryo_2.10 or _2.11 artifact, with sparkConf.set(\"spark.kryo.registrator\", \"org.nd4j.Nd4jRegistrator\");\n"
                     + "See https://deeplearning4j.org/spark#kryo for more details";
 
+    private static final int SURPLUS_PLAN_CACHE_SIZE = 32;
+    //Driver-side cache of repartitioning plans, keyed by application ID and RDD ID
+    private static final Map<String, SurplusRepartitionPlan> surplusPlanCache =
+                    new LinkedHashMap<String, SurplusRepartitionPlan>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, SurplusRepartitionPlan> eldest) {
+                            return size() > SURPLUS_PLAN_CACHE_SIZE;
+                        }
+                    };
+
     private SparkUtils() {}
 
     /**
@@ -244,6 +260,8 @@ public class SparkUtils {
                 return repartitionBalanceIfRequired(rdd, repartition, objectsPerPartition, numPartitions);
             case ApproximateBalanced:
                 return repartitionApproximateBalance(rdd, repartition, numPartitions);
+            case SurplusBalanced:
+                return repartitionSurplusBalanced(rdd, repartition, objectsPerPartition, numPartitions);
             default:
                 throw new RuntimeException("Unknown repartition strategy: " + repartitionStrategy);
         }
@@ -387,6 +405,69 @@ public class SparkUtils {
         }
     }
 
+    /**
+     * Repartition a RDD (given the {@link Repartition} setting) such that all partitions have the same number of
+     * objects (+/- 1), moving only the surplus objects of partitions that are too large to partitions that are too
+     * small, instead of shuffling the entire RDD. See {@link RepartitionStrategy#SurplusBalanced}.<br>
+     * The plan (number of objects to move between each pair of partitions) is cached for each RDD, so repartitioning
+     * the same RDD again does not require counting the objects in each partition again.<br>
+     * If the RDD does not have {@code numPartitions} partitions, this falls back to
+     * {@link #repartitionBalanceIfRequired(JavaRDD, Repartition, int, int)}
+     *
+     * @param rdd                 RDD to repartition
+     * @param repartition         Repartitioning setting
+     * @param objectsPerPartition Number of objects we want in each partition (only used for fallback)
+     * @param numPartitions       Number of partitions to have
+     * @param <T>                 Type of RDD
+     * @return Repartitioned RDD, or the original RDD if no repartitioning was performed
+     */
+    public static <T> JavaRDD<T> repartitionSurplusBalanced(JavaRDD<T> rdd, Repartition repartition,
+                    int objectsPerPartition, int numPartitions) {
+        int origNumPartitions = rdd.partitions().size();
+        if (repartition == Repartition.Never
+                        || (repartition == Repartition.NumPartitionsWorkersDiffers && origNumPartitions == numPartitions))
+            return rdd;
+
+        if (origNumPartitions != numPartitions) {
+            //Can't rebalance in place: number of partitions needs to change
+            return repartitionBalanceIfRequired(rdd, repartition, objectsPerPartition, numPartitions);
+        }
+
+        String key = rdd.context().applicationId() + "_" + rdd.id();
+        SurplusRepartitionPlan plan;
+        synchronized (surplusPlanCache) {
+            plan = surplusPlanCache.get(key);
+        }
+
+        if (plan == null) {
+            List<Tuple3<Integer, Integer, String>> partitionCounts = rdd
+                            .mapPartitionsWithIndex(new CountPartitionsWithExecutorFunction<T>(), true).collect();
+            int[] counts = new int[origNumPartitions];
+            String[] executors = new String[origNumPartitions];
+            for (Tuple3<Integer, Integer, String> t3 : partitionCounts) {
+                counts[t3._1()] = t3._2();
+                executors[t3._1()] = t3._3();
+            }
+
+            plan = SurplusRepartitionPlan.create(counts, executors);
+            synchronized (surplusPlanCache) {
+                surplusPlanCache.put(key, plan);
+            }
+        }
+
+        if (plan.numMoved() == 0) {
+            //Already balanced
+            return rdd;
+        }
+
+        JavaRDD<T> kept = rdd.mapPartitionsWithIndex(new SurplusKeepFunction<T>(plan), true);
+        JavaPairRDD<Integer, T> surplus = JavaPairRDD.fromJavaRDD(
+                        rdd.mapPartitionsWithIndex(new SurplusMoveFunction<T>(plan), true));
+        JavaRDD<T> moved = surplus.partitionBy(new HashPartitioner(numPartitions)).values();
+
+        return kept.zipPartitions(moved, new ConcatPartitionsFunction<T>());
+    }
+
     static <T> JavaPairRDD<Integer, T> indexedRDD(JavaRDD<T> rdd) {
         return rdd.zipWithIndex().mapToPair(new PairFunction<Tuple2<T, Long>, Integer, T>() {
             @Override
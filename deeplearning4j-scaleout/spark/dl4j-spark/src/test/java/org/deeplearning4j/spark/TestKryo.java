@@ -12,8 +12,11 @@ import org.deeplearning4j.nn.conf.graph.rnn.LastTimeStepVertex;
 import org.deeplearning4j.nn.conf.layers.*;
 import org.deeplearning4j.nn.conf.preprocessor.CnnToFeedForwardPreProcessor;
 import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.spark.impl.paramavg.aggregator.AggregationCompression;
+import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingAggregationTuple;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.learning.config.Nadam;
@@ -27,6 +30,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Alex on 04/07/2017.
@@ -178,4 +182,36 @@ public class TestKryo extends BaseSparkKryoTest {
         testSerialization(Collections.emptySet(), si);
         testSerialization(Collections.unmodifiableSet(new HashSet<>(Arrays.asList("s"))), si);
     }
+
+    @Test
+    public void testAggregationTupleCompression() {
+        SerializerInstance si = sc.env().serializer().newInstance();
+
+        INDArray params = Nd4j.rand(1, 10000).subi(0.5);
+        INDArray updaterState = Nd4j.rand(1, 20000);
+
+        int[] sizes = new int[2];
+        AggregationCompression[] compressions = {AggregationCompression.NONE, AggregationCompression.FP16};
+        for (int i = 0; i < compressions.length; i++) {
+            ParameterAveragingAggregationTuple t = new ParameterAveragingAggregationTuple(params, updaterState, 1.5, 3,
+                            null, null, null, null, compressions[i]);
+            ByteBuffer bb = si.serialize(t, null);
+            sizes[i] = bb.remaining();
+            ParameterAveragingAggregationTuple deserialized = si.deserialize(bb, null);
+
+            assertEquals(compressions[i], deserialized.getCompression());
+            assertEquals(1.5, deserialized.getScoreSum(), 0.0);
+            assertEquals(3, deserialized.getAggregationsCount());
+            if (compressions[i] == AggregationCompression.NONE) {
+                assertEquals(params, deserialized.getParametersSum());
+                assertEquals(updaterState, deserialized.getUpdaterStateSum());
+            } else {
+                assertTrue(params.equalsWithEps(deserialized.getParametersSum(), 1e-3));
+                assertTrue(updaterState.equalsWithEps(deserialized.getUpdaterStateSum(), 1e-3));
+            }
+        }
+
+        //FP16: 2 bytes per value instead of 4 (or 8)
+        assertTrue(sizes[0] + " vs. " + sizes[1], sizes[1] < 0.6 * sizes[0]);
+    }
 }
@@ -20,8 +20,12 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.spark.api.java.JavaRDD;
 import org.deeplearning4j.spark.BaseSparkTest;
+import org.deeplearning4j.spark.api.DataExportFormat;
 import org.deeplearning4j.spark.data.BatchAndExportDataSetsFunction;
 import org.deeplearning4j.spark.data.BatchAndExportMultiDataSetsFunction;
+import org.deeplearning4j.spark.data.block.BlockFileFormat;
+import org.deeplearning4j.spark.iterator.PathSparkDataSetIterator;
+import org.deeplearning4j.spark.iterator.PathSparkMultiDataSetIterator;
 import org.junit.Test;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
@@ -35,6 +39,7 @@ import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Alex on 29/08/2016.
@@ -157,4 +162,74 @@ public class TestExport extends BaseSparkTest {
 
         FileUtils.deleteDirectory(f);
     }
+
+    @Test
+    public void testBatchAndExportBlocks() throws Exception {
+        String baseDir = System.getProperty("java.io.tmpdir");
+        baseDir = FilenameUtils.concat(baseDir, "dl4j_spark_testBatchAndExportBlocks/");
+        baseDir = baseDir.replaceAll("\\\\", "/");
+        File f = new File(baseDir);
+        if (f.exists())
+            FileUtils.deleteDirectory(f);
+        f.mkdir();
+        f.deleteOnExit();
+        int minibatchSize = 5;
+        int nIn = 4;
+        int nOut = 3;
+
+        Nd4j.getRandom().setSeed(12345);
+        List<DataSet> dataSets = new ArrayList<>();
+        List<MultiDataSet> multiDataSets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            DataSet ds = new DataSet(Nd4j.rand(minibatchSize, nIn), Nd4j.rand(minibatchSize, nOut));
+            dataSets.add(ds);
+            multiDataSets.add(new org.nd4j.linalg.dataset.MultiDataSet(ds.getFeatures(), ds.getLabels()));
+        }
+
+        for (boolean compress : new boolean[] {false, true}) {
+            JavaRDD<String> pathsRdd = sc.parallelize(dataSets, 1).mapPartitionsWithIndex(
+                            new BatchAndExportDataSetsFunction(minibatchSize, "file:///" + baseDir + compress + "/",
+                                            DataExportFormat.Blocks, compress),
+                            true);
+            List<String> paths = pathsRdd.collect();
+            assertEquals(20, paths.size());
+
+            //All minibatches should be in a single block file
+            File[] files = new File(baseDir, String.valueOf(compress)).listFiles();
+            assertNotNull(files);
+            int blockCount = 0;
+            for (File file : files) {
+                if (file.getPath().endsWith(BlockFileFormat.EXTENSION))
+                    blockCount++;
+            }
+            assertEquals(1, blockCount);
+
+            PathSparkDataSetIterator iter = new PathSparkDataSetIterator(paths);
+            int count = 0;
+            while (iter.hasNext()) {
+                assertTrue(BlockFileFormat.isEntryPath(paths.get(count)));
+                assertEquals(dataSets.get(count++), iter.next());
+            }
+            assertEquals(20, count);
+
+            JavaRDD<String> pathsMdsRdd = sc.parallelize(multiDataSets, 1).mapPartitionsWithIndex(
+                            new BatchAndExportMultiDataSetsFunction(minibatchSize,
+                                            "file:///" + baseDir + compress + "_mds/", DataExportFormat.Blocks,
+                                            compress),
+                            true);
+            List<String> pathsMds = pathsMdsRdd.collect();
+            assertEquals(20, pathsMds.size());
+
+            PathSparkMultiDataSetIterator iterMds = new PathSparkMultiDataSetIterator(pathsMds);
+            count = 0;
+            while (iterMds.hasNext()) {
+                MultiDataSet mds = iterMds.next();
+                assertEquals(dataSets.get(count).getFeatures(), mds.getFeatures(0));
+                assertEquals(dataSets.get(count++).getLabels(), mds.getLabels(0));
+            }
+            assertEquals(20, count);
+        }
+
+        FileUtils.deleteDirectory(f);
+    }
 }
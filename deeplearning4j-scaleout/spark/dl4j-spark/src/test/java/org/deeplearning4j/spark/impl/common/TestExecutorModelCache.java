@@ -0,0 +1,121 @@
+package org.deeplearning4j.spark.impl.common;
+
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.spark.BaseSparkTest;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+public class TestExecutorModelCache extends BaseSparkTest {
+
+    private MultiLayerNetwork getNetwork() {
+        return getNetwork(3);
+    }
+
+    private MultiLayerNetwork getNetwork(int layerSize) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(layerSize).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(layerSize).nOut(3)
+                                        .activation(Activation.SOFTMAX).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    @Test
+    public void testBorrowRelease() {
+        MultiLayerNetwork net = getNetwork();
+        Broadcast<String> json = sc.broadcast(net.getLayerWiseConfigurations().toJson());
+        Broadcast<INDArray> params = sc.broadcast(net.params());
+
+        ExecutorModelCache cache = new ExecutorModelCache(2);
+
+        MultiLayerNetwork n1 = cache.borrowNetwork(json, params);
+        MultiLayerNetwork n2 = cache.borrowNetwork(json, params);
+
+        //Concurrent users get separate instances
+        assertTrue(n1 != n2);
+        assertEquals(1, cache.size());
+        assertEquals(net.params(), n1.params());
+        assertEquals(net.params(), n2.params());
+
+        INDArray in = Nd4j.rand(5, 4);
+        INDArray exp = net.output(in, false);
+        assertEquals(exp, n1.output(in, false));
+        assertEquals(exp, n2.output(in, false));
+
+        //Released instances are reused
+        cache.release(n1);
+        MultiLayerNetwork n3 = cache.borrowNetwork(json, params);
+        assertTrue(n1 == n3);
+
+        cache.release(n2);
+        cache.release(n3);
+    }
+
+    @Test
+    public void testEviction() {
+        MultiLayerNetwork net = getNetwork();
+        Broadcast<String> json = sc.broadcast(net.getLayerWiseConfigurations().toJson());
+        Broadcast<INDArray> params1 = sc.broadcast(net.params());
+        Broadcast<INDArray> params2 = sc.broadcast(net.params().mul(2));
+
+        ExecutorModelCache cache = new ExecutorModelCache(1);
+
+        MultiLayerNetwork n1 = cache.borrowNetwork(json, params1);
+        MultiLayerNetwork n2 = cache.borrowNetwork(json, params2);
+        assertEquals(net.params().mul(2), n2.params());
+
+        //Both entries are in use: none can be evicted
+        assertEquals(2, cache.size());
+
+        cache.release(n1);
+        assertEquals(1, cache.size());
+
+        //Entry for params1 was evicted: a new instance is created
+        MultiLayerNetwork n3 = cache.borrowNetwork(json, params1);
+        assertTrue(n1 != n3);
+
+        cache.release(n2);
+        cache.release(n3);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testSequentialSparkContexts() {
+        //Broadcast ids restart from 0 in each SparkContext: cached networks from an earlier context must not be reused
+        ExecutorModelCache cache = new ExecutorModelCache(4);
+        MultiLayerNetwork[] nets = {getNetwork(3), getNetwork(5)};
+        INDArray in = Nd4j.rand(5, 4);
+
+        for (int i = 0; i < nets.length; i++) {
+            if (sc != null) {
+                sc.close();
+            }
+            sc = null;
+            JavaSparkContext context = getContext();
+
+            Broadcast<String> json = context.broadcast(nets[i].getLayerWiseConfigurations().toJson());
+            Broadcast<INDArray> params = context.broadcast(nets[i].params());
+
+            MultiLayerNetwork n = cache.borrowNetwork(json, params);
+            assertEquals(nets[i].getLayerWiseConfigurations().toJson(), n.getLayerWiseConfigurations().toJson());
+            assertEquals(nets[i].params(), n.params());
+            assertEquals(nets[i].output(in, false), n.output(in, false));
+            cache.release(n);
+        }
+    }
+}
@@ -53,6 +53,7 @@ import org.deeplearning4j.spark.api.Repartition;
 import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
 import org.deeplearning4j.spark.impl.graph.SparkComputationGraph;
 import org.deeplearning4j.spark.impl.multilayer.SparkDl4jMultiLayer;
+import org.deeplearning4j.spark.impl.paramavg.aggregator.AggregationCompression;
 import org.deeplearning4j.spark.stats.EventStats;
 import org.deeplearning4j.spark.stats.ExampleCountEventStats;
 import org.junit.Test;
@@ -271,6 +272,34 @@ public class TestSparkMultiLayerParameterAveraging extends BaseSparkTest {
 
     }
 
+    @Test
+    public void testExecutorLocalCompressedAggregation() {
+        //Same data, same splits: compressed + executor-local aggregation should match the default up to fp16 precision
+        for (AggregationCompression compression : AggregationCompression.values()) {
+            ParameterAveragingTrainingMaster tmDefault = new ParameterAveragingTrainingMaster.Builder(1)
+                            .batchSizePerWorker(10).averagingFrequency(2).rngSeed(12345).build();
+            ParameterAveragingTrainingMaster tmCompressed = new ParameterAveragingTrainingMaster.Builder(1)
+                            .batchSizePerWorker(10).averagingFrequency(2).rngSeed(12345)
+                            .aggregationCompression(compression).executorLocalAggregation(true).build();
+
+            SparkDl4jMultiLayer netDefault = new SparkDl4jMultiLayer(sc, getBasicConf(), tmDefault);
+            SparkDl4jMultiLayer netCompressed = new SparkDl4jMultiLayer(sc, getBasicConf(), tmCompressed);
+            INDArray initialParams = netDefault.getNetwork().params().dup();
+            assertEquals(initialParams, netCompressed.getNetwork().params());
+
+            netDefault.fit(sparkData);
+            netCompressed.fit(sparkData);
+
+            INDArray expected = netDefault.getNetwork().params();
+            INDArray actual = netCompressed.getNetwork().params();
+            assertNotEquals(initialParams, actual);
+            for (int i = 0; i < expected.length(); i++) {
+                double e = expected.getDouble(i);
+                assertEquals(String.valueOf(compression), e, actual.getDouble(i), 1e-2 * Math.max(1.0, Math.abs(e)));
+            }
+        }
+    }
+
     @Test
     public void testDistributedScoring() {
 
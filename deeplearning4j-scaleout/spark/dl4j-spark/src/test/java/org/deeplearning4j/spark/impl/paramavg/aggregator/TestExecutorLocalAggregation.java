@@ -0,0 +1,177 @@
+package org.deeplearning4j.spark.impl.paramavg.aggregator;
+
+import org.deeplearning4j.spark.impl.paramavg.ParameterAveragingTrainingResult;
+import org.junit.Test;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TestExecutorLocalAggregation {
+
+    @Test
+    public void testConcurrentPartitionsSummed() throws Exception {
+        ExecutorLocalAggregationFunction f = new ExecutorLocalAggregationFunction(UUID.randomUUID().toString());
+        List<List<ParameterAveragingTrainingResult>> out = runConcurrently(f, 0, 1, 2);
+
+        //Exactly one sum, containing all 3 partitions
+        int nSums = 0;
+        for (List<ParameterAveragingTrainingResult> l : out) {
+            for (ParameterAveragingTrainingResult r : l) {
+                if (r.getParameters() != null) {
+                    nSums++;
+                    assertEquals(3, r.getAggregationCount());
+                    assertEquals(Nd4j.valueArrayOf(1, 3, 1.0 + 2.0 + 3.0), r.getParameters());
+                }
+            }
+        }
+        assertEquals(1, nSums);
+
+        ParameterAveragingAggregationTuple tuple = aggregate(out.get(0), out.get(1), out.get(2));
+        assertTrue(tuple.getAggregatedPartitions().isConsistent());
+        assertEquals(3, tuple.getAggregationsCount());
+        assertEquals(Nd4j.valueArrayOf(1, 3, 6.0), tuple.getParametersSum());
+    }
+
+    @Test
+    public void testRecomputedPartition() throws Exception {
+        ExecutorLocalAggregationFunction f = new ExecutorLocalAggregationFunction(UUID.randomUUID().toString());
+        List<List<ParameterAveragingTrainingResult>> out = runConcurrently(f, 0, 1);
+
+        //Partition 1's output is lost, and it is recomputed on its own: whichever partition emitted the sum
+        // originally, partition 1 is now either counted twice, or partition 0 has been dropped
+        List<ParameterAveragingTrainingResult> recomputed = toList(f.call(1, results(1).iterator()));
+        assertEquals(1, count(recomputed));
+
+        ParameterAveragingAggregationTuple tuple = aggregate(out.get(0), recomputed);
+        assertFalse(tuple.getAggregatedPartitions().isConsistent());
+    }
+
+    @Test
+    public void testAggregatedPartitions() {
+        AggregatedPartitions p0 = new AggregatedPartitions();
+        p0.addTrained(0);
+        AggregatedPartitions p1 = new AggregatedPartitions();
+        p1.addTrained(1);
+        p1.addSummed(0);
+        p1.addSummed(1);
+        assertTrue(new AggregatedPartitions().merge(p0).merge(p1).isConsistent());
+
+        //Partition 1 missing from the sums
+        AggregatedPartitions missing = new AggregatedPartitions();
+        missing.addTrained(0);
+        missing.addTrained(1);
+        missing.addSummed(0);
+        assertFalse(missing.isConsistent());
+
+        //Partition 0 included in two sums
+        AggregatedPartitions a = new AggregatedPartitions();
+        a.addTrained(0);
+        a.addSummed(0);
+        AggregatedPartitions b = new AggregatedPartitions();
+        b.addSummed(0);
+        assertFalse(a.merge(b).isConsistent());
+    }
+
+    private static List<ParameterAveragingTrainingResult> results(int partition) {
+        ParameterAveragingTrainingResult r = new ParameterAveragingTrainingResult(
+                        Nd4j.valueArrayOf(1, 3, partition + 1.0), null, 1.0, null, null, null);
+        return Collections.singletonList(r);
+    }
+
+    /**
+     * Run the function for all partitions concurrently (as tasks on one executor), such that all tasks are in flight
+     * before any of them finishes
+     */
+    private static List<List<ParameterAveragingTrainingResult>> runConcurrently(
+                    final ExecutorLocalAggregationFunction f, int... partitions) throws Exception {
+        final CountDownLatch started = new CountDownLatch(partitions.length);
+        ExecutorService exec = Executors.newFixedThreadPool(partitions.length);
+        try {
+            List<Future<List<ParameterAveragingTrainingResult>>> futures = new ArrayList<>();
+            for (final int p : partitions) {
+                futures.add(exec.submit(new Callable<List<ParameterAveragingTrainingResult>>() {
+                    @Override
+                    public List<ParameterAveragingTrainingResult> call() throws Exception {
+                        final Iterator<ParameterAveragingTrainingResult> iter = results(p).iterator();
+                        Iterator<ParameterAveragingTrainingResult> waiting =
+                                        new Iterator<ParameterAveragingTrainingResult>() {
+                                            private boolean first = true;
+
+                                            @Override
+                                            public boolean hasNext() {
+                                                if (first) {
+                                                    first = false;
+                                                    started.countDown();
+                                                    try {
+                                                        started.await();
+                                                    } catch (InterruptedException e) {
+                                                        throw new RuntimeException(e);
+                                                    }
+                                                }
+                                                return iter.hasNext();
+                                            }
+
+                                            @Override
+                                            public ParameterAveragingTrainingResult next() {
+                                                return iter.next();
+                                            }
+
+                                            @Override
+                                            public void remove() {
+                                                throw new UnsupportedOperationException();
+                                            }
+                                        };
+                        return toList(f.call(p, waiting));
+                    }
+                }));
+            }
+            List<List<ParameterAveragingTrainingResult>> out = new ArrayList<>();
+            for (Future<List<ParameterAveragingTrainingResult>> future : futures) {
+                out.add(future.get());
+            }
+            return out;
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    private static List<ParameterAveragingTrainingResult> toList(Iterator<ParameterAveragingTrainingResult> iter) {
+        List<ParameterAveragingTrainingResult> l = new ArrayList<>();
+        while (iter.hasNext()) {
+            l.add(iter.next());
+        }
+        return l;
+    }
+
+    private static int count(List<ParameterAveragingTrainingResult> results) {
+        int count = 0;
+        for (ParameterAveragingTrainingResult r : results) {
+            count += r.getAggregationCount();
+        }
+        return count;
+    }
+
+    @SafeVarargs
+    private static ParameterAveragingAggregationTuple aggregate(List<ParameterAveragingTrainingResult>... outputs)
+                    throws Exception {
+        ParameterAveragingElementAddFunction add = new ParameterAveragingElementAddFunction();
+        ParameterAveragingElementCombineFunction combine = new ParameterAveragingElementCombineFunction();
+        ParameterAveragingAggregationTuple result = null;
+        for (List<ParameterAveragingTrainingResult> partitionOutput : outputs) {
+            //One tuple per partition, as per treeAggregate
+            ParameterAveragingAggregationTuple t = null;
+            for (ParameterAveragingTrainingResult r : partitionOutput) {
+                t = add.call(t, r);
+            }
+            result = combine.call(result, t);
+        }
+        return result;
+    }
+}
@@ -12,8 +12,10 @@ import org.junit.Test;
 import scala.Tuple2;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.deeplearning4j.spark.util.SparkUtils.indexedRDD;
@@ -185,5 +187,38 @@ public class TestRepartitioning extends BaseSparkTest {
         assertEquals(100, rdd2.partitions().size());
     }
 
+    @Test
+    public void testRepartitioningSurplusBalanced() {
+        //Skewed partitions: 10 partitions, of sizes 10, 30, 50, ..., 190 (1000 objects total)
+        JavaRDD<String> rdd = null;
+        int count = 0;
+        for (int i = 0; i < 10; i++) {
+            List<String> list = new ArrayList<>();
+            for (int j = 0; j < 10 + 20 * i; j++) {
+                list.add(String.valueOf(count++));
+            }
+            JavaRDD<String> r = sc.parallelize(list, 1);
+            rdd = (rdd == null ? r : rdd.union(r));
+        }
+        assertEquals(10, rdd.partitions().size());
+
+        JavaRDD<String> rdd2 = SparkUtils.repartition(rdd, Repartition.Always, RepartitionStrategy.SurplusBalanced,
+                        100, 10);
+        assertFalse(rdd == rdd2);
+        assertEquals(10, rdd2.partitions().size());
+
+        Set<String> all = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            List<String> partition = rdd2.collectPartitions(new int[] {i})[0];
+            assertEquals(100, partition.size());
+            all.addAll(partition);
+        }
+        assertEquals(1000, all.size());
+
+        //Already balanced: should not be repartitioned at all
+        JavaRDD<String> rdd3 = SparkUtils.repartitionSurplusBalanced(sc.parallelize(new ArrayList<>(all), 10),
+                        Repartition.Always, 100, 10);
+        assertEquals(10, rdd3.partitions().size());
+    }
 
 }
@@ -3,14 +3,18 @@ package org.deeplearning4j.ui.module.remote;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.api.storage.*;
+import org.deeplearning4j.api.storage.impl.RemoteUIBatchFormat;
 import org.deeplearning4j.ui.api.FunctionType;
 import org.deeplearning4j.ui.api.HttpMethod;
 import org.deeplearning4j.ui.api.Route;
 import org.deeplearning4j.ui.api.UIModule;
+import play.mvc.Http;
 import play.mvc.Result;
 import play.mvc.Results;
 
 import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -23,13 +27,20 @@ import static play.mvc.Http.Context.Implicit.request;
  * Used to receive UI updates remotely.
  * Used in conjunction with {@link org.deeplearning4j.api.storage.impl.RemoteUIStatsStorageRouter}, which posts to the UI.
  * UI information is then deserialized and routed to the specified StatsStorageRouter, which may (or may not)
- * be attached to the UI
+ * be attached to the UI<br>
+ * Objects may be posted individually (as JSON, to /remoteReceive) or in batches (in the binary format defined by
+ * {@link RemoteUIBatchFormat}, to /remoteReceive/batch)
  *
  * @author Alex Black
  */
 @Slf4j
 public class RemoteReceiverModule implements UIModule {
 
+    /**
+     * Maximum size of a batch posted to /remoteReceive/batch, in bytes
+     */
+    public static final int MAX_BATCH_BYTES = RemoteUIBatchFormat.MAX_BATCH_BYTES;
+
     private AtomicBoolean enabled = new AtomicBoolean(false);
     private StatsStorageRouter statsStorage;
 
@@ -56,7 +67,8 @@ public class RemoteReceiverModule implements UIModule {
     @Override
     public List<Route> getRoutes() {
         Route r = new Route("/remoteReceive", HttpMethod.POST, FunctionType.Supplier, this::receiveData);
-        return Collections.singletonList(r);
+        Route r2 = new Route("/remoteReceive/batch", HttpMethod.POST, FunctionType.Supplier, this::receiveBatch);
+        return Arrays.asList(r, r2);
     }
 
     @Override
@@ -75,7 +87,8 @@ public class RemoteReceiverModule implements UIModule {
         //No op
     }
 
-    private Result receiveData() {
+    //Returns an error result if receiving is not possible, or null otherwise
+    private Result checkCanReceive() {
         if (!enabled.get()) {
             return Results.forbidden(
                             "UI server remote listening is currently disabled. Use UIServer.getInstance().enableRemoteListener()");
@@ -85,6 +98,14 @@ public class RemoteReceiverModule implements UIModule {
             return Results.internalServerError(
                             "UI Server remote listener: no StatsStorage instance is set/available to store results");
         }
+        return null;
+    }
+
+    private Result receiveData() {
+        Result error = checkCanReceive();
+        if (error != null) {
+            return error;
+        }
 
         JsonNode jn = request().body().asJson();
         JsonNode type = jn.get("type");
@@ -127,6 +148,35 @@ public class RemoteReceiverModule implements UIModule {
         return Results.ok("Receiver got data: ");
     }
 
+    private Result receiveBatch() {
+        Result error = checkCanReceive();
+        if (error != null) {
+            return error;
+        }
+
+        Http.RawBuffer raw = request().body().asRaw();
+        if (raw == null) {
+            return Results.badRequest("Received incorrectly formatted data: expected content type "
+                            + RemoteUIBatchFormat.CONTENT_TYPE);
+        }
+        byte[] bytes = raw.asBytes();
+        if (bytes == null) {
+            //Large bodies are buffered to disk by Play
+            bytes = raw.asBytes(MAX_BATCH_BYTES);
+        }
+
+        List<RemoteUIBatchFormat.Entry> entries;
+        try {
+            entries = RemoteUIBatchFormat.decode(bytes);
+        } catch (IOException e) {
+            log.warn("Received incorrectly formatted batch from remote listener", e);
+            return Results.badRequest("Received incorrectly formatted data");
+        }
+
+        RemoteUIBatchFormat.route(entries, statsStorage);
+        return Results.ok("Receiver got data: " + entries.size() + " entries");
+    }
+
     private StorageMetaData getMetaData(String dataClass, String content) {
 
         StorageMetaData meta;
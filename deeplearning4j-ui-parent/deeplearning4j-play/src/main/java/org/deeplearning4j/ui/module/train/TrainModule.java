@@ -7,6 +7,8 @@ import org.deeplearning4j.api.storage.Persistable;
 import org.deeplearning4j.api.storage.StatsStorage;
 import org.deeplearning4j.api.storage.StatsStorageEvent;
 import org.deeplearning4j.api.storage.StatsStorageListener;
+import org.deeplearning4j.api.storage.TimeSeriesBucket;
+import org.deeplearning4j.api.storage.impl.TimeSeriesAggregator;
 import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
@@ -20,7 +22,9 @@ import org.deeplearning4j.ui.stats.StatsListener;
 import org.deeplearning4j.ui.stats.api.Histogram;
 import org.deeplearning4j.ui.stats.api.StatsInitializationReport;
 import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.api.StatsReportMetrics;
 import org.deeplearning4j.ui.stats.api.StatsType;
+import org.deeplearning4j.ui.stats.api.SummaryType;
 import org.deeplearning4j.ui.views.html.training.TrainingHelp;
 import org.deeplearning4j.ui.views.html.training.TrainingModel;
 import org.deeplearning4j.ui.views.html.training.TrainingOverview;
@@ -321,6 +325,32 @@ public class TrainModule implements UIModule {
         return Double.isFinite(d) ? d : NAN_REPLACEMENT_VALUE;
     }
 
+    private List<TimeSeriesBucket> getOverviewTimeSeries(StatsStorage ss, String wid, String metric) {
+        return TimeSeriesAggregator.getTimeSeries(ss, currentSessionID, StatsListener.TYPE_ID, wid, metric,
+                        TimeSeriesBucket.RangeType.Timestamp, Long.MIN_VALUE, Long.MAX_VALUE, maxChartPoints);
+    }
+
+    /**
+     * Mean values of the metric buckets, one for each of the reference buckets. The metric buckets are a subset of the
+     * reference (iteration) buckets, as buckets with no finite values for a metric are omitted: for these, and for
+     * non-finite values, {@link #NAN_REPLACEMENT_VALUE} is used
+     */
+    private static List<Double> alignedMeans(List<TimeSeriesBucket> reference, List<TimeSeriesBucket> metric) {
+        List<Double> out = new ArrayList<>(reference.size());
+        int j = 0;
+        for (TimeSeriesBucket ref : reference) {
+            while (j < metric.size() && metric.get(j).getEndTimestamp() < ref.getStartTimestamp()) {
+                j++;
+            }
+            if (j < metric.size() && metric.get(j).getEndTimestamp() <= ref.getEndTimestamp()) {
+                out.add(fixNaN(metric.get(j++).getMean()));
+            } else {
+                out.add(NAN_REPLACEMENT_VALUE);
+            }
+        }
+        return out;
+    }
+
     private static void cleanLegacyIterationCounts(List<Integer> iterationCounts) {
         if (iterationCounts.size() > 0) {
             boolean allEqual = true;
@@ -374,25 +404,11 @@ public class TrainModule implements UIModule {
         result.put("scoresIter", scoresIterCount);
 
         //Get scores info
-        long[] allTimes = (noData ? null : ss.getAllUpdateTimes(currentSessionID, StatsListener.TYPE_ID, wid));
-        List<Persistable> updates = null;
-        if(allTimes != null && allTimes.length > maxChartPoints){
-            int subsamplingFrequency = allTimes.length / maxChartPoints;
-            LongArrayList timesToQuery = new LongArrayList(maxChartPoints+2);
-            int i=0;
-            for(; i<allTimes.length; i+= subsamplingFrequency){
-                timesToQuery.add(allTimes[i]);
-            }
-            if((i-subsamplingFrequency) != allTimes.length-1){
-                //Also add final point
-                timesToQuery.add(allTimes[allTimes.length-1]);
-            }
-            updates = ss.getUpdates(currentSessionID, StatsListener.TYPE_ID, wid, timesToQuery.toArray());
-        } else if(allTimes != null) {
-            //Don't subsample
-            updates = ss.getAllUpdatesAfter(currentSessionID, StatsListener.TYPE_ID, wid, 0);
-        }
-        if (updates == null || updates.size() == 0) {
+        //Values are aggregated (min/max/mean buckets) by the StatsStorage as updates arrive, hence we don't need to
+        //retrieve and decode the updates themselves here. The iteration buckets define the x axis for all charts
+        List<TimeSeriesBucket> iterBuckets =
+                        (noData ? null : getOverviewTimeSeries(ss, wid, StatsReportMetrics.ITERATION));
+        if (iterBuckets == null || iterBuckets.size() == 0) {
             noData = true;
         }
 
@@ -408,132 +424,52 @@ public class TrainModule implements UIModule {
         result.put("stdevGradients", stdevGradients);
         result.put("stdevUpdates", stdevUpdates);
 
-        if (!noData) {
-            Persistable u = updates.get(0);
-            if (u instanceof StatsReport) {
-                StatsReport sp = (StatsReport) u;
-                Map<String, Double> map = sp.getMeanMagnitudes(StatsType.Parameters);
-                if (map != null) {
-                    for (String s : map.keySet()) {
-                        if (!s.toLowerCase().endsWith("w"))
-                            continue; //TODO: more robust "weights only" approach...
-                        updateRatios.put(s, new ArrayList<>());
-                    }
-                }
-
-                Map<String, Double> stdGrad = sp.getStdev(StatsType.Gradients);
-                if (stdGrad != null) {
-                    for (String s : stdGrad.keySet()) {
-                        if (!s.toLowerCase().endsWith("w"))
-                            continue; //TODO: more robust "weights only" approach...
-                        stdevGradients.put(s, new ArrayList<>());
-                    }
-                }
-
-                Map<String, Double> stdUpdate = sp.getStdev(StatsType.Updates);
-                if (stdUpdate != null) {
-                    for (String s : stdUpdate.keySet()) {
-                        if (!s.toLowerCase().endsWith("w"))
-                            continue; //TODO: more robust "weights only" approach...
-                        stdevUpdates.put(s, new ArrayList<>());
-                    }
-                }
-
-
-                Map<String, Double> stdAct = sp.getStdev(StatsType.Activations);
-                if (stdAct != null) {
-                    for (String s : stdAct.keySet()) {
-                        stdevActivations.put(s, new ArrayList<>());
-                    }
-                }
-            }
-        }
-
-        StatsReport last = null;
-        int lastIterCount = -1;
         //Legacy issue - Spark training - iteration counts are used to be reset... which means: could go 0,1,2,0,1,2, etc...
         //Or, it could equally go 4,8,4,8,... or 5,5,5,5 - depending on the collection and averaging frequencies
         //Now, it should use the proper iteration counts
         boolean needToHandleLegacyIterCounts = false;
         if (!noData) {
-            double lastScore;
-
-            int totalUpdates = updates.size();
-            int subsamplingFrequency = 1;
-            if (totalUpdates > maxChartPoints) {
-                subsamplingFrequency = totalUpdates / maxChartPoints;
-            }
-
-            int pCount = -1;
-            int lastUpdateIdx = updates.size() - 1;
-            for (Persistable u : updates) {
-                pCount++;
-                if (!(u instanceof StatsReport))
-                    continue;
-
-                last = (StatsReport) u;
-                int iterCount = last.getIterationCount();
-
-                if (iterCount <= lastIterCount) {
+            double prevMax = Double.NEGATIVE_INFINITY;
+            for (TimeSeriesBucket b : iterBuckets) {
+                if (b.getMin() <= prevMax || b.getMax() - b.getMin() < b.getCount() - 1) {
                     needToHandleLegacyIterCounts = true;
                 }
-                lastIterCount = iterCount;
-
-                if (pCount > 0 && subsamplingFrequency > 1 && pCount % subsamplingFrequency != 0) {
-                    //Skip this - subsample the data
-                    if (pCount != lastUpdateIdx)
-                        continue; //Always keep the most recent value
-                }
+                prevMax = b.getMax();
+                scoresIterCount.add(b.getEndIteration());
+            }
 
-                scoresIterCount.add(iterCount);
-                lastScore = last.getScore();
-                if (Double.isFinite(lastScore)) {
-                    scores.add(lastScore);
+            scores.addAll(alignedMeans(iterBuckets, getOverviewTimeSeries(ss, wid, StatsReportMetrics.SCORE)));
+
+            String updateRatioPrefix = StatsReportMetrics.UPDATE_RATIO_PREFIX;
+            String stdevGradPrefix = StatsReportMetrics.summaryStatPrefix(SummaryType.Stdev, StatsType.Gradients);
+            String stdevUpdPrefix = StatsReportMetrics.summaryStatPrefix(SummaryType.Stdev, StatsType.Updates);
+            String stdevActPrefix = StatsReportMetrics.summaryStatPrefix(SummaryType.Stdev, StatsType.Activations);
+            List<String> metrics =
+                            TimeSeriesAggregator.listTimeSeriesMetrics(ss, currentSessionID, StatsListener.TYPE_ID, wid);
+            for (String metric : metrics) {
+                Map<String, List<Double>> target;
+                String paramName;
+                boolean weightsOnly = true;
+                if (metric.startsWith(updateRatioPrefix)) {
+                    target = updateRatios;
+                    paramName = metric.substring(updateRatioPrefix.length());
+                } else if (metric.startsWith(stdevGradPrefix)) {
+                    target = stdevGradients;
+                    paramName = metric.substring(stdevGradPrefix.length());
+                } else if (metric.startsWith(stdevUpdPrefix)) {
+                    target = stdevUpdates;
+                    paramName = metric.substring(stdevUpdPrefix.length());
+                } else if (metric.startsWith(stdevActPrefix)) {
+                    target = stdevActivations;
+                    paramName = metric.substring(stdevActPrefix.length());
+                    weightsOnly = false;
                 } else {
-                    scores.add(NAN_REPLACEMENT_VALUE);
-                }
-
-
-                //Update ratios: mean magnitudes(updates) / mean magnitudes (parameters)
-                Map<String, Double> updateMM = last.getMeanMagnitudes(StatsType.Updates);
-                Map<String, Double> paramMM = last.getMeanMagnitudes(StatsType.Parameters);
-                if (updateMM != null && paramMM != null && updateMM.size() > 0 && paramMM.size() > 0) {
-                    for (String s : updateRatios.keySet()) {
-                        List<Double> ratioHistory = updateRatios.get(s);
-                        double currUpdate = updateMM.getOrDefault(s, 0.0);
-                        double currParam = paramMM.getOrDefault(s, 0.0);
-                        double ratio = currUpdate / currParam;
-                        if (Double.isFinite(ratio)) {
-                            ratioHistory.add(ratio);
-                        } else {
-                            ratioHistory.add(NAN_REPLACEMENT_VALUE);
-                        }
-                    }
+                    continue;
                 }
+                if (weightsOnly && !paramName.toLowerCase().endsWith("w"))
+                    continue; //TODO: more robust "weights only" approach...
 
-                //Standard deviations: gradients, updates, activations
-                Map<String, Double> stdGrad = last.getStdev(StatsType.Gradients);
-                Map<String, Double> stdUpd = last.getStdev(StatsType.Updates);
-                Map<String, Double> stdAct = last.getStdev(StatsType.Activations);
-
-                if (stdGrad != null) {
-                    for (String s : stdevGradients.keySet()) {
-                        double d = stdGrad.getOrDefault(s, 0.0);
-                        stdevGradients.get(s).add(fixNaN(d));
-                    }
-                }
-                if (stdUpd != null) {
-                    for (String s : stdevUpdates.keySet()) {
-                        double d = stdUpd.getOrDefault(s, 0.0);
-                        stdevUpdates.get(s).add(fixNaN(d));
-                    }
-                }
-                if (stdAct != null) {
-                    for (String s : stdevActivations.keySet()) {
-                        double d = stdAct.getOrDefault(s, 0.0);
-                        stdevActivations.get(s).add(fixNaN(d));
-                    }
-                }
+                target.put(paramName, alignedMeans(iterBuckets, getOverviewTimeSeries(ss, wid, metric)));
             }
         }
 
@@ -541,6 +477,14 @@ public class TrainModule implements UIModule {
             cleanLegacyIterationCounts(scoresIterCount);
         }
 
+        StatsReport last = null;
+        if (!noData) {
+            Persistable p = ss.getLatestUpdate(currentSessionID, StatsListener.TYPE_ID, wid);
+            if (p instanceof StatsReport) {
+                last = (StatsReport) p;
+            }
+        }
+
 
 
         //----- Performance Info -----
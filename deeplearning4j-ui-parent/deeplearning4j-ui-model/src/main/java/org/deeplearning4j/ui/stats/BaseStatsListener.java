@@ -17,7 +17,6 @@ import org.deeplearning4j.ui.stats.impl.DefaultStatsInitializationConfiguration;
 import org.deeplearning4j.ui.stats.impl.DefaultStatsUpdateConfiguration;
 import org.deeplearning4j.util.UIDProvider;
 import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
-import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
@@ -32,11 +31,18 @@ import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * BaseStatsListener: a general purpose listener for collecting and reporting system and model information.
  *
- * Serves as a base for different ways of storing the collected data
+ * Serves as a base for different ways of storing the collected data<br>
+ * Gradients and activations are copied into pooled arrays (see {@link StatsSnapshotPool}). With
+ * {@link AsyncStatsUpdateConfiguration#asyncCollection()}, parameters and updates are also copied, the histograms and
+ * summary stats for each array are calculated together in a single pass (see {@link FusedArrayStats}), and the
+ * encoding and routing of the report happens on a background thread instead of the training thread. Note that in this
+ * case, the {@link StatsStorageRouter} is called from the background thread. Otherwise, the stats are calculated on
+ * the training thread using native ND4J ops, directly on the parameter and update arrays.
  *
  * @author Alex Black
  */
@@ -44,10 +50,6 @@ import java.util.*;
 public abstract class BaseStatsListener implements RoutingIterationListener {
     public static final String TYPE_ID = "StatsListener";
 
-    private enum StatType {
-        Mean, Stdev, MeanMagnitude
-    }
-
     private StatsStorageRouter router;
     private final StatsInitializationConfiguration initConfig;
     private StatsUpdateConfiguration updateConfig;
@@ -58,7 +60,12 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
     private Map<String, Pair<Long, Long>> gcStatsAtLastReport;
 
     private Map<String, INDArray> activationsMap;
-    private Map<String, INDArray> gradientsPreUpdateMap = new HashMap<>();
+    private Map<String, INDArray> gradientsPreUpdateMap;
+
+    private transient StatsSnapshotPool snapshotPool;
+    private transient ThreadPoolExecutor statsExecutor;
+    private transient int pendingReports;
+    private transient long droppedReports;
 
     //NOTE: may have multiple models, due to multiple pretrain layers all using the same StatsListener
     private List<ModelInfo> modelInfos = new ArrayList<>();
@@ -224,14 +231,13 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         int iterCount = getModelInfo(model).iterCount;
         if (storeActivations() && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
             //Assumption: we have input, layer 0, layer 1, ...
+            getSnapshotPool().release(activationsMap);
             activationsMap = new HashMap<>();
-            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
-                int count = 0;
-                for (INDArray arr : activations) {
-                    String layerName = (count == 0 ? "input" : String.valueOf(count - 1));
-                    activationsMap.put(layerName, arr.dup());
-                    count++;
-                }
+            int count = 0;
+            for (INDArray arr : activations) {
+                String layerName = (count == 0 ? "input" : String.valueOf(count - 1));
+                activationsMap.put(layerName, getSnapshotPool().snapshot(arr));
+                count++;
             }
         }
     }
@@ -241,12 +247,8 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         int iterCount = getModelInfo(model).iterCount;
         if (storeActivations() && updateConfig.reportingFrequency() > 0
                         && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
-            activationsMap = new HashMap<>();
-            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
-                for (Map.Entry<String, INDArray> e : activations.entrySet()) {
-                    activationsMap.put(e.getKey(), e.getValue().dup());
-                }
-            }
+            getSnapshotPool().release(activationsMap);
+            activationsMap = getSnapshotPool().snapshot(activations);
         }
     }
 
@@ -256,25 +258,35 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         if (storeGradients() && updateConfig.reportingFrequency() > 0
                         && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
             Gradient g = model.gradient();
-            gradientsPreUpdateMap.clear();
-            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
-                for (Map.Entry<String, INDArray> entry : g.gradientForVariable().entrySet()) {
-                    gradientsPreUpdateMap.put(entry.getKey(), entry.getValue().dup()); //Need to clone: will be modified (updated) in-place soon...
-                }
-            }
+            getSnapshotPool().release(gradientsPreUpdateMap);
+            //Need to copy: will be modified (updated) in-place soon...
+            gradientsPreUpdateMap = getSnapshotPool().snapshot(g.gradientForVariable());
         }
     }
 
     private boolean storeActivations() {
-        return updateConfig.collectMean(StatsType.Activations) || updateConfig.collectStdev(StatsType.Activations)
-                        || updateConfig.collectMeanMagnitudes(StatsType.Activations)
-                        || updateConfig.collectHistograms(StatsType.Activations);
+        return collectArrayStats(updateConfig, StatsType.Activations);
     }
 
     private boolean storeGradients() {
-        return updateConfig.collectMean(StatsType.Gradients) || updateConfig.collectStdev(StatsType.Gradients)
-                        || updateConfig.collectMeanMagnitudes(StatsType.Gradients)
-                        || updateConfig.collectHistograms(StatsType.Gradients);
+        return collectArrayStats(updateConfig, StatsType.Gradients);
+    }
+
+    private static boolean collectArrayStats(StatsUpdateConfiguration config, StatsType statsType) {
+        return config.collectMean(statsType) || config.collectStdev(statsType)
+                        || config.collectMeanMagnitudes(statsType) || config.collectHistograms(statsType);
+    }
+
+    private static boolean asyncCollection(StatsUpdateConfiguration config) {
+        return config instanceof AsyncStatsUpdateConfiguration
+                        && ((AsyncStatsUpdateConfiguration) config).asyncCollection();
+    }
+
+    private static int asyncQueueSize(StatsUpdateConfiguration config) {
+        if (config instanceof AsyncStatsUpdateConfiguration) {
+            return Math.max(1, ((AsyncStatsUpdateConfiguration) config).asyncQueueSize());
+        }
+        return DefaultStatsUpdateConfiguration.DEFAULT_ASYNC_QUEUE_SIZE;
     }
 
     @Override
@@ -438,113 +450,209 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         }
 
 
-        //--- Histograms ---
-
-        if (config.collectHistograms(StatsType.Parameters)) {
-            Map<String, Histogram> paramHistograms = getHistograms(model.paramTable(backpropParamsOnly),
-                            config.numHistogramBins(StatsType.Parameters));
-            report.reportHistograms(StatsType.Parameters, paramHistograms);
-        }
-
-        if (config.collectHistograms(StatsType.Gradients)) {
-            Map<String, Histogram> gradientHistograms =
-                            getHistograms(gradientsPreUpdateMap, config.numHistogramBins(StatsType.Gradients));
-            report.reportHistograms(StatsType.Gradients, gradientHistograms);
-        }
-
-        if (config.collectHistograms(StatsType.Updates)) {
-            Map<String, Histogram> updateHistograms = getHistograms(model.gradient().gradientForVariable(),
-                            config.numHistogramBins(StatsType.Updates));
-            report.reportHistograms(StatsType.Updates, updateHistograms);
-        }
-
-        if (config.collectHistograms(StatsType.Activations)) {
-            Map<String, Histogram> activationHistograms =
-                            getHistograms(activationsMap, config.numHistogramBins(StatsType.Activations));
-            report.reportHistograms(StatsType.Activations, activationHistograms);
-        }
-
-
-        //--- Summary Stats: Mean, Variance, Mean Magnitudes ---
-
-        if (config.collectMean(StatsType.Parameters)) {
-            Map<String, Double> meanParams = calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Mean);
-            report.reportMean(StatsType.Parameters, meanParams);
-        }
-
-        if (config.collectMean(StatsType.Gradients)) {
-            Map<String, Double> meanGradients = calculateSummaryStats(gradientsPreUpdateMap, StatType.Mean);
-            report.reportMean(StatsType.Gradients, meanGradients);
-        }
-
-        if (config.collectMean(StatsType.Updates)) {
-            Map<String, Double> meanUpdates =
-                            calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Mean);
-            report.reportMean(StatsType.Updates, meanUpdates);
+        //--- Histograms and Summary Stats: Mean, Variance, Mean Magnitudes ---
+        //Parameters and updates are modified in-place as training continues: when the stats are calculated on the
+        // background thread, they are copied here. Otherwise, the stats are calculated (below) before training
+        // continues, so no copy is required. Gradients and activations were already copied when they were collected
+        boolean async = asyncCollection(config);
+        Map<StatsType, Map<String, INDArray>> arrays = new EnumMap<>(StatsType.class);
+        List<Map<String, INDArray>> snapshots = new ArrayList<>();
+        if (collectArrayStats(config, StatsType.Parameters)) {
+            Map<String, INDArray> paramTable = model.paramTable(backpropParamsOnly);
+            if (async) {
+                paramTable = getSnapshotPool().snapshot(paramTable);
+                snapshots.add(paramTable);
+            }
+            arrays.put(StatsType.Parameters, paramTable);
+        }
+        if (gradientsPreUpdateMap != null) {
+            arrays.put(StatsType.Gradients, gradientsPreUpdateMap);
+            snapshots.add(gradientsPreUpdateMap);
+            gradientsPreUpdateMap = null;
+        }
+        if (collectArrayStats(config, StatsType.Updates)) {
+            Map<String, INDArray> updates = model.gradient().gradientForVariable();
+            if (async) {
+                updates = getSnapshotPool().snapshot(updates);
+                snapshots.add(updates);
+            }
+            arrays.put(StatsType.Updates, updates);
         }
-
-        if (config.collectMean(StatsType.Activations)) {
-            Map<String, Double> meanActivations = calculateSummaryStats(activationsMap, StatType.Mean);
-            report.reportMean(StatsType.Activations, meanActivations);
+        if (activationsMap != null) {
+            arrays.put(StatsType.Activations, activationsMap);
+            snapshots.add(activationsMap);
+            activationsMap = null;
         }
 
+        modelInfo.lastReportTime = currentTime;
+        modelInfo.lastReportIteration = iteration;
+        report.reportIterationCount(iteration);
+        modelInfo.iterCount = iteration;
 
-        if (config.collectStdev(StatsType.Parameters)) {
-            Map<String, Double> stdevParams =
-                            calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Stdev);
-            report.reportStdev(StatsType.Parameters, stdevParams);
-        }
-
-        if (config.collectStdev(StatsType.Gradients)) {
-            Map<String, Double> stdevGradient = calculateSummaryStats(gradientsPreUpdateMap, StatType.Stdev);
-            report.reportStdev(StatsType.Gradients, stdevGradient);
+        StatsCollectionTask task = new StatsCollectionTask(report, config, arrays, snapshots,
+                        getTime() - currentTime, async);
+        if (async) {
+            synchronized (this) {
+                pendingReports++;
+            }
+            getStatsExecutor().execute(task);
+        } else {
+            task.run();
         }
+    }
 
-        if (config.collectStdev(StatsType.Updates)) {
-            Map<String, Double> stdevUpdates =
-                            calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Stdev);
-            report.reportStdev(StatsType.Updates, stdevUpdates);
+    /**
+     * Calculates the histograms and summary stats for a report, and then routes the report. Runs on the training
+     * thread, or on the stats collection thread when using asynchronous collection
+     */
+    private class StatsCollectionTask implements Runnable {
+        private final StatsReport report;
+        private final StatsUpdateConfiguration config;
+        private final Map<StatsType, Map<String, INDArray>> arrays;
+        private final List<Map<String, INDArray>> snapshots;
+        private final long trainingThreadDurationMS;
+        private final boolean async;
+
+        private StatsCollectionTask(StatsReport report, StatsUpdateConfiguration config,
+                        Map<StatsType, Map<String, INDArray>> arrays, List<Map<String, INDArray>> snapshots,
+                        long trainingThreadDurationMS, boolean async) {
+            this.report = report;
+            this.config = config;
+            this.arrays = arrays;
+            this.snapshots = snapshots;
+            this.trainingThreadDurationMS = trainingThreadDurationMS;
+            this.async = async;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long startTime = getTime();
+                for (StatsType statsType : StatsType.values()) {
+                    calculateArrayStats(report, config, statsType, arrays.get(statsType), async);
+                }
+                long endTime = getTime();
+                //Amount of time required to calculate all histograms, means etc.
+                report.reportStatsCollectionDurationMS((int) (trainingThreadDurationMS + endTime - startTime));
+
+                router.putUpdate(report);
+            } catch (RuntimeException e) {
+                if (!async)
+                    throw e;
+                log.warn("Error calculating or routing stats on background thread", e);
+            } finally {
+                release();
+            }
         }
 
-        if (config.collectStdev(StatsType.Activations)) {
-            Map<String, Double> stdevActivations = calculateSummaryStats(activationsMap, StatType.Stdev);
-            report.reportStdev(StatsType.Activations, stdevActivations);
+        private void dropped() {
+            log.debug("Dropping stats report: stats collection thread is not keeping up with training");
+            synchronized (BaseStatsListener.this) {
+                droppedReports++;
+            }
+            release();
         }
 
-
-        if (config.collectMeanMagnitudes(StatsType.Parameters)) {
-            Map<String, Double> meanMagParams =
-                            calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Parameters, meanMagParams);
+        private void release() {
+            //Only the snapshot arrays are returned to the pool: the others are the model's own arrays
+            for (Map<String, INDArray> m : snapshots) {
+                getSnapshotPool().release(m);
+            }
+            if (async) {
+                synchronized (BaseStatsListener.this) {
+                    pendingReports--;
+                    BaseStatsListener.this.notifyAll();
+                }
+            }
         }
+    }
 
-        if (config.collectMeanMagnitudes(StatsType.Gradients)) {
-            Map<String, Double> meanMagGradients = calculateSummaryStats(gradientsPreUpdateMap, StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Gradients, meanMagGradients);
-        }
+    private synchronized StatsSnapshotPool getSnapshotPool() {
+        if (snapshotPool == null) {
+            snapshotPool = new StatsSnapshotPool();
+        }
+        return snapshotPool;
+    }
+
+    private synchronized ThreadPoolExecutor getStatsExecutor() {
+        if (statsExecutor == null) {
+            statsExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<Runnable>(asyncQueueSize(updateConfig)),
+                            new ThreadFactory() {
+                                @Override
+                                public Thread newThread(Runnable r) {
+                                    Thread t = new Thread(r, "StatsListener-" + workerID);
+                                    t.setDaemon(true);
+                                    return t;
+                                }
+                            }, new RejectedExecutionHandler() {
+                                @Override
+                                public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                                    //Queue is full: drop the oldest waiting report, so training is never blocked
+                                    if (executor.isShutdown()) {
+                                        ((StatsCollectionTask) r).dropped();
+                                        return;
+                                    }
+                                    Runnable oldest = executor.getQueue().poll();
+                                    if (oldest != null) {
+                                        ((StatsCollectionTask) oldest).dropped();
+                                    }
+                                    executor.execute(r);
+                                }
+                            });
+        }
+        return statsExecutor;
+    }
 
-        if (config.collectMeanMagnitudes(StatsType.Updates)) {
-            Map<String, Double> meanMagUpdates =
-                            calculateSummaryStats(model.gradient().gradientForVariable(), StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Updates, meanMagUpdates);
+    /**
+     * Wait for reports still being calculated or routed on the background thread, when using asynchronous collection
+     * (see {@link AsyncStatsUpdateConfiguration#asyncCollection()}). Returns immediately otherwise.
+     *
+     * @param timeout Maximum amount of time to wait
+     * @param unit    Unit for the timeout
+     * @return True if all pending reports have been routed (or dropped); false if the timeout was reached first
+     */
+    public synchronized boolean awaitPendingStats(long timeout, TimeUnit unit) throws InterruptedException {
+        long endTime = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (pendingReports > 0) {
+            long remaining = endTime - System.currentTimeMillis();
+            if (remaining <= 0)
+                return false;
+            wait(remaining);
         }
+        return true;
+    }
 
-        if (config.collectMeanMagnitudes(StatsType.Activations)) {
-            Map<String, Double> meanMagActivations = calculateSummaryStats(activationsMap, StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Activations, meanMagActivations);
+    /**
+     * Shut down the background stats collection thread, if one has been started (see
+     * {@link AsyncStatsUpdateConfiguration#asyncCollection()}). Reports that are already queued are still calculated
+     * and routed; this method waits for them (up to the specified timeout) before returning.<br>
+     * This should be called once training is complete, so that the thread is not leaked. If the listener is used again
+     * afterwards, a new background thread is started when required.
+     *
+     * @param timeout Maximum amount of time to wait for the queued reports
+     * @param unit    Unit for the timeout
+     * @return True if all queued reports have been routed and the thread has terminated; false if the timeout was
+     *         reached first
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        ThreadPoolExecutor executor;
+        synchronized (this) {
+            executor = statsExecutor;
+            statsExecutor = null;
         }
+        if (executor == null)
+            return true;
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
 
-
-        long endTime = getTime();
-        report.reportStatsCollectionDurationMS((int) (endTime - currentTime)); //Amount of time required to alculate all histograms, means etc.
-        modelInfo.lastReportTime = currentTime;
-        modelInfo.lastReportIteration = iteration;
-        report.reportIterationCount(iteration);
-
-        this.router.putUpdate(report);
-
-        modelInfo.iterCount = iteration;
-        activationsMap = null;
+    /**
+     * @return Number of reports dropped so far, due to the stats collection thread not keeping up with training
+     *         (when using asynchronous collection)
+     */
+    public synchronized long getNumDroppedReports() {
+        return droppedReports;
     }
 
     private long getTime() {
@@ -709,59 +817,41 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         return model instanceof MultiLayerNetwork || model instanceof ComputationGraph;
     }
 
-    private static Map<String, Double> calculateSummaryStats(Map<String, INDArray> source, StatType statType) {
-        Map<String, Double> out = new LinkedHashMap<>();
-
-        if (source == null)
-            return out;
-
-        for (Map.Entry<String, INDArray> entry : source.entrySet()) {
-            String name = entry.getKey();
-            double value;
-            switch (statType) {
-                case Mean:
-                    value = entry.getValue().meanNumber().doubleValue();
-                    break;
-                case Stdev:
-                    value = entry.getValue().stdNumber().doubleValue();
-                    break;
-                case MeanMagnitude:
-                    value = entry.getValue().norm1Number().doubleValue() / entry.getValue().length();
-                    break;
-                default:
-                    throw new RuntimeException(); //Should never happen
-            }
-            out.put(name, value);
-        }
-        return out;
-    }
-
-    private static Map<String, Histogram> getHistograms(Map<String, INDArray> map, int nBins) {
-        Map<String, Histogram> out = new LinkedHashMap<>();
-
-        if (map == null)
-            return out;
-
-        for (Map.Entry<String, INDArray> entry : map.entrySet()) {
-
-            org.nd4j.linalg.api.ops.impl.transforms.Histogram hOp =
-                            new org.nd4j.linalg.api.ops.impl.transforms.Histogram(entry.getValue(), nBins);
-            Nd4j.getExecutioner().exec(hOp);
+    private static void calculateArrayStats(StatsReport report, StatsUpdateConfiguration config,
+                    StatsType statsType, Map<String, INDArray> source, boolean async) {
+        boolean histograms = config.collectHistograms(statsType);
+        boolean mean = config.collectMean(statsType);
+        boolean stdev = config.collectStdev(statsType);
+        boolean meanMagnitudes = config.collectMeanMagnitudes(statsType);
+        if (!histograms && !mean && !stdev && !meanMagnitudes)
+            return;
 
-            INDArray bins = hOp.z();
-            int[] count = new int[nBins];
-            for (int i = 0; i < bins.length(); i++) {
-                count[i] = (int) bins.getDouble(i);
+        Map<String, Histogram> histogramMap = new LinkedHashMap<>();
+        Map<String, Double> meanMap = new LinkedHashMap<>();
+        Map<String, Double> stdevMap = new LinkedHashMap<>();
+        Map<String, Double> meanMagnitudeMap = new LinkedHashMap<>();
+        if (source != null) {
+            int nBins = (histograms ? config.numHistogramBins(statsType) : 0);
+            for (Map.Entry<String, INDArray> entry : source.entrySet()) {
+                //The fused calculation copies the array to the heap: only worthwhile off the training thread
+                FusedArrayStats arrayStats = (async ? FusedArrayStats.calculate(entry.getValue(), nBins)
+                                : FusedArrayStats.calculateNative(entry.getValue(), nBins, mean, stdev,
+                                                meanMagnitudes));
+                histogramMap.put(entry.getKey(), arrayStats.getHistogram());
+                meanMap.put(entry.getKey(), arrayStats.getMean());
+                stdevMap.put(entry.getKey(), arrayStats.getStdev());
+                meanMagnitudeMap.put(entry.getKey(), arrayStats.getMeanMagnitude());
             }
-
-            double min = entry.getValue().minNumber().doubleValue();
-            double max = entry.getValue().maxNumber().doubleValue();
-
-            Histogram h = new Histogram(min, max, nBins, count);
-
-            out.put(entry.getKey(), h);
         }
-        return out;
+
+        if (histograms)
+            report.reportHistograms(statsType, histogramMap);
+        if (mean)
+            report.reportMean(statsType, meanMap);
+        if (stdev)
+            report.reportStdev(statsType, stdevMap);
+        if (meanMagnitudes)
+            report.reportMeanMagnitudes(statsType, meanMagnitudeMap);
     }
 
     @Override
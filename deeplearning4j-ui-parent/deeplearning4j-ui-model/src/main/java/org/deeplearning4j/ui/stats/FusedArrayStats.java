@@ -0,0 +1,137 @@
+package org.deeplearning4j.ui.stats;
+
+import lombok.Getter;
+import org.deeplearning4j.ui.stats.api.Histogram;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Summary statistics (min, max, mean, standard deviation, mean magnitude) and optionally a histogram for a single
+ * array, as reported by {@link BaseStatsListener}. The stats can be calculated in one of two ways:<br>
+ * - {@link #calculate(INDArray, int)} calculates all of the stats together (fused), in Java: one pass over the array
+ * for all of the summary statistics, plus one pass for the histogram counts (which need the min and max values first).
+ * This copies the array values to the Java heap, hence is only used for asynchronous collection, on a background
+ * thread (where the copy and the Java loop don't delay training).<br>
+ * - {@link #calculateNative(INDArray, int, boolean, boolean, boolean)} uses separate native ND4J ops - one per
+ * statistic, each a full pass over the array - without copying. This is the default, used when the stats are
+ * calculated on the training thread.<br>
+ * Standard deviation is bias corrected (i.e., divides by n-1), as per {@link INDArray#stdNumber()}; histogram bins are
+ * as per the ND4J Histogram op.
+ */
+@Getter
+public class FusedArrayStats {
+
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double stdev;
+    private final double meanMagnitude;
+    private final Histogram histogram;
+
+    private FusedArrayStats(double min, double max, double mean, double stdev, double meanMagnitude,
+                    Histogram histogram) {
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.stdev = stdev;
+        this.meanMagnitude = meanMagnitude;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Calculate the stats for the given array
+     *
+     * @param arr   Array to calculate the stats for
+     * @param nBins Number of histogram bins. If <= 0: no histogram is calculated
+     */
+    public static FusedArrayStats calculate(INDArray arr, int nBins) {
+        if (arr.isView() || arr.ordering() != 'c' || arr.length() != arr.data().length()) {
+            arr = arr.dup('c');
+        }
+
+        int length = arr.length();
+        double[] dArr = null;
+        float[] fArr = null;
+        if (arr.data().dataType() == DataBuffer.Type.DOUBLE) {
+            dArr = arr.data().asDouble();
+        } else {
+            fArr = arr.data().asFloat();
+        }
+
+        //Single pass: min, max, sum of absolute values, and mean/variance (Welford's algorithm, for numerical stability)
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sumAbs = 0.0;
+        double mean = 0.0;
+        double m2 = 0.0;
+        for (int i = 0; i < length; i++) {
+            double x = (dArr != null ? dArr[i] : fArr[i]);
+            if (x < min)
+                min = x;
+            if (x > max)
+                max = x;
+            sumAbs += Math.abs(x);
+            double delta = x - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (x - mean);
+        }
+        double stdev = (length > 1 ? Math.sqrt(m2 / (length - 1)) : 0.0);
+        double meanMagnitude = (length > 0 ? sumAbs / length : 0.0);
+
+        Histogram histogram = null;
+        if (nBins > 0) {
+            int[] counts = new int[nBins];
+            double binSize = (max - min) / nBins;
+            for (int i = 0; i < length; i++) {
+                double x = (dArr != null ? dArr[i] : fArr[i]);
+                int idx = (binSize > 0.0 ? (int) ((x - min) / binSize) : 0);
+                if (idx < 0)
+                    idx = 0;
+                else if (idx >= nBins)
+                    idx = nBins - 1;
+                counts[idx]++;
+            }
+            histogram = new Histogram(min, max, nBins, counts);
+        }
+
+        return new FusedArrayStats(min, max, mean, stdev, meanMagnitude, histogram);
+    }
+
+    /**
+     * Calculate the requested stats for the given array using native ND4J ops, without copying the array to the heap.
+     * Stats that are not requested are not calculated, and are NaN. Min and max are calculated only with a histogram.
+     *
+     * @param arr           Array to calculate the stats for
+     * @param nBins         Number of histogram bins. If <= 0: no histogram is calculated
+     * @param mean          Whether to calculate the mean
+     * @param stdev         Whether to calculate the standard deviation
+     * @param meanMagnitude Whether to calculate the mean magnitude
+     */
+    public static FusedArrayStats calculateNative(INDArray arr, int nBins, boolean mean, boolean stdev,
+                    boolean meanMagnitude) {
+        double meanValue = (mean ? arr.meanNumber().doubleValue() : Double.NaN);
+        double stdevValue = (stdev ? arr.stdNumber().doubleValue() : Double.NaN);
+        double meanMagnitudeValue = (meanMagnitude ? arr.norm1Number().doubleValue() / arr.length() : Double.NaN);
+
+        double min = Double.NaN;
+        double max = Double.NaN;
+        Histogram histogram = null;
+        if (nBins > 0) {
+            org.nd4j.linalg.api.ops.impl.transforms.Histogram hOp =
+                            new org.nd4j.linalg.api.ops.impl.transforms.Histogram(arr, nBins);
+            Nd4j.getExecutioner().exec(hOp);
+
+            INDArray bins = hOp.z();
+            int[] counts = new int[nBins];
+            for (int i = 0; i < bins.length(); i++) {
+                counts[i] = (int) bins.getDouble(i);
+            }
+            min = arr.minNumber().doubleValue();
+            max = arr.maxNumber().doubleValue();
+            histogram = new Histogram(min, max, nBins, counts);
+        }
+
+        return new FusedArrayStats(min, max, meanValue, stdevValue, meanMagnitudeValue, histogram);
+    }
+}
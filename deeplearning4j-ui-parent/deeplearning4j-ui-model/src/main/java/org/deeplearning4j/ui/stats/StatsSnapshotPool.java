@@ -0,0 +1,104 @@
+package org.deeplearning4j.ui.stats;
+
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+
+/**
+ * A pool of arrays, used by {@link BaseStatsListener} to snapshot the parameters, gradients, updates and activations
+ * it calculates stats for.<br>
+ * Snapshot arrays are reused between reports (instead of being allocated with {@code dup()} each time), and are
+ * returned to the pool once the stats have been calculated. The size of the pool is bounded by the number of reports
+ * in flight at any time.<br>
+ * Arrays are acquired on the training thread, but may be released on the stats collection thread.
+ */
+public class StatsSnapshotPool {
+
+    private final Map<String, Deque<INDArray>> pool = new HashMap<>();
+
+    /**
+     * Copy the source array into a pooled array of the same shape. The returned array is 'c' order, is not a view,
+     * and is detached from any workspace.
+     *
+     * @param source Array to snapshot
+     * @return Copy of the source array
+     */
+    public INDArray snapshot(INDArray source) {
+        int[] shape = source.shape();
+        String key = Arrays.toString(shape);
+        INDArray out = null;
+        synchronized (this) {
+            Deque<INDArray> d = pool.get(key);
+            if (d != null) {
+                out = d.pollFirst();
+            }
+        }
+        if (out == null) {
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                out = Nd4j.createUninitialized(shape, 'c');
+            }
+        }
+        out.assign(source);
+        return out;
+    }
+
+    /**
+     * Snapshot each array in the map, as per {@link #snapshot(INDArray)}
+     *
+     * @param source Arrays to snapshot
+     * @return New map (same iteration order as the source), containing copies of the source arrays
+     */
+    public Map<String, INDArray> snapshot(Map<String, INDArray> source) {
+        Map<String, INDArray> out = new LinkedHashMap<>();
+        for (Map.Entry<String, INDArray> e : source.entrySet()) {
+            out.put(e.getKey(), snapshot(e.getValue()));
+        }
+        return out;
+    }
+
+    /**
+     * Return a snapshot array to the pool. The array must not be used after being released.
+     */
+    public synchronized void release(INDArray snapshot) {
+        if (snapshot == null)
+            return;
+        String key = Arrays.toString(snapshot.shape());
+        Deque<INDArray> d = pool.get(key);
+        if (d == null) {
+            d = new ArrayDeque<>();
+            pool.put(key, d);
+        }
+        d.addFirst(snapshot);
+    }
+
+    /**
+     * Return all arrays in the map to the pool, as per {@link #release(INDArray)}
+     */
+    public void release(Map<String, INDArray> snapshots) {
+        if (snapshots == null)
+            return;
+        for (INDArray arr : snapshots.values()) {
+            release(arr);
+        }
+    }
+
+    /**
+     * @return Number of arrays currently available in the pool
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Deque<INDArray> d : pool.values()) {
+            size += d.size();
+        }
+        return size;
+    }
+
+    /**
+     * Remove all arrays from the pool
+     */
+    public synchronized void clear() {
+        pool.clear();
+    }
+}
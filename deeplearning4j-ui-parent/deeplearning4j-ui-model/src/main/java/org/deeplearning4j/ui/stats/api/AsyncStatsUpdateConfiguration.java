@@ -0,0 +1,24 @@
+package org.deeplearning4j.ui.stats.api;
+
+/**
+ * A {@link StatsUpdateConfiguration} that can also specify whether the histograms and summary stats should be
+ * calculated asynchronously, on a background thread.<br>
+ * For configurations that do not implement this interface, the stats are calculated on the training thread.
+ */
+public interface AsyncStatsUpdateConfiguration extends StatsUpdateConfiguration {
+
+    /**
+     * Should the histograms and summary stats be calculated asynchronously, on a separate (background) thread?
+     * If true: the required arrays are copied on the training thread, and all further stats calculation, encoding and
+     * routing of the report happens on the background thread. When the background thread cannot keep up, the oldest
+     * pending reports are dropped (see {@link #asyncQueueSize()}), so stats collection never blocks training
+     */
+    boolean asyncCollection();
+
+    /**
+     * Maximum number of reports waiting for the background thread, when using {@link #asyncCollection()}. If the
+     * queue is full, the oldest waiting report is dropped.
+     */
+    int asyncQueueSize();
+
+}
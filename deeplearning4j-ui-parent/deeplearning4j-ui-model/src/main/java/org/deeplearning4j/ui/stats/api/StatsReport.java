@@ -1,6 +1,6 @@
 package org.deeplearning4j.ui.stats.api;
 
-import org.deeplearning4j.api.storage.Persistable;
+import org.deeplearning4j.api.storage.TimeSeriesPersistable;
 import org.deeplearning4j.ui.stats.StatsListener;
 import org.nd4j.linalg.primitives.Pair;
 
@@ -10,11 +10,12 @@ import java.util.Map;
 
 /**
  * StatsReport: An interface for storing and serializing update information (such as scores, parameter histograms etc) for
- * use in the {@link StatsListener}
+ * use in the {@link StatsListener}.<br>
+ * The time series values (see {@link TimeSeriesPersistable#getTimeSeriesValues()}) are as per {@link StatsReportMetrics}
  *
  * @author Alex Black
  */
-public interface StatsReport extends Persistable {
+public interface StatsReport extends TimeSeriesPersistable {
 
     void reportIDs(String sessionID, String typeID, String workerID, long timestamp);
 
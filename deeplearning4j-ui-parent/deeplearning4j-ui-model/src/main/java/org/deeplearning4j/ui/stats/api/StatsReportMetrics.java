@@ -0,0 +1,134 @@
+package org.deeplearning4j.ui.stats.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Names and extraction of the time series metrics for a {@link StatsReport}, as per
+ * {@link org.deeplearning4j.api.storage.TimeSeriesPersistable}. These are the values that are aggregated by the
+ * {@link org.deeplearning4j.api.storage.StatsStorage} implementations, for use in the training UI charts.<br>
+ * <br>
+ * Metric names:<br>
+ * - {@link #ITERATION}: the iteration count (always present)<br>
+ * - {@link #SCORE}: the score (if reported)<br>
+ * - {@link #STATS_COLLECTION_DURATION_MS}, and {@code Performance/<name>}: timings and throughput (if reported)<br>
+ * - {@code <SummaryType>/<StatsType>/<paramName>}: summary stats, for example "Stdev/Gradients/0_W" (see
+ * {@link #summaryStat(SummaryType, StatsType, String)})<br>
+ * - {@code LearningRate/<paramName>}: learning rates (see {@link #learningRate(String)})<br>
+ * - {@code UpdateRatio/<paramName>}: ratio of the mean magnitudes of the updates and the parameters (see
+ * {@link #updateRatio(String)})
+ */
+public class StatsReportMetrics {
+
+    public static final String ITERATION = "Iteration";
+    public static final String SCORE = "Score";
+    public static final String STATS_COLLECTION_DURATION_MS = "StatsCollectionDurationMs";
+    public static final String TOTAL_RUNTIME_MS = "Performance/TotalRuntimeMs";
+    public static final String EXAMPLES_PER_SECOND = "Performance/ExamplesPerSecond";
+    public static final String MINIBATCHES_PER_SECOND = "Performance/MinibatchesPerSecond";
+    public static final String LEARNING_RATE_PREFIX = "LearningRate/";
+    public static final String UPDATE_RATIO_PREFIX = "UpdateRatio/";
+
+    private StatsReportMetrics() {}
+
+    /**
+     * @return Name of the metric for the specified summary stat
+     */
+    public static String summaryStat(SummaryType summaryType, StatsType statsType, String paramName) {
+        return summaryStatPrefix(summaryType, statsType) + paramName;
+    }
+
+    /**
+     * @return Prefix of the metric names for the specified summary stat (i.e., without the parameter name)
+     */
+    public static String summaryStatPrefix(SummaryType summaryType, StatsType statsType) {
+        return summaryType + "/" + statsType + "/";
+    }
+
+    /**
+     * @return Name of the learning rate metric for the specified parameter
+     */
+    public static String learningRate(String paramName) {
+        return LEARNING_RATE_PREFIX + paramName;
+    }
+
+    /**
+     * @return Name of the update ratio metric (mean magnitude of updates / mean magnitude of parameters) for the
+     *         specified parameter
+     */
+    public static String updateRatio(String paramName) {
+        return UPDATE_RATIO_PREFIX + paramName;
+    }
+
+    /**
+     * Extract the time series metric values from the specified report
+     *
+     * @param report Report to get the values from
+     * @return Values, keyed by metric name
+     */
+    public static Map<String, Double> extract(StatsReport report) {
+        Map<String, Double> out = new HashMap<>();
+        out.put(ITERATION, (double) report.getIterationCount());
+        if (report.hasScore()) {
+            out.put(SCORE, report.getScore());
+        }
+        out.put(STATS_COLLECTION_DURATION_MS, (double) report.getStatsCollectionDurationMs());
+        if (report.hasPerformance()) {
+            out.put(TOTAL_RUNTIME_MS, (double) report.getTotalRuntimeMs());
+            out.put(EXAMPLES_PER_SECOND, report.getExamplesPerSecond());
+            out.put(MINIBATCHES_PER_SECOND, report.getMinibatchesPerSecond());
+        }
+
+        if (report.hasLearningRates()) {
+            Map<String, Double> lr = report.getLearningRates();
+            if (lr != null) {
+                for (Map.Entry<String, Double> e : lr.entrySet()) {
+                    out.put(learningRate(e.getKey()), e.getValue());
+                }
+            }
+        }
+
+        for (StatsType statsType : StatsType.values()) {
+            for (SummaryType summaryType : SummaryType.values()) {
+                if (!report.hasSummaryStats(statsType, summaryType))
+                    continue;
+                Map<String, Double> m;
+                switch (summaryType) {
+                    case Mean:
+                        m = report.getMean(statsType);
+                        break;
+                    case Stdev:
+                        m = report.getStdev(statsType);
+                        break;
+                    case MeanMagnitudes:
+                        m = report.getMeanMagnitudes(statsType);
+                        break;
+                    default:
+                        throw new RuntimeException("Unknown summary type: " + summaryType);
+                }
+                if (m == null)
+                    continue;
+                String prefix = summaryStatPrefix(summaryType, statsType);
+                for (Map.Entry<String, Double> e : m.entrySet()) {
+                    out.put(prefix + e.getKey(), e.getValue());
+                }
+            }
+        }
+
+        if (report.hasSummaryStats(StatsType.Updates, SummaryType.MeanMagnitudes)
+                        && report.hasSummaryStats(StatsType.Parameters, SummaryType.MeanMagnitudes)) {
+            Map<String, Double> updateMM = report.getMeanMagnitudes(StatsType.Updates);
+            Map<String, Double> paramMM = report.getMeanMagnitudes(StatsType.Parameters);
+            if (updateMM != null && paramMM != null) {
+                for (Map.Entry<String, Double> e : updateMM.entrySet()) {
+                    Double p = paramMM.get(e.getKey());
+                    if (e.getValue() == null || p == null)
+                        continue;
+                    out.put(updateRatio(e.getKey()), e.getValue() / p);
+                }
+            }
+        }
+
+        return out;
+    }
+}
@@ -1,16 +1,17 @@
 package org.deeplearning4j.ui.stats.impl;
 
 import lombok.AllArgsConstructor;
+import org.deeplearning4j.ui.stats.api.AsyncStatsUpdateConfiguration;
 import org.deeplearning4j.ui.stats.api.StatsType;
-import org.deeplearning4j.ui.stats.api.StatsUpdateConfiguration;
 
 /**
  * Created by Alex on 07/10/2016.
  */
 @AllArgsConstructor
-public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration {
+public class DefaultStatsUpdateConfiguration implements AsyncStatsUpdateConfiguration {
 
     public static final int DEFAULT_REPORTING_FREQUENCY = 10;
+    public static final int DEFAULT_ASYNC_QUEUE_SIZE = 4;
 
     private int reportingFrequency = DEFAULT_REPORTING_FREQUENCY;
     private boolean collectPerformanceStats = true;
@@ -34,6 +35,8 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
     private boolean collectMeanMagnitudesGradients = true;
     private boolean collectMeanMagnitudesUpdates = true;
     private boolean collectMeanMagnitudesActivations = true;
+    private boolean asyncCollection = false;
+    private int asyncQueueSize = DEFAULT_ASYNC_QUEUE_SIZE;
 
     private DefaultStatsUpdateConfiguration(Builder b) {
         this.reportingFrequency = b.reportingFrequency;
@@ -58,6 +61,8 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         this.collectMeanMagnitudesGradients = b.collectMeanMagnitudesGradients;
         this.collectMeanMagnitudesUpdates = b.collectMeanMagnitudesUpdates;
         this.collectMeanMagnitudesActivations = b.collectMeanMagnitudesActivations;
+        this.asyncCollection = b.asyncCollection;
+        this.asyncQueueSize = b.asyncQueueSize;
     }
 
     @Override
@@ -150,6 +155,16 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         return false;
     }
 
+    @Override
+    public boolean asyncCollection() {
+        return asyncCollection;
+    }
+
+    @Override
+    public int asyncQueueSize() {
+        return asyncQueueSize;
+    }
+
     public static class Builder {
         private int reportingFrequency = DEFAULT_REPORTING_FREQUENCY;
         private boolean collectPerformanceStats = true;
@@ -173,6 +188,8 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         private boolean collectMeanMagnitudesGradients = true;
         private boolean collectMeanMagnitudesUpdates = true;
         private boolean collectMeanMagnitudesActivations = true;
+        private boolean asyncCollection = false;
+        private int asyncQueueSize = DEFAULT_ASYNC_QUEUE_SIZE;
 
         public Builder reportingFrequency(int reportingFrequency) {
             this.reportingFrequency = reportingFrequency;
@@ -284,6 +301,26 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
             return this;
         }
 
+        /**
+         * If true: calculate histograms and summary stats on a background thread, instead of the training thread.
+         * See {@link AsyncStatsUpdateConfiguration#asyncCollection()}. Default: false
+         */
+        public Builder asyncCollection(boolean asyncCollection) {
+            this.asyncCollection = asyncCollection;
+            return this;
+        }
+
+        /**
+         * Maximum number of reports waiting for the background thread, when using asynchronous collection. The
+         * oldest waiting report is dropped when the queue is full. Default: 4
+         */
+        public Builder asyncQueueSize(int asyncQueueSize) {
+            if (asyncQueueSize <= 0)
+                throw new IllegalArgumentException("Queue size must be > 0. Got: " + asyncQueueSize);
+            this.asyncQueueSize = asyncQueueSize;
+            return this;
+        }
+
         public DefaultStatsUpdateConfiguration build() {
             return new DefaultStatsUpdateConfiguration(this);
         }
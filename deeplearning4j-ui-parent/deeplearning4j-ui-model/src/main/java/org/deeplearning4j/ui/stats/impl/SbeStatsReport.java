@@ -10,6 +10,7 @@ import org.agrona.concurrent.UnsafeBuffer;
 import org.apache.commons.io.IOUtils;
 import org.deeplearning4j.ui.stats.api.Histogram;
 import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.api.StatsReportMetrics;
 import org.deeplearning4j.ui.stats.api.StatsType;
 import org.deeplearning4j.ui.stats.api.SummaryType;
 import org.deeplearning4j.ui.stats.sbe.*;
@@ -297,6 +298,11 @@ public class SbeStatsReport implements StatsReport, AgronaPersistable {
         return false;
     }
 
+    @Override
+    public Map<String, Double> getTimeSeriesValues() {
+        return StatsReportMetrics.extract(this);
+    }
+
     @Override
     public boolean hasDataSetMetaData() {
         return dataSetMetaData != null || metaDataClassName != null;
@@ -7,6 +7,7 @@ import lombok.ToString;
 import org.apache.commons.compress.utils.IOUtils;
 import org.deeplearning4j.ui.stats.api.Histogram;
 import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.api.StatsReportMetrics;
 import org.deeplearning4j.ui.stats.api.StatsType;
 import org.deeplearning4j.ui.stats.api.SummaryType;
 import org.nd4j.linalg.primitives.Pair;
@@ -296,6 +297,11 @@ public class JavaStatsReport implements StatsReport {
         return false;
     }
 
+    @Override
+    public Map<String, Double> getTimeSeriesValues() {
+        return StatsReportMetrics.extract(this);
+    }
+
     @Override
     public boolean hasDataSetMetaData() {
         return dataSetMetaData != null || metaDataClassName != null;
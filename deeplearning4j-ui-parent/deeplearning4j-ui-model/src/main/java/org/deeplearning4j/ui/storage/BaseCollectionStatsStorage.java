@@ -3,6 +3,7 @@ package org.deeplearning4j.ui.storage;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.deeplearning4j.api.storage.*;
+import org.deeplearning4j.api.storage.impl.TimeSeriesAggregator;
 
 import java.io.Serializable;
 import java.util.*;
@@ -13,7 +14,7 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * @author Alex Black
  */
-public abstract class BaseCollectionStatsStorage implements StatsStorage {
+public abstract class BaseCollectionStatsStorage implements TimeSeriesStatsStorage {
 
     protected Set<String> sessionIDs;
     protected Map<SessionTypeId, StorageMetaData> storageMetaData;
@@ -23,6 +24,12 @@ public abstract class BaseCollectionStatsStorage implements StatsStorage {
 
     protected List<StatsStorageListener> listeners = new ArrayList<>();
 
+    /**
+     * Aggregated time series values. Implementations should add updates to this (via
+     * {@link TimeSeriesAggregator#add(Persistable)}) while synchronized on it, in the same block as storing the update
+     */
+    protected final TimeSeriesAggregator timeSeries = new TimeSeriesAggregator();
+
     protected BaseCollectionStatsStorage() {
 
     }
@@ -343,6 +350,38 @@ public abstract class BaseCollectionStatsStorage implements StatsStorage {
         return ret;
     }
 
+    @Override
+    public List<String> listTimeSeriesMetrics(String sessionID, String typeID, String workerID) {
+        synchronized (timeSeries) {
+            initializeTimeSeries(sessionID, typeID, workerID);
+            return timeSeries.listMetrics(sessionID, typeID, workerID);
+        }
+    }
+
+    @Override
+    public List<TimeSeriesBucket> getTimeSeries(String sessionID, String typeID, String workerID, String metric,
+                    TimeSeriesBucket.RangeType rangeType, long rangeStart, long rangeEnd, int maxBuckets) {
+        synchronized (timeSeries) {
+            initializeTimeSeries(sessionID, typeID, workerID);
+            return timeSeries.query(sessionID, typeID, workerID, metric, rangeType, rangeStart, rangeEnd, maxBuckets);
+        }
+    }
+
+    //Aggregates are built on first use from the updates stored so far, then maintained as new updates are stored
+    private void initializeTimeSeries(String sessionID, String typeID, String workerID) {
+        if (timeSeries.isInitialized(sessionID, typeID, workerID))
+            return;
+        timeSeries.markInitialized(sessionID, typeID, workerID);
+        Map<Long, Persistable> map = getUpdateMap(sessionID, typeID, workerID, false);
+        if (map == null)
+            return;
+        List<Long> times = new ArrayList<>(map.keySet());
+        Collections.sort(times);
+        for (Long l : times) {
+            timeSeries.add(map.get(l));
+        }
+    }
+
     // ----- Store new info -----
 
     @Override
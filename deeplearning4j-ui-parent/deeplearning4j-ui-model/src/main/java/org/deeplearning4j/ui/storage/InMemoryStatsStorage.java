@@ -72,7 +72,10 @@ public class InMemoryStatsStorage extends BaseCollectionStatsStorage {
         List<StatsStorageEvent> sses = checkStorageEvents(update);
         Map<Long, Persistable> updateMap =
                         getUpdateMap(update.getSessionID(), update.getTypeID(), update.getWorkerID(), true);
-        updateMap.put(update.getTimeStamp(), update);
+        synchronized (timeSeries) {
+            Persistable replaced = updateMap.put(update.getTimeStamp(), update);
+            timeSeries.add(update, replaced);
+        }
 
         StatsStorageEvent sse = null;
         if (listeners.size() > 0)
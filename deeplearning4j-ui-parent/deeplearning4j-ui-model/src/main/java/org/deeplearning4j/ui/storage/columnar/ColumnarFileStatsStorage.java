@@ -0,0 +1,898 @@
+package org.deeplearning4j.ui.storage.columnar;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.api.storage.*;
+import org.deeplearning4j.ui.storage.BaseCollectionStatsStorage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A file-based {@link StatsStorage} implementation, storing the time series values of updates (see
+ * {@link TimeSeriesPersistable}) in a columnar format: one column per metric (score, per-parameter mean magnitudes,
+ * learning rates, etc), so that the values of a single metric for many iterations can be scanned without decoding the
+ * full updates.<br>
+ * <br>
+ * All files are append-only. The storage directory contains:<br>
+ * - {@code records.bin}: a log of all static info, storage metadata and (full, encoded) updates, plus the definitions
+ * of the series and columns. Each record is length-prefixed; the record log doubles as the index for the columns<br>
+ * - {@code series-<s>/segment-<k>/}: the columns for series s (one per session/type/worker ID), split into segments
+ * of a fixed number of rows. Each segment contains {@code timestamp.bin} (long per row), {@code iteration.bin}
+ * (int per row) and {@code column-<c>.bin} (double per row, NaN if the value is not present in the update)<br>
+ * <br>
+ * If an update is stored again with the same timestamp, it replaces the earlier update: a new row is appended, and only
+ * the last row for each timestamp is used by {@link #getTimeSeries(String, String, String, String,
+ * TimeSeriesBucket.RangeType, long, long, int)}.<br>
+ * <br>
+ * Column files are memory mapped for reading. As the timestamp column is written last for each row, the number of
+ * complete rows is always given by the length of the timestamp files: hence the files can safely be read (tailed)
+ * while training is running, by opening the same directory in read-only mode (see
+ * {@link #ColumnarFileStatsStorage(File, boolean)}). Read-only instances periodically check for new data, and notify
+ * any registered {@link StatsStorageListener}s; {@link #refresh()} may also be called directly.<br>
+ * <br>
+ * Only one (non read-only) instance should be open for a given directory at any time.
+ */
+@Slf4j
+public class ColumnarFileStatsStorage extends BaseCollectionStatsStorage {
+
+    public static final String RECORDS_FILE_NAME = "records.bin";
+    public static final int DEFAULT_SEGMENT_ROWS = 65536;
+    public static final long DEFAULT_POLL_PERIOD_MS = 1000;
+
+    private static final byte[] MAGIC = "DL4JCOL1".getBytes(Charset.forName("US-ASCII"));
+    private static final int HEADER_LENGTH = MAGIC.length + 4;
+    private static final String TIMESTAMP_FILE_NAME = "timestamp.bin";
+    private static final String ITERATION_FILE_NAME = "iteration.bin";
+
+    private enum RecordType {
+        StaticInfo, Update, MetaData, Series, Column
+    }
+
+    private final File directory;
+    private final boolean readOnly;
+    private final int segmentRows;
+    private final FileChannel recordsRead;
+    private final FileChannel recordsWrite;
+    private long recordsLength;
+    private final Map<SessionTypeWorkerId, Series> series = new HashMap<>();
+    private final List<Series> seriesByIdx = new ArrayList<>();
+    private final Map<File, MappedByteBuffer> mappedBuffers = new HashMap<>();
+    private final Thread pollThread;
+    private volatile boolean closed;
+
+    /**
+     * Open (or create) the storage in the specified directory, for reading and writing
+     *
+     * @param directory Directory for the storage files
+     */
+    public ColumnarFileStatsStorage(@NonNull File directory) {
+        this(directory, false, DEFAULT_SEGMENT_ROWS, DEFAULT_POLL_PERIOD_MS);
+    }
+
+    /**
+     * @param directory Directory for the storage files
+     * @param readOnly  If true: open an existing storage directory for reading only. Data written by another instance
+     *                  (for example, in another JVM that is training a network) is picked up every
+     *                  {@link #DEFAULT_POLL_PERIOD_MS} milliseconds
+     */
+    public ColumnarFileStatsStorage(@NonNull File directory, boolean readOnly) {
+        this(directory, readOnly, DEFAULT_SEGMENT_ROWS, DEFAULT_POLL_PERIOD_MS);
+    }
+
+    /**
+     * @param directory    Directory for the storage files
+     * @param readOnly     If true: open an existing storage directory for reading only
+     * @param segmentRows  Number of rows per column segment file. Only used when creating a new storage directory;
+     *                     otherwise the value the directory was created with is used
+     * @param pollPeriodMs Read-only mode only: period for checking for new data. If <= 0: no checking is done, other
+     *                     than when {@link #refresh()} is called
+     */
+    public ColumnarFileStatsStorage(@NonNull File directory, boolean readOnly, int segmentRows, long pollPeriodMs) {
+        if (segmentRows <= 0)
+            throw new IllegalArgumentException("Segment rows must be positive: got " + segmentRows);
+        this.directory = directory;
+        this.readOnly = readOnly;
+
+        sessionIDs = Collections.synchronizedSet(new HashSet<String>());
+        storageMetaData = new ConcurrentHashMap<>();
+        staticInfo = new ConcurrentHashMap<>();
+
+        File recordsFile = new File(directory, RECORDS_FILE_NAME);
+        if (readOnly && !recordsFile.exists())
+            throw new IllegalArgumentException("Cannot open storage in read-only mode: " + recordsFile.getPath()
+                            + " does not exist");
+        if (!directory.exists() && !directory.mkdirs())
+            throw new RuntimeException("Could not create directory: " + directory.getPath());
+
+        try {
+            if (readOnly) {
+                recordsWrite = null;
+            } else {
+                recordsWrite = new RandomAccessFile(recordsFile, "rw").getChannel();
+                if (recordsWrite.size() == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                    header.put(MAGIC);
+                    header.putInt(segmentRows);
+                    header.flip();
+                    writeFully(recordsWrite, header, 0);
+                }
+            }
+            recordsRead = new RandomAccessFile(recordsFile, "r").getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            if (!readFully(recordsRead, header, 0))
+                throw new IOException("Invalid file: " + recordsFile.getPath() + " (incomplete header)");
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException("Invalid file: " + recordsFile.getPath() + " (not a columnar stats file)");
+            this.segmentRows = header.getInt();
+            recordsLength = HEADER_LENGTH;
+
+            scanRecords(null);
+            for (Series s : seriesByIdx) {
+                s.refreshRowCount();
+            }
+
+            if (!readOnly) {
+                //Discard any incomplete record at the end of the file (for example, from a crash during a write)
+                recordsWrite.truncate(recordsLength);
+                recordsWrite.position(recordsLength);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (readOnly && pollPeriodMs > 0) {
+            final long period = pollPeriodMs;
+            pollThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (!closed) {
+                        try {
+                            Thread.sleep(period);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (closed)
+                            return;
+                        try {
+                            refresh();
+                        } catch (Exception e) {
+                            log.warn("Error checking for new data in {}", ColumnarFileStatsStorage.this, e);
+                        }
+                    }
+                }
+            }, "ColumnarFileStatsStorage-Poll");
+            pollThread.setDaemon(true);
+            pollThread.start();
+        } else {
+            pollThread = null;
+        }
+    }
+
+    /**
+     * @return The number of rows in each column segment file
+     */
+    public int getSegmentRows() {
+        return segmentRows;
+    }
+
+    /**
+     * Check for, and load, any data appended to the files since the last refresh. Registered listeners are notified of
+     * any new static info, updates and storage metadata. This is only required in read-only mode: when writing, all
+     * data written by this instance is immediately available.
+     */
+    public void refresh() {
+        List<StatsStorageEvent> sses = new ArrayList<>();
+        synchronized (this) {
+            if (closed)
+                return;
+            try {
+                scanRecords(sses);
+                for (Series s : seriesByIdx) {
+                    s.refreshRowCount();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        notifyListeners(sses);
+    }
+
+    // ----- Record log -----
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    //Scan any complete records after recordsLength; records still being written (by another instance) are left
+    //until the next scan
+    private void scanRecords(List<StatsStorageEvent> sses) throws IOException {
+        long size = recordsRead.size();
+        long pos = recordsLength;
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        while (pos + 4 <= size) {
+            lengthBuffer.clear();
+            if (!readFully(recordsRead, lengthBuffer, pos))
+                break;
+            lengthBuffer.flip();
+            int length = lengthBuffer.getInt();
+            if (length <= 0 || pos + 4 + length > size)
+                break;
+            ByteBuffer record = ByteBuffer.allocate(length);
+            if (!readFully(recordsRead, record, pos + 4))
+                break;
+            processRecord(pos, record.array(), sses);
+            pos += 4 + length;
+        }
+        recordsLength = pos;
+    }
+
+    private void processRecord(long offset, byte[] bytes, List<StatsStorageEvent> sses) throws IOException {
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes));
+        RecordType type = RecordType.values()[dis.readByte()];
+        String sessionID = dis.readUTF();
+        String typeID = dis.readUTF();
+        String workerID = dis.readUTF();
+        long timestamp = dis.readLong();
+
+        StatsStorageListener.EventType eventType;
+        switch (type) {
+            case Series:
+                int seriesIdx = dis.readInt();
+                addSeries(new SessionTypeWorkerId(sessionID, typeID, workerID), seriesIdx);
+                return;
+            case Column:
+                String metric = dis.readUTF();
+                int columnIdx = dis.readInt();
+                series.get(new SessionTypeWorkerId(sessionID, typeID, workerID)).addColumn(metric, columnIdx);
+                return;
+            case Update:
+                ((RecordMap) getUpdateMap(sessionID, typeID, workerID, true)).offsets.put(timestamp, offset);
+                eventType = StatsStorageListener.EventType.PostUpdate;
+                break;
+            case StaticInfo:
+                Persistable p = decode(dis.readUTF(), bytes, bytes.length - dis.available());
+                staticInfo.put(new SessionTypeWorkerId(sessionID, typeID, workerID), p);
+                eventType = StatsStorageListener.EventType.PostStaticInfo;
+                break;
+            case MetaData:
+                StorageMetaData m = (StorageMetaData) decode(dis.readUTF(), bytes, bytes.length - dis.available());
+                storageMetaData.put(new SessionTypeId(sessionID, typeID), m);
+                eventType = StatsStorageListener.EventType.PostMetaData;
+                break;
+            default:
+                throw new IOException("Unknown record type: " + type);
+        }
+
+        if (sses != null && listeners.size() > 0) {
+            if (type == RecordType.StaticInfo && !sessionIDs.contains(sessionID)) {
+                sses.add(new StatsStorageEvent(this, StatsStorageListener.EventType.NewSessionID, sessionID, typeID,
+                                workerID, timestamp));
+            }
+            sses.add(new StatsStorageEvent(this, eventType, sessionID, typeID, workerID, timestamp));
+        }
+        if (type == RecordType.StaticInfo) {
+            sessionIDs.add(sessionID);
+        }
+    }
+
+    private static Persistable decode(String className, byte[] bytes, int offset) {
+        Persistable p;
+        try {
+            p = (Persistable) Class.forName(className).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        p.decode(Arrays.copyOfRange(bytes, offset, bytes.length));
+        return p;
+    }
+
+    private Persistable readRecord(long offset) {
+        try {
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+            readFully(recordsRead, lengthBuffer, offset);
+            lengthBuffer.flip();
+            ByteBuffer record = ByteBuffer.allocate(lengthBuffer.getInt());
+            readFully(recordsRead, record, offset + 4);
+            byte[] bytes = record.array();
+
+            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes));
+            dis.readByte();
+            dis.readUTF();
+            dis.readUTF();
+            dis.readUTF();
+            dis.readLong();
+            String className = dis.readUTF();
+            return decode(className, bytes, bytes.length - dis.available());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //Returns the offset of the record in the file
+    private long appendRecord(RecordType type, String sessionID, String typeID, String workerID, long timestamp,
+                    Persistable p, String metric, int index) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeInt(0); //Placeholder for length
+        dos.writeByte(type.ordinal());
+        dos.writeUTF(sessionID);
+        dos.writeUTF(typeID);
+        dos.writeUTF(workerID);
+        dos.writeLong(timestamp);
+        switch (type) {
+            case Series:
+                dos.writeInt(index);
+                break;
+            case Column:
+                dos.writeUTF(metric);
+                dos.writeInt(index);
+                break;
+            default:
+                dos.writeUTF(p.getClass().getName());
+                dos.write(p.encode());
+        }
+        dos.flush();
+
+        ByteBuffer bb = ByteBuffer.wrap(baos.toByteArray());
+        bb.putInt(0, bb.limit() - 4);
+        long offset = recordsLength;
+        writeFully(recordsWrite, bb, offset);
+        recordsLength += bb.limit();
+        return offset;
+    }
+
+    private long appendRecord(RecordType type, Persistable p) throws IOException {
+        return appendRecord(type, p.getSessionID(), p.getTypeID(), p.getWorkerID(), p.getTimeStamp(), p, null, -1);
+    }
+
+    // ----- Columns -----
+
+    private Series addSeries(SessionTypeWorkerId id, int seriesIdx) {
+        Series s = new Series(new File(directory, "series-" + seriesIdx));
+        series.put(id, s);
+        seriesByIdx.add(s);
+        return s;
+    }
+
+    private File segmentDir(Series s, int segment) {
+        return new File(s.dir, "segment-" + segment);
+    }
+
+    //Get a mapped buffer for the file, with at least the specified number of bytes if possible. Null if the file
+    //does not exist
+    private MappedByteBuffer map(File f, long minBytes) throws IOException {
+        MappedByteBuffer buffer = mappedBuffers.get(f);
+        if (buffer != null && buffer.capacity() >= minBytes)
+            return buffer;
+        if (!f.exists())
+            return null;
+        long length = f.length();
+        if (buffer != null && buffer.capacity() >= length)
+            return buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }
+        mappedBuffers.put(f, buffer);
+        return buffer;
+    }
+
+    //Values of the column for the first numRows rows. NaN for values that are not present
+    private double[] readColumn(Series s, int column, int numRows) throws IOException {
+        double[] out = new double[numRows];
+        Arrays.fill(out, Double.NaN);
+        for (int segStart = 0; segStart < numRows; segStart += segmentRows) {
+            int rows = Math.min(segmentRows, numRows - segStart);
+            MappedByteBuffer buffer = map(new File(segmentDir(s, segStart / segmentRows), "column-" + column + ".bin"),
+                            8L * rows);
+            if (buffer == null)
+                continue;
+            rows = Math.min(rows, buffer.capacity() / 8);
+            ByteBuffer bb = buffer.duplicate();
+            bb.position(0);
+            bb.asDoubleBuffer().get(out, segStart, rows);
+        }
+        return out;
+    }
+
+    private long[] readTimestamps(Series s, int numRows) throws IOException {
+        long[] out = new long[numRows];
+        for (int segStart = 0; segStart < numRows; segStart += segmentRows) {
+            int rows = Math.min(segmentRows, numRows - segStart);
+            MappedByteBuffer buffer = map(new File(segmentDir(s, segStart / segmentRows), TIMESTAMP_FILE_NAME),
+                            8L * rows);
+            ByteBuffer bb = buffer.duplicate();
+            bb.position(0);
+            bb.asLongBuffer().get(out, segStart, rows);
+        }
+        return out;
+    }
+
+    private int[] readIterations(Series s, int numRows) throws IOException {
+        int[] out = new int[numRows];
+        for (int segStart = 0; segStart < numRows; segStart += segmentRows) {
+            int rows = Math.min(segmentRows, numRows - segStart);
+            MappedByteBuffer buffer = map(new File(segmentDir(s, segStart / segmentRows), ITERATION_FILE_NAME),
+                            4L * rows);
+            ByteBuffer bb = buffer.duplicate();
+            bb.position(0);
+            bb.asIntBuffer().get(out, segStart, rows);
+        }
+        return out;
+    }
+
+    private class Series {
+        private final File dir;
+        private final Map<String, Integer> columnIdxs = new HashMap<>();
+        private final List<String> columnNames = new ArrayList<>();
+        private int rowCount;
+
+        //Writer only: channels for the segment currently being written
+        private int openSegment = -1;
+        private FileChannel timestampChannel;
+        private FileChannel iterationChannel;
+        private final List<FileChannel> columnChannels = new ArrayList<>();
+
+        private Series(File dir) {
+            this.dir = dir;
+        }
+
+        private void addColumn(String metric, int columnIdx) {
+            columnIdxs.put(metric, columnIdx);
+            while (columnNames.size() <= columnIdx) {
+                columnNames.add(null);
+            }
+            columnNames.set(columnIdx, metric);
+        }
+
+        private void refreshRowCount() {
+            int rows = 0;
+            for (int segment = 0;; segment++) {
+                File f = new File(segmentDir(this, segment), TIMESTAMP_FILE_NAME);
+                if (!f.exists())
+                    break;
+                int segRows = (int) Math.min(segmentRows, f.length() / 8);
+                rows += segRows;
+                if (segRows < segmentRows)
+                    break;
+            }
+            rowCount = rows;
+        }
+
+        private void append(long timestamp, int iteration, Map<String, Double> values, SessionTypeWorkerId id)
+                        throws IOException {
+            if (values != null) {
+                for (String metric : values.keySet()) {
+                    if (!columnIdxs.containsKey(metric)) {
+                        int c = columnNames.size();
+                        appendRecord(RecordType.Column, id.getSessionID(), id.getTypeID(), id.getWorkerID(), 0, null,
+                                        metric, c);
+                        addColumn(metric, c);
+                    }
+                }
+            }
+
+            int segment = rowCount / segmentRows;
+            int localRow = rowCount % segmentRows;
+            if (segment != openSegment) {
+                openSegment(segment);
+            }
+
+            ByteBuffer bb = ByteBuffer.allocate(8);
+            for (int c = 0; c < columnNames.size(); c++) {
+                Double v = (values == null ? null : values.get(columnNames.get(c)));
+                bb.clear();
+                bb.putDouble(v == null ? Double.NaN : v);
+                bb.flip();
+                writeFully(columnChannel(c, localRow), bb, 8L * localRow);
+            }
+
+            bb.clear();
+            bb.putInt(iteration);
+            bb.flip();
+            writeFully(iterationChannel, bb, 4L * localRow);
+
+            //Timestamp is written last: a row is complete (visible to readers) once its timestamp has been written
+            bb.clear();
+            bb.putLong(timestamp);
+            bb.flip();
+            writeFully(timestampChannel, bb, 8L * localRow);
+
+            rowCount++;
+        }
+
+        private FileChannel columnChannel(int column, int localRow) throws IOException {
+            while (columnChannels.size() <= column) {
+                columnChannels.add(null);
+            }
+            FileChannel fc = columnChannels.get(column);
+            if (fc == null) {
+                File f = new File(segmentDir(this, openSegment), "column-" + column + ".bin");
+                fc = new RandomAccessFile(f, "rw").getChannel();
+                columnChannels.set(column, fc);
+
+                //Column added part way through the segment: earlier rows don't have a value for it
+                long padFrom = fc.size() / 8;
+                if (padFrom < localRow) {
+                    ByteBuffer pad = ByteBuffer.allocate(8 * (int) (localRow - padFrom));
+                    while (pad.hasRemaining()) {
+                        pad.putDouble(Double.NaN);
+                    }
+                    pad.flip();
+                    writeFully(fc, pad, 8 * padFrom);
+                }
+            }
+            return fc;
+        }
+
+        private void openSegment(int segment) throws IOException {
+            closeChannels();
+            File segDir = segmentDir(this, segment);
+            if (!segDir.exists() && !segDir.mkdirs())
+                throw new IOException("Could not create directory: " + segDir.getPath());
+            timestampChannel = new RandomAccessFile(new File(segDir, TIMESTAMP_FILE_NAME), "rw").getChannel();
+            iterationChannel = new RandomAccessFile(new File(segDir, ITERATION_FILE_NAME), "rw").getChannel();
+            openSegment = segment;
+        }
+
+        private void closeChannels() throws IOException {
+            if (timestampChannel != null)
+                timestampChannel.close();
+            if (iterationChannel != null)
+                iterationChannel.close();
+            for (FileChannel fc : columnChannels) {
+                if (fc != null)
+                    fc.close();
+            }
+            timestampChannel = null;
+            iterationChannel = null;
+            columnChannels.clear();
+            openSegment = -1;
+        }
+    }
+
+    // ----- Update map: offsets of updates in the record log, decoded on demand -----
+
+    private class RecordMap extends AbstractMap<Long, Persistable> {
+        private final ConcurrentSkipListMap<Long, Long> offsets = new ConcurrentSkipListMap<>();
+
+        @Override
+        public Persistable get(Object key) {
+            Long offset = offsets.get(key);
+            return (offset == null ? null : readRecord(offset));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return offsets.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return offsets.size();
+        }
+
+        @Override
+        public Set<Long> keySet() {
+            return offsets.keySet();
+        }
+
+        @Override
+        public Persistable put(Long key, Persistable value) {
+            throw new UnsupportedOperationException("Updates must be added via putUpdate");
+        }
+
+        @Override
+        public Set<Entry<Long, Persistable>> entrySet() {
+            return new AbstractSet<Entry<Long, Persistable>>() {
+                @Override
+                public Iterator<Entry<Long, Persistable>> iterator() {
+                    final Iterator<Entry<Long, Long>> iter = offsets.entrySet().iterator();
+                    return new Iterator<Entry<Long, Persistable>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iter.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Long, Persistable> next() {
+                            final Entry<Long, Long> e = iter.next();
+                            return new SimpleImmutableEntry<Long, Persistable>(e.getKey(), null) {
+                                @Override
+                                public Persistable getValue() {
+                                    return readRecord(e.getValue());
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return offsets.size();
+                }
+            };
+        }
+    }
+
+    @Override
+    protected synchronized Map<Long, Persistable> getUpdateMap(String sessionID, String typeID, String workerID,
+                    boolean createIfRequired) {
+        SessionTypeWorkerId id = new SessionTypeWorkerId(sessionID, typeID, workerID);
+        if (updates.containsKey(id)) {
+            return updates.get(id);
+        }
+        if (!createIfRequired) {
+            return null;
+        }
+        Map<Long, Persistable> updateMap = new RecordMap();
+        updates.put(id, updateMap);
+        return updateMap;
+    }
+
+    // ----- Store new info -----
+
+    private void checkWritable() {
+        if (readOnly)
+            throw new UnsupportedOperationException("Cannot store data: storage is read-only");
+        if (closed)
+            throw new IllegalStateException("Cannot store data: storage is closed");
+    }
+
+    @Override
+    public void putStaticInfo(Persistable staticInfo) {
+        List<StatsStorageEvent> sses = checkStorageEvents(staticInfo);
+        synchronized (this) {
+            checkWritable();
+            try {
+                appendRecord(RecordType.StaticInfo, staticInfo);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            sessionIDs.add(staticInfo.getSessionID());
+            SessionTypeWorkerId id = new SessionTypeWorkerId(staticInfo.getSessionID(), staticInfo.getTypeID(),
+                            staticInfo.getWorkerID());
+            this.staticInfo.put(id, staticInfo);
+        }
+
+        StatsStorageEvent sse = null;
+        if (listeners.size() > 0)
+            sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostStaticInfo, staticInfo.getSessionID(),
+                            staticInfo.getTypeID(), staticInfo.getWorkerID(), staticInfo.getTimeStamp());
+        for (StatsStorageListener l : listeners) {
+            l.notify(sse);
+        }
+
+        notifyListeners(sses);
+    }
+
+    @Override
+    public void putUpdate(Persistable update) {
+        List<StatsStorageEvent> sses = checkStorageEvents(update);
+        synchronized (this) {
+            checkWritable();
+            try {
+                long offset = appendRecord(RecordType.Update, update);
+                RecordMap updateMap = (RecordMap) getUpdateMap(update.getSessionID(), update.getTypeID(),
+                                update.getWorkerID(), true);
+                updateMap.offsets.put(update.getTimeStamp(), offset);
+
+                if (update instanceof TimeSeriesPersistable) {
+                    TimeSeriesPersistable tsp = (TimeSeriesPersistable) update;
+                    SessionTypeWorkerId id = new SessionTypeWorkerId(update.getSessionID(), update.getTypeID(),
+                                    update.getWorkerID());
+                    Series s = series.get(id);
+                    if (s == null) {
+                        int seriesIdx = seriesByIdx.size();
+                        appendRecord(RecordType.Series, id.getSessionID(), id.getTypeID(), id.getWorkerID(), 0, null,
+                                        null, seriesIdx);
+                        s = addSeries(id, seriesIdx);
+                    }
+                    s.append(tsp.getTimeStamp(), tsp.getIterationCount(), tsp.getTimeSeriesValues(), id);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        StatsStorageEvent sse = null;
+        if (listeners.size() > 0)
+            sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostUpdate, update.getSessionID(),
+                            update.getTypeID(), update.getWorkerID(), update.getTimeStamp());
+        for (StatsStorageListener l : listeners) {
+            l.notify(sse);
+        }
+
+        notifyListeners(sses);
+    }
+
+    @Override
+    public void putStorageMetaData(StorageMetaData storageMetaData) {
+        List<StatsStorageEvent> sses = checkStorageEvents(storageMetaData);
+        synchronized (this) {
+            checkWritable();
+            try {
+                appendRecord(RecordType.MetaData, storageMetaData);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            SessionTypeId id = new SessionTypeId(storageMetaData.getSessionID(), storageMetaData.getTypeID());
+            this.storageMetaData.put(id, storageMetaData);
+        }
+
+        StatsStorageEvent sse = null;
+        if (listeners.size() > 0)
+            sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostMetaData,
+                            storageMetaData.getSessionID(), storageMetaData.getTypeID(), storageMetaData.getWorkerID(),
+                            storageMetaData.getTimeStamp());
+        for (StatsStorageListener l : listeners) {
+            l.notify(sse);
+        }
+
+        notifyListeners(sses);
+    }
+
+    // ----- Time series queries: scan the columns directly -----
+
+    @Override
+    public synchronized List<String> listTimeSeriesMetrics(String sessionID, String typeID, String workerID) {
+        Series s = series.get(new SessionTypeWorkerId(sessionID, typeID, workerID));
+        if (s == null || s.rowCount == 0)
+            return Collections.emptyList();
+        List<String> out = new ArrayList<>(s.columnIdxs.keySet());
+        Collections.sort(out);
+        return out;
+    }
+
+    @Override
+    public synchronized List<TimeSeriesBucket> getTimeSeries(String sessionID, String typeID, String workerID,
+                    String metric, TimeSeriesBucket.RangeType rangeType, long rangeStart, long rangeEnd,
+                    int maxBuckets) {
+        if (maxBuckets <= 0)
+            throw new IllegalArgumentException("Max buckets must be positive: got " + maxBuckets);
+        Series s = series.get(new SessionTypeWorkerId(sessionID, typeID, workerID));
+        if (s == null)
+            return Collections.emptyList();
+        Integer column = s.columnIdxs.get(metric);
+        int numRows = s.rowCount;
+        if (column == null || numRows == 0)
+            return Collections.emptyList();
+
+        try {
+            long[] timestamps = readTimestamps(s, numRows);
+            int[] iterations = readIterations(s, numRows);
+            double[] values = readColumn(s, column, numRows);
+
+            int[] ordered = orderedRows(timestamps);
+            int numOrdered = (ordered == null ? numRows : ordered.length);
+            int[] rows = new int[numOrdered];
+            int n = 0;
+            for (int j = 0; j < numOrdered; j++) {
+                int i = (ordered == null ? j : ordered[j]);
+                long x = (rangeType == TimeSeriesBucket.RangeType.Timestamp ? timestamps[i] : iterations[i]);
+                if (x >= rangeStart && x <= rangeEnd) {
+                    rows[n++] = i;
+                }
+            }
+
+            int perBucket = (n + maxBuckets - 1) / maxBuckets;
+            List<TimeSeriesBucket> out = new ArrayList<>(Math.min(n, maxBuckets));
+            for (int i = 0; i < n; i += perBucket) {
+                int end = Math.min(n, i + perBucket);
+                int count = 0;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                double sum = 0.0;
+                long startTs = Long.MAX_VALUE;
+                long endTs = Long.MIN_VALUE;
+                int startIter = Integer.MAX_VALUE;
+                int endIter = Integer.MIN_VALUE;
+                for (int j = i; j < end; j++) {
+                    int r = rows[j];
+                    double v = values[r];
+                    if (Double.isNaN(v) || Double.isInfinite(v))
+                        continue;
+                    count++;
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                    sum += v;
+                    startTs = Math.min(startTs, timestamps[r]);
+                    endTs = Math.max(endTs, timestamps[r]);
+                    startIter = Math.min(startIter, iterations[r]);
+                    endIter = Math.max(endIter, iterations[r]);
+                }
+                if (count > 0) {
+                    out.add(new TimeSeriesBucket(startTs, endTs, startIter, endIter, count, min, max, sum / count));
+                }
+            }
+            return out;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //Rows to aggregate, in timestamp order, or null if the timestamps are strictly increasing (i.e., all rows, in
+    //order). An update stored more than once (same timestamp) has a row for each put: only the last row is used,
+    //consistent with getUpdate
+    private static int[] orderedRows(final long[] timestamps) {
+        boolean increasing = true;
+        for (int i = 1; i < timestamps.length && increasing; i++) {
+            increasing = timestamps[i] > timestamps[i - 1];
+        }
+        if (increasing)
+            return null;
+
+        Map<Long, Integer> lastRow = new HashMap<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            lastRow.put(timestamps[i], i);
+        }
+        Integer[] rows = lastRow.values().toArray(new Integer[lastRow.size()]);
+        Arrays.sort(rows, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(timestamps[o1], timestamps[o2]);
+            }
+        });
+        int[] out = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            out[i] = rows[i];
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (pollThread != null) {
+            pollThread.interrupt();
+        }
+        synchronized (this) {
+            for (Series s : seriesByIdx) {
+                s.closeChannels();
+            }
+            mappedBuffers.clear();
+            if (recordsWrite != null) {
+                recordsWrite.close();
+            }
+            recordsRead.close();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarFileStatsStorage(" + directory.getPath() + (readOnly ? ",readOnly" : "") + ")";
+    }
+}
@@ -154,7 +154,10 @@ public class MapDBStatsStorage extends BaseCollectionStatsStorage {
         List<StatsStorageEvent> sses = checkStorageEvents(update);
         Map<Long, Persistable> updateMap =
                         getUpdateMap(update.getSessionID(), update.getTypeID(), update.getWorkerID(), true);
-        updateMap.put(update.getTimeStamp(), update);
+        synchronized (timeSeries) {
+            Persistable replaced = updateMap.put(update.getTimeStamp(), update);
+            timeSeries.add(update, replaced);
+        }
         db.commit(); //For write ahead log: need to ensure that we persist all data to disk...
 
         StatsStorageEvent sse = null;
@@ -1,24 +1,34 @@
 package org.deeplearning4j.ui.storage.sqlite;
 
 import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.api.storage.*;
+import org.deeplearning4j.api.storage.impl.TimeSeriesAggregator;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.io.*;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * A Java 7 compatible file-based {@link StatsStorage} implementation, based on SQLite.
  * Note: Where possible, use {@link org.deeplearning4j.ui.storage.FileStatsStorage} which should be faster (is based
  * on MapDB).
  * Obviously, the storage formats for J7FileStatsStorage and {@link org.deeplearning4j.ui.storage.FileStatsStorage} are
- * incompatible.
+ * incompatible.<br>
+ * <br>
+ * Writes are group committed: the put methods serialize the objects and queue them, and a single writer thread
+ * inserts everything queued so far in one transaction. Any query first waits for all previously queued writes to be
+ * committed, hence queries always reflect all prior puts. The database uses SQLite's WAL (write-ahead log) journal
+ * mode, so queries (on a separate connection) don't block on, and are not blocked by, the writer.
  *
  * @author Alex Black
  */
-public class J7FileStatsStorage implements StatsStorage {
+@Slf4j
+public class J7FileStatsStorage implements TimeSeriesStatsStorage {
 
     private static final String TABLE_NAME_METADATA = "StorageMetaData";
     private static final String TABLE_NAME_STATIC_INFO = "StaticInfo";
@@ -31,10 +41,59 @@ public class J7FileStatsStorage implements StatsStorage {
     private static final String INSERT_UPDATE_SQL = "INSERT OR REPLACE INTO " + TABLE_NAME_UPDATES
                     + " (SessionID, TypeID, WorkerID, Timestamp, ObjectClass, ObjectBytes) VALUES ( ?, ?, ?, ?, ?, ? );";
 
+    /** Maximum number of objects to write in a single transaction */
+    public static final int MAX_WRITE_BATCH_SIZE = 1024;
+
+    private enum WriteType {
+        MetaData, StaticInfo, Update
+    }
+
+    private static class PendingWrite {
+        private final WriteType type;
+        private final String sessionID;
+        private final String typeID;
+        private final String workerID;
+        private final long timestamp;
+        private final String objectClass;
+        private final byte[] objectBytes;
+
+        private PendingWrite(WriteType type, Persistable p) {
+            this.type = type;
+            this.sessionID = p.getSessionID();
+            this.typeID = p.getTypeID();
+            this.workerID = p.getWorkerID();
+            this.timestamp = p.getTimeStamp();
+            Pair<String, byte[]> pair = serializeForDB(p);
+            this.objectClass = pair.getFirst();
+            this.objectBytes = pair.getSecond();
+        }
+    }
+
     private final File file;
     private final Connection connection;
+    private final Connection writeConnection;
+    private final Map<String, PreparedStatement> statementCache = new HashMap<>();
+    private PreparedStatement insertMetaStatement;
+    private PreparedStatement insertStaticStatement;
+    private PreparedStatement insertUpdateStatement;
     private List<StatsStorageListener> listeners = new ArrayList<>();
 
+    //Session, type and worker IDs seen so far - used to generate the new session/type/worker events without querying
+    private final Map<String, Map<String, Set<String>>> knownIDs = new HashMap<>();
+
+    private final BlockingQueue<PendingWrite> writeQueue = new LinkedBlockingQueue<>();
+    private final Object writeMonitor = new Object();
+    private final Thread writerThread;
+    private long numQueued;
+    private long numWritten;
+    private Throwable writeException;
+    //Set if the writer thread has terminated due to an error: no further writes are possible
+    private volatile Throwable writerFailure;
+    private volatile boolean closed;
+
+    //Aggregated time series values: built on first query for each session/type/worker, then maintained as updates are put
+    private final TimeSeriesAggregator timeSeries = new TimeSeriesAggregator();
+
     /**
      * @param file Storage location for the stats
      */
@@ -42,16 +101,28 @@ public class J7FileStatsStorage implements StatsStorage {
         this.file = file;
 
         try {
-            connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            writeConnection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
         } catch (Exception e) {
             throw new RuntimeException("Error ninializing J7FileStatsStorage instance", e);
         }
 
         try {
             initializeTables();
+            writeConnection.setAutoCommit(false);
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            loadKnownIDs();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "J7FileStatsStorage-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
     }
 
     private void initializeTables() throws SQLException {
@@ -62,7 +133,7 @@ public class J7FileStatsStorage implements StatsStorage {
         //(c) Update info -> session ID, type ID, worker ID, timestamp, update class, update bytes
 
         //First: check if tables exist
-        DatabaseMetaData meta = connection.getMetaData();
+        DatabaseMetaData meta = writeConnection.getMetaData();
         ResultSet rs = meta.getTables(null, null, "%", null);
         boolean hasStorageMetaDataTable = false;
         boolean hasStaticInfoTable = false;
@@ -79,7 +150,11 @@ public class J7FileStatsStorage implements StatsStorage {
         }
 
 
-        Statement statement = connection.createStatement();
+        Statement statement = writeConnection.createStatement();
+
+        //WAL: readers and the writer don't block each other; with WAL, synchronous=NORMAL is still crash-safe
+        statement.execute("PRAGMA journal_mode=WAL;");
+        statement.execute("PRAGMA synchronous=NORMAL;");
 
         if (!hasStorageMetaDataTable) {
             statement.executeUpdate("CREATE TABLE " + TABLE_NAME_METADATA + " (" + "SessionID TEXT NOT NULL, "
@@ -94,16 +169,206 @@ public class J7FileStatsStorage implements StatsStorage {
         }
 
         if (!hasUpdatesTable) {
+            //Note that the primary key also acts as the index for (SessionID, TypeID, WorkerID, Timestamp) queries
             statement.executeUpdate("CREATE TABLE " + TABLE_NAME_UPDATES + " (" + "SessionID TEXT NOT NULL, "
                             + "TypeID TEXT NOT NULL, " + "WorkerID TEXT NOT NULL, " + "Timestamp INTEGER NOT NULL, "
                             + "ObjectClass TEXT NOT NULL, " + "ObjectBytes BLOB NOT NULL, "
                             + "PRIMARY KEY ( SessionID, TypeID, WorkerID, Timestamp )" + ");");
         }
 
+        //Index for queries across all workers
+        statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + TABLE_NAME_UPDATES + "_SessionTypeTimestamp ON "
+                        + TABLE_NAME_UPDATES + " ( SessionID, TypeID, Timestamp );");
+
         statement.close();
 
     }
 
+    private void loadKnownIDs() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[] {TABLE_NAME_METADATA, TABLE_NAME_STATIC_INFO, TABLE_NAME_UPDATES}) {
+                boolean hasWorker = !TABLE_NAME_METADATA.equals(table);
+                ResultSet rs = statement.executeQuery("SELECT DISTINCT SessionID, TypeID"
+                                + (hasWorker ? ", WorkerID" : "") + " FROM " + table + ";");
+                while (rs.next()) {
+                    addKnownIDs(rs.getString(1), rs.getString(2), (hasWorker ? rs.getString(3) : null));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Boolean array: is the session ID new, is the type ID new, is the worker ID new
+     */
+    private boolean[] addKnownIDs(String sid, String tid, String wid) {
+        synchronized (knownIDs) {
+            boolean[] out = new boolean[3];
+            Map<String, Set<String>> types = knownIDs.get(sid);
+            if (types == null) {
+                types = new HashMap<>();
+                knownIDs.put(sid, types);
+                out[0] = true;
+            }
+            Set<String> workers = types.get(tid);
+            if (workers == null) {
+                workers = new HashSet<>();
+                types.put(tid, workers);
+                out[1] = true;
+            }
+            if (wid != null && workers.add(wid)) {
+                out[2] = true;
+            }
+            return out;
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(writeQueue.take());
+            } catch (InterruptedException e) {
+                //Interrupted on close, after all pending writes have completed
+                return;
+            }
+            writeQueue.drainTo(batch, MAX_WRITE_BATCH_SIZE - 1);
+
+            Throwable exception = null;
+            try {
+                writeBatch(batch);
+            } catch (Throwable t) {
+                log.error("Error writing stats to J7FileStatsStorage file {}", file, t);
+                exception = t;
+            }
+
+            //Pending writes must always be accounted for (even if they failed), so that flush() does not block forever
+            boolean fatal = exception instanceof Error;
+            synchronized (writeMonitor) {
+                numWritten += batch.size();
+                if (exception != null && writeException == null)
+                    writeException = exception;
+                if (fatal) {
+                    //The writer thread terminates: discard any remaining writes, and reject all future writes
+                    writerFailure = exception;
+                    List<PendingWrite> discarded = new ArrayList<>();
+                    writeQueue.drainTo(discarded);
+                    numWritten += discarded.size();
+                }
+                writeMonitor.notifyAll();
+            }
+            if (fatal)
+                return;
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) throws SQLException {
+        //Only used from the writer thread
+        if (insertMetaStatement == null) {
+            insertMetaStatement = writeConnection.prepareStatement(INSERT_META_SQL);
+            insertStaticStatement = writeConnection.prepareStatement(INSERT_STATIC_SQL);
+            insertUpdateStatement = writeConnection.prepareStatement(INSERT_UPDATE_SQL);
+        }
+        PreparedStatement psMeta = null;
+        PreparedStatement psStatic = null;
+        PreparedStatement psUpdate = null;
+        boolean committed = false;
+        try {
+            for (PendingWrite w : batch) {
+                switch (w.type) {
+                    case MetaData:
+                        psMeta = insertMetaStatement;
+                        psMeta.setString(1, w.sessionID);
+                        psMeta.setString(2, w.typeID);
+                        psMeta.setString(3, w.objectClass);
+                        psMeta.setBytes(4, w.objectBytes);
+                        psMeta.addBatch();
+                        break;
+                    case StaticInfo:
+                        psStatic = insertStaticStatement;
+                        psStatic.setString(1, w.sessionID);
+                        psStatic.setString(2, w.typeID);
+                        psStatic.setString(3, w.workerID);
+                        psStatic.setString(4, w.objectClass);
+                        psStatic.setBytes(5, w.objectBytes);
+                        psStatic.addBatch();
+                        break;
+                    case Update:
+                        psUpdate = insertUpdateStatement;
+                        psUpdate.setString(1, w.sessionID);
+                        psUpdate.setString(2, w.typeID);
+                        psUpdate.setString(3, w.workerID);
+                        psUpdate.setLong(4, w.timestamp);
+                        psUpdate.setString(5, w.objectClass);
+                        psUpdate.setBytes(6, w.objectBytes);
+                        psUpdate.addBatch();
+                        break;
+                }
+            }
+
+            //Explicit transaction (autocommit is disabled for the write connection): one commit for the whole batch
+            if (psMeta != null)
+                psMeta.executeBatch();
+            if (psStatic != null)
+                psStatic.executeBatch();
+            if (psUpdate != null)
+                psUpdate.executeBatch();
+            writeConnection.commit();
+            committed = true;
+        } finally {
+            //Any failure (not only SQLExceptions) must not leave a partial batch behind for the next batch to commit
+            if (!committed) {
+                insertMetaStatement.clearBatch();
+                insertStaticStatement.clearBatch();
+                insertUpdateStatement.clearBatch();
+                writeConnection.rollback();
+            }
+        }
+    }
+
+    private void enqueue(List<PendingWrite> writes) {
+        if (closed)
+            throw new IllegalStateException("Cannot put to closed J7FileStatsStorage");
+        synchronized (writeMonitor) {
+            //Checked while holding the monitor: the writer discards the queue (under the monitor) when it fails
+            checkWriterAlive();
+            numQueued += writes.size();
+            writeQueue.addAll(writes);
+        }
+    }
+
+    private void checkWriterAlive() {
+        Throwable t = writerFailure;
+        if (t != null)
+            throw new IllegalStateException("J7FileStatsStorage writer thread has failed: no further writes are possible",
+                            t);
+    }
+
+    /**
+     * Wait until all objects put so far have been written to the database file.<br>
+     * Throws an exception if any write since the last flush failed, or if the writer thread has failed (in which case
+     * all subsequent calls to flush and put methods also throw an exception)
+     */
+    public void flush() {
+        synchronized (writeMonitor) {
+            long target = numQueued;
+            while (numWritten < target && writerFailure == null) {
+                try {
+                    writeMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for writes to complete", e);
+                }
+            }
+            checkWriterAlive();
+            if (writeException != null) {
+                Throwable e = writeException;
+                writeException = null;
+                throw new RuntimeException("Error writing to J7FileStatsStorage", e);
+            }
+        }
+    }
+
     private static Pair<String, byte[]> serializeForDB(Object object) {
         String classStr = object.getClass().getName();
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -125,165 +390,196 @@ public class J7FileStatsStorage implements StatsStorage {
         }
     }
 
-    private <T> T queryAndGet(String sql, int columnIndex) {
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(sql);
+    private PreparedStatement prepare(String sql, Object... args) throws SQLException {
+        //Only called while synchronized on this instance
+        PreparedStatement ps = statementCache.get(sql);
+        if (ps == null) {
+            ps = connection.prepareStatement(sql);
+            statementCache.put(sql, ps);
+        }
+        for (int i = 0; i < args.length; i++) {
+            ps.setObject(i + 1, args[i]);
+        }
+        return ps;
+    }
+
+    private synchronized <T> T queryAndGet(String sql, Object... args) {
+        flush();
+        try (ResultSet rs = prepare(sql, args).executeQuery()) {
             if (!rs.next())
                 return null;
-            byte[] bytes = rs.getBytes(columnIndex);
+            byte[] bytes = rs.getBytes(1);
             return deserialize(bytes);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private List<String> selectDistinct(String columnName, boolean queryMeta, boolean queryStatic, boolean queryUpdates,
-                    String conditionColumn, String conditionValue) {
-        Set<String> unique = new HashSet<>();
-
-        try (Statement statement = connection.createStatement()) {
-            if (queryMeta) {
-                queryHelper(statement, querySqlHelper(columnName, TABLE_NAME_METADATA, conditionColumn, conditionValue),
-                                unique);
+    private synchronized List<Persistable> queryUpdates(String sql, Object... args) {
+        flush();
+        try (ResultSet rs = prepare(sql, args).executeQuery()) {
+            List<Persistable> out = new ArrayList<>();
+            while (rs.next()) {
+                byte[] bytes = rs.getBytes(1);
+                out.add((Persistable) deserialize(bytes));
             }
+            return out;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            if (queryStatic) {
-                queryHelper(statement,
-                                querySqlHelper(columnName, TABLE_NAME_STATIC_INFO, conditionColumn, conditionValue),
-                                unique);
+    private synchronized long[] queryLongs(String sql, Object... args) {
+        flush();
+        try (ResultSet rs = prepare(sql, args).executeQuery()) {
+            LongArrayList list = new LongArrayList();
+            while (rs.next()) {
+                list.add(rs.getLong(1));
             }
+            return list.toArray();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            if (queryUpdates) {
-                queryHelper(statement, querySqlHelper(columnName, TABLE_NAME_UPDATES, conditionColumn, conditionValue),
-                                unique);
-            }
+    private synchronized int queryInt(String sql, Object... args) {
+        flush();
+        try (ResultSet rs = prepare(sql, args).executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+    }
 
-        return new ArrayList<>(unique);
+    private synchronized void queryStrings(String sql, Collection<String> out, Object... args) {
+        flush();
+        try (ResultSet rs = prepare(sql, args).executeQuery()) {
+            while (rs.next()) {
+                out.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    private String querySqlHelper(String columnName, String table, String conditionColumn, String conditionValue) {
-        String unique = "SELECT DISTINCT " + columnName + " FROM " + table;
-        if (conditionColumn != null) {
-            unique += " WHERE " + conditionColumn + " = '" + conditionValue + "'";
+    private List<String> selectDistinct(String columnName, boolean queryMeta, boolean queryStatic, boolean queryUpdates,
+                    String conditionColumn, String conditionValue) {
+        Set<String> unique = new HashSet<>();
+        if (queryMeta) {
+            queryHelper(columnName, TABLE_NAME_METADATA, conditionColumn, conditionValue, unique);
         }
-        unique += ";";
-        return unique;
+        if (queryStatic) {
+            queryHelper(columnName, TABLE_NAME_STATIC_INFO, conditionColumn, conditionValue, unique);
+        }
+        if (queryUpdates) {
+            queryHelper(columnName, TABLE_NAME_UPDATES, conditionColumn, conditionValue, unique);
+        }
+        return new ArrayList<>(unique);
     }
 
-    private void queryHelper(Statement statement, String q, Set<String> unique) throws SQLException {
-        ResultSet rs = statement.executeQuery(q);
-        while (rs.next()) {
-            String str = rs.getString(1);
-            unique.add(str);
+    private void queryHelper(String columnName, String table, String conditionColumn, String conditionValue,
+                    Set<String> unique) {
+        String sql = "SELECT DISTINCT " + columnName + " FROM " + table;
+        if (conditionColumn != null) {
+            sql += " WHERE " + conditionColumn + " = ?;";
+            queryStrings(sql, unique, conditionValue);
+        } else {
+            queryStrings(sql + ";", unique);
         }
     }
 
     protected List<StatsStorageEvent> checkStorageEvents(Persistable p) {
-        if (listeners.size() == 0)
-            return null;
-
-        StatsStorageEvent newSID = null;
-        StatsStorageEvent newTID = null;
-        StatsStorageEvent newWID = null;
-
         String sid = p.getSessionID();
         String tid = p.getTypeID();
         String wid = p.getWorkerID();
 
         //Is this a new session ID? type ID? worker ID?
+        boolean[] isNew = addKnownIDs(sid, tid, wid);
+        boolean isNewSID = isNew[0];
+        boolean isNewTID = isNew[0] || isNew[1];
+        boolean isNewWID = isNew[0] || isNew[1] || isNew[2];
 
-        //This is not the most efficient approach
-        boolean isNewSID = false;
-        boolean isNewTID = false;
-        boolean isNewWID = false;
-        if (!listSessionIDs().contains(sid)) {
-            isNewSID = true;
-            isNewTID = true;
-            isNewWID = true;
-        }
-
-        if (!isNewTID && !listTypeIDsForSession(sid).contains(tid)) {
-            isNewTID = true;
-        }
-
-        if (!isNewWID && !listWorkerIDsForSessionAndType(sid, tid).contains(wid)) {
-            isNewWID = true;
-        }
+        if (listeners.size() == 0)
+            return null;
 
+        if (!isNewSID && !isNewTID && !isNewWID)
+            return null;
+        List<StatsStorageEvent> sses = new ArrayList<>(3);
         if (isNewSID) {
-            newSID = new StatsStorageEvent(this, StatsStorageListener.EventType.NewSessionID, p.getSessionID(),
-                            p.getTypeID(), p.getWorkerID(), p.getTimeStamp());
+            sses.add(new StatsStorageEvent(this, StatsStorageListener.EventType.NewSessionID, p.getSessionID(),
+                            p.getTypeID(), p.getWorkerID(), p.getTimeStamp()));
         }
         if (isNewTID) {
-            newTID = new StatsStorageEvent(this, StatsStorageListener.EventType.NewTypeID, p.getSessionID(),
-                            p.getTypeID(), p.getWorkerID(), p.getTimeStamp());
+            sses.add(new StatsStorageEvent(this, StatsStorageListener.EventType.NewTypeID, p.getSessionID(),
+                            p.getTypeID(), p.getWorkerID(), p.getTimeStamp()));
         }
         if (isNewWID) {
-            newWID = new StatsStorageEvent(this, StatsStorageListener.EventType.NewWorkerID, p.getSessionID(),
-                            p.getTypeID(), p.getWorkerID(), p.getTimeStamp());
+            sses.add(new StatsStorageEvent(this, StatsStorageListener.EventType.NewWorkerID, p.getSessionID(),
+                            p.getTypeID(), p.getWorkerID(), p.getTimeStamp()));
         }
-
-        if (!isNewSID && !isNewTID && !isNewWID)
-            return null;
-        List<StatsStorageEvent> sses = new ArrayList<>(3);
-        if (newSID != null)
-            sses.add(newSID);
-        if (newTID != null)
-            sses.add(newTID);
-        if (newWID != null)
-            sses.add(newWID);
         return sses;
     }
 
-    @Override
-    public void putStorageMetaData(StorageMetaData storageMetaData) {
-        putStorageMetaData(Collections.singletonList(storageMetaData));
-    }
-
-    @Override
-    public void putStorageMetaData(Collection<? extends StorageMetaData> collection) {
+    private void put(WriteType type, StatsStorageListener.EventType eventType,
+                    Collection<? extends Persistable> collection) {
+        //Fail fast, before any state (known IDs, time series) is updated for writes that can never complete
+        checkWriterAlive();
         List<StatsStorageEvent> sses = null;
-        try {
-            PreparedStatement ps = connection.prepareStatement(INSERT_META_SQL);
-
-            for (StorageMetaData storageMetaData : collection) {
-                List<StatsStorageEvent> ssesTemp = checkStorageEvents(storageMetaData);
-                if (ssesTemp != null) {
-                    if (sses == null)
-                        sses = ssesTemp;
-                    else
-                        sses.addAll(ssesTemp);
-                }
-
-                if (listeners.size() > 0) {
-                    StatsStorageEvent sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostMetaData,
-                                    storageMetaData.getSessionID(), storageMetaData.getTypeID(),
-                                    storageMetaData.getWorkerID(), storageMetaData.getTimeStamp());
-                    if (sses == null)
-                        sses = new ArrayList<>();
-                    sses.add(sse);
-                }
-
+        List<PendingWrite> writes = new ArrayList<>(collection.size());
+        for (Persistable p : collection) {
+            List<StatsStorageEvent> ssesTemp = checkStorageEvents(p);
+            if (ssesTemp != null) {
+                if (sses == null)
+                    sses = ssesTemp;
+                else
+                    sses.addAll(ssesTemp);
+            }
 
-                //Normally we'd batch these... sqlite has an autocommit feature that messes up batching with .addBatch() and .executeUpdate()
-                Pair<String, byte[]> p = serializeForDB(storageMetaData);
+            if (listeners.size() > 0) {
+                StatsStorageEvent sse = new StatsStorageEvent(this, eventType, p.getSessionID(), p.getTypeID(),
+                                p.getWorkerID(), p.getTimeStamp());
+                if (sses == null)
+                    sses = new ArrayList<>();
+                sses.add(sse);
+            }
 
-                ps.setString(1, storageMetaData.getSessionID());
-                ps.setString(2, storageMetaData.getTypeID());
-                ps.setString(3, p.getFirst());
-                ps.setObject(4, p.getSecond());
-                ps.executeUpdate();
+            writes.add(new PendingWrite(type, p));
+        }
+        if (type == WriteType.Update) {
+            synchronized (timeSeries) {
+                //Updates replacing a previously stored update (same timestamp) must not be counted twice in the
+                // aggregates. The previous update is only looked up for updates that are not newer than all others
+                Map<List<Object>, Persistable> inBatch = new HashMap<>();
+                for (Persistable p : collection) {
+                    List<Object> key = Arrays.<Object>asList(p.getSessionID(), p.getTypeID(), p.getWorkerID(),
+                                    p.getTimeStamp());
+                    Persistable replaced = inBatch.get(key);
+                    if (replaced == null && timeSeries.mayContain(p.getSessionID(), p.getTypeID(), p.getWorkerID(),
+                                    p.getTimeStamp())) {
+                        replaced = getUpdate(p.getSessionID(), p.getTypeID(), p.getWorkerID(), p.getTimeStamp());
+                    }
+                    inBatch.put(key, p);
+                    timeSeries.add(p, replaced);
+                }
+                enqueue(writes);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        } else {
+            enqueue(writes);
         }
 
         notifyListeners(sses);
     }
 
+    @Override
+    public void putStorageMetaData(StorageMetaData storageMetaData) {
+        putStorageMetaData(Collections.singletonList(storageMetaData));
+    }
+
+    @Override
+    public void putStorageMetaData(Collection<? extends StorageMetaData> collection) {
+        put(WriteType.MetaData, StatsStorageListener.EventType.PostMetaData, collection);
+    }
+
     @Override
     public void putStaticInfo(Persistable staticInfo) {
         putStaticInfo(Collections.singletonList(staticInfo));
@@ -291,42 +587,7 @@ public class J7FileStatsStorage implements StatsStorage {
 
     @Override
     public void putStaticInfo(Collection<? extends Persistable> collection) {
-        List<StatsStorageEvent> sses = null;
-        try {
-            PreparedStatement ps = connection.prepareStatement(INSERT_STATIC_SQL);
-
-            for (Persistable p : collection) {
-                List<StatsStorageEvent> ssesTemp = checkStorageEvents(p);
-                if (ssesTemp != null) {
-                    if (sses == null)
-                        sses = ssesTemp;
-                    else
-                        sses.addAll(ssesTemp);
-                }
-
-                if (listeners.size() > 0) {
-                    StatsStorageEvent sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostStaticInfo,
-                                    p.getSessionID(), p.getTypeID(), p.getWorkerID(), p.getTimeStamp());
-                    if (sses == null)
-                        sses = new ArrayList<>();
-                    sses.add(sse);
-                }
-
-                //Normally we'd batch these... sqlite has an autocommit feature that messes up batching with .addBatch() and .executeUpdate()
-                Pair<String, byte[]> pair = serializeForDB(p);
-
-                ps.setString(1, p.getSessionID());
-                ps.setString(2, p.getTypeID());
-                ps.setString(3, p.getWorkerID());
-                ps.setString(4, pair.getFirst());
-                ps.setBytes(5, pair.getSecond());
-                ps.executeUpdate();
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        notifyListeners(sses);
+        put(WriteType.StaticInfo, StatsStorageListener.EventType.PostStaticInfo, collection);
     }
 
     @Override
@@ -336,59 +597,48 @@ public class J7FileStatsStorage implements StatsStorage {
 
     @Override
     public void putUpdate(Collection<? extends Persistable> collection) {
-        List<StatsStorageEvent> sses = null;
-
-        try {
-            PreparedStatement ps = connection.prepareStatement(INSERT_UPDATE_SQL);
-
-            for (Persistable p : collection) {
-                List<StatsStorageEvent> ssesTemp = checkStorageEvents(p);
-                if (ssesTemp != null) {
-                    if (sses == null)
-                        sses = ssesTemp;
-                    else
-                        sses.addAll(ssesTemp);
-                }
-
-                if (listeners.size() > 0) {
-                    StatsStorageEvent sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostUpdate,
-                                    p.getSessionID(), p.getTypeID(), p.getWorkerID(), p.getTimeStamp());
-                    if (sses == null)
-                        sses = new ArrayList<>();
-                    sses.add(sse);
-                }
-
-                //Normally we'd batch these... sqlite has an autocommit feature that messes up batching with .addBatch() and .executeUpdate()
-                Pair<String, byte[]> pair = serializeForDB(p);
-
-                ps.setString(1, p.getSessionID());
-                ps.setString(2, p.getTypeID());
-                ps.setString(3, p.getWorkerID());
-                ps.setLong(4, p.getTimeStamp());
-                ps.setString(5, pair.getFirst());
-                ps.setObject(6, pair.getSecond());
-                ps.executeUpdate();
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        notifyListeners(sses);
+        put(WriteType.Update, StatsStorageListener.EventType.PostUpdate, collection);
     }
 
     @Override
     public void close() throws IOException {
+        if (closed)
+            return;
         try {
-            connection.close();
-        } catch (Exception e) {
-            throw new IOException(e);
+            flush();
+        } finally {
+            closed = true;
+            writerThread.interrupt();
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            try {
+                synchronized (this) {
+                    for (PreparedStatement ps : statementCache.values()) {
+                        ps.close();
+                    }
+                    statementCache.clear();
+                }
+                if (insertMetaStatement != null) {
+                    insertMetaStatement.close();
+                    insertStaticStatement.close();
+                    insertUpdateStatement.close();
+                }
+                writeConnection.close();
+                connection.close();
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
         }
     }
 
     @Override
     public boolean isClosed() {
         try {
-            return connection.isClosed();
+            return closed || connection.isClosed();
         } catch (Exception e) {
             return true;
         }
@@ -401,44 +651,23 @@ public class J7FileStatsStorage implements StatsStorage {
 
     @Override
     public boolean sessionExists(String sessionID) {
-        String existsMetaSQL = "SELECT 1 FROM " + TABLE_NAME_METADATA + " WHERE SessionID = '" + sessionID + "';";
-        String existsStaticSQL = "SELECT 1 FROM " + TABLE_NAME_STATIC_INFO + " WHERE SessionID = '" + sessionID + "';";
-
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(existsMetaSQL);
-            if (rs.next()) {
-                return true;
-            }
-
-            rs = statement.executeQuery(existsStaticSQL);
-            return rs.next();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String existsMetaSQL = "SELECT 1 FROM " + TABLE_NAME_METADATA + " WHERE SessionID = ? LIMIT 1;";
+        String existsStaticSQL = "SELECT 1 FROM " + TABLE_NAME_STATIC_INFO + " WHERE SessionID = ? LIMIT 1;";
+        return queryInt(existsMetaSQL, sessionID) == 1 || queryInt(existsStaticSQL, sessionID) == 1;
     }
 
     @Override
     public Persistable getStaticInfo(String sessionID, String typeID, String workerID) {
-        String selectStaticSQL = "SELECT ObjectBytes FROM " + TABLE_NAME_STATIC_INFO + " WHERE SessionID = '"
-                        + sessionID + "' AND TypeID = '" + typeID + "' AND WorkerID = '" + workerID + "';";
-        return queryAndGet(selectStaticSQL, 1);
+        String selectStaticSQL = "SELECT ObjectBytes FROM " + TABLE_NAME_STATIC_INFO
+                        + " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ?;";
+        return queryAndGet(selectStaticSQL, sessionID, typeID, workerID);
     }
 
     @Override
     public List<Persistable> getAllStaticInfos(String sessionID, String typeID) {
-        String selectStaticSQL = "SELECT * FROM " + TABLE_NAME_STATIC_INFO + " WHERE SessionID = '" + sessionID
-                        + "' AND TypeID = '" + typeID + "';";
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(selectStaticSQL);
-            List<Persistable> out = new ArrayList<>();
-            while (rs.next()) {
-                byte[] bytes = rs.getBytes(5);
-                out.add((Persistable) deserialize(bytes));
-            }
-            return out;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String selectStaticSQL = "SELECT ObjectBytes FROM " + TABLE_NAME_STATIC_INFO
+                        + " WHERE SessionID = ? AND TypeID = ?;";
+        return queryUpdates(selectStaticSQL, sessionID, typeID);
     }
 
     @Override
@@ -453,137 +682,73 @@ public class J7FileStatsStorage implements StatsStorage {
 
     @Override
     public List<String> listWorkerIDsForSessionAndType(String sessionID, String typeID) {
-        String uniqueStatic = "SELECT DISTINCT WorkerID FROM " + TABLE_NAME_STATIC_INFO + " WHERE SessionID = '"
-                        + sessionID + "' AND TypeID = '" + typeID + "';";
-        String uniqueUpdates = "SELECT DISTINCT WorkerID FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '"
-                        + sessionID + "' AND TypeID = '" + typeID + "';";
+        String uniqueStatic = "SELECT DISTINCT WorkerID FROM " + TABLE_NAME_STATIC_INFO
+                        + " WHERE SessionID = ? AND TypeID = ?;";
+        String uniqueUpdates = "SELECT DISTINCT WorkerID FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ?;";
 
         Set<String> unique = new HashSet<>();
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(uniqueStatic);
-            while (rs.next()) {
-                String str = rs.getString(1);
-                unique.add(str);
-            }
-
-            rs = statement.executeQuery(uniqueUpdates);
-            while (rs.next()) {
-                String str = rs.getString(1);
-                unique.add(str);
-            }
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
+        queryStrings(uniqueStatic, unique, sessionID, typeID);
+        queryStrings(uniqueUpdates, unique, sessionID, typeID);
         return new ArrayList<>(unique);
     }
 
     @Override
     public int getNumUpdateRecordsFor(String sessionID) {
-        String sql = "SELECT COUNT(*) FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '" + sessionID + "';";
-        try (Statement statement = connection.createStatement()) {
-            return statement.executeQuery(sql).getInt(1);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT COUNT(*) FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = ?;";
+        return queryInt(sql, sessionID);
     }
 
     @Override
     public int getNumUpdateRecordsFor(String sessionID, String typeID, String workerID) {
-        String sql = "SELECT COUNT(*) FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '" + sessionID
-                        + "' AND TypeID = '" + typeID + "' AND WorkerID = '" + workerID + "';";
-        try (Statement statement = connection.createStatement()) {
-            return statement.executeQuery(sql).getInt(1);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT COUNT(*) FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ?;";
+        return queryInt(sql, sessionID, typeID, workerID);
     }
 
     @Override
     public Persistable getLatestUpdate(String sessionID, String typeID, String workerID) {
-        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '" + sessionID
-                        + "' AND TypeID = '" + typeID + "' AND WorkerID = '" + workerID
-                        + "' ORDER BY Timestamp DESC LIMIT 1;";
-        return queryAndGet(sql, 1);
+        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ? ORDER BY Timestamp DESC LIMIT 1;";
+        return queryAndGet(sql, sessionID, typeID, workerID);
     }
 
     @Override
     public Persistable getUpdate(String sessionID, String typeId, String workerID, long timestamp) {
-        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '" + sessionID
-                        + "' AND TypeID = '" + typeId + "' AND WorkerID = '" + workerID + "' AND Timestamp = '"
-                        + timestamp + "';";
-        return queryAndGet(sql, 1);
+        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ? AND Timestamp = ?;";
+        return queryAndGet(sql, sessionID, typeId, workerID, timestamp);
     }
 
     @Override
     public List<Persistable> getLatestUpdateAllWorkers(String sessionID, String typeID) {
-        String sql = "SELECT workerId, MAX(Timestamp) FROM " + TABLE_NAME_UPDATES + " WHERE SessionID ='"
-                + sessionID + "' AND " + "TypeID = '" + typeID + "' GROUP BY workerId";
-
-        Map<String,Long> m = new HashMap<>();
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(sql);
-            while (rs.next()) {
-                String wid = rs.getString(1);
-                long ts = rs.getLong(2);
-                m.put(wid, ts);
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        List<Persistable> out = new ArrayList<>();
-        for(String s : m.keySet()){
-            out.add(getUpdate(sessionID, typeID, s, m.get(s)));
-        }
-        return out;
+        //Single query: join each worker's latest timestamp back to the updates table (using the primary key index)
+        String sql = "SELECT u.ObjectBytes FROM " + TABLE_NAME_UPDATES + " u INNER JOIN (SELECT WorkerID, "
+                        + "MAX(Timestamp) AS MaxTimestamp FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? GROUP BY WorkerID) m ON u.WorkerID = m.WorkerID "
+                        + "AND u.Timestamp = m.MaxTimestamp WHERE u.SessionID = ? AND u.TypeID = ?;";
+        return queryUpdates(sql, sessionID, typeID, sessionID, typeID);
     }
 
     @Override
     public List<Persistable> getAllUpdatesAfter(String sessionID, String typeID, String workerID, long timestamp) {
-        String sql = "SELECT * FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '" + sessionID + "' AND TypeID = '"
-                        + typeID + "' " + "AND Timestamp > " + timestamp + ";";
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(sql);
-            List<Persistable> out = new ArrayList<>();
-            while (rs.next()) {
-                byte[] bytes = rs.getBytes(6);
-                out.add((Persistable) deserialize(bytes));
-            }
-            return out;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ? AND Timestamp > ? ORDER BY Timestamp;";
+        return queryUpdates(sql, sessionID, typeID, workerID, timestamp);
     }
 
     @Override
     public List<Persistable> getAllUpdatesAfter(String sessionID, String typeID, long timestamp) {
-        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '" + sessionID + "'  "
-                        + "AND Timestamp > " + timestamp + ";";
-        return queryUpdates(sql);
+        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? AND Timestamp > ?;";
+        return queryUpdates(sql, sessionID, typeID, timestamp);
     }
 
     @Override
     public long[] getAllUpdateTimes(String sessionID, String typeID, String workerID) {
-        /*
-        statement.executeUpdate("CREATE TABLE " + TABLE_NAME_UPDATES + " (" + "SessionID TEXT NOT NULL, "
-                + "TypeID TEXT NOT NULL, " + "WorkerID TEXT NOT NULL, " + "Timestamp INTEGER NOT NULL, "
-                + "ObjectClass TEXT NOT NULL, " + "ObjectBytes BLOB NOT NULL, "
-                + "PRIMARY KEY ( SessionID, TypeID, WorkerID, Timestamp )" + ");");
-         */
-        String sql = "SELECT Timestamp FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = '" + sessionID + "'  "
-                + "AND TypeID = '" + typeID + "' AND workerID = '" + workerID + "';";
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(sql);
-            LongArrayList list = new LongArrayList();
-            while (rs.next()) {
-                list.add(rs.getLong(1));
-            }
-            return list.toArray();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT Timestamp FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ? ORDER BY Timestamp;";
+        return queryLongs(sql, sessionID, typeID, workerID);
     }
 
     @Override
@@ -592,10 +757,10 @@ public class J7FileStatsStorage implements StatsStorage {
             return Collections.emptyList();
         }
 
+        //Timestamps are included directly (not as parameters): SQLite limits the number of parameters per statement
         StringBuilder sb = new StringBuilder();
-        sb.append("SELECT ObjectBytes FROM ").append(TABLE_NAME_UPDATES).append(" WHERE SessionID = '").append(sessionID)
-                .append("' AND TypeID = '").append(typeID).append("' AND workerID='").append(workerID)
-                .append("'  AND Timestamp IN (");
+        sb.append("SELECT ObjectBytes FROM ").append(TABLE_NAME_UPDATES)
+                .append(" WHERE SessionID = ? AND TypeID = ? AND WorkerID = ? AND Timestamp IN (");
 
         for( int i=0; i<timestamps.length; i++ ){
             if(i > 0){
@@ -603,31 +768,115 @@ public class J7FileStatsStorage implements StatsStorage {
             }
             sb.append(timestamps[i]);
         }
-        sb.append(");");
+        sb.append(") ORDER BY Timestamp;");
 
+        //Not cached: the statement is different for every set of timestamps
         String sql = sb.toString();
-        return queryUpdates(sql);
+        synchronized (this) {
+            flush();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, sessionID);
+                ps.setString(2, typeID);
+                ps.setString(3, workerID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Persistable> out = new ArrayList<>();
+                    while (rs.next()) {
+                        out.add((Persistable) deserialize(rs.getBytes(1)));
+                    }
+                    return out;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
-    private List<Persistable> queryUpdates(String sql){
-        try (Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery(sql);
-            List<Persistable> out = new ArrayList<>();
-            while (rs.next()) {
-                byte[] bytes = rs.getBytes(1);
-                out.add((Persistable) deserialize(bytes));
+    /**
+     * Get all updates for the given session, type and worker IDs with timestamps in the specified range
+     *
+     * @param startTime Start of the range (inclusive)
+     * @param endTime   End of the range (inclusive)
+     * @return Updates in the range, in order of timestamp
+     */
+    public List<Persistable> getUpdatesInRange(String sessionID, String typeID, String workerID, long startTime,
+                    long endTime) {
+        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES + " WHERE SessionID = ? AND TypeID = ? "
+                        + "AND WorkerID = ? AND Timestamp >= ? AND Timestamp <= ? ORDER BY Timestamp;";
+        return queryUpdates(sql, sessionID, typeID, workerID, startTime, endTime);
+    }
+
+    /**
+     * Get (at most) approximately maxUpdates updates for the given session, type and worker IDs, spread evenly over
+     * the specified time range. The range (restricted to the timestamps actually present) is split into maxUpdates
+     * equal-length buckets, and the latest update in each non-empty bucket is returned. This allows plotting long
+     * runs without retrieving and decoding every stored update.
+     *
+     * @param startTime  Start of the range (inclusive)
+     * @param endTime    End of the range (inclusive)
+     * @param maxUpdates Maximum number of updates to return
+     * @return Downsampled updates in the range, in order of timestamp
+     */
+    public List<Persistable> getUpdatesDownsampled(String sessionID, String typeID, String workerID, long startTime,
+                    long endTime, int maxUpdates) {
+        if (maxUpdates <= 0)
+            throw new IllegalArgumentException("maxUpdates must be > 0. Got: " + maxUpdates);
+        String where = " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ? AND Timestamp >= ? AND Timestamp <= ?";
+        long[] first = queryLongs("SELECT Timestamp FROM " + TABLE_NAME_UPDATES + where
+                        + " ORDER BY Timestamp ASC LIMIT 1;", sessionID, typeID, workerID, startTime, endTime);
+        if (first.length == 0)
+            return Collections.emptyList();
+        long[] last = queryLongs("SELECT Timestamp FROM " + TABLE_NAME_UPDATES + where
+                        + " ORDER BY Timestamp DESC LIMIT 1;", sessionID, typeID, workerID, startTime, endTime);
+
+        long bucketSize = (last[0] - first[0]) / maxUpdates + 1;
+        long[] timestamps = queryLongs("SELECT MAX(Timestamp) FROM " + TABLE_NAME_UPDATES + where
+                        + " GROUP BY (Timestamp - ?) / ?;", sessionID, typeID, workerID, first[0], last[0],
+                        first[0], bucketSize);
+        return getUpdates(sessionID, typeID, workerID, timestamps);
+    }
+
+    @Override
+    public List<String> listTimeSeriesMetrics(String sessionID, String typeID, String workerID) {
+        synchronized (timeSeries) {
+            initializeTimeSeries(sessionID, typeID, workerID);
+            return timeSeries.listMetrics(sessionID, typeID, workerID);
+        }
+    }
+
+    @Override
+    public List<TimeSeriesBucket> getTimeSeries(String sessionID, String typeID, String workerID, String metric,
+                    TimeSeriesBucket.RangeType rangeType, long rangeStart, long rangeEnd, int maxBuckets) {
+        synchronized (timeSeries) {
+            initializeTimeSeries(sessionID, typeID, workerID);
+            return timeSeries.query(sessionID, typeID, workerID, metric, rangeType, rangeStart, rangeEnd, maxBuckets);
+        }
+    }
+
+    private void initializeTimeSeries(String sessionID, String typeID, String workerID) {
+        //Only called while synchronized on timeSeries, hence no updates can be put until the aggregates are populated
+        if (timeSeries.isInitialized(sessionID, typeID, workerID))
+            return;
+        timeSeries.markInitialized(sessionID, typeID, workerID);
+        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_UPDATES
+                        + " WHERE SessionID = ? AND TypeID = ? AND WorkerID = ? ORDER BY Timestamp;";
+        synchronized (this) {
+            flush();
+            //Deserialize and aggregate one at a time, rather than holding all updates in memory at once
+            try (ResultSet rs = prepare(sql, sessionID, typeID, workerID).executeQuery()) {
+                while (rs.next()) {
+                    Persistable p = deserialize(rs.getBytes(1));
+                    timeSeries.add(p);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-            return out;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
         }
     }
 
     @Override
     public StorageMetaData getStorageMetaData(String sessionID, String typeID) {
-        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_METADATA + " WHERE SessionID = '" + sessionID
-                        + "' AND TypeID = '" + typeID + "' LIMIT 1;";
-        return queryAndGet(sql, 1);
+        String sql = "SELECT ObjectBytes FROM " + TABLE_NAME_METADATA + " WHERE SessionID = ? AND TypeID = ? LIMIT 1;";
+        return queryAndGet(sql, sessionID, typeID);
     }
 
     @Override
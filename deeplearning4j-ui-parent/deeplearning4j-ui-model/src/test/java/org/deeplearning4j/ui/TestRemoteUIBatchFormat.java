@@ -0,0 +1,135 @@
+package org.deeplearning4j.ui;
+
+import org.deeplearning4j.api.storage.Persistable;
+import org.deeplearning4j.api.storage.StorageMetaData;
+import org.deeplearning4j.api.storage.StorageType;
+import org.deeplearning4j.api.storage.impl.CollectionStatsStorageRouter;
+import org.deeplearning4j.api.storage.impl.RemoteUIBatchFormat;
+import org.deeplearning4j.ui.stats.impl.SbeStatsInitializationReport;
+import org.deeplearning4j.ui.stats.impl.SbeStatsReport;
+import org.deeplearning4j.ui.storage.impl.SbeStorageMetaData;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.*;
+
+public class TestRemoteUIBatchFormat {
+
+    @Test
+    public void testEncodeDecodeRoute() throws Exception {
+
+        StorageMetaData smd = new SbeStorageMetaData(123, "sid", "tid", "wid", SbeStatsInitializationReport.class,
+                        SbeStatsReport.class);
+
+        SbeStatsInitializationReport init = new SbeStatsInitializationReport();
+        init.reportIDs("sid", "tid", "wid", 3145253452L);
+        init.reportHardwareInfo(1, 2, 3, 4, null, null, "2344253");
+
+        List<Persistable> reports = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            SbeStatsReport r = new SbeStatsReport();
+            r.reportIDs("sid", "tid", "wid", 123456 + i);
+            r.reportIterationCount(i);
+            r.reportScore(1.0 / (i + 1));
+            r.reportPerformance(10 * i, 20, 30, 40, 50);
+            reports.add(r);
+        }
+
+        List<RemoteUIBatchFormat.Entry> entries = new ArrayList<>();
+        entries.add(new RemoteUIBatchFormat.Entry(StorageType.MetaData, smd));
+        entries.add(new RemoteUIBatchFormat.Entry(StorageType.StaticInfo, init));
+        for (Persistable p : reports) {
+            entries.add(new RemoteUIBatchFormat.Entry(StorageType.Update, p));
+        }
+
+        byte[] uncompressed = RemoteUIBatchFormat.encode(entries, false);
+        byte[] compressed = RemoteUIBatchFormat.encode(entries, true);
+        assertTrue(compressed.length < uncompressed.length);
+
+        for (byte[] bytes : Arrays.asList(uncompressed, compressed)) {
+            List<RemoteUIBatchFormat.Entry> decoded = RemoteUIBatchFormat.decode(bytes);
+            assertEquals(entries, decoded);
+
+            List<StorageMetaData> metaData = new ArrayList<>();
+            List<Persistable> staticInfo = new ArrayList<>();
+            List<Persistable> updates = new ArrayList<>();
+            RemoteUIBatchFormat.route(decoded, new CollectionStatsStorageRouter(metaData, staticInfo, updates));
+
+            assertEquals(Collections.singletonList(smd), metaData);
+            assertEquals(Collections.<Persistable>singletonList(init), staticInfo);
+            assertEquals(reports, updates);
+        }
+    }
+
+    @Test
+    public void testInvalidBatch() throws Exception {
+        try {
+            RemoteUIBatchFormat.decode(new byte[] {1, 2, 3, 4, 5, 6});
+            fail("Expected exception");
+        } catch (IOException e) {
+            //OK
+        }
+
+        //Unknown class: entry should be skipped, not fail the whole batch
+        SbeStatsReport r = new SbeStatsReport();
+        r.reportIDs("sid", "tid", "wid", 123456);
+        r.reportIterationCount(1);
+        List<RemoteUIBatchFormat.Entry> entries = new ArrayList<>();
+        entries.add(new RemoteUIBatchFormat.Entry(StorageType.Update, r));
+        byte[] bytes = RemoteUIBatchFormat.encode(entries, false);
+        String className = SbeStatsReport.class.getName();
+        String replaced = className.substring(0, className.length() - 1) + "X";
+        byte[] classBytes = className.getBytes("UTF-8");
+        byte[] replacedBytes = replaced.getBytes("UTF-8");
+        //Header (6 bytes) + number of entries (4 bytes) + type (1 byte) + UTF length (2 bytes)
+        int offset = 6 + 4 + 1 + 2;
+        assertArrayEquals(classBytes, Arrays.copyOfRange(bytes, offset, offset + classBytes.length));
+        System.arraycopy(replacedBytes, 0, bytes, offset, replacedBytes.length);
+
+        assertEquals(0, RemoteUIBatchFormat.decode(bytes).size());
+
+        //Entry length larger than the remaining input (or maximum batch size, for compressed batches): should fail
+        // with an IOException without attempting to allocate the entry
+        bytes = RemoteUIBatchFormat.encode(entries, false);
+        int lengthOffset = offset + classBytes.length;
+        for (int length : new int[] {Integer.MAX_VALUE, bytes.length}) {
+            byte[] modified = bytes.clone();
+            ByteBuffer.wrap(modified).putInt(lengthOffset, length);
+            for (boolean compressed : new boolean[] {false, true}) {
+                byte[] toDecode = (compressed ? compressBody(modified) : modified);
+                if (compressed && length < RemoteUIBatchFormat.MAX_BATCH_BYTES) {
+                    //Compressed: only the maximum batch size can be checked up front
+                    continue;
+                }
+                try {
+                    RemoteUIBatchFormat.decode(toDecode);
+                    fail("Expected exception");
+                } catch (IOException e) {
+                    //OK
+                }
+            }
+        }
+    }
+
+    /**
+     * Deflate compress the body of an uncompressed batch, and set the compressed flag in the header
+     */
+    private static byte[] compressBody(byte[] uncompressed) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(uncompressed, 0, 6);
+        DeflaterOutputStream dos = new DeflaterOutputStream(baos);
+        dos.write(uncompressed, 6, uncompressed.length - 6);
+        dos.finish();
+        byte[] out = baos.toByteArray();
+        out[5] = RemoteUIBatchFormat.FLAG_COMPRESSED;
+        return out;
+    }
+}
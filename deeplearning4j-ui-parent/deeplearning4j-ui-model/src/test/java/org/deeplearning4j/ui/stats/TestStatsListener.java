@@ -8,15 +8,22 @@ import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.ui.stats.impl.DefaultStatsUpdateConfiguration;
 import org.deeplearning4j.ui.storage.mapdb.MapDBStatsStorage;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Alex on 07/10/2016.
@@ -76,4 +83,97 @@ public class TestStatsListener {
 
     }
 
+    @Test
+    public void testListenerAsync() throws Exception {
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().iterations(1)
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).list()
+                        .layer(0, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(4).nOut(3).build())
+                        .pretrain(false).backprop(true).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        StatsStorage ss = new MapDBStatsStorage(); //in-memory
+        StatsListener listener = new StatsListener(ss, null, new DefaultStatsUpdateConfiguration.Builder()
+                        .reportingFrequency(1).asyncCollection(true).asyncQueueSize(2).build(), null, null);
+        net.setListeners(listener);
+
+        int nFits = 20;
+        for (int i = 0; i < nFits; i++) {
+            net.fit(ds);
+        }
+        assertTrue(listener.awaitPendingStats(60, TimeUnit.SECONDS));
+
+        String sessionID = ss.listSessionIDs().get(0);
+        String typeID = ss.listTypeIDsForSession(sessionID).get(0);
+        String workerID = ss.listWorkerIDsForSession(sessionID).get(0);
+        List<Persistable> updates = ss.getAllUpdatesAfter(sessionID, typeID, workerID, 0);
+        assertEquals(nFits, updates.size() + listener.getNumDroppedReports());
+        assertTrue(updates.size() > 0);
+
+        //Background thread should be stopped on shutdown
+        String threadName = "StatsListener-" + listener.getWorkerID();
+        assertNotNull(findThread(threadName));
+        assertTrue(listener.shutdown(60, TimeUnit.SECONDS));
+        Thread t = findThread(threadName);
+        if (t != null) {
+            t.join(10000);
+            assertFalse(t.isAlive());
+        }
+    }
+
+    private static Thread findThread(String name) {
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (name.equals(t.getName()) && t.isAlive()) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testFusedArrayStats() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray arr = Nd4j.rand(new int[] {10, 20}, 'f').subi(0.5);
+        int nBins = 10;
+
+        FusedArrayStats stats = FusedArrayStats.calculate(arr, nBins);
+        assertEquals(arr.minNumber().doubleValue(), stats.getMin(), 1e-6);
+        assertEquals(arr.maxNumber().doubleValue(), stats.getMax(), 1e-6);
+        assertEquals(arr.meanNumber().doubleValue(), stats.getMean(), 1e-5);
+        assertEquals(arr.stdNumber().doubleValue(), stats.getStdev(), 1e-5);
+        assertEquals(arr.norm1Number().doubleValue() / arr.length(), stats.getMeanMagnitude(), 1e-5);
+
+        org.nd4j.linalg.api.ops.impl.transforms.Histogram hOp =
+                        new org.nd4j.linalg.api.ops.impl.transforms.Histogram(arr, nBins);
+        Nd4j.getExecutioner().exec(hOp);
+        int[] counts = stats.getHistogram().getBinCounts();
+        int sum = 0;
+        for (int i = 0; i < nBins; i++) {
+            //Allow for float vs. double rounding for values exactly on a bin edge
+            assertEquals((int) hOp.z().getDouble(i), counts[i], 1);
+            sum += counts[i];
+        }
+        assertEquals(arr.length(), sum);
+
+        FusedArrayStats nativeStats = FusedArrayStats.calculateNative(arr, nBins, true, true, true);
+        assertEquals(stats.getMin(), nativeStats.getMin(), 1e-6);
+        assertEquals(stats.getMax(), nativeStats.getMax(), 1e-6);
+        assertEquals(stats.getMean(), nativeStats.getMean(), 1e-5);
+        assertEquals(stats.getStdev(), nativeStats.getStdev(), 1e-5);
+        assertEquals(stats.getMeanMagnitude(), nativeStats.getMeanMagnitude(), 1e-5);
+        int[] nativeCounts = nativeStats.getHistogram().getBinCounts();
+        for (int i = 0; i < nBins; i++) {
+            assertEquals(counts[i], nativeCounts[i], 1);
+        }
+
+        //Stats that are not requested are not calculated
+        FusedArrayStats meanOnly = FusedArrayStats.calculateNative(arr, 0, true, false, false);
+        assertEquals(stats.getMean(), meanOnly.getMean(), 1e-5);
+        assertTrue(Double.isNaN(meanOnly.getStdev()));
+        assertNull(meanOnly.getHistogram());
+    }
+
 }
@@ -6,18 +6,26 @@ import org.deeplearning4j.api.storage.Persistable;
 import org.deeplearning4j.api.storage.StatsStorage;
 import org.deeplearning4j.api.storage.StatsStorageEvent;
 import org.deeplearning4j.api.storage.StatsStorageListener;
+import org.deeplearning4j.api.storage.TimeSeriesBucket;
+import org.deeplearning4j.api.storage.TimeSeriesStatsStorage;
+import org.deeplearning4j.api.storage.impl.TimeSeriesAggregator;
 import org.deeplearning4j.ui.stats.api.StatsInitializationReport;
 import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.api.StatsReportMetrics;
 import org.deeplearning4j.ui.stats.impl.SbeStatsInitializationReport;
 import org.deeplearning4j.ui.stats.impl.SbeStatsReport;
 import org.deeplearning4j.ui.stats.impl.java.JavaStatsInitializationReport;
 import org.deeplearning4j.ui.stats.impl.java.JavaStatsReport;
+import org.deeplearning4j.ui.storage.columnar.ColumnarFileStatsStorage;
 import org.deeplearning4j.ui.storage.mapdb.MapDBStatsStorage;
 import org.deeplearning4j.ui.storage.sqlite.J7FileStatsStorage;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.nio.file.Files;
 import java.util.*;
 
@@ -33,7 +41,7 @@ public class TestStatsStorage {
     public void testStatsStorage() throws IOException {
 
         for (boolean useJ7Storage : new boolean[] {false, true}) {
-            for (int i = 0; i < 3; i++) {
+            for (int i = 0; i < 4; i++) {
 
                 StatsStorage ss;
                 switch (i) {
@@ -50,6 +58,10 @@ public class TestStatsStorage {
                     case 2:
                         ss = new InMemoryStatsStorage();
                         break;
+                    case 3:
+                        ss = new ColumnarFileStatsStorage(
+                                        Files.createTempDirectory("TestColumnarStatsStore").toFile());
+                        break;
                     default:
                         throw new RuntimeException();
                 }
@@ -332,6 +344,309 @@ public class TestStatsStorage {
         }
     }
 
+    @Test
+    public void testJ7FileStatsStorageRangeQueries() throws IOException {
+        File f = Files.createTempFile("TestJ7FileStatsStoreRange", ".db").toFile();
+        f.delete();
+        J7FileStatsStorage ss = new J7FileStatsStorage(f);
+
+        ss.putStaticInfo(getInitReport(0, 0, 0, true));
+        List<Persistable> updates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            updates.add(getReport(0, 0, 0, 10000 + i, true));
+        }
+        //Single put of many updates: written as a single batch
+        ss.putUpdate(updates);
+        ss.putUpdate(getReport(0, 0, 1, 10000, true));
+
+        assertEquals(1000, ss.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        assertEquals(1000, ss.getAllUpdatesAfter("sid0", "tid0", "wid0", 0).size());
+        assertEquals(1001, ss.getAllUpdatesAfter("sid0", "tid0", 0).size());
+        assertEquals(2, ss.getLatestUpdateAllWorkers("sid0", "tid0").size());
+
+        List<Persistable> range = ss.getUpdatesInRange("sid0", "tid0", "wid0", 10100, 10199);
+        assertEquals(100, range.size());
+        assertEquals(10100, range.get(0).getTimeStamp());
+        assertEquals(10199, range.get(99).getTimeStamp());
+
+        List<Persistable> downsampled = ss.getUpdatesDownsampled("sid0", "tid0", "wid0", 0, Long.MAX_VALUE, 50);
+        assertTrue(downsampled.size() > 0 && downsampled.size() <= 50);
+        long last = -1;
+        for (Persistable p : downsampled) {
+            assertTrue(p.getTimeStamp() > last);
+            last = p.getTimeStamp();
+        }
+        assertEquals(10999, last);
+        assertEquals(0, ss.getUpdatesDownsampled("sid0", "tid0", "wid0", 0, 9999, 50).size());
+
+        //Reopen: all writes should have been committed on close
+        ss.close();
+        ss = new J7FileStatsStorage(f);
+        assertEquals(1000, ss.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        assertEquals(Collections.singletonList("sid0"), ss.listSessionIDs());
+        ss.close();
+    }
+
+    @Test
+    public void testTimeSeriesQueries() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            TimeSeriesStatsStorage ss;
+            boolean useJ7Storage = (i == 1);
+            switch (i) {
+                case 0:
+                    File f = Files.createTempFile("TestMapDbStatsStoreTS", ".db").toFile();
+                    f.delete();
+                    ss = new MapDBStatsStorage.Builder().file(f).build();
+                    break;
+                case 1:
+                    File f2 = Files.createTempFile("TestJ7FileStatsStoreTS", ".db").toFile();
+                    f2.delete();
+                    ss = new J7FileStatsStorage(f2);
+                    break;
+                case 2:
+                    ss = new InMemoryStatsStorage();
+                    break;
+                case 3:
+                    ss = new ColumnarFileStatsStorage(Files.createTempDirectory("TestColumnarStatsStoreTS").toFile());
+                    break;
+                default:
+                    throw new RuntimeException();
+            }
+
+            ss.putStaticInfo(getInitReport(0, 0, 0, useJ7Storage));
+
+            //Updates stored before the first query: aggregated on the first query
+            int nBefore = 100;
+            for (int j = 0; j < nBefore; j++) {
+                ss.putUpdate(getTimeSeriesReport(j, useJ7Storage));
+            }
+
+            List<String> metrics = ss.listTimeSeriesMetrics("sid0", "tid0", "wid0");
+            assertTrue(metrics.contains(StatsReportMetrics.ITERATION));
+            assertTrue(metrics.contains(StatsReportMetrics.SCORE));
+            assertTrue(ss.listTimeSeriesMetrics("sid0", "tid0", "wid1").isEmpty());
+
+            List<TimeSeriesBucket> buckets = ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                            TimeSeriesBucket.RangeType.Iteration, 0, Long.MAX_VALUE, 1000);
+            assertEquals(nBefore, buckets.size());
+            for (int j = 0; j < nBefore; j++) {
+                TimeSeriesBucket b = buckets.get(j);
+                assertEquals(1, b.getCount());
+                assertEquals(j, b.getStartIteration());
+                assertEquals(2.0 * j, b.getMean(), 1e-10);
+            }
+
+            //Updates stored after the first query: aggregated incrementally, with more updates than max buckets
+            int nTotal = 5000;
+            for (int j = nBefore; j < nTotal; j++) {
+                ss.putUpdate(getTimeSeriesReport(j, useJ7Storage));
+            }
+
+            buckets = ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                            TimeSeriesBucket.RangeType.Timestamp, Long.MIN_VALUE, Long.MAX_VALUE, 100);
+            assertTrue(buckets.size() > 0 && buckets.size() <= 100);
+            int count = 0;
+            double sum = 0.0;
+            int lastEndIter = -1;
+            for (TimeSeriesBucket b : buckets) {
+                assertTrue(b.getStartIteration() > lastEndIter);
+                assertEquals(2.0 * b.getStartIteration(), b.getMin(), 1e-10);
+                assertEquals(2.0 * b.getEndIteration(), b.getMax(), 1e-10);
+                assertEquals(b.getEndIteration() - b.getStartIteration() + 1, b.getCount());
+                lastEndIter = b.getEndIteration();
+                count += b.getCount();
+                sum += b.getMean() * b.getCount();
+            }
+            assertEquals(nTotal, count);
+            assertEquals(nTotal - 1, lastEndIter);
+            assertEquals(2.0 * (nTotal - 1) / 2.0, sum / count, 1e-6);
+
+            //Sub-range: only buckets overlapping the range are returned
+            buckets = ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                            TimeSeriesBucket.RangeType.Iteration, 2000, 2999, 1000);
+            assertTrue(buckets.size() > 0);
+            assertTrue(buckets.get(0).getStartIteration() <= 2000 && buckets.get(0).getEndIteration() >= 2000);
+            TimeSeriesBucket lastBucket = buckets.get(buckets.size() - 1);
+            assertTrue(lastBucket.getStartIteration() <= 2999 && lastBucket.getEndIteration() >= 2999);
+
+            ss.close();
+        }
+    }
+
+    @Test
+    public void testTimeSeriesReplacedUpdates() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            TimeSeriesStatsStorage ss;
+            boolean useJ7Storage = (i == 1);
+            File columnarDir = null;
+            switch (i) {
+                case 0:
+                    File f = Files.createTempFile("TestMapDbStatsStoreTSR", ".db").toFile();
+                    f.delete();
+                    ss = new MapDBStatsStorage.Builder().file(f).build();
+                    break;
+                case 1:
+                    File f2 = Files.createTempFile("TestJ7FileStatsStoreTSR", ".db").toFile();
+                    f2.delete();
+                    ss = new J7FileStatsStorage(f2);
+                    break;
+                case 2:
+                    ss = new InMemoryStatsStorage();
+                    break;
+                default:
+                    columnarDir = Files.createTempDirectory("TestColumnarStatsStoreTSR").toFile();
+                    ss = new ColumnarFileStatsStorage(columnarDir);
+                    break;
+            }
+
+            int n = 10;
+            for (int j = 0; j < n; j++) {
+                ss.putUpdate(getTimeSeriesReport(j, useJ7Storage));
+            }
+            //Initialize the aggregates, then replace updates (same timestamp): latest and an earlier update
+            assertEquals(n, ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                            TimeSeriesBucket.RangeType.Iteration, 0, Long.MAX_VALUE, 1000).size());
+            StatsReport r9 = getTimeSeriesReport(n - 1, useJ7Storage);
+            r9.reportScore(100.0);
+            ss.putUpdate(r9);
+            StatsReport r3 = getTimeSeriesReport(3, useJ7Storage);
+            r3.reportScore(50.0);
+            ss.putUpdate(Collections.singletonList(r3));
+
+            List<TimeSeriesBucket> buckets = ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                            TimeSeriesBucket.RangeType.Iteration, 0, Long.MAX_VALUE, 1);
+            assertEquals(1, buckets.size());
+            assertEquals(n, buckets.get(0).getCount());
+            double expSum = 0.0;
+            for (int j = 0; j < n; j++) {
+                expSum += (j == 3 ? 50.0 : (j == n - 1 ? 100.0 : 2.0 * j));
+            }
+            assertEquals(expSum / n, buckets.get(0).getMean(), 1e-10);
+
+            //Replaced updates are in timestamp order, and each is in one bucket only
+            buckets = ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                            TimeSeriesBucket.RangeType.Iteration, 0, Long.MAX_VALUE, 1000);
+            assertEquals(n, buckets.size());
+            assertEquals(50.0, buckets.get(3).getMean(), 1e-10);
+            assertEquals(100.0, buckets.get(n - 1).getMean(), 1e-10);
+
+            ss.close();
+
+            if (columnarDir != null) {
+                //Read-only instance: rows appended for the replaced updates are also ignored
+                ss = new ColumnarFileStatsStorage(columnarDir, true);
+                buckets = ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                                TimeSeriesBucket.RangeType.Iteration, 0, Long.MAX_VALUE, 1);
+                assertEquals(n, buckets.get(0).getCount());
+                assertEquals(expSum / n, buckets.get(0).getMean(), 1e-10);
+                ss.close();
+            }
+        }
+    }
+
+    @Test
+    public void testTimeSeriesScanFallback() throws IOException {
+        //Storage implementations that don't implement TimeSeriesStatsStorage: values are aggregated from all updates
+        final InMemoryStatsStorage underlying = new InMemoryStatsStorage();
+        StatsStorage ss = (StatsStorage) Proxy.newProxyInstance(StatsStorage.class.getClassLoader(),
+                        new Class<?>[] {StatsStorage.class}, new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                                return method.invoke(underlying, args);
+                            }
+                        });
+        assertFalse(ss instanceof TimeSeriesStatsStorage);
+
+        int n = 20;
+        for (int j = 0; j < n; j++) {
+            ss.putUpdate(getTimeSeriesReport(j, false));
+        }
+
+        assertEquals(underlying.listTimeSeriesMetrics("sid0", "tid0", "wid0"),
+                        TimeSeriesAggregator.listTimeSeriesMetrics(ss, "sid0", "tid0", "wid0"));
+        List<TimeSeriesBucket> expected = underlying.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                        TimeSeriesBucket.RangeType.Iteration, 5, 14, 4);
+        List<TimeSeriesBucket> actual = TimeSeriesAggregator.getTimeSeries(ss, "sid0", "tid0", "wid0",
+                        StatsReportMetrics.SCORE, TimeSeriesBucket.RangeType.Iteration, 5, 14, 4);
+        assertEquals(expected, actual);
+        ss.close();
+    }
+
+    @Test
+    public void testColumnarFileStatsStorage() throws IOException {
+        File dir = Files.createTempDirectory("TestColumnarStatsStore").toFile();
+        //Small segments, so the columns span multiple segment files
+        ColumnarFileStatsStorage ss = new ColumnarFileStatsStorage(dir, false, 64, 0);
+        ss.putStaticInfo(getInitReport(0, 0, 0, false));
+        for (int i = 0; i < 100; i++) {
+            ss.putUpdate(getTimeSeriesReport(i, false));
+        }
+
+        //Read-only instance: tails the files being written
+        ColumnarFileStatsStorage reader = new ColumnarFileStatsStorage(dir, true, 1, 0);
+        assertEquals(64, reader.getSegmentRows());
+        CountingListener l = new CountingListener();
+        reader.registerStatsStorageListener(l);
+        assertEquals(Collections.singletonList("sid0"), reader.listSessionIDs());
+        assertEquals(100, reader.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        assertEquals(100, reader.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                        TimeSeriesBucket.RangeType.Iteration, 0, Long.MAX_VALUE, 1000).size());
+
+        for (int i = 100; i < 300; i++) {
+            ss.putUpdate(getTimeSeriesReport(i, false));
+        }
+        assertEquals(100, reader.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        reader.refresh();
+        assertEquals(200, l.countUpdate);
+        assertEquals(300, reader.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        assertEquals(getTimeSeriesReport(150, false), reader.getUpdate("sid0", "tid0", "wid0", 10150));
+        assertEquals(getTimeSeriesReport(299, false), reader.getLatestUpdate("sid0", "tid0", "wid0"));
+
+        List<TimeSeriesBucket> buckets = reader.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                        TimeSeriesBucket.RangeType.Timestamp, 10100, 10199, 10);
+        assertEquals(10, buckets.size());
+        for (int i = 0; i < 10; i++) {
+            TimeSeriesBucket b = buckets.get(i);
+            assertEquals(10, b.getCount());
+            assertEquals(100 + 10 * i, b.getStartIteration());
+            assertEquals(100 + 10 * i + 9, b.getEndIteration());
+            assertEquals(2.0 * (100 + 10 * i + 4.5), b.getMean(), 1e-10);
+        }
+
+        try {
+            reader.putUpdate(getTimeSeriesReport(300, false));
+            fail("Expected exception");
+        } catch (UnsupportedOperationException e) {
+            //Expected
+        }
+        reader.close();
+        ss.close();
+
+        //Reopen and append
+        ss = new ColumnarFileStatsStorage(dir);
+        assertEquals(300, ss.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        ss.putUpdate(getTimeSeriesReport(300, false));
+        buckets = ss.getTimeSeries("sid0", "tid0", "wid0", StatsReportMetrics.SCORE,
+                        TimeSeriesBucket.RangeType.Iteration, 299, 300, 10);
+        assertEquals(2, buckets.size());
+        assertEquals(600.0, buckets.get(1).getMean(), 1e-10);
+        ss.close();
+    }
+
+    private static StatsReport getTimeSeriesReport(int iter, boolean useJ7Storage) {
+        StatsReport rep;
+        if (useJ7Storage) {
+            rep = new JavaStatsReport();
+        } else {
+            rep = new SbeStatsReport();
+        }
+
+        rep.reportIDs("sid0", "tid0", "wid0", 10000 + iter);
+        rep.reportIterationCount(iter);
+        rep.reportScore(2.0 * iter);
+        return rep;
+    }
+
     private static StatsInitializationReport getInitReport(int idNumber, int tid, int wid, boolean useJ7Storage) {
         StatsInitializationReport rep;
         if (useJ7Storage) {